@@ -1,6 +1,7 @@
 package org.telosys.tools.eclipse.plugin.editors.dbconfig;
 
 import java.io.File;
+import java.lang.reflect.InvocationTargetException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
@@ -14,6 +15,7 @@ import org.eclipse.core.resources.IFolder;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jface.dialogs.ProgressMonitorDialog;
 import org.eclipse.jface.window.Window;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.ModifyEvent;
@@ -1999,7 +2001,7 @@ import org.telosys.tools.repository.rules.RepositoryRulesProvider;
     	
 		RepositoryModel repo = null ;
 
-		//--- 1) Generate the repository in memory
+		//--- 1) Generate the repository in memory ( in a cancelable task with a progress bar )
 		try {
 // #LGU ver 2.1.1
 //			RepositoryGenerator generator = new RepositoryGenerator(entityInformationProvider, uiInformationProvider, logger) ;
@@ -2007,9 +2009,16 @@ import org.telosys.tools.repository.rules.RepositoryRulesProvider;
 			RepositoryGenerator generator = new RepositoryGenerator(connectionManager, RepositoryRulesProvider.getRepositoryRules(), logger) ;	
 			
 //			repo = generator.generate(con, db); // ver 2.1.0 (for Database Id in model )
-			repo = generator.generate(db); // ver 2.1.1
-		} catch (TelosysToolsException e) {
-			MsgBox.error("Cannot generate.", e);
+//			repo = generator.generate(db); // ver 2.1.1
+			RepositoryGenerationTask task = new RepositoryGenerationTask(generator, con, db, logger);
+			ProgressMonitorDialog progressMonitorDialog = new ProgressMonitorDialog( Util.getActiveWindowShell() ) ;
+			progressMonitorDialog.run(true, true, task); // fork + cancelable
+			repo = task.getRepositoryModel();
+		} catch (InvocationTargetException e) {
+			MsgBox.error("Cannot generate.", e.getCause());
+			return false ;
+		} catch (InterruptedException e) {
+			MsgBox.info("Repository generation canceled.\n\nThe repository file has not been changed.");
 			return false ;
 		}
 			
@@ -0,0 +1,112 @@
+package org.telosys.tools.eclipse.plugin.editors.dbconfig;
+
+import java.lang.reflect.InvocationTargetException;
+import java.sql.Connection;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jface.operation.IRunnableWithProgress;
+import org.telosys.tools.commons.TelosysToolsException;
+import org.telosys.tools.commons.TelosysToolsLogger;
+import org.telosys.tools.commons.dbcfg.DatabaseConfiguration;
+import org.telosys.tools.commons.exception.CancelException;
+import org.telosys.tools.db.model.DatabaseModelMonitor;
+import org.telosys.tools.db.model.DatabaseModelStatistics;
+import org.telosys.tools.db.model.DatabaseTable;
+import org.telosys.tools.repository.RepositoryGenerator;
+import org.telosys.tools.repository.model.RepositoryModel;
+
+
+/**
+ * Eclipse runnable task with a progress bar 
+ * for the repository generation from the database metadata <br>
+ * The metadata loading can be canceled ( between two tables ) 
+ *  
+ * @author Laurent Guerin
+ *
+ */
+public class RepositoryGenerationTask implements IRunnableWithProgress 
+{
+	private final RepositoryGenerator   _generator ;
+	private final Connection            _connection ;
+	private final DatabaseConfiguration _databaseConfig ;
+	private final TelosysToolsLogger    _logger ;
+	
+	private RepositoryModel _repositoryModel = null ;
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 * @param generator
+	 * @param connection
+	 * @param databaseConfig
+	 * @param logger
+	 */
+	public RepositoryGenerationTask(RepositoryGenerator generator, Connection connection, 
+			DatabaseConfiguration databaseConfig, TelosysToolsLogger logger) 
+	{
+		super();
+		_generator      = generator ;
+		_connection     = connection ;
+		_databaseConfig = databaseConfig ;
+		_logger         = logger ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/* (non-Javadoc)
+	 * @see org.eclipse.jface.operation.IRunnableWithProgress#run(org.eclipse.core.runtime.IProgressMonitor)
+	 */
+	public void run(IProgressMonitor progressMonitor) throws InvocationTargetException, InterruptedException 
+	{
+		_logger.log(this, "run");
+		try {
+			_repositoryModel = _generator.generate(_connection, _databaseConfig, new MonitorAdapter(progressMonitor) );
+		} catch (TelosysToolsException e) {
+			throw new InvocationTargetException(e);
+		} catch (CancelException e) {
+			_logger.info("Repository generation canceled");
+			throw new InterruptedException("Repository generation canceled");
+		} finally {
+			progressMonitor.done();
+		}
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Returns the repository model generated by the task ( or null if not generated )
+	 * @return
+	 */
+	public RepositoryModel getRepositoryModel() 
+	{
+		return _repositoryModel ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Reports the database model loading in the Eclipse progress monitor 
+	 */
+	private static class MonitorAdapter implements DatabaseModelMonitor 
+	{
+		private final IProgressMonitor _progressMonitor ;
+		
+		private MonitorAdapter(IProgressMonitor progressMonitor) {
+			_progressMonitor = progressMonitor ;
+		}
+		
+		public void tablesDiscovered(int tablesCount) {
+			_progressMonitor.beginTask("Loading database metadata", tablesCount );
+		}
+		
+		public void tableLoaded(int tableNumber, int tablesCount, DatabaseTable table, DatabaseModelStatistics statistics) {
+			_progressMonitor.subTask("Table " + tableNumber + "/" + tablesCount + " : " + table.getTableName() );
+			_progressMonitor.worked(1);
+		}
+		
+		public void loadingDone(DatabaseModelStatistics statistics) {
+			_progressMonitor.subTask("Generating the entities and the links");
+		}
+		
+		public boolean isCanceled() {
+			return _progressMonitor.isCanceled();
+		}
+	}
+}
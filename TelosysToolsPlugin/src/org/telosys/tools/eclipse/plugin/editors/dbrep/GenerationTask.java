@@ -15,11 +15,9 @@ import org.telosys.tools.eclipse.plugin.commons.EclipseWksUtil;
 import org.telosys.tools.eclipse.plugin.commons.MsgBox;
 import org.telosys.tools.eclipse.plugin.commons.TelosysPluginException;
 import org.telosys.tools.eclipse.plugin.commons.Util;
-import org.telosys.tools.eclipse.plugin.config.ProjectConfig;
 import org.telosys.tools.generator.GeneratorContextException;
 import org.telosys.tools.generator.GeneratorException;
 import org.telosys.tools.generator.config.GeneratorConfig;
-import org.telosys.tools.generator.config.GeneratorConfigManager;
 import org.telosys.tools.generator.directive.DirectiveException;
 import org.telosys.tools.generator.target.TargetDefinition;
 
@@ -43,17 +41,13 @@ public class GenerationTask {
     	//--- Prepare the generation environment 	
     	telosysToolsLogger = ( editor.getLogger() != null ? editor.getLogger() : new ConsoleLogger() ) ;
     	
-    	String currentBundelName = editor.getCurrentBundleName();
-    	
     	telosysToolsLogger.log("GenerationTask initialization");
     	
 //    	repositoryModel = editor.getDatabaseRepository();
 
-		ProjectConfig projectConfig = editor.getProjectConfig();
-		
-		GeneratorConfigManager configManager = new GeneratorConfigManager(null);
+		//--- Configuration kept by the editor generation session ( loaded once for the current bundle )
     	try {
-			generatorConfig = configManager.initFromDirectory( projectConfig.getProjectFolder(), currentBundelName );
+			generatorConfig = editor.getGenerationSession().getGeneratorConfig();
 		} catch (GeneratorException e) {
         	MsgBox.error("GenerationTask constructor : Cannot initialize the generator configuration");
         	throw new RuntimeException("Cannot initialize the generator configuration");
@@ -13,18 +13,18 @@ import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.telosys.tools.commons.TelosysToolsLogger;
 import org.telosys.tools.commons.io.CopyHandler;
 import org.telosys.tools.commons.io.OverwriteChooser;
-import org.telosys.tools.commons.variables.Variable;
 import org.telosys.tools.eclipse.plugin.commons.CopyHandlerForRefresh;
 import org.telosys.tools.eclipse.plugin.commons.MsgBox;
 import org.telosys.tools.eclipse.plugin.commons.TelosysPluginException;
 import org.telosys.tools.eclipse.plugin.commons.dialogbox.OverwriteChooserDialogBox;
 import org.telosys.tools.eclipse.plugin.config.ProjectConfig;
 import org.telosys.tools.generator.BundleResourcesManager;
-import org.telosys.tools.generator.Generator;
 import org.telosys.tools.generator.GeneratorException;
+import org.telosys.tools.generator.ProjectGenerationSession;
 import org.telosys.tools.generator.config.GeneratorConfig;
 import org.telosys.tools.generator.context.Target;
 import org.telosys.tools.generator.target.TargetDefinition;
+import org.telosys.tools.generator.target.TargetVariables;
 import org.telosys.tools.repository.model.Entity;
 import org.telosys.tools.repository.model.RepositoryModel;
 
@@ -51,6 +51,8 @@ public class GenerationTaskWithProgress implements IRunnableWithProgress
 	private final ProjectConfig        _projectConfig ;
 	private final TelosysToolsLogger   _logger ;
 	
+	private final ProjectGenerationSession _generationSession ; // kept by the editor for all the generations
+	
 	//private String _currentEntityName = ENTITY_NONE ;
 	private Target _currentTarget = null ;
 	
@@ -98,6 +100,8 @@ public class GenerationTaskWithProgress implements IRunnableWithProgress
 
 		_logger   = logger ;
 		
+		_generationSession = editor.getGenerationSession();
+		
 		if ( _selectedEntities == null ) throw new TelosysPluginException("_selectedEntities is null ");
 		if ( _selectedTargets  == null ) throw new TelosysPluginException("_selectedTargets is null ");
 		if ( _repositoryModel  == null ) throw new TelosysPluginException("_repositoryModel is null ");
@@ -151,13 +155,14 @@ public class GenerationTaskWithProgress implements IRunnableWithProgress
 		// From _projectConfig.getProjectVariables : invalid variables $WEB, $SRC ... not in the list !!!
 		// Variable[] projectVariables = _projectConfig.getProjectVariables();
 		//Variable[] projectVariables = _generatorConfig.getProjectConfiguration().getAllVariables();
-		Variable[] projectVariables = _generatorConfig.getTelosysToolsCfg().getAllVariables();
+		//Variable[] projectVariables = _generatorConfig.getTelosysToolsCfg().getAllVariables();
+		// the variables are kept in the editor generation session 
 		
 		//--- 1) Copy the given resources (or do nothing if null)
 		int numberOfResourcesCopied = copyResourcesIfAny(_resourcesTargets);
 
 		//--- 2) Launch the generation
-		int numberOfFilesGenerated = generateSelectedTargets(progressMonitor, projectVariables);
+		int numberOfFilesGenerated = generateSelectedTargets(progressMonitor);
 	/***
 		// count = total number of work units into which the main task is been subdivided
 		progressMonitor.beginTask("Bulk generation in progress", totalWorkTasks ); 
@@ -252,12 +257,11 @@ public class GenerationTaskWithProgress implements IRunnableWithProgress
 	/**
 	 * Generates all the "selected targets" ( once or for each entity depending on the target's type ) 
 	 * @param progressMonitor
-	 * @param variables
 	 * @return
 	 * @throws InvocationTargetException
 	 * @throws InterruptedException
 	 */
-	private int generateSelectedTargets(IProgressMonitor progressMonitor, Variable[] variables ) 
+	private int generateSelectedTargets(IProgressMonitor progressMonitor) 
 				throws InvocationTargetException, InterruptedException 
 	{
 		//--- Separate targets in 2 list : "ONCE" and "ENTITY"
@@ -297,6 +301,14 @@ public class GenerationTaskWithProgress implements IRunnableWithProgress
 //		}
 		
 		
+		//--- Variables table shared by all the targets (built once for the editor session)
+		TargetVariables targetVariables ;
+		try {
+			targetVariables = _generationSession.getTargetVariables();
+		} catch (GeneratorException e) {
+			throw new InvocationTargetException(e);
+		}
+		
 		int numberOfFilesGenerated = 0 ; 
 		//--- For each entity
 		for ( String entityName : _selectedEntities ) {
@@ -310,7 +322,7 @@ public class GenerationTaskWithProgress implements IRunnableWithProgress
 					
 					//--- Get a specialized target for the current entity
 					Target target = new Target( targetDefinition, entity.getName(), 
-							entity.getBeanJavaClass(), variables );
+							entity.getBeanJavaClass(), targetVariables );
 					
 					//numberOfFilesGenerated = numberOfFilesGenerated + generateTarget(progressMonitor, target, selectedEntities); 
 					numberOfFilesGenerated = numberOfFilesGenerated + generateTarget(progressMonitor, target, _selectedEntities); 
@@ -328,7 +340,7 @@ public class GenerationTaskWithProgress implements IRunnableWithProgress
 		
 		//--- Finally, generate the "ONCE" targets ( NEW in version 2.0.3 / Feb 2013 )
 		for ( TargetDefinition targetDefinition : onceTargets ) {
-			Target target = new Target( targetDefinition, "", "", variables );
+			Target target = new Target( targetDefinition, "", "", targetVariables );
 			//numberOfFilesGenerated = numberOfFilesGenerated + generateTarget(progressMonitor, target, selectedEntities); 
 			numberOfFilesGenerated = numberOfFilesGenerated + generateTarget(progressMonitor, target, _selectedEntities); 
 		}
@@ -372,9 +384,9 @@ public class GenerationTaskWithProgress implements IRunnableWithProgress
 		LinkedList<Target> generatedTargets = new LinkedList<Target>();
 		try {
 			//Generator generator = new Generator(target, _generatorConfig, _logger);
-			Generator generator = new Generator(target, _generatorConfig, _repositoryModel, _logger); // v 2.0.7
-			//generator.setSelectedEntitiesInContext(selectedEntities); // New [2013-02-04]
-			generator.generateTarget(target, _repositoryModel, selectedEntitiesNames, generatedTargets);						
+			//Generator generator = new Generator(target, _generatorConfig, _repositoryModel, _logger, _generationSession); // v 2.0.7
+			//generator.generateTarget(target, _repositoryModel, selectedEntitiesNames, generatedTargets);
+			_generationSession.generateTarget(target, selectedEntitiesNames, generatedTargets); // warm engines kept by the editor						
 			
 		} catch (GeneratorException e) {
 			// if the "run" method must propagate a checked exception, 
@@ -1,12 +1,22 @@
 package org.telosys.tools.eclipse.plugin.editors.dbrep;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.ui.IEditorInput;
@@ -23,7 +33,10 @@ import org.telosys.tools.eclipse.plugin.commons.MsgBox;
 import org.telosys.tools.eclipse.plugin.commons.PluginLogger;
 import org.telosys.tools.eclipse.plugin.config.ProjectConfig;
 import org.telosys.tools.eclipse.plugin.config.ProjectConfigManager;
+import org.telosys.tools.generator.GeneratorException;
+import org.telosys.tools.generator.ProjectGenerationSession;
 import org.telosys.tools.generator.target.TargetDefinition;
+import org.telosys.tools.repository.model.Entity;
 import org.telosys.tools.repository.model.RepositoryModel;
 import org.telosys.tools.repository.persistence.StandardFilePersistenceManager;
 
@@ -48,12 +61,27 @@ public class RepositoryEditor extends FormEditor
 	/** The dirty flag : see isDirty() */
     private boolean  _dirty = false;
 
+	/** The entities modified since the last save ( only them are serialized again ) */
+	private final Set<Entity> _changedEntities = new HashSet<Entity>();
+
+	/** Modifications not attached to a single entity : all the entities must be checked at the next save */
+	private boolean  _unknownChanges = false ;
+
 	private String          _fileName = "???" ;
 	private IFile           _file     = null ;
 	private RepositoryModel _repositoryModel = null;
 	
 	private String          _currentBundle = null ; // v 2.0.7
 	
+	private ProjectGenerationSession _generationSession = null ; // kept for all the generations launched from this editor
+	
+	/** Invalidates the generation session when the configuration or the templates are modified */
+	private final IResourceChangeListener _resourceChangeListener = new IResourceChangeListener() {
+		public void resourceChanged(IResourceChangeEvent event) {
+			notifyResourcesChanged(event.getDelta());
+		}
+	};
+	
 	//--- Pages managed by this editor
 	private RepositoryEditorPage1 _page1 = null ;
 	private RepositoryEditorPage2 _page2 = null ;
@@ -103,6 +131,17 @@ public class RepositoryEditor extends FormEditor
 
 		_repositoryModel = loadRepository( _file );
 		
+		ResourcesPlugin.getWorkspace().addResourceChangeListener(_resourceChangeListener, IResourceChangeEvent.POST_CHANGE);
+	}
+	
+	/* (non-Javadoc)
+	 * @see org.eclipse.ui.forms.editor.FormEditor#dispose()
+	 */
+	@Override
+	public void dispose() {
+		ResourcesPlugin.getWorkspace().removeResourceChangeListener(_resourceChangeListener);
+		_generationSession = null ;
+		super.dispose();
 	}
 	
 	private RepositoryModel loadRepository( IFile iFile )
@@ -123,14 +162,14 @@ public class RepositoryEditor extends FormEditor
 		return repositoryModel ;
 	}
 
-	private void saveRepository( RepositoryModel repositoryModel, IFile iFile )
+	private void saveRepository( RepositoryModel repositoryModel, IFile iFile, Collection<Entity> changedEntities )
 	{
 		File repositoryFile = EclipseWksUtil.toFile(iFile);
 
 		_logger.info("Save repository in file " + repositoryFile.getAbsolutePath());
 		StandardFilePersistenceManager persistenceManager = new StandardFilePersistenceManager(repositoryFile, _logger);
 		try {
-			persistenceManager.save(repositoryModel);
+			persistenceManager.save(repositoryModel, changedEntities);
 			_logger.info("Repository saved.");
 		} catch (TelosysToolsException e) {
 			MsgBox.error("Cannot save repository : "
@@ -175,13 +214,41 @@ public class RepositoryEditor extends FormEditor
 
 	public void setDirty()
 	{
+		_unknownChanges = true ;
 		setDirty(true);
 //		editorDirtyStateChanged(); // Notify the editor 
 	}
+
+	/**
+	 * Set the editor as dirty after a modification of the given entity
+	 * @param entity the modified entity ( or null if unknown )
+	 */
+	public void setDirty(Entity entity)
+	{
+		if ( entity != null ) {
+			_changedEntities.add(entity);
+		}
+		else {
+			_unknownChanges = true ;
+		}
+		setDirty(true);
+	}
+	
+	/**
+	 * Returns the entity currently edited in the first page 
+	 * @return the entity or null if none
+	 */
+	public Entity getCurrentEntity()
+	{
+		return _page1 != null ? _page1.getCurrentEntity() : null ;
+	}
 	
 	private void setDirty(boolean flag)
 	{
 		_dirty = flag ;
+		if ( flag && _generationSession != null ) {
+			_generationSession.modelChanged(_repositoryModel); // the model has been modified in the editor
+		}
 		editorDirtyStateChanged(); // Notify the editor 
 	}
 
@@ -193,7 +260,11 @@ public class RepositoryEditor extends FormEditor
 
 		monitor.beginTask( "Saving the repository...", IProgressMonitor.UNKNOWN );
 
-		saveRepository(_repositoryModel, _file );
+		//--- Only the modified entities are serialized again ( all the entities are checked if unknown changes )
+		Collection<Entity> changedEntities = _unknownChanges ? null : new ArrayList<Entity>(_changedEntities) ;
+		saveRepository(_repositoryModel, _file, changedEntities );
+		_changedEntities.clear();
+		_unknownChanges = false ;
 		
 		setDirty(false);
 		
@@ -279,6 +350,67 @@ public class RepositoryEditor extends FormEditor
 	//----------------------------------------------------------------------------------------------
 	public void setCurrentBundleName(String bundleName) {
 		_currentBundle = bundleName ;
+		if ( _generationSession != null ) {
+			_generationSession.setBundleName(bundleName);
+		}
+	}
+	//----------------------------------------------------------------------------------------------
+	/**
+	 * Returns the generation session kept by this editor ( created on the first call ) 
+	 * @return
+	 */
+	public synchronized ProjectGenerationSession getGenerationSession() {
+		if ( _generationSession == null ) {
+			_generationSession = new ProjectGenerationSession(getProjectConfig().getProjectFolder(), 
+					_currentBundle, _repositoryModel, _logger);
+		}
+		return _generationSession ;
+	}
+	//----------------------------------------------------------------------------------------------
+	/**
+	 * Notifies the generation session of the files modified in the templates folder 
+	 * and of the project configuration modification
+	 * @param delta
+	 */
+	private void notifyResourcesChanged(IResourceDelta delta) {
+		final ProjectGenerationSession session = _generationSession ;
+		if ( session == null || delta == null ) {
+			return ;
+		}
+		final String templatesFolder ;
+		try {
+			templatesFolder = session.getTemplatesFolder().getAbsolutePath() + File.separator ;
+		} catch (GeneratorException e) {
+			session.configurationChanged();
+			return ;
+		}
+		final IFile configFile = getProject().getFile("telosys-tools.cfg");
+		final Set<String> changedFiles = new TreeSet<String>();
+		final boolean[] configChanged = { false } ;
+		try {
+			delta.accept(new IResourceDeltaVisitor() {
+				public boolean visit(IResourceDelta resourceDelta) {
+					IResource resource = resourceDelta.getResource();
+					if ( resource.getType() == IResource.FILE && resource.getLocation() != null ) {
+						if ( resource.equals(configFile) ) {
+							configChanged[0] = true ;
+						}
+						String path = resource.getLocation().toFile().getAbsolutePath();
+						if ( path.startsWith(templatesFolder) ) {
+							changedFiles.add( path.substring(templatesFolder.length()).replace('\\', '/') );
+						}
+					}
+					return true ;
+				}
+			});
+		} catch (CoreException e) {
+			session.invalidateAll();
+			return ;
+		}
+		session.templatesChanged(changedFiles);
+		if ( configChanged[0] ) {
+			session.configurationChanged();
+		}
 	}
 	//----------------------------------------------------------------------------------------------
 	public String getCurrentBundleName() {
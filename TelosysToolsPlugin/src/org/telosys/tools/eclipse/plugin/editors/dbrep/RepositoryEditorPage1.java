@@ -126,6 +126,22 @@ import org.telosys.tools.repository.model.RepositoryModel;
 		//this.initialTargetsList = targetsList ;
 	}
 
+	/**
+	 * Returns the entity currently displayed in the page
+	 * @return the entity or null if none
+	 */
+	public Entity getCurrentEntity()
+	{
+		return _currentEntity ;
+	}
+	
+	@Override
+	protected void setDirty()
+	{
+		//--- All the modifications of this page are done on the current entity 
+		getRepositoryEditor().setDirty(_currentEntity);
+	}
+
 	protected boolean isPopulateInProgress()
 	{
 		return _bPopulateInProgress ;
@@ -29,7 +29,8 @@ class TableViewerCellModifier implements ICellModifier
 	
 	private void setDirty()
 	{
-		_editor.setDirty();
+		//--- The cells are the attributes of the entity currently edited
+		_editor.setDirty( _editor.getCurrentEntity() );
 	}
 
 	private void log(Object o, String s)
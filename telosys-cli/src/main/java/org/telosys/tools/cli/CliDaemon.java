@@ -0,0 +1,204 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.cli;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.telosys.tools.commons.TelosysToolsLogger;
+import org.telosys.tools.generator.GeneratorException;
+import org.telosys.tools.generator.engine.GeneratorUberspect;
+
+/**
+ * Daemon keeping a project loaded in memory and serving generation requests <br>
+ * Line protocol ( one request per line, one response line per request ) : <br>
+ * . "generate [entities|*] [targets|*]" ( comma separated names ) -> "OK files=N time=Xms" <br>
+ * . "reload" -> "OK reloaded" <br>
+ * . "status" -> "OK entities=N targets=N engines=N" <br>
+ * . "stats"  -> "OK introspection.hits=N introspection.misses=N introspection.shared=N" <br>
+ * . "ping"   -> "OK" <br>
+ * . "stop"   -> "OK stopped" ( the daemon stops ) <br>
+ * Any error -> "ERROR message" <br>
+ * The requests can be read from "stdin" or from a local socket ( bound to the loopback address only ).
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class CliDaemon {
+
+	private final static String ALL = "*" ;
+	
+	private final ProjectGenerator   projectGenerator ;
+	private final TelosysToolsLogger logger ;
+	
+	private volatile boolean stopped = false ;
+	
+	/**
+	 * Constructor
+	 * @param projectGenerator the project generator (already loaded)
+	 * @param logger
+	 */
+	public CliDaemon(ProjectGenerator projectGenerator, TelosysToolsLogger logger) {
+		super();
+		this.projectGenerator = projectGenerator;
+		this.logger = logger;
+	}
+
+	/**
+	 * Returns true if a "stop" request has been received
+	 * @return
+	 */
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	/**
+	 * Executes the given request line 
+	 * @param line
+	 * @return the response line ( or null if the line is void )
+	 */
+	public String execute(String line) {
+		String[] tokens = line.trim().split("\\s+");
+		String command = tokens[0];
+		if ( command.length() == 0 ) {
+			return null ;
+		}
+		try {
+			if ( "generate".equals(command) ) {
+				List<String> entities = getNames(tokens, 1);
+				List<String> targets  = getNames(tokens, 2);
+				GenerationResult result = projectGenerator.generate(entities, targets);
+				return "OK " + result ;
+			}
+			else if ( "reload".equals(command) ) {
+				projectGenerator.reload();
+				return "OK reloaded" ;
+			}
+			else if ( "status".equals(command) ) {
+				return "OK entities=" + projectGenerator.getRepositoryModel().getNumberOfEntities() 
+						+ " targets=" + projectGenerator.getTargets().size()
+						+ " engines=" + projectGenerator.getSession().getVelocityEnginesCount() ;
+			}
+			else if ( "stats".equals(command) ) {
+				return "OK introspection.hits=" + GeneratorUberspect.getHits() 
+						+ " introspection.misses=" + GeneratorUberspect.getMisses()
+						+ " introspection.shared=" + GeneratorUberspect.getSharedCount() ;
+			}
+			else if ( "ping".equals(command) ) {
+				return "OK" ;
+			}
+			else if ( "stop".equals(command) ) {
+				stopped = true ;
+				return "OK stopped" ;
+			}
+			else {
+				return "ERROR unknown command '" + command + "'" ;
+			}
+		} catch (GeneratorException e) {
+			logger.exception(e);
+			return "ERROR " + singleLine(e) ;
+		} catch (RuntimeException e) {
+			logger.exception(e);
+			return "ERROR " + singleLine(e) ;
+		}
+	}
+	
+	private List<String> getNames(String[] tokens, int i) {
+		if ( i < tokens.length && ! ALL.equals(tokens[i]) ) {
+			List<String> names = new LinkedList<String>();
+			for ( String name : Arrays.asList(tokens[i].split(",")) ) {
+				if ( name.trim().length() > 0 ) {
+					names.add(name.trim());
+				}
+			}
+			return names ;
+		}
+		return null ; // all 
+	}
+	
+	private String singleLine(Exception e) {
+		StringBuilder sb = new StringBuilder();
+		Throwable t = e ;
+		while ( t != null ) {
+			if ( sb.length() > 0 ) {
+				sb.append(" / ");
+			}
+			sb.append( t.getMessage() != null ? t.getMessage() : t.getClass().getName() );
+			t = t.getCause();
+		}
+		return sb.toString().replace('\r', ' ').replace('\n', ' ');
+	}
+
+	/**
+	 * Serves the requests read from the given reader until the end of the stream or a "stop" request
+	 * @param reader
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void serve(Reader reader, Writer writer) throws IOException {
+		BufferedReader in = new BufferedReader(reader);
+		PrintWriter out = new PrintWriter(writer);
+		String line ;
+		while ( ! stopped && ( line = in.readLine() ) != null ) {
+			String response = execute(line);
+			if ( response != null ) {
+				out.println(response);
+				out.flush();
+			}
+		}
+	}
+
+	/**
+	 * Serves the requests received on the given local port until a "stop" request <br>
+	 * The clients are served one after the other ( each client can send any number of requests )
+	 * @param port the port to listen on ( 0 for any free port )
+	 * @param console where to print the "LISTENING port" line when ready
+	 * @throws IOException
+	 */
+	public void listen(int port, PrintStream console) throws IOException {
+		ServerSocket serverSocket = new ServerSocket(port, 50, InetAddress.getByName("127.0.0.1"));
+		try {
+			console.println("LISTENING " + serverSocket.getLocalPort());
+			console.flush();
+			while ( ! stopped ) {
+				Socket socket = serverSocket.accept();
+				try {
+					serve( new InputStreamReader(socket.getInputStream(), "UTF-8"), 
+							new OutputStreamWriter(socket.getOutputStream(), "UTF-8") );
+				} catch (IOException e) {
+					logger.error("Client connection error : " + e.getMessage());
+				} finally {
+					socket.close();
+				}
+			}
+		}
+		finally {
+			serverSocket.close();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.cli;
+
+import java.io.PrintStream;
+
+import org.telosys.tools.commons.TelosysToolsLogger;
+
+/**
+ * Logger for the command line ( always written on "stderr", "stdout" is kept for the results ) 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class CliLogger implements TelosysToolsLogger {
+
+	private final PrintStream out = System.err ;
+	
+	private final boolean verbose ;
+	
+	/**
+	 * Constructor
+	 * @param verbose if true the "log" and "info" messages are printed, else only the errors
+	 */
+	public CliLogger(boolean verbose) {
+		super();
+		this.verbose = verbose;
+	}
+
+	public void log(Object object, String s) {
+		if ( verbose ) {
+			out.println("[LOG] " + s + " : " + object);
+		}
+	}
+
+	public void log(String s) {
+		if ( verbose ) {
+			out.println("[LOG] " + s);
+		}
+	}
+
+	public void info(String s) {
+		if ( verbose ) {
+			out.println("[INFO] " + s);
+		}
+	}
+
+	public void error(String s) {
+		out.println("[ERROR] " + s);
+	}
+
+	public void exception(Throwable e) {
+		out.println("[ERROR] " + e.getClass().getName() + " : " + e.getMessage());
+		if ( verbose ) {
+			e.printStackTrace(out);
+		}
+	}
+}
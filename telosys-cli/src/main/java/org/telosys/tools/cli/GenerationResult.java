@@ -0,0 +1,72 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.cli;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of a generation request 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class GenerationResult {
+
+	private final List<String> generatedFiles ;
+	
+	private final long         duration ;
+
+	/**
+	 * Constructor
+	 * @param generatedFiles the generated files (full path)
+	 * @param duration the generation duration in milliseconds
+	 */
+	public GenerationResult(List<String> generatedFiles, long duration) {
+		super();
+		this.generatedFiles = Collections.unmodifiableList(generatedFiles);
+		this.duration = duration;
+	}
+
+	/**
+	 * Returns the number of generated files
+	 * @return
+	 */
+	public int getNumberOfFilesGenerated() {
+		return generatedFiles.size();
+	}
+
+	/**
+	 * Returns the full path of all the generated files
+	 * @return
+	 */
+	public List<String> getGeneratedFiles() {
+		return generatedFiles;
+	}
+
+	/**
+	 * Returns the generation duration in milliseconds
+	 * @return
+	 */
+	public long getDuration() {
+		return duration;
+	}
+	
+	@Override
+	public String toString() {
+		return "files=" + generatedFiles.size() + " time=" + duration + "ms" ;
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.cli;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Changes detected in a project since the last check <br>
+ * ( configuration file, repository file, templates folder )
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class ProjectChanges {
+
+	private final boolean     configChanged ;
+	
+	private final boolean     repositoryChanged ;
+	
+	private final Set<String> affectedTemplates ;
+
+	/**
+	 * Constructor
+	 * @param configChanged true if the configuration has been reloaded 
+	 * @param repositoryChanged true if the repository model has been reloaded 
+	 * @param affectedTemplates the templates invalidated by a change in the templates folder
+	 */
+	public ProjectChanges(boolean configChanged, boolean repositoryChanged, Set<String> affectedTemplates) {
+		super();
+		this.configChanged = configChanged;
+		this.repositoryChanged = repositoryChanged;
+		this.affectedTemplates = Collections.unmodifiableSet(affectedTemplates);
+	}
+
+	/**
+	 * Returns true if the configuration has been reloaded ( all the targets are affected )
+	 * @return
+	 */
+	public boolean isConfigChanged() {
+		return configChanged;
+	}
+
+	/**
+	 * Returns true if the repository model has been reloaded ( all the entities are affected )
+	 * @return
+	 */
+	public boolean isRepositoryChanged() {
+		return repositoryChanged;
+	}
+
+	/**
+	 * Returns the templates affected by the changes in the templates folder <br>
+	 * ( the modified files and all the templates using them )
+	 * @return
+	 */
+	public Set<String> getAffectedTemplates() {
+		return affectedTemplates;
+	}
+	
+	/**
+	 * Returns true if nothing has changed
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return ! configChanged && ! repositoryChanged && affectedTemplates.isEmpty() ;
+	}
+	
+	/**
+	 * Returns true if all the targets must be generated for all the entities
+	 * @return
+	 */
+	public boolean isFullGenerationRequired() {
+		return configChanged || repositoryChanged ;
+	}
+
+	@Override
+	public String toString() {
+		if ( configChanged ) {
+			return "config" ;
+		}
+		else if ( repositoryChanged ) {
+			return "repository" ;
+		}
+		else {
+			return "templates" + affectedTemplates ;
+		}
+	}
+}
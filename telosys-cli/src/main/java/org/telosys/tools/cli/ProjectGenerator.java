@@ -0,0 +1,436 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.cli;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.telosys.tools.commons.FileUtil;
+import org.telosys.tools.commons.LoadedFilesCache;
+import org.telosys.tools.commons.TelosysToolsException;
+import org.telosys.tools.commons.TelosysToolsLogger;
+import org.telosys.tools.commons.cfg.TelosysToolsCfg;
+import org.telosys.tools.generator.GenerationSession;
+import org.telosys.tools.generator.Generator;
+import org.telosys.tools.generator.GeneratorException;
+import org.telosys.tools.generator.config.GeneratorConfig;
+import org.telosys.tools.generator.config.GeneratorConfigManager;
+import org.telosys.tools.generator.context.Target;
+import org.telosys.tools.generator.target.TargetDefinition;
+import org.telosys.tools.generator.target.TargetVariables;
+import org.telosys.tools.generator.target.TargetsFile;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.model.RepositoryModel;
+import org.telosys.tools.repository.persistence.StandardFilePersistenceManager;
+
+/**
+ * Headless generator for a project <br>
+ * The configuration, the repository model and the targets are loaded once and kept in memory 
+ * with the generation session ( Velocity engines with parsed templates, code fragments, etc ) <br>
+ * They are reloaded only if the corresponding files have been modified. <br>
+ * The same instance can be used for any number of generations ( e.g. by the daemon ).
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class ProjectGenerator {
+
+	private final static String TEMPLATES_CFG = "templates.cfg" ;
+	
+	private final String             projectFolder ;
+	private final File               repositoryFile ;
+	private final String             bundleName ;
+	private final TelosysToolsLogger logger ;
+	
+	private final GenerationSession  session ; // kept for all the generations 
+	
+	private GeneratorConfig  generatorConfig = null ;
+	private long[]           configStamp     = null ;
+	private RepositoryModel  repositoryModel = null ;
+	private long[]           repositoryStamp = null ;
+	private Map<String,long[]> templatesStamps = null ; // file name (relative to the templates folder) -> stamp
+	private Set<String>      targetsKeys     = null ; // targets defined in "templates.cfg" at the last check
+
+	/**
+	 * Constructor : loads the project configuration and the repository model
+	 * @param projectFolder the project folder (where "telosys-tools.cfg" is located)
+	 * @param repositoryFileName the repository file (absolute or relative to the project folder or to the repositories folder)
+	 * @param bundleName the bundle of templates to be used (or null if none)
+	 * @param logger
+	 * @throws GeneratorException
+	 */
+	public ProjectGenerator(String projectFolder, String repositoryFileName, String bundleName, TelosysToolsLogger logger) throws GeneratorException {
+		super();
+		if ( projectFolder == null ) {
+			throw new GeneratorException("Project folder is null");
+		}
+		if ( repositoryFileName == null ) {
+			throw new GeneratorException("Repository file is null");
+		}
+		this.projectFolder = new File(projectFolder).getAbsolutePath() ;
+		this.bundleName = bundleName ;
+		this.logger = logger ;
+		this.session = new GenerationSession();
+		loadConfig();
+		this.repositoryFile = resolveRepositoryFile(this.projectFolder, generatorConfig.getTelosysToolsCfg(), repositoryFileName);
+		loadRepository();
+		templatesStamps = getTemplatesStamps();
+		targetsKeys = getTargetsKeys();
+	}
+	
+	/**
+	 * Returns the repository file for the given name <br>
+	 * ( absolute, or relative to the project folder if it exists, else relative to the repositories folder )
+	 * @param projectFolder
+	 * @param telosysToolsCfg
+	 * @param repositoryFileName
+	 * @return
+	 */
+	public static File resolveRepositoryFile(String projectFolder, TelosysToolsCfg telosysToolsCfg, String repositoryFileName) {
+		File file = new File(repositoryFileName);
+		if ( file.isAbsolute() ) {
+			return file ;
+		}
+		file = new File(FileUtil.buildFilePath(projectFolder, repositoryFileName));
+		if ( file.exists() ) {
+			return file ;
+		}
+		String reposFolder = telosysToolsCfg.getRepositoriesFolderAbsolutePath();
+		return new File(FileUtil.buildFilePath(reposFolder, repositoryFileName));
+	}
+	
+	/**
+	 * Returns the project configuration file ( "telosys-tools.cfg" )
+	 * @return
+	 */
+	public File getConfigFile() {
+		return new File(FileUtil.buildFilePath(projectFolder, "telosys-tools.cfg"));
+	}
+	
+	private void loadConfig() throws GeneratorException {
+		long[] stamp = LoadedFilesCache.getStamp(getConfigFile()) ;
+		GeneratorConfigManager configManager = new GeneratorConfigManager(logger);
+		generatorConfig = configManager.initFromDirectory(projectFolder, bundleName);
+		configStamp = stamp ;
+	}
+
+	private void loadRepository() throws GeneratorException {
+		if ( ! repositoryFile.exists() ) {
+			throw new GeneratorException("Repository file '" + repositoryFile + "' not found");
+		}
+		long[] stamp = LoadedFilesCache.getStamp(repositoryFile) ;
+		StandardFilePersistenceManager pm = new StandardFilePersistenceManager( repositoryFile, logger );		
+		try {
+			repositoryModel = pm.load();
+		} catch (TelosysToolsException e) {
+			throw new GeneratorException("Cannot load the repository from file '" + repositoryFile + "'", e);
+		}
+		repositoryStamp = stamp ;
+		session.clearModelData(); // the code fragments depend on the model
+	}
+	
+	/**
+	 * Returns the repository file 
+	 * @return
+	 */
+	public File getRepositoryFile() {
+		return repositoryFile;
+	}
+	
+	/**
+	 * Reloads the configuration and the repository if the files have been modified 
+	 * @return true if something has been reloaded
+	 * @throws GeneratorException
+	 */
+	public synchronized boolean refresh() throws GeneratorException {
+		return ! detectChanges().isEmpty() ;
+	}
+	
+	/**
+	 * Reloads the configuration and the repository if the files have been modified 
+	 * and invalidates the templates affected by the modified files of the templates folder
+	 * @return the changes detected
+	 * @throws GeneratorException
+	 */
+	public synchronized ProjectChanges detectChanges() throws GeneratorException {
+		boolean configChanged = false ;
+		boolean repositoryChanged = false ;
+		if ( ! Arrays.equals(configStamp, LoadedFilesCache.getStamp(getConfigFile()) ) ) {
+			loadConfig();
+			session.clearModelData(); // the code fragments depend on the configuration
+			configChanged = true ;
+		}
+		if ( ! Arrays.equals(repositoryStamp, LoadedFilesCache.getStamp(repositoryFile) ) ) {
+			loadRepository();
+			repositoryChanged = true ;
+		}
+		Set<String> affectedTemplates = refreshTemplates();
+		return new ProjectChanges(configChanged, repositoryChanged, affectedTemplates);
+	}
+	
+	/**
+	 * Invalidates the templates affected by the files modified ( or created or deleted ) in the templates folder <br>
+	 * ( the parsed templates are dropped for the modified templates and for all the templates using them )
+	 * @return the names of the affected templates ( void if no change )
+	 */
+	public synchronized Set<String> refreshTemplates() {
+		Map<String,long[]> currentStamps = getTemplatesStamps();
+		Set<String> changedFiles = new TreeSet<String>();
+		for ( Map.Entry<String,long[]> entry : currentStamps.entrySet() ) {
+			if ( ! Arrays.equals(entry.getValue(), templatesStamps.get(entry.getKey()) ) ) {
+				changedFiles.add(entry.getKey()); // modified or created
+			}
+		}
+		for ( String fileName : templatesStamps.keySet() ) {
+			if ( ! currentStamps.containsKey(fileName) ) {
+				changedFiles.add(fileName); // deleted
+			}
+		}
+		templatesStamps = currentStamps ;
+		if ( changedFiles.isEmpty() ) {
+			return changedFiles ;
+		}
+		Set<String> affectedTemplates = session.invalidateTemplates(generatorConfig.getTemplatesFolderFullPath(), changedFiles);
+		if ( changedFiles.contains(TEMPLATES_CFG) ) {
+			affectedTemplates.addAll( getNewTargetsTemplates() ); // new or modified targets must be generated
+		}
+		logger.log("Templates modified : " + changedFiles + " -> invalidated : " + affectedTemplates );
+		return affectedTemplates ;
+	}
+	
+	/**
+	 * Returns the templates of the targets added or modified in "templates.cfg" since the last check
+	 * @return
+	 */
+	private Set<String> getNewTargetsTemplates() {
+		Set<String> templates = new TreeSet<String>();
+		Set<String> currentKeys = new HashSet<String>();
+		try {
+			for ( TargetDefinition t : getTargets() ) {
+				String key = t.toString() ; // all the target attributes
+				currentKeys.add(key);
+				if ( ! targetsKeys.contains(key) ) {
+					templates.add(t.getTemplate());
+				}
+			}
+		} catch (GeneratorException e) {
+			logger.error("Cannot load the targets : " + e.getMessage());
+		}
+		targetsKeys = currentKeys ;
+		return templates ;
+	}
+	
+	private Set<String> getTargetsKeys() {
+		Set<String> keys = new HashSet<String>();
+		try {
+			for ( TargetDefinition t : getTargets() ) {
+				keys.add(t.toString());
+			}
+		} catch (GeneratorException e) {
+			// no targets file yet
+		}
+		return keys ;
+	}
+	
+	private Map<String,long[]> getTemplatesStamps() {
+		Map<String,long[]> stamps = new HashMap<String,long[]>();
+		File folder = new File(generatorConfig.getTemplatesFolderFullPath());
+		collectStamps(folder, folder.getAbsolutePath().length() + 1, stamps);
+		return stamps ;
+	}
+	
+	private void collectStamps(File folder, int prefixLength, Map<String,long[]> stamps) {
+		File[] files = folder.listFiles();
+		if ( files != null ) {
+			for ( File file : files ) {
+				if ( file.isDirectory() ) {
+					collectStamps(file, prefixLength, stamps);
+				}
+				else {
+					stamps.put(file.getAbsolutePath().substring(prefixLength).replace('\\', '/'), LoadedFilesCache.getStamp(file));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Reloads the configuration and the repository (even if not modified)
+	 * @throws GeneratorException
+	 */
+	public synchronized void reload() throws GeneratorException {
+		loadConfig();
+		loadRepository();
+		refreshTemplates();
+	}
+	
+	/**
+	 * Returns the current repository model
+	 * @return
+	 */
+	public synchronized RepositoryModel getRepositoryModel() {
+		return repositoryModel;
+	}
+
+	/**
+	 * Returns the current generator configuration
+	 * @return
+	 */
+	public synchronized GeneratorConfig getGeneratorConfig() {
+		return generatorConfig;
+	}
+
+	/**
+	 * Returns the generation session kept by this generator
+	 * @return
+	 */
+	public GenerationSession getSession() {
+		return session;
+	}
+
+	/**
+	 * Returns the targets defined in the "templates.cfg" file of the bundle ( without the resources targets )
+	 * @return
+	 * @throws GeneratorException
+	 */
+	public synchronized List<TargetDefinition> getTargets() throws GeneratorException {
+		String file = FileUtil.buildFilePath(generatorConfig.getTemplatesFolderFullPath(), TEMPLATES_CFG);
+		TargetsFile targetsFile = new TargetsFile(file) ; // loaded once ( cached while not modified )
+		List<TargetDefinition> targets = new LinkedList<TargetDefinition>();
+		for ( TargetDefinition t : targetsFile.load() ) {
+			if ( ! t.isResource() ) {
+				targets.add(t);
+			}
+		}
+		return targets ;
+	}
+	
+	/**
+	 * Generates the given targets for the given entities 
+	 * @param entitiesNames the entities to be used ( all the entities if null or empty )
+	 * @param targetsNames the targets to be generated, identified by name or template file ( all the targets if null or empty )
+	 * @return
+	 * @throws GeneratorException
+	 */
+	public synchronized GenerationResult generate(List<String> entitiesNames, List<String> targetsNames) throws GeneratorException {
+		long start = System.currentTimeMillis();
+		refresh();
+		return generate(selectEntities(entitiesNames), selectTargets(targetsNames), start);
+	}
+	
+	/**
+	 * Generates the (entity, target) pairs affected by the given changes ( see {@link #detectChanges()} ) : <br>
+	 * all the targets for all the entities if the configuration or the repository has changed, <br>
+	 * else the targets using an affected template for all the entities 
+	 * @param changes
+	 * @return
+	 * @throws GeneratorException
+	 */
+	public synchronized GenerationResult generate(ProjectChanges changes) throws GeneratorException {
+		long start = System.currentTimeMillis();
+		List<TargetDefinition> targets = new LinkedList<TargetDefinition>();
+		for ( TargetDefinition t : getTargets() ) {
+			if ( changes.isFullGenerationRequired() || changes.getAffectedTemplates().contains(t.getTemplate()) ) {
+				targets.add(t);
+			}
+		}
+		return generate(selectEntities(null), targets, start);
+	}
+	
+	private GenerationResult generate(List<String> selectedEntities, List<TargetDefinition> targets, long start) throws GeneratorException {
+		List<TargetDefinition> onceTargets   = new LinkedList<TargetDefinition>() ; 
+		List<TargetDefinition> entityTargets = new LinkedList<TargetDefinition>() ; 
+		for ( TargetDefinition targetDefinition : targets ) {
+			if ( targetDefinition.isOnce() ) {
+				onceTargets.add(targetDefinition); 
+			}
+			else {
+				entityTargets.add(targetDefinition);
+			}
+		}
+		
+		TargetVariables targetVariables = new TargetVariables(generatorConfig.getTelosysToolsCfg().getAllVariables());
+		List<Target> generatedTargets = new LinkedList<Target>();
+		
+		//--- For each entity
+		for ( String entityName : selectedEntities ) {
+			Entity entity = repositoryModel.getEntityByName(entityName);
+			for ( TargetDefinition targetDefinition : entityTargets ) {
+				Target target = new Target( targetDefinition, entity.getName(), entity.getBeanJavaClass(), targetVariables );
+				generateTarget(target, selectedEntities, generatedTargets);
+			}
+		}
+		
+		//--- Once
+		for ( TargetDefinition targetDefinition : onceTargets ) {
+			Target target = new Target( targetDefinition, "", "", targetVariables );
+			generateTarget(target, selectedEntities, generatedTargets);
+		}
+		
+		List<String> files = new LinkedList<String>();
+		for ( Target target : generatedTargets ) {
+			files.add( target.getOutputFileNameInFileSystem(generatorConfig.getProjectLocation()) );
+		}
+		return new GenerationResult(files, System.currentTimeMillis() - start);
+	}
+	
+	private void generateTarget(Target target, List<String> selectedEntities, List<Target> generatedTargets) throws GeneratorException {
+		logger.log("Generate target : entity '" + target.getEntityName() + "' - file '" + target.getFile() + "' ");
+		Generator generator = new Generator(target, generatorConfig, repositoryModel, logger, session);
+		generator.generateTarget(target, repositoryModel, selectedEntities, generatedTargets);
+	}
+	
+	private List<String> selectEntities(List<String> entitiesNames) throws GeneratorException {
+		if ( entitiesNames == null || entitiesNames.isEmpty() ) {
+			return new LinkedList<String>( Arrays.asList( repositoryModel.getEntitiesNames() ) );
+		}
+		List<String> list = new LinkedList<String>();
+		for ( String name : entitiesNames ) {
+			if ( repositoryModel.getEntityByName(name) == null ) {
+				throw new GeneratorException("Entity '" + name + "' not found in the repository");
+			}
+			list.add(name);
+		}
+		return list ;
+	}
+	
+	private List<TargetDefinition> selectTargets(List<String> targetsNames) throws GeneratorException {
+		List<TargetDefinition> allTargets = getTargets();
+		if ( targetsNames == null || targetsNames.isEmpty() ) {
+			return allTargets ;
+		}
+		List<TargetDefinition> list = new LinkedList<TargetDefinition>();
+		for ( String name : targetsNames ) {
+			boolean found = false ;
+			for ( TargetDefinition t : allTargets ) {
+				if ( name.equals(t.getName()) || name.equals(t.getTemplate()) ) {
+					list.add(t);
+					found = true ;
+				}
+			}
+			if ( ! found ) {
+				throw new GeneratorException("Target '" + name + "' not found in '" + TEMPLATES_CFG + "'");
+			}
+		}
+		return list ;
+	}
+}
@@ -0,0 +1,209 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.cli;
+
+import java.io.File;
+import java.io.PrintStream;
+
+import org.telosys.tools.commons.TelosysToolsLogger;
+import org.telosys.tools.generator.GeneratorException;
+
+/**
+ * Watch mode : regenerates continuously when a template, the repository or the configuration is modified <br>
+ * The watched files are polled ( last modified and length ) at a regular interval, 
+ * a generation cycle is launched when no more change is detected during the "debounce" delay. <br>
+ * Each cycle regenerates only the (entity, target) pairs affected by the changes, with the 
+ * engines and the model kept in memory by the project generator. <br>
+ * Each cycle is reported with a line : <br>
+ * "CYCLE n changes=... files=N time=Xms latency=Yms" ( latency = from the first change detected to the end of the generation ) <br>
+ * or "ERROR message" 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class ProjectWatcher implements Runnable {
+
+	public final static long DEFAULT_POLL_INTERVAL = 100 ; // ms
+	public final static long DEFAULT_DEBOUNCE      = 100 ; // ms
+	
+	private final ProjectGenerator   projectGenerator ;
+	private final TelosysToolsLogger logger ;
+	private final PrintStream        out ;
+	private final long               pollInterval ;
+	private final long               debounce ;
+	
+	private volatile boolean running = false ;
+	
+	private long lastSignature     = 0 ; // signature of the files at the previous poll
+	private long processedSignature = 0 ; // signature of the files at the last cycle
+	private long firstChangeTime   = 0 ; // first change detected after the last cycle
+	private long lastChangeTime    = 0 ; // last change detected 
+	private int  cycles            = 0 ;
+	
+	/**
+	 * Constructor
+	 * @param projectGenerator the generator with the project loaded
+	 * @param logger
+	 * @param out where the cycles are reported
+	 * @param pollInterval polling interval in milliseconds
+	 * @param debounce delay without change before launching a cycle in milliseconds
+	 */
+	public ProjectWatcher(ProjectGenerator projectGenerator, TelosysToolsLogger logger, PrintStream out, long pollInterval, long debounce) {
+		super();
+		this.projectGenerator = projectGenerator;
+		this.logger = logger;
+		this.out = out;
+		this.pollInterval = pollInterval;
+		this.debounce = debounce;
+		this.lastSignature = computeSignature();
+		this.processedSignature = lastSignature ;
+	}
+
+	/**
+	 * Constructor with default polling interval and debounce delay 
+	 * @param projectGenerator
+	 * @param logger
+	 * @param out
+	 */
+	public ProjectWatcher(ProjectGenerator projectGenerator, TelosysToolsLogger logger, PrintStream out) {
+		this(projectGenerator, logger, out, DEFAULT_POLL_INTERVAL, DEFAULT_DEBOUNCE);
+	}
+
+	/**
+	 * Watches until {@link #stop()} is called or the current thread is interrupted
+	 */
+	public void run() {
+		running = true ;
+		out.println("WATCHING " + projectGenerator.getGeneratorConfig().getTemplatesFolderFullPath() );
+		out.flush();
+		while ( running ) {
+			poll(System.currentTimeMillis());
+			try {
+				Thread.sleep(pollInterval);
+			} catch (InterruptedException e) {
+				running = false ;
+			}
+		}
+	}
+	
+	/**
+	 * Stops the watch loop 
+	 */
+	public void stop() {
+		running = false ;
+	}
+	
+	/**
+	 * Returns true if the watch loop is running
+	 * @return
+	 */
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * Returns the number of generation cycles executed 
+	 * @return
+	 */
+	public synchronized int getCycles() {
+		return cycles;
+	}
+
+	/**
+	 * Checks the watched files and launches a generation cycle if necessary 
+	 * @param now current time in milliseconds
+	 * @return the generation result if a cycle has been executed, else null
+	 */
+	public synchronized GenerationResult poll(long now) {
+		long signature = computeSignature();
+		if ( signature != lastSignature ) {
+			//--- Still changing : wait for the end of the changes
+			if ( firstChangeTime == 0 ) {
+				firstChangeTime = now ;
+			}
+			lastChangeTime = now ;
+			lastSignature = signature ;
+			return null ;
+		}
+		if ( signature != processedSignature && now - lastChangeTime >= debounce ) {
+			processedSignature = signature ;
+			long start = firstChangeTime != 0 ? firstChangeTime : now ;
+			firstChangeTime = 0 ;
+			return cycle(start);
+		}
+		return null ;
+	}
+	
+	/**
+	 * Executes a generation cycle for the changes detected since the previous cycle 
+	 * @param start the time of the first change ( to compute the latency ) 
+	 * @return the generation result ( null if no change or error )
+	 */
+	public synchronized GenerationResult cycle(long start) {
+		try {
+			ProjectChanges changes = projectGenerator.detectChanges();
+			if ( changes.isEmpty() ) {
+				return null ;
+			}
+			GenerationResult result = projectGenerator.generate(changes);
+			cycles++ ;
+			long latency = System.currentTimeMillis() - start ;
+			out.println("CYCLE " + cycles + " changes=" + changes + " " + result + " latency=" + latency + "ms");
+			out.flush();
+			return result ;
+		} catch (GeneratorException e) {
+			logger.error(e.getMessage());
+			out.println("ERROR " + e.getMessage());
+			out.flush();
+			return null ;
+		} catch (RuntimeException e) {
+			// Invalid template, etc : the watcher must survive 
+			logger.error(e.toString());
+			out.println("ERROR " + e);
+			out.flush();
+			return null ;
+		}
+	}
+	
+	private long computeSignature() {
+		long signature = 1 ;
+		signature = addToSignature(signature, projectGenerator.getConfigFile());
+		signature = addToSignature(signature, projectGenerator.getRepositoryFile());
+		return addFolderToSignature(signature, new File(projectGenerator.getGeneratorConfig().getTemplatesFolderFullPath()));
+	}
+	
+	private long addFolderToSignature(long signature, File folder) {
+		long s = signature ;
+		File[] files = folder.listFiles();
+		if ( files != null ) {
+			for ( File file : files ) {
+				if ( file.isDirectory() ) {
+					s = addFolderToSignature(s, file);
+				}
+				else {
+					s = addToSignature(s, file);
+				}
+			}
+		}
+		return s ;
+	}
+	
+	private long addToSignature(long signature, File file) {
+		long s = 31 * signature + file.getName().hashCode() ;
+		s = 31 * s + file.lastModified() ;
+		return 31 * s + file.length() ;
+	}
+}
@@ -0,0 +1,171 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.cli;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.telosys.tools.generator.GeneratorException;
+
+/**
+ * Telosys command line <br>
+ * <pre>
+ * telosys-cli -p project-folder -r repository-file [-b bundle] [-v] [-c] generate [-e entities] [-t targets]
+ * telosys-cli -p project-folder -r repository-file [-b bundle] [-v] [-c] daemon [-port port]
+ * telosys-cli -p project-folder -r repository-file [-b bundle] [-v] [-c] watch [-interval ms]
+ * </pre>
+ * "generate" generates the targets and exits <br>
+ * "daemon" keeps the project loaded and serves the generation requests 
+ * from "stdin" or from a local port ( see {@link CliDaemon} for the protocol ) <br>
+ * "watch" regenerates continuously when a file is modified ( see {@link ProjectWatcher} ) <br>
+ * "-c" enables the precompiled templates mode 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class TelosysCli {
+
+	public final static int EXIT_OK    = 0 ;
+	public final static int EXIT_ERROR = 1 ;
+	public final static int EXIT_USAGE = 2 ;
+	
+	private final static String USAGE = 
+		  "Usage : telosys-cli -p <project-folder> -r <repository-file> [-b <bundle>] [-v] [-c] <command> \n"
+		+ " -c : precompiled templates \n"
+		+ " commands : \n"
+		+ "  generate [-e <entity,...>] [-t <target,...>]  generate (all entities and targets by default) \n"
+		+ "  daemon [-port <port>]                         serve the requests from stdin or from a local port \n"
+		+ "  watch [-interval <ms>]                        regenerate when a template, the repository or the config is modified \n" ;
+	
+	/**
+	 * Main entry point
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		System.exit( run(args, System.in, System.out) );
+	}
+	
+	/**
+	 * Runs the command line 
+	 * @param args
+	 * @param in where the daemon reads the requests ( if no port )
+	 * @param out where the results are printed
+	 * @return the exit code
+	 */
+	public static int run(String[] args, InputStream in, PrintStream out) {
+		String projectFolder  = null ;
+		String repositoryFile = null ;
+		String bundleName     = null ;
+		boolean verbose       = false ;
+		boolean precompiled   = false ;
+		String command        = null ;
+		List<String> entities = null ;
+		List<String> targets  = null ;
+		int port              = -1 ;
+		long interval         = ProjectWatcher.DEFAULT_POLL_INTERVAL ;
+		
+		try {
+			for ( int i = 0 ; i < args.length ; i++ ) {
+				String arg = args[i];
+				if ( "-p".equals(arg) ) {
+					projectFolder = args[++i];
+				}
+				else if ( "-r".equals(arg) ) {
+					repositoryFile = args[++i];
+				}
+				else if ( "-b".equals(arg) ) {
+					bundleName = args[++i];
+				}
+				else if ( "-v".equals(arg) ) {
+					verbose = true ;
+				}
+				else if ( "-c".equals(arg) ) {
+					precompiled = true ;
+				}
+				else if ( "-e".equals(arg) ) {
+					entities = Arrays.asList(args[++i].split(","));
+				}
+				else if ( "-t".equals(arg) ) {
+					targets = Arrays.asList(args[++i].split(","));
+				}
+				else if ( "-port".equals(arg) ) {
+					port = Integer.parseInt(args[++i]);
+				}
+				else if ( "-interval".equals(arg) ) {
+					interval = Long.parseLong(args[++i]);
+				}
+				else if ( command == null && ( "generate".equals(arg) || "daemon".equals(arg) || "watch".equals(arg) ) ) {
+					command = arg ;
+				}
+				else {
+					System.err.println("Unexpected argument '" + arg + "'");
+					System.err.print(USAGE);
+					return EXIT_USAGE ;
+				}
+			}
+		} catch (ArrayIndexOutOfBoundsException e) {
+			System.err.print(USAGE);
+			return EXIT_USAGE ;
+		} catch (NumberFormatException e) {
+			System.err.print(USAGE);
+			return EXIT_USAGE ;
+		}
+		if ( projectFolder == null || repositoryFile == null || command == null ) {
+			System.err.print(USAGE);
+			return EXIT_USAGE ;
+		}
+		
+		CliLogger logger = new CliLogger(verbose);
+		try {
+			ProjectGenerator projectGenerator = new ProjectGenerator(projectFolder, repositoryFile, bundleName, logger);
+			projectGenerator.getSession().setPrecompiledTemplates(precompiled);
+			if ( "generate".equals(command) ) {
+				GenerationResult result = projectGenerator.generate(entities, targets);
+				if ( verbose ) {
+					for ( String file : result.getGeneratedFiles() ) {
+						out.println(file);
+					}
+				}
+				out.println("OK " + result);
+			}
+			else if ( "watch".equals(command) ) {
+				new ProjectWatcher(projectGenerator, logger, out, interval, interval).run(); // until interrupted
+			}
+			else {
+				CliDaemon daemon = new CliDaemon(projectGenerator, logger);
+				if ( port >= 0 ) {
+					daemon.listen(port, out);
+				}
+				else {
+					daemon.serve(new InputStreamReader(in, "UTF-8"), new OutputStreamWriter(out, "UTF-8"));
+				}
+			}
+			return EXIT_OK ;
+		} catch (GeneratorException e) {
+			logger.exception(e);
+			out.println("ERROR " + e.getMessage());
+			return EXIT_ERROR ;
+		} catch (Exception e) {
+			logger.exception(e);
+			out.println("ERROR " + e.getMessage());
+			return EXIT_ERROR ;
+		}
+	}
+}
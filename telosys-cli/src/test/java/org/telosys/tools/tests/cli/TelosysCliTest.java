@@ -0,0 +1,290 @@
+package org.telosys.tools.tests.cli;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.cli.CliDaemon;
+import org.telosys.tools.cli.CliLogger;
+import org.telosys.tools.cli.GenerationResult;
+import org.telosys.tools.cli.ProjectGenerator;
+import org.telosys.tools.cli.ProjectWatcher;
+import org.telosys.tools.cli.TelosysCli;
+
+/**
+ * Command line and daemon tests with a small project created in a temporary folder
+ */
+public class TelosysCliTest extends TestCase {
+
+	private File projectFolder ;
+	
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		projectFolder = File.createTempFile("telosys-cli-", "");
+		projectFolder.delete();
+		projectFolder.mkdirs();
+		write("telosys-tools.cfg", 
+				"TemplatesFolder=templates\n"
+				+ "RepositoriesFolder=repos\n"
+				+ "SRC=src\n");
+		write("templates/basic/templates.cfg", 
+				"Bean ; ${BEANNAME}.txt ; ${SRC} ; bean.vm \n"
+				+ "List ; entities.txt ; ${SRC} ; list.vm ; 1 \n");
+		write("templates/basic/bean.vm", "Entity $entity.name ($entity.databaseTable)\n");
+		write("templates/basic/list.vm", "#foreach( $e in $selectedEntities )$e.name #end\n");
+		writeRepository("AUTHOR", "Author", "BOOK", "Book");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		delete(projectFolder);
+		super.tearDown();
+	}
+	
+	private void delete(File file) {
+		File[] files = file.listFiles();
+		if ( files != null ) {
+			for ( File f : files ) {
+				delete(f);
+			}
+		}
+		file.delete();
+	}
+	
+	private void write(String fileName, String content) throws IOException {
+		File file = new File(projectFolder, fileName);
+		file.getParentFile().mkdirs();
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+	
+	private void writeRepository(String... tables) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n<root>\n");
+		sb.append("<tableList generation=\"2014-01-01 00:00:00\" name=\"TEST\" type=\"Apache Derby\">\n");
+		for ( int i = 0 ; i < tables.length ; i = i + 2 ) {
+			sb.append("<table catalog=\"\" javaBean=\"" + tables[i+1] + "\" name=\"" + tables[i] + "\" schema=\"ROOT\">\n");
+			sb.append("<column dbName=\"ID\" dbNotNull=\"true\" dbPosition=\"1\" dbPrimaryKey=\"true\" dbSize=\"10\" dbTypeName=\"INTEGER\" "
+					+ "javaName=\"id\" javaType=\"int\" jdbcTypeCode=\"4\" notNull=\"false\" selected=\"true\"/>\n");
+			sb.append("</table>\n");
+		}
+		sb.append("</tableList>\n</root>\n");
+		write("repos/test.dbrep", sb.toString());
+	}
+	
+	private String read(String fileName) throws IOException {
+		File file = new File(projectFolder, fileName);
+		byte[] bytes = new byte[(int)file.length()];
+		FileInputStream fis = new FileInputStream(file);
+		try {
+			fis.read(bytes);
+		} finally {
+			fis.close();
+		}
+		return new String(bytes, "UTF-8").trim();
+	}
+	
+	private ProjectGenerator getProjectGenerator() throws Exception {
+		return new ProjectGenerator(projectFolder.getAbsolutePath(), "test.dbrep", "basic", new CliLogger(false));
+	}
+	
+	public void testGenerateAll() throws Exception {
+		ProjectGenerator projectGenerator = getProjectGenerator();
+		assertEquals(2, projectGenerator.getTargets().size());
+		GenerationResult result = projectGenerator.generate(null, null);
+		assertEquals(3, result.getNumberOfFilesGenerated());
+		assertEquals("Entity Author (AUTHOR)", read("src/Author.txt"));
+		assertEquals("Entity Book (BOOK)", read("src/Book.txt"));
+		assertEquals("Author Book", read("src/entities.txt"));
+		// One engine per template, reused for the next generations
+		assertEquals(2, projectGenerator.getSession().getVelocityEnginesCount());
+		projectGenerator.generate(null, null);
+		assertEquals(2, projectGenerator.getSession().getVelocityEnginesCount());
+	}
+
+	public void testGenerateSelection() throws Exception {
+		ProjectGenerator projectGenerator = getProjectGenerator();
+		GenerationResult result = projectGenerator.generate(Arrays.asList("BOOK"), Arrays.asList("bean.vm"));
+		assertEquals(1, result.getNumberOfFilesGenerated());
+		assertTrue(new File(projectFolder, "src/Book.txt").exists());
+		assertFalse(new File(projectFolder, "src/Author.txt").exists());
+	}
+	
+	public void testTemplateChange() throws Exception {
+		write("templates/basic/macros.vm", "#macro( title $e )Entity $e.name#end\n");
+		write("templates/basic/bean.vm", "#parse(\"macros.vm\")#title( $entity )\n");
+		ProjectGenerator projectGenerator = getProjectGenerator();
+		projectGenerator.generate(null, null);
+		assertEquals("Entity Book", read("src/Book.txt"));
+		assertEquals(2, projectGenerator.getSession().getVelocityEnginesCount());
+		assertTrue(projectGenerator.refreshTemplates().isEmpty());
+		
+		//--- Shared macro modified : the template using it is invalidated 
+		write("templates/basic/macros.vm", "#macro( title $e )Class $e.name#end\n");
+		Set<String> affected = projectGenerator.refreshTemplates();
+		assertTrue(affected.contains("macros.vm"));
+		assertTrue(affected.contains("bean.vm"));
+		assertFalse(affected.contains("list.vm"));
+		assertEquals(1, projectGenerator.getSession().getVelocityEnginesCount());
+		projectGenerator.generate(null, null);
+		assertEquals("Class Book", read("src/Book.txt"));
+	}
+	
+	public void testWatchCycles() throws Exception {
+		write("templates/basic/macros.vm", "#macro( title $e )Entity $e.name#end\n");
+		write("templates/basic/bean.vm", "#parse(\"macros.vm\")#title( $entity )\n");
+		ProjectGenerator projectGenerator = getProjectGenerator();
+		projectGenerator.generate(null, null);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ProjectWatcher watcher = new ProjectWatcher(projectGenerator, new CliLogger(false), new PrintStream(baos), 10, 50);
+		assertNull(watcher.poll(1000));
+		
+		//--- Shared macro modified : only the "bean" targets are regenerated, after the debounce delay
+		write("templates/basic/macros.vm", "#macro( title $e )Class $e.name#end\n");
+		assertNull(watcher.poll(2000)); // change detected
+		assertNull(watcher.poll(2020)); // debounce
+		GenerationResult result = watcher.poll(2060);
+		assertNotNull(result);
+		assertEquals(2, result.getNumberOfFilesGenerated());
+		assertEquals("Class Book", read("src/Book.txt"));
+		assertTrue(baos.toString().startsWith("CYCLE 1 changes=templates[bean.vm, macros.vm] files=2 "));
+		assertNull(watcher.poll(3000));
+		
+		//--- Repository modified : all the targets for all the entities 
+		writeRepository("AUTHOR", "Author", "BOOK", "Book", "PUBLISHER", "Publisher");
+		assertNull(watcher.poll(4000));
+		result = watcher.poll(4100);
+		assertEquals(4, result.getNumberOfFilesGenerated());
+		assertEquals("Author Book Publisher", read("src/entities.txt"));
+		assertEquals(2, watcher.getCycles());
+		
+		//--- Invalid template : error reported, the watcher goes on
+		write("templates/basic/list.vm", "#foreach( $e in $selectedEntities )\n");
+		assertNull(watcher.poll(5000));
+		assertNull(watcher.poll(5100));
+		assertTrue(baos.toString().contains("ERROR "));
+		write("templates/basic/list.vm", "#foreach( $e in $selectedEntities )$e.name,#end\n");
+		assertNull(watcher.poll(6000));
+		assertNotNull(watcher.poll(6100));
+		assertEquals("Author,Book,Publisher,", read("src/entities.txt"));
+	}
+	
+	public void testWatchNewTarget() throws Exception {
+		ProjectGenerator projectGenerator = getProjectGenerator();
+		projectGenerator.generate(null, null);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ProjectWatcher watcher = new ProjectWatcher(projectGenerator, new CliLogger(false), new PrintStream(baos), 10, 50);
+		assertNull(watcher.poll(1000));
+		
+		//--- New target using an existing template : the targets of this template are generated
+		write("templates/basic/templates.cfg", 
+				"Bean ; ${BEANNAME}.txt ; ${SRC} ; bean.vm \n"
+				+ "List ; entities.txt ; ${SRC} ; list.vm ; 1 \n"
+				+ "List2 ; entities2.txt ; ${SRC} ; list.vm ; 1 \n");
+		assertNull(watcher.poll(2000)); // change detected
+		GenerationResult result = watcher.poll(2100);
+		assertNotNull(result);
+		assertEquals(2, result.getNumberOfFilesGenerated());
+		assertEquals("Author Book", read("src/entities2.txt"));
+		assertTrue(baos.toString().contains("list.vm"));
+		assertFalse(baos.toString().contains("bean.vm"));
+		
+		//--- Modified target : generated with its new definition
+		write("templates/basic/templates.cfg", 
+				"Bean ; ${BEANNAME}.bean ; ${SRC} ; bean.vm \n"
+				+ "List ; entities.txt ; ${SRC} ; list.vm ; 1 \n"
+				+ "List2 ; entities2.txt ; ${SRC} ; list.vm ; 1 \n");
+		assertNull(watcher.poll(3000));
+		result = watcher.poll(3100);
+		assertEquals(2, result.getNumberOfFilesGenerated());
+		assertEquals("Entity Book (BOOK)", read("src/Book.bean"));
+	}
+	
+	public void testWatchLoop() throws Exception {
+		ProjectGenerator projectGenerator = getProjectGenerator();
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ProjectWatcher watcher = new ProjectWatcher(projectGenerator, new CliLogger(false), new PrintStream(baos), 10, 20);
+		Thread thread = new Thread(watcher);
+		thread.start();
+		try {
+			write("templates/basic/bean.vm", "Bean $entity.name\n");
+			for ( int i = 0 ; i < 200 && watcher.getCycles() == 0 ; i++ ) {
+				Thread.sleep(10);
+			}
+			assertEquals(1, watcher.getCycles());
+			assertEquals("Bean Book", read("src/Book.txt"));
+			assertFalse(new File(projectFolder, "src/entities.txt").exists());
+		} finally {
+			watcher.stop();
+			thread.join(1000);
+		}
+		assertTrue(baos.toString().contains("CYCLE 1 changes=templates[bean.vm] files=2 "));
+	}
+	
+	public void testDaemon() throws Exception {
+		ProjectGenerator projectGenerator = getProjectGenerator();
+		CliDaemon daemon = new CliDaemon(projectGenerator, new CliLogger(false));
+		assertEquals("OK", daemon.execute("ping"));
+		assertNull(daemon.execute("  "));
+		assertTrue(daemon.execute("generate AUTHOR List").startsWith("OK files=1 "));
+		assertEquals("Author", read("src/entities.txt"));
+		assertTrue(daemon.execute("generate NOPE").startsWith("ERROR "));
+		assertTrue(daemon.execute("foo").startsWith("ERROR "));
+		
+		//--- The repository is reloaded when modified
+		writeRepository("AUTHOR", "Author", "BOOK", "Book", "PUBLISHER", "Publisher");
+		new File(projectFolder, "repos/test.dbrep").setLastModified(System.currentTimeMillis() + 5000);
+		assertTrue(daemon.execute("generate * *").startsWith("OK files=4 "));
+		assertEquals("OK entities=3 targets=2 engines=2", daemon.execute("status"));
+		assertTrue(daemon.execute("stats").startsWith("OK introspection.hits="));
+		
+		assertEquals("OK stopped", daemon.execute("stop"));
+		assertTrue(daemon.isStopped());
+	}
+
+	public void testDaemonStream() throws Exception {
+		CliDaemon daemon = new CliDaemon(getProjectGenerator(), new CliLogger(false));
+		StringWriter writer = new StringWriter();
+		daemon.serve(new StringReader("ping\ngenerate BOOK\nstop\nping\n"), writer);
+		String[] lines = writer.toString().split("\r?\n");
+		assertEquals(3, lines.length);
+		assertEquals("OK", lines[0]);
+		assertTrue(lines[1].startsWith("OK files=2 "));
+		assertEquals("OK stopped", lines[2]);
+	}
+
+	public void testCommandLine() throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		int code = TelosysCli.run(new String[] { "-p", projectFolder.getAbsolutePath(), "-r", "test.dbrep", "-b", "basic", 
+				"generate", "-e", "AUTHOR" }, new ByteArrayInputStream(new byte[0]), new PrintStream(baos, true) );
+		assertEquals(TelosysCli.EXIT_OK, code);
+		assertTrue(baos.toString().startsWith("OK files=2 "));
+		
+		baos.reset();
+		code = TelosysCli.run(new String[] { "-p", projectFolder.getAbsolutePath(), "-r", "test.dbrep", "-b", "basic", "-c", 
+				"generate" }, new ByteArrayInputStream(new byte[0]), new PrintStream(baos, true) );
+		assertEquals(TelosysCli.EXIT_OK, code);
+		assertTrue(baos.toString().startsWith("OK files=3 "));
+		assertEquals("Entity Book (BOOK)", read("src/Book.txt"));
+		
+		code = TelosysCli.run(new String[] { "generate" }, new ByteArrayInputStream(new byte[0]), new PrintStream(baos, true) );
+		assertEquals(TelosysCli.EXIT_USAGE, code);
+	}
+}
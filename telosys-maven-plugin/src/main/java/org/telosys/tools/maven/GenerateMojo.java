@@ -0,0 +1,191 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.telosys.tools.cli.GenerationResult;
+import org.telosys.tools.cli.ProjectGenerator;
+import org.telosys.tools.commons.FileUtil;
+import org.telosys.tools.commons.TelosysToolsException;
+import org.telosys.tools.commons.cfg.TelosysToolsCfg;
+import org.telosys.tools.commons.cfg.TelosysToolsCfgManager;
+import org.telosys.tools.generator.GeneratorException;
+import org.telosys.tools.generator.config.GeneratorConfig;
+
+/**
+ * Generates the Telosys targets during the build <br>
+ * The generation is skipped if nothing has changed since the last generation 
+ * ( configuration, repository file, templates, variables and selection ). <br>
+ * The mojo is thread-safe : the modules of a parallel build are generated concurrently 
+ * ( the modules sharing the same Telosys project are generated one after the other ).
+ * 
+ * @goal generate
+ * @phase generate-sources
+ * @threadSafe
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class GenerateMojo extends AbstractMojo {
+
+	private final static String TELOSYS_TOOLS_CFG = "telosys-tools.cfg" ;
+	
+	/**
+	 * Lock for each Telosys project folder ( shared by all the modules of the build )
+	 */
+	private final static Map<String, Object> projectLocks = new HashMap<String, Object>();
+	
+	/**
+	 * The Telosys project folder ( where "telosys-tools.cfg" is located )
+	 * @parameter expression="${telosys.projectFolder}" default-value="${basedir}"
+	 * @required
+	 */
+	private File projectFolder ;
+	
+	/**
+	 * The repository file ( absolute, or relative to the project folder or to the repositories folder )
+	 * @parameter expression="${telosys.repositoryFile}"
+	 * @required
+	 */
+	private String repositoryFile ;
+	
+	/**
+	 * The bundle of templates ( none by default )
+	 * @parameter expression="${telosys.bundle}"
+	 */
+	private String bundle ;
+	
+	/**
+	 * The entities to be generated ( all by default )
+	 * @parameter
+	 */
+	private List<String> entities ;
+	
+	/**
+	 * The targets to be generated, identified by name or template file ( all by default )
+	 * @parameter
+	 */
+	private List<String> targets ;
+	
+	/**
+	 * Folder to be added as a compile source root ( relative to the project folder ), e.g. "src/main/java" 
+	 * @parameter
+	 */
+	private String sourceRoot ;
+	
+	/**
+	 * The file where the state of the last generation is kept 
+	 * @parameter default-value="${project.build.directory}/telosys/generation.state"
+	 * @required
+	 */
+	private File stateFile ;
+	
+	/**
+	 * Generates even if up to date
+	 * @parameter expression="${telosys.force}" default-value="false"
+	 */
+	private boolean force ;
+	
+	/**
+	 * Skips the generation
+	 * @parameter expression="${telosys.skip}" default-value="false"
+	 */
+	private boolean skip ;
+	
+	/**
+	 * @parameter default-value="${project}"
+	 * @readonly
+	 */
+	private MavenProject project ;
+	
+	private static Object getProjectLock(String projectPath) {
+		synchronized (projectLocks) {
+			Object lock = projectLocks.get(projectPath);
+			if ( lock == null ) {
+				lock = new Object();
+				projectLocks.put(projectPath, lock);
+			}
+			return lock ;
+		}
+	}
+	
+	public void execute() throws MojoExecutionException {
+		if ( skip ) {
+			getLog().info("Telosys generation skipped");
+			return ;
+		}
+		String projectPath = projectFolder.getAbsolutePath() ;
+		File cfgFile = new File(projectFolder, TELOSYS_TOOLS_CFG);
+		if ( ! cfgFile.exists() ) {
+			throw new MojoExecutionException("File '" + cfgFile.getAbsolutePath() + "' not found");
+		}
+		
+		synchronized ( getProjectLock(projectPath) ) {
+			//--- Up to date check ( only files stamps, the repository is not loaded )
+			TelosysToolsCfg cfg ;
+			try {
+				cfg = new TelosysToolsCfgManager(projectPath).loadProjectConfig();
+			} catch (TelosysToolsException e) {
+				throw new MojoExecutionException("Cannot load '" + cfgFile.getAbsolutePath() + "'", e);
+			}
+			File repository = ProjectGenerator.resolveRepositoryFile(projectPath, cfg, repositoryFile);
+			File templatesFolder = new File( new GeneratorConfig(projectPath, cfg, bundle).getTemplatesFolderFullPath() );
+			List<File> files = new LinkedList<File>();
+			files.add(cfgFile);
+			files.add(repository);
+			List<String> selection = new LinkedList<String>();
+			selection.add("bundle:" + bundle);
+			selection.add("entities:" + entities);
+			selection.add("targets:" + targets);
+			String fingerprint = GenerationState.computeFingerprint(files, templatesFolder, cfg.getAllVariables(), selection);
+			
+			GenerationState previousState = GenerationState.load(stateFile);
+			if ( ! force && previousState != null && previousState.isUpToDate(fingerprint) ) {
+				getLog().info("Telosys generation is up to date (" + previousState.getGeneratedFiles().size() + " files)");
+			}
+			else {
+				generate(projectPath, fingerprint);
+			}
+		}
+		
+		if ( sourceRoot != null && project != null ) {
+			project.addCompileSourceRoot( FileUtil.buildFilePath(projectPath, sourceRoot) );
+		}
+	}
+	
+	private void generate(String projectPath, String fingerprint) throws MojoExecutionException {
+		try {
+			ProjectGenerator projectGenerator = new ProjectGenerator(projectPath, repositoryFile, bundle, new MavenLogger(getLog()));
+			GenerationResult result = projectGenerator.generate(entities, targets);
+			getLog().info("Telosys generation : " + result.getNumberOfFilesGenerated() + " file(s) generated in " 
+					+ result.getDuration() + " ms");
+			new GenerationState(fingerprint, result.getGeneratedFiles()).save(stateFile);
+		} catch (GeneratorException e) {
+			throw new MojoExecutionException("Telosys generation error : " + e.getMessage(), e);
+		} catch (IOException e) {
+			throw new MojoExecutionException("Cannot save the generation state in '" + stateFile + "'", e);
+		}
+	}
+}
@@ -0,0 +1,223 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.maven;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+
+import org.telosys.tools.commons.variables.Variable;
+
+/**
+ * State of the last generation ( fingerprint of the inputs and generated files ) <br>
+ * The fingerprint is based on the files stamps ( length and last modification ) 
+ * and on the variables and selection values, so that it can be computed without reading the files content. <br>
+ * The generation is "up to date" if the fingerprint has not changed and if all the generated files still exist.
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class GenerationState {
+
+	private final static String FINGERPRINT = "fingerprint" ;
+	private final static String FILES_COUNT = "files.count" ;
+	private final static String FILE_PREFIX = "file." ;
+	
+	private final String       fingerprint ;
+	private final List<String> generatedFiles ;
+	
+	/**
+	 * Constructor
+	 * @param fingerprint
+	 * @param generatedFiles
+	 */
+	public GenerationState(String fingerprint, List<String> generatedFiles) {
+		super();
+		this.fingerprint = fingerprint;
+		this.generatedFiles = Collections.unmodifiableList(new LinkedList<String>(generatedFiles));
+	}
+
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
+	public List<String> getGeneratedFiles() {
+		return generatedFiles;
+	}
+
+	/**
+	 * Returns true if the given fingerprint is the same and if all the generated files still exist
+	 * @param currentFingerprint
+	 * @return
+	 */
+	public boolean isUpToDate(String currentFingerprint) {
+		if ( ! fingerprint.equals(currentFingerprint) ) {
+			return false ;
+		}
+		for ( String fileName : generatedFiles ) {
+			if ( ! new File(fileName).exists() ) {
+				return false ;
+			}
+		}
+		return true ;
+	}
+	
+	//-------------------------------------------------------------------------------------------
+	/**
+	 * Computes the fingerprint of the generation inputs
+	 * @param files the input files ( "telosys-tools.cfg", repository file, etc )
+	 * @param templatesFolder the templates folder ( all the files are taken into account )
+	 * @param variables the variables used by the generation
+	 * @param selection the selection values ( bundle, entities, targets, etc )
+	 * @return
+	 */
+	public static String computeFingerprint(List<File> files, File templatesFolder, Variable[] variables, List<String> selection) {
+		MessageDigest digest ;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("SHA-1 not available", e);
+		}
+		for ( File file : files ) {
+			update(digest, stamp(file) );
+		}
+		updateWithFolder(digest, templatesFolder);
+		if ( variables != null ) {
+			for ( Variable v : variables ) {
+				update(digest, "var:" + v.getName() + "=" + v.getValue() );
+			}
+		}
+		if ( selection != null ) {
+			for ( String s : selection ) {
+				update(digest, "sel:" + s );
+			}
+		}
+		return toHexString(digest.digest());
+	}
+	
+	private static void updateWithFolder(MessageDigest digest, File folder) {
+		String[] names = folder.list();
+		if ( names != null ) {
+			Arrays.sort(names); // stable order
+			for ( String name : names ) {
+				File file = new File(folder, name);
+				if ( file.isDirectory() ) {
+					updateWithFolder(digest, file);
+				}
+				else {
+					update(digest, stamp(file));
+				}
+			}
+		}
+		else {
+			update(digest, "no-folder:" + folder.getAbsolutePath() );
+		}
+	}
+	
+	private static String stamp(File file) {
+		return "file:" + file.getAbsolutePath() + "|" + file.length() + "|" + file.lastModified() ;
+	}
+
+	private static void update(MessageDigest digest, String s) {
+		try {
+			digest.update(s.getBytes("UTF-8"));
+			digest.update((byte)'\n');
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException("UTF-8 not supported", e);
+		}
+	}
+	
+	private static String toHexString(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for ( byte b : bytes ) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+	
+	//-------------------------------------------------------------------------------------------
+	/**
+	 * Loads the state from the given file 
+	 * @param file
+	 * @return the state or null if the file doesn't exist or cannot be read
+	 */
+	public static GenerationState load(File file) {
+		if ( ! file.exists() ) {
+			return null ;
+		}
+		Properties properties = new Properties();
+		try {
+			InputStream is = new FileInputStream(file);
+			try {
+				properties.load(is);
+			} finally {
+				is.close();
+			}
+			String fingerprint = properties.getProperty(FINGERPRINT);
+			int count = Integer.parseInt(properties.getProperty(FILES_COUNT, "0"));
+			List<String> files = new LinkedList<String>();
+			for ( int i = 0 ; i < count ; i++ ) {
+				String fileName = properties.getProperty(FILE_PREFIX + i);
+				if ( fileName != null ) {
+					files.add(fileName);
+				}
+			}
+			return fingerprint != null ? new GenerationState(fingerprint, files) : null ;
+		} catch (IOException e) {
+			return null ; // no state => generation 
+		} catch (NumberFormatException e) {
+			return null ; // no state => generation 
+		}
+	}
+
+	/**
+	 * Saves the state in the given file ( the parent folder is created if necessary )
+	 * @param file
+	 * @throws IOException
+	 */
+	public void save(File file) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty(FINGERPRINT, fingerprint);
+		properties.setProperty(FILES_COUNT, String.valueOf(generatedFiles.size()) );
+		int i = 0 ;
+		for ( String fileName : generatedFiles ) {
+			properties.setProperty(FILE_PREFIX + i, fileName);
+			i++ ;
+		}
+		File parent = file.getParentFile();
+		if ( parent != null && ! parent.exists() ) {
+			parent.mkdirs();
+		}
+		OutputStream os = new FileOutputStream(file);
+		try {
+			properties.store(os, "Telosys generation state");
+		} finally {
+			os.close();
+		}
+	}
+}
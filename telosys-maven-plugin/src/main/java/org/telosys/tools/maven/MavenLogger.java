@@ -0,0 +1,62 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.maven;
+
+import org.apache.maven.plugin.logging.Log;
+import org.telosys.tools.commons.TelosysToolsLogger;
+
+/**
+ * Telosys logger writing in the Maven log <br>
+ * ( the generator messages are "debug" messages, visible with "mvn -X" )
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class MavenLogger implements TelosysToolsLogger {
+
+	private final Log log ;
+	
+	/**
+	 * Constructor
+	 * @param log the Maven log
+	 */
+	public MavenLogger(Log log) {
+		super();
+		this.log = log;
+	}
+
+	public void log(Object object, String s) {
+		if ( log.isDebugEnabled() ) {
+			log.debug(s + " : " + object);
+		}
+	}
+
+	public void log(String s) {
+		log.debug(s);
+	}
+
+	public void info(String s) {
+		log.debug(s);
+	}
+
+	public void error(String s) {
+		log.error(s);
+	}
+
+	public void exception(Throwable e) {
+		log.error(e);
+	}
+}
@@ -0,0 +1,111 @@
+package org.telosys.tools.tests.maven;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.maven.plugin.testing.AbstractMojoTestCase;
+import org.telosys.tools.maven.GenerateMojo;
+
+/**
+ * "generate" goal test with the Maven plugin testing harness ( no network ) <br>
+ * The test project is copied in a temporary folder 
+ */
+public class GenerateMojoTest extends AbstractMojoTestCase {
+
+	private File projectFolder ;
+	private File stateFile ;
+	
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		projectFolder = File.createTempFile("telosys-maven-", "");
+		projectFolder.delete();
+		copy(getTestFile("src/test/resources/unit/project"), projectFolder);
+		stateFile = new File(projectFolder, "target/telosys/generation.state");
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		delete(projectFolder);
+		super.tearDown();
+	}
+	
+	private void copy(File source, File destination) throws IOException {
+		if ( source.isDirectory() ) {
+			destination.mkdirs();
+			for ( String name : source.list() ) {
+				copy(new File(source, name), new File(destination, name));
+			}
+		}
+		else {
+			InputStream is = new FileInputStream(source);
+			OutputStream os = new FileOutputStream(destination);
+			try {
+				byte[] buffer = new byte[4096];
+				int n ;
+				while ( ( n = is.read(buffer) ) > 0 ) {
+					os.write(buffer, 0, n);
+				}
+			} finally {
+				is.close();
+				os.close();
+			}
+		}
+	}
+	
+	private void delete(File file) {
+		File[] files = file.listFiles();
+		if ( files != null ) {
+			for ( File f : files ) {
+				delete(f);
+			}
+		}
+		file.delete();
+	}
+	
+	private GenerateMojo getMojo() throws Exception {
+		File pom = getTestFile("src/test/resources/unit/plugin-config.xml");
+		GenerateMojo mojo = (GenerateMojo) lookupMojo("generate", pom);
+		assertNotNull(mojo);
+		setVariableValueToObject(mojo, "projectFolder", projectFolder);
+		setVariableValueToObject(mojo, "stateFile", stateFile);
+		return mojo ;
+	}
+	
+	public void testGenerateThenUpToDate() throws Exception {
+		File author = new File(projectFolder, "src/Author.txt");
+		File book   = new File(projectFolder, "src/Book.txt");
+		
+		getMojo().execute();
+		assertTrue(author.exists());
+		assertTrue(book.exists());
+		assertTrue(stateFile.exists());
+		
+		//--- Nothing changed : no generation 
+		author.setLastModified(1000L);
+		getMojo().execute();
+		assertEquals(1000L, author.lastModified());
+		
+		//--- Template modified : generation
+		File template = new File(projectFolder, "templates/bean.vm");
+		template.setLastModified(template.lastModified() + 5000);
+		getMojo().execute();
+		assertTrue(author.lastModified() != 1000L);
+		
+		//--- Generated file removed : generation
+		book.delete();
+		getMojo().execute();
+		assertTrue(book.exists());
+	}
+
+	public void testSkip() throws Exception {
+		GenerateMojo mojo = getMojo();
+		setVariableValueToObject(mojo, "skip", Boolean.TRUE);
+		mojo.execute();
+		assertFalse(stateFile.exists());
+	}
+}
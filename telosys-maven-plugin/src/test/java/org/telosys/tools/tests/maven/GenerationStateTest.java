@@ -0,0 +1,70 @@
+package org.telosys.tools.tests.maven;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.variables.Variable;
+import org.telosys.tools.maven.GenerationState;
+
+public class GenerationStateTest extends TestCase {
+
+	private File getFolder() throws Exception {
+		File folder = File.createTempFile("telosys-state-", "");
+		folder.delete();
+		folder.mkdirs();
+		return folder ;
+	}
+	
+	public void testFingerprint() throws Exception {
+		File folder = getFolder();
+		File template = new File(folder, "bean.vm");
+		template.createNewFile();
+		List<File> files = new LinkedList<File>();
+		Variable[] variables = new Variable[] { new Variable("SRC", "src") } ;
+		List<String> selection = Arrays.asList("bundle:null");
+		
+		String f1 = GenerationState.computeFingerprint(files, folder, variables, selection);
+		assertEquals(f1, GenerationState.computeFingerprint(files, folder, variables, selection));
+		
+		//--- Variable changed
+		Variable[] variables2 = new Variable[] { new Variable("SRC", "src/main/java") } ;
+		assertFalse(f1.equals(GenerationState.computeFingerprint(files, folder, variables2, selection)));
+		
+		//--- Selection changed
+		assertFalse(f1.equals(GenerationState.computeFingerprint(files, folder, variables, Arrays.asList("bundle:b"))));
+		
+		//--- Template modified
+		template.setLastModified(template.lastModified() + 5000);
+		assertFalse(f1.equals(GenerationState.computeFingerprint(files, folder, variables, selection)));
+		
+		template.delete();
+		folder.delete();
+	}
+
+	public void testSaveAndLoad() throws Exception {
+		File folder = getFolder();
+		File generated = new File(folder, "Foo.java");
+		generated.createNewFile();
+		File stateFile = new File(folder, "state/generation.state");
+		assertNull(GenerationState.load(stateFile));
+		
+		new GenerationState("abc", Arrays.asList(generated.getAbsolutePath())).save(stateFile);
+		GenerationState state = GenerationState.load(stateFile);
+		assertNotNull(state);
+		assertEquals("abc", state.getFingerprint());
+		assertEquals(1, state.getGeneratedFiles().size());
+		assertTrue(state.isUpToDate("abc"));
+		assertFalse(state.isUpToDate("abd"));
+		
+		generated.delete();
+		assertFalse(state.isUpToDate("abc"));
+		
+		stateFile.delete();
+		stateFile.getParentFile().delete();
+		folder.delete();
+	}
+}
@@ -0,0 +1,134 @@
+/**
+ *  Copyright (C) 2008-2014  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.commons ;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache for objects built from a file (properties, targets definitions, etc) <br>
+ * Each object is kept with the "stamp" of the file when it has been loaded <br>
+ * ( last modified date and size ) and it is returned only if the file has not changed. <br>
+ * So the file is read and parsed again only when it has been modified. <br>
+ * <br>
+ * Thread safe ( can be shared by different generation tasks )
+ * 
+ * @param <V> the type of the object built from the file
+ * 
+ * @author L. Guerin
+ *
+ */
+public class LoadedFilesCache<V> {
+
+	private final Map<String,Entry<V>> entries = new HashMap<String,Entry<V>>();
+	
+	private int hitsCount   = 0 ;
+	private int missesCount = 0 ;
+	
+	private final static class Entry<V> {
+		private final long lastModified ;
+		private final long length ;
+		private final V    value ;
+		private Entry(long lastModified, long length, V value) {
+			super();
+			this.lastModified = lastModified;
+			this.length = length;
+			this.value = value;
+		}
+	}
+	
+	/**
+	 * Constructor
+	 */
+	public LoadedFilesCache() {
+		super();
+	}
+
+	private String key(File file) {
+		return file.getAbsolutePath() ;
+	}
+	
+	/**
+	 * Returns the "stamp" of the given file ( to be taken BEFORE loading the file ) 
+	 * @param file
+	 * @return an array with the last modified date and the size ( 0 if the file doesn't exist )
+	 */
+	public static long[] getStamp(File file) {
+		return new long[] { file.lastModified(), file.length() } ;
+	}
+	
+	/**
+	 * Returns the object loaded from the given file if the file has not changed since it has been loaded
+	 * @param file
+	 * @return the object or null if not in the cache or if the file has changed
+	 */
+	public synchronized V get(File file) {
+		Entry<V> entry = entries.get( key(file) );
+		if ( entry != null ) {
+			if ( entry.lastModified == file.lastModified() && entry.length == file.length() && file.exists() ) {
+				hitsCount++ ;
+				return entry.value ;
+			}
+			else {
+				//--- The file has changed (or has been removed) 
+				entries.remove( key(file) );
+			}
+		}
+		missesCount++ ;
+		return null ;
+	}
+
+	/**
+	 * Stores the object loaded from the given file
+	 * @param file
+	 * @param stamp the file stamp taken before loading the file (see getStamp)
+	 * @param value
+	 */
+	public synchronized void put(File file, long[] stamp, V value) {
+		if ( value != null && stamp[0] != 0 ) {
+			entries.put( key(file), new Entry<V>(stamp[0], stamp[1], value) );
+		}
+	}
+
+	/**
+	 * Removes the object loaded from the given file (if any) <br>
+	 * To be called when the file is saved by the application 
+	 * @param file
+	 */
+	public synchronized void remove(File file) {
+		entries.remove( key(file) );
+	}
+	
+	/**
+	 * Removes all the objects 
+	 */
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size() ;
+	}
+
+	public synchronized int getHitsCount() {
+		return hitsCount ;
+	}
+
+	public synchronized int getMissesCount() {
+		return missesCount ;
+	}
+}
@@ -15,15 +15,19 @@
  */
 package org.telosys.tools.commons;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 
 public class ZipUtil {
 
+	private final static int BUFFER_SIZE = 64 * 1024 ; // 64 kb 
+
 	//---------------------------------------------------------------------------------------------
 	/**
 	 * Unzip the given ZIP file in the output folder, without the root folder part 
@@ -35,7 +39,34 @@ public class ZipUtil {
 			final boolean createFolder) throws Exception {
 
 		log("UnZip file '" + zipFile + "'");
-		log("        in '" + outputFolder + "'");
+		InputStream is ;
+		try {
+			is = new BufferedInputStream(new FileInputStream(zipFile), BUFFER_SIZE);
+		} catch (IOException ex) {
+			log("IOException : " + ex.getMessage() );
+			throw new Exception("UnZip Error (IOException)", ex);
+		}
+		try {
+			unzip(is, outputFolder, createFolder);
+		}
+		finally {
+			close(is);
+		}
+	}
+	
+	//---------------------------------------------------------------------------------------------
+	/**
+	 * Unzip the ZIP content read from the given stream in the output folder, without the root folder part <br>
+	 * The ZIP content is extracted while it is read ( e.g. while it is downloaded ) <br>
+	 * The stream is not closed and it is positioned after the last entry 
+	 * @param zipInputStream the stream providing the ZIP content
+	 * @param outputFolder
+	 * @param createFolder
+	 */
+	public static void unzip(final InputStream zipInputStream, final String outputFolder,
+			final boolean createFolder) throws Exception {
+
+		log("UnZip stream in '" + outputFolder + "'");
 
 		//--- Check output directory existence
 		File folder = new File(outputFolder);
@@ -49,9 +80,11 @@ public class ZipUtil {
 		}
 
 		try {
+			//--- Buffer reused for all the entries
+			byte[] buffer = new byte[BUFFER_SIZE];
 
-			//--- Read each entry in the zip file
-			ZipInputStream zis = new ZipInputStream(new FileInputStream(zipFile));
+			//--- Read each entry in the zip stream
+			ZipInputStream zis = new ZipInputStream(zipInputStream);
 			
 			ZipEntry zipEntry = zis.getNextEntry();
 			while (zipEntry != null) {
@@ -72,7 +105,7 @@ public class ZipUtil {
 						destinationFile.mkdirs(); // create directory (including parents)
 					}
 					else {
-						unzipEntry(zis, destinationFile); // extract to file
+						unzipEntry(zis, destinationFile, buffer); // extract to file
 					}
 				}
 				else {
@@ -83,7 +116,7 @@ public class ZipUtil {
 			}
 
 			zis.closeEntry();
-			zis.close();
+			// NB : do not close the ZipInputStream (the given stream must remain open)
 
 			log("Done");
 
@@ -93,6 +126,14 @@ public class ZipUtil {
 		}
 	}
 	
+	private static void close(InputStream is) {
+		try {
+			is.close();
+		} catch (IOException e) {
+			// Nothing to do
+		}
+	}
+	
 	//---------------------------------------------------------------------------------------------
 	private static int getFirstSeparator(final String entryName) {
 		
@@ -123,20 +164,36 @@ public class ZipUtil {
 	 * Unzip the given entry (a single file stored in the zip file)
 	 * @param zis entry input stream
 	 * @param newFile the new file to be created
+	 * @param buffer the buffer to be used (filled before each write)
 	 * @throws IOException
 	 */
-	private static void unzipEntry(ZipInputStream zis, File newFile) throws IOException {
+	private static void unzipEntry(ZipInputStream zis, File newFile, byte[] buffer) throws IOException {
 
-		// create non existent parent folders (to avoid FileNotFoundException) ???
-		// new File(newFile.getParent()).mkdirs();
+		// create non existent parent folders (the zip can contain files without their folder entries)
+		File parent = newFile.getParentFile();
+		if ( parent != null && ! parent.exists() ) {
+			parent.mkdirs();
+		}
 
-		byte[] buffer = new byte[1024];
 		FileOutputStream fos = new FileOutputStream(newFile);
-		int len;
-		while ((len = zis.read(buffer)) > 0) {
-			fos.write(buffer, 0, len);
+		try {
+			int len = 0 ;
+			int n ;
+			while ( ( n = zis.read(buffer, len, buffer.length - len) ) >= 0 ) {
+				len = len + n ;
+				if ( len == buffer.length ) {
+					// buffer full => write
+					fos.write(buffer, 0, len);
+					len = 0 ;
+				}
+			}
+			if ( len > 0 ) {
+				fos.write(buffer, 0, len);
+			}
+		}
+		finally {
+			fos.close();
 		}
-		fos.close();
 	}
 
 //	//---------------------------------------------------------------------------------------------
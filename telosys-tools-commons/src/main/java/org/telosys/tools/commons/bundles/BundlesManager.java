@@ -16,14 +16,28 @@
 package org.telosys.tools.commons.bundles;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.telosys.tools.commons.FileUtil;
 import org.telosys.tools.commons.ZipUtil;
 import org.telosys.tools.commons.cfg.TelosysToolsCfg;
+import org.telosys.tools.commons.github.GitHubCatalogCache;
 import org.telosys.tools.commons.github.GitHubClient;
 import org.telosys.tools.commons.github.GitHubRepository;
+import org.telosys.tools.commons.github.GitHubUtil;
+import org.telosys.tools.commons.http.HttpClient;
 
 
 /**
@@ -34,8 +48,19 @@ import org.telosys.tools.commons.github.GitHubRepository;
  */
 public class BundlesManager {
 
+	private final static String CHECKSUM_ALGORITHM = "SHA-256" ;
+	
+	private final static String INSTALL_SUFFIX = ".installing" ;
+	
+	/**
+	 * Bundles folders with an installation in progress (shared by all the instances)
+	 */
+	private final static Set<String> installationsInProgress = new HashSet<String>();
+	
 	private final TelosysToolsCfg cfg ;
 	
+	private HttpClient httpClient = null ; // created on first use, shared by the parallel downloads
+	
 	//--------------------------------------------------------------------------------------------------
 	/**
 	 * Constructor 
@@ -106,16 +131,196 @@ public class BundlesManager {
 		return downloadBundle( userName, bundleName, cfg.getDownloadsFolder() ) ;
 	}
 
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Downloads a bundle (GitHub repo) and installs it in the bundles folder <br>
+	 * The zip file is extracted while it is downloaded (it is not stored in the downloads folder)
+	 * @param userName the GitHub user name (e.g. "telosys-tools")
+	 * @param bundleName the bundle name, in other words the GitHub repository name 
+	 * @return
+	 */
 	public BundleStatus downloadAndInstallBundle( String userName, String bundleName ) {
 		
-		BundleStatus status1 = downloadBundle( userName, bundleName, cfg.getDownloadsFolder() ) ;
-		if ( status1.isDone() && status1.getException() == null ) {
-			BundleStatus status2 = installBundle(status1.getZipFile(), bundleName);
-			return status2 ;
+		return downloadAndInstallBundle( userName, bundleName, null ) ;
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Downloads a bundle (GitHub repo) and installs it in the bundles folder, checking the zip file checksum
+	 * @param userName the GitHub user name (e.g. "telosys-tools")
+	 * @param bundleName the bundle name, in other words the GitHub repository name 
+	 * @param expectedChecksum the expected SHA-256 checksum of the zip file (hexadecimal), or null if no check
+	 * @return
+	 */
+	public BundleStatus downloadAndInstallBundle( String userName, String bundleName, String expectedChecksum ) {
+		
+		String url = GitHubUtil.buildGitHubURL(userName, bundleName, GitHubClient.GIT_HUB_REPO_URL_PATTERN);
+		return installBundleFromURL( url, bundleName, expectedChecksum ) ;
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Downloads and installs several bundles concurrently 
+	 * @param userName the GitHub user name (e.g. "telosys-tools")
+	 * @param bundlesNames the bundles to be installed
+	 * @param maxThreads the maximum number of bundles installed at the same time
+	 * @return the status of each bundle (in the same order as the bundles names) 
+	 */
+	public List<BundleStatus> downloadAndInstallBundles( final String userName, List<String> bundlesNames, int maxThreads ) {
+		
+		List<BundleStatus> statusList = new ArrayList<BundleStatus>(bundlesNames.size());
+		ExecutorService executor = Executors.newFixedThreadPool( Math.max(1, Math.min(maxThreads, bundlesNames.size())) );
+		try {
+			List<Future<BundleStatus>> futures = new ArrayList<Future<BundleStatus>>(bundlesNames.size());
+			for ( final String bundleName : bundlesNames ) {
+				futures.add( executor.submit(new Callable<BundleStatus>() {
+					public BundleStatus call() {
+						return downloadAndInstallBundle(userName, bundleName);
+					}
+				}) );
+			}
+			for ( Future<BundleStatus> future : futures ) {
+				BundleStatus status ;
+				try {
+					status = future.get();
+				} catch (Exception e) {
+					status = new BundleStatus();
+					status.setDone(false);
+					status.setMessage("ERROR: bundle installation interrupted.");
+					status.setException(e);
+				}
+				statusList.add(status);
+			}
 		}
-		else {
-			return status1 ;
+		finally {
+			executor.shutdown();
 		}
+		return statusList ;
+	}
+
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Installs a bundle by extracting the zip file provided by the given URL while it is downloaded <br>
+	 * The bundle is extracted in a temporary folder, then renamed when complete and checked
+	 * @param url the URL of the zip file
+	 * @param bundleName the bundle name
+	 * @param expectedChecksum the expected SHA-256 checksum of the zip file (hexadecimal), or null if no check
+	 * @return
+	 */
+	public BundleStatus installBundleFromURL( String url, String bundleName, String expectedChecksum ) {
+		
+		BundleStatus status = new BundleStatus();
+		if ( isBundleAlreadyInstalled( bundleName ) ) {
+			status.setDone(false);
+			status.setMessage("Bundle already installed.");
+			return status ;
+		}
+		
+		String bundleFolder = getBundleFolderFullPath(bundleName) ;
+		synchronized (installationsInProgress) {
+			if ( ! installationsInProgress.add(bundleFolder) ) {
+				status.setDone(false);
+				status.setMessage("Bundle installation already in progress.");
+				return status ;
+			}
+		}
+		File tmpFolder = new File(bundleFolder + INSTALL_SUFFIX);
+		try {
+			status.log("-> Download and install '" + url + "' ");
+			status.log("   in '" + bundleFolder + "' ");
+			deleteRecursively(tmpFolder); // previous installation aborted (if any)
+			
+			String checksum = downloadAndUnzip(url, tmpFolder, expectedChecksum != null );
+			if ( expectedChecksum != null && ! expectedChecksum.trim().equalsIgnoreCase(checksum) ) {
+				deleteRecursively(tmpFolder);
+				status.setDone(false);
+				status.setMessage("ERROR: invalid checksum for bundle '" + bundleName + "' (" + checksum + ").");
+				return status ;
+			}
+			if ( ! tmpFolder.renameTo(new File(bundleFolder)) ) {
+				deleteRecursively(tmpFolder);
+				status.setDone(false);
+				status.setMessage("ERROR: cannot rename folder '" + tmpFolder + "'.");
+				return status ;
+			}
+			status.setDone(true);
+			status.setMessage("OK, bundle '" + bundleName + "' downloaded and installed.");
+		} catch (Exception e) {
+			deleteRecursively(tmpFolder);
+			status.setDone(false);
+			status.setMessage("ERROR: cannot download and install bundle '" + bundleName + "'.");
+			status.setException(e);
+		}
+		finally {
+			synchronized (installationsInProgress) {
+				installationsInProgress.remove(bundleFolder);
+			}
+		}
+		return status ;
+	}
+	
+	/**
+	 * Downloads the zip file and extracts it in the given folder 
+	 * @param url
+	 * @param folder
+	 * @param computeChecksum
+	 * @return the checksum of the zip file (or null if not computed)
+	 * @throws Exception
+	 */
+	private String downloadAndUnzip(String url, File folder, boolean computeChecksum) throws Exception {
+		InputStream is = getHttpClient().openInputStream(url);
+		try {
+			MessageDigest digest = null ;
+			if ( computeChecksum ) {
+				digest = MessageDigest.getInstance(CHECKSUM_ALGORITHM);
+				is = new DigestInputStream(is, digest);
+			}
+			ZipUtil.unzip(is, folder.getAbsolutePath(), true);
+			if ( digest != null ) {
+				//--- Read the end of the zip file (central directory) to compute the checksum
+				byte[] buffer = new byte[8*1024];
+				while ( is.read(buffer) >= 0 ) {
+					// nothing to do
+				}
+				return toHexString(digest.digest());
+			}
+			return null ;
+		}
+		finally {
+			try {
+				is.close();
+			} catch (IOException e) {
+				// Nothing to do
+			}
+		}
+	}
+	
+	private synchronized HttpClient getHttpClient() {
+		if ( httpClient == null ) {
+			httpClient = new HttpClient( cfg.getProperties() ) ;
+		}
+		return httpClient ;
+	}
+	
+	private String toHexString(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * 2);
+		for ( byte b : bytes ) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+	
+	private void deleteRecursively(File file) {
+		if ( file.isDirectory() ) {
+			File[] files = file.listFiles();
+			if ( files != null ) {
+				for ( File f : files ) {
+					deleteRecursively(f);
+				}
+			}
+		}
+		file.delete();
 	}
 
 	//--------------------------------------------------------------------------------------------------
@@ -156,8 +361,23 @@ public class BundlesManager {
 	 * @throws Exception
 	 */
 	public List<String> getBundlesList( String userName ) throws Exception {
+		return getBundlesList( userName, false );
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Return a list of bundles available on the given user's name on GitHub <br>
+	 * The GitHub catalog is kept in a cache located in the downloads folder
+	 * @param userName the GitHub user name
+	 * @param offline if true the list is only taken from the cache ( no access to GitHub )
+	 * @return
+	 * @throws Exception
+	 */
+	public List<String> getBundlesList( String userName, boolean offline ) throws Exception {
 		List<String> bundles = new LinkedList<String>();
 		GitHubClient gitHubClient = new GitHubClient( cfg.getProperties() ) ; 
+		gitHubClient.setCatalogCache( new GitHubCatalogCache( new File(getDownloadsFolderFullPath()), GitHubCatalogCache.DEFAULT_TTL) );
+		gitHubClient.setOffline(offline);
 		List<GitHubRepository> repositories = gitHubClient.getRepositories( userName );
 		for ( GitHubRepository repo : repositories ) {
 // Removed in ver 2.1.0 ( "size" is not reliable in the GitHub API ) 
@@ -15,9 +15,11 @@
  */
 package org.telosys.tools.commons.cfg;
 
+import java.io.File;
 import java.util.Properties;
 
 import org.telosys.tools.commons.FileUtil;
+import org.telosys.tools.commons.LoadedFilesCache;
 import org.telosys.tools.commons.TelosysToolsException;
 
 /**
@@ -29,6 +31,12 @@ public class TelosysToolsCfgManager {
 
     private final static String TELOSYS_TOOLS_CFG_FILE = "telosys-tools.cfg";
 
+    /**
+     * Properties loaded from the configuration files (shared by all the managers) <br>
+     * a file is reloaded only if it has been modified 
+     */
+    private final static LoadedFilesCache<Properties> propertiesCache = new LoadedFilesCache<Properties>();
+
     private final String projectAbsolutePath ;
     private final String cfgFileAbsolutePath ;
     
@@ -81,8 +89,7 @@ public class TelosysToolsCfgManager {
 	{
 		//PluginLogger.log("ProjectConfigManager.loadProjectConfig(p)..." );
 
-		PropertiesManager propManager = new PropertiesManager( this.cfgFileAbsolutePath ) ;
-		Properties prop = propManager.load(); // Ret NULL if file not found
+		Properties prop = loadProperties(); // Ret NULL if file not found
 		if ( prop != null )
 		{
 			TelosysToolsCfg projectConfig = new TelosysToolsCfg(this.projectAbsolutePath, this.cfgFileAbsolutePath, prop );
@@ -96,12 +103,43 @@ public class TelosysToolsCfgManager {
 		}
 	}
 	
+	//-------------------------------------------------------------------------------------------------
+	/**
+	 * Loads the properties from the configuration file or from the cache if the file has not changed <br>
+	 * Returns a copy of the cached properties ( the configuration can update its properties )
+	 * @return the properties or null if the file doesn't exist
+	 * @throws TelosysToolsException
+	 */
+	private Properties loadProperties() throws TelosysToolsException
+	{
+		File file = new File(this.cfgFileAbsolutePath);
+		Properties prop = propertiesCache.get(file);
+		if ( prop == null ) {
+			long[] stamp = LoadedFilesCache.getStamp(file);
+			PropertiesManager propManager = new PropertiesManager( file ) ;
+			prop = propManager.load(); // Ret NULL if file not found
+			if ( prop == null ) {
+				return null ;
+			}
+			propertiesCache.put(file, stamp, prop);
+		}
+		Properties copy = new Properties();
+		copy.putAll(prop);
+		return copy ;
+	}
+	
 	//-------------------------------------------------------------------------------------------------
 	public void saveProjectConfig( TelosysToolsCfg telosysToolsCfg ) throws TelosysToolsException
 	{
 		PropertiesManager propManager = new PropertiesManager( this.cfgFileAbsolutePath ) ;
 		// Save the configuration as a set of properties
-		propManager.save( telosysToolsCfg.getProperties() );
+		try {
+			propManager.save( telosysToolsCfg.getProperties() );
+		}
+		finally {
+			// the file has changed (even if the modification date is the same) 
+			propertiesCache.remove( new File(this.cfgFileAbsolutePath) );
+		}
 	}
 //	//-------------------------------------------------------------------------------------------------
 //	public void saveProjectConfig( Properties prop ) throws TelosysToolsException
@@ -54,5 +54,9 @@ class ConstXML {
 	 public final static String DB_METADATA_ATTR_TABLE_NAME_INCLUDE = "table-name-include"; // ver 2.1.1
 	 public final static String DB_METADATA_ATTR_TABLE_NAME_EXCLUDE = "table-name-exclude"; // ver 2.1.1
 	 
+	 public final static String DB_METADATA_ATTR_REMARKS = "remarks"; // "true" or "false" ( "true" if not defined ) 
+	 public final static String DB_METADATA_ATTR_DEFAULT_VALUES = "default-values"; // "true" or "false" ( "true" if not defined ) 
+	 public final static String DB_METADATA_ATTR_PROVIDER = "provider"; // metadata provider name ( default provider of the type if not defined ) 
+	 
 	 //---------------------------------------------------------------------------
 }
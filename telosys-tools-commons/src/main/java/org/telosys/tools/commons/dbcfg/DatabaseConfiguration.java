@@ -58,6 +58,12 @@ public class DatabaseConfiguration
 
     private String     metadataTableTypes       = null;
 
+    private boolean    metadataRemarks          = true; // optional field, can be expensive with some drivers
+
+    private boolean    metadataDefaultValues    = true; // optional field
+
+    private String     metadataProvider         = null; // null = default provider for the database type
+
     //private String[]   _arrayMetadataTableTypes   = null;
 	private String     typeName = "" ; // ver 2.1.0
 	private String     dialect  = "" ; // ver 2.1.0
@@ -89,6 +95,8 @@ public class DatabaseConfiguration
     	this.metadataTableNameInclude = "" ;
     	this.metadataTableNameExclude = "" ;
     	this.metadataTableTypes       = "TABLE" ;
+    	this.metadataRemarks          = false ;
+    	this.metadataDefaultValues    = false ;
     	
     }
 
@@ -253,6 +261,41 @@ public class DatabaseConfiguration
 	public void setMetadataTableTypes(String metadataTableTypes) {
 		this.metadataTableTypes = metadataTableTypes;
 	}
+	
+    /**
+     * Returns true if the tables and columns remarks ( comments ) must be loaded from the database metadata
+     * @return
+     */
+    public boolean isMetadataRemarks() {
+		return metadataRemarks;
+	}
+	public void setMetadataRemarks(boolean metadataRemarks) {
+		this.metadataRemarks = metadataRemarks;
+	}
+
+    /**
+     * Returns true if the columns default values must be loaded from the database metadata
+     * @return
+     */
+	public boolean isMetadataDefaultValues() {
+		return metadataDefaultValues;
+	}
+	public void setMetadataDefaultValues(boolean metadataDefaultValues) {
+		this.metadataDefaultValues = metadataDefaultValues;
+	}
+
+    /**
+     * Returns the metadata provider explicitly chosen for this database ( e.g. "JDBC", "H2", "POSTGRESQL" ) <br>
+     * or null if the default provider of the database type must be used
+     * @return
+     */
+	public String getMetadataProvider() {
+		return metadataProvider;
+	}
+	public void setMetadataProvider(String metadataProvider) {
+		this.metadataProvider = metadataProvider;
+	}
+
 	public String[] getMetadataTableTypesArray() {
 	    StringTokenizer st = new StringTokenizer(metadataTableTypes);
 	    int iCount = st.countTokens();
@@ -23,6 +23,7 @@ public class DatabaseType {
 	private final String metadataCatalog ;
 	private final String typeName ; // ver 2.1.0
 	private final String dialect ; // ver 2.1.0
+	private final String metadataProvider ;
 	
 	/**
 	 * Constructor
@@ -34,6 +35,20 @@ public class DatabaseType {
 	 * @param metadataCatalog
 	 */
 	public DatabaseType(String name, String typeName, String dialect, String driver, String url, String metadataCatalog) {
+		this(name, typeName, dialect, driver, url, metadataCatalog, "");
+	}
+
+	/**
+	 * Constructor
+	 * @param name
+	 * @param typeName
+	 * @param dialect
+	 * @param driver
+	 * @param url
+	 * @param metadataCatalog
+	 * @param metadataProvider the metadata provider to be used to load the database model ( "" for standard JDBC metadata )
+	 */
+	public DatabaseType(String name, String typeName, String dialect, String driver, String url, String metadataCatalog, String metadataProvider) {
 		super();
 		this.name = name;
 		this.typeName = typeName ;
@@ -41,6 +56,7 @@ public class DatabaseType {
 		this.driver = driver;
 		this.url = url;
 		this.metadataCatalog = metadataCatalog ;
+		this.metadataProvider = metadataProvider ;
 	}
 
 	/**
@@ -90,6 +106,15 @@ public class DatabaseType {
 		return metadataCatalog;
 	}
 
+	/**
+	 * Returns the metadata provider to be used to load the database model <br>
+	 * ( "" for the standard JDBC metadata, else a dialect provider name, e.g. "H2", "POSTGRESQL" )
+	 * @return
+	 */
+	public String getMetadataProvider() {
+		return metadataProvider;
+	}
+
 	@Override
 	public String toString() {
 		return "[typeName=" + name + ", driver=" + driver
@@ -50,7 +50,8 @@ public class DatabaseTypeProvider {
 				"org.hibernate.dialect.H2Dialect",
 				"org.h2.Driver",
 				"jdbc:h2:mem",
-				"") ) ;
+				"",
+				"H2") ) ; // metadata provider
 		
 		dbTypesList.add( new DatabaseType(
 				"H2 server", // Name : must be unique (used as KEY)   
@@ -58,7 +59,8 @@ public class DatabaseTypeProvider {
 				"org.hibernate.dialect.H2Dialect",
 				"org.h2.Driver",
 				"jdbc:h2:tcp://localhost/~/<DB_NAME>",
-				"") ) ;
+				"",
+				"H2") ) ; // metadata provider
 		
 		dbTypesList.add( new DatabaseType(
 				"HSQL-DB embedded",  // Name : must be unique (used as KEY)    
@@ -122,7 +124,7 @@ public class DatabaseTypeProvider {
 				"org.hibernate.dialect.PostgreSQLDialect",
 				"org.postgresql.Driver",
 				"jdbc:postgresql://localhost:5432/<DB_NAME>",
-				"") ) ;
+				"") ) ; // "POSTGRESQL" metadata provider available on demand ( <metadata provider="POSTGRESQL" ... /> )
 		
 		dbTypesList.add( new DatabaseType(
 				"SQL-SERVER",  // Name : must be unique (used as KEY) 
@@ -172,4 +174,34 @@ public class DatabaseTypeProvider {
 	public final static DatabaseType getDatabaseTypeByName(String name) {
 		return dbTypesMap.get(name) ;
 	}
+
+	/**
+	 * Returns the metadata provider to be used for the given database configuration <br>
+	 * ( the provider explicitly defined in the configuration if any, else the default provider of the type )
+	 * @param databaseConfiguration
+	 * @return the provider name ( "" for standard JDBC metadata )
+	 */
+	public final static String getMetadataProvider(DatabaseConfiguration databaseConfiguration) {
+		if ( databaseConfiguration.getMetadataProvider() != null ) {
+			return databaseConfiguration.getMetadataProvider() ;
+		}
+		return getMetadataProviderForTypeName( databaseConfiguration.getTypeName() );
+	}
+
+	/**
+	 * Returns the default metadata provider for the given database type name <br>
+	 * ( e.g. "H2", "POSTGRESQL", etc, see DatabaseConfiguration.getTypeName() )
+	 * @param typeName
+	 * @return the provider name ( "" for standard JDBC metadata if the type is unknown )
+	 */
+	public final static String getMetadataProviderForTypeName(String typeName) {
+		if ( typeName != null ) {
+			for ( DatabaseType databaseType : dbTypesList ) {
+				if ( typeName.equals(databaseType.getTypeName()) ) {
+					return databaseType.getMetadataProvider() ;
+				}
+			}
+		}
+		return "" ;
+	}
 }
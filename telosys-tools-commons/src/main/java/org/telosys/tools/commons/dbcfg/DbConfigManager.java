@@ -169,6 +169,10 @@ public class DbConfigManager {
                 databaseConfiguration.setMetadataTableTypes(elemMetadata.getAttribute(ConstXML.DB_METADATA_ATTR_TABLE_TYPES));                
                 databaseConfiguration.setMetadataTableNameInclude(elemMetadata.getAttribute(ConstXML.DB_METADATA_ATTR_TABLE_NAME_INCLUDE)); // ver 2.1.1
                 databaseConfiguration.setMetadataTableNameExclude(elemMetadata.getAttribute(ConstXML.DB_METADATA_ATTR_TABLE_NAME_EXCLUDE)); // ver 2.1.1
+                databaseConfiguration.setMetadataRemarks(getBooleanAttribute(elemMetadata, ConstXML.DB_METADATA_ATTR_REMARKS, true));
+                databaseConfiguration.setMetadataDefaultValues(getBooleanAttribute(elemMetadata, ConstXML.DB_METADATA_ATTR_DEFAULT_VALUES, true));
+                String provider = elemMetadata.getAttribute(ConstXML.DB_METADATA_ATTR_PROVIDER);
+                databaseConfiguration.setMetadataProvider( provider != null && provider.trim().length() > 0 ? provider.trim() : null );
             }
         }
         
@@ -212,6 +216,26 @@ public class DbConfigManager {
 		e.setAttribute(ConstXML.DB_METADATA_ATTR_TABLE_TYPES, databaseConfiguration.getMetadataTableTypes() );
 		e.setAttribute(ConstXML.DB_METADATA_ATTR_TABLE_NAME_INCLUDE, databaseConfiguration.getMetadataTableNameInclude() ); // ver 2.1.1
 		e.setAttribute(ConstXML.DB_METADATA_ATTR_TABLE_NAME_EXCLUDE, databaseConfiguration.getMetadataTableNameExclude() ); // ver 2.1.1
+		e.setAttribute(ConstXML.DB_METADATA_ATTR_REMARKS, ""+databaseConfiguration.isMetadataRemarks() );
+		e.setAttribute(ConstXML.DB_METADATA_ATTR_DEFAULT_VALUES, ""+databaseConfiguration.isMetadataDefaultValues() );
+		if ( databaseConfiguration.getMetadataProvider() != null ) {
+			e.setAttribute(ConstXML.DB_METADATA_ATTR_PROVIDER, databaseConfiguration.getMetadataProvider() );
+		}
 		return e ;
 	}
+
+	/**
+	 * Returns the boolean value of the given attribute, or the default value if the attribute is not defined
+	 * @param element
+	 * @param attributeName
+	 * @param defaultValue
+	 * @return
+	 */
+	private boolean getBooleanAttribute(Element element, String attributeName, boolean defaultValue) {
+		String value = element.getAttribute(attributeName);
+		if ( value == null || value.trim().length() == 0 ) {
+			return defaultValue ;
+		}
+		return "true".equalsIgnoreCase(value.trim());
+	}
 }
@@ -0,0 +1,212 @@
+/**
+ *  Copyright (C) 2008-2014  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.commons.github;
+
+import java.io.File;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Properties;
+
+import org.telosys.tools.commons.TelosysToolsException;
+import org.telosys.tools.commons.cfg.PropertiesManager;
+
+/**
+ * On-disk cache for the GitHub repositories catalog ( one file for each GitHub user ) <br>
+ * Each page returned by the GitHub API is stored with its ETag and Last-Modified headers, <br>
+ * so it can be revalidated with a conditional request or used "as is" while the cache is fresh. 
+ * 
+ * @author L. Guerin
+ *
+ */
+public class GitHubCatalogCache {
+
+	public final static long DEFAULT_TTL = 10 * 60 * 1000L ; // 10 minutes 
+	
+	private final static String CACHE_FILE_PREFIX = "github-" ;
+	private final static String CACHE_FILE_SUFFIX = ".catalog" ;
+
+	private final static String TIMESTAMP   = "timestamp" ;
+	private final static String PAGES_COUNT = "pages.count" ;
+	private final static String PAGE        = "page." ;
+	private final static String URL         = ".url" ;
+	private final static String ETAG        = ".etag" ;
+	private final static String LAST_MODIF  = ".lastModified" ;
+	private final static String NEXT        = ".next" ;
+	private final static String BODY        = ".body" ;
+	
+	/**
+	 * A page of the catalog (JSON body returned by the GitHub API)
+	 */
+	public final static class Page {
+		private final String url ;
+		private final String etag ;
+		private final String lastModified ;
+		private final String next ;
+		private final String body ;
+		
+		public Page(String url, String etag, String lastModified, String next, String body) {
+			super();
+			this.url = url;
+			this.etag = etag;
+			this.lastModified = lastModified;
+			this.next = next;
+			this.body = body;
+		}
+		public String getUrl() {
+			return url;
+		}
+		public String getEtag() {
+			return etag;
+		}
+		public String getLastModified() {
+			return lastModified;
+		}
+		public String getNext() {
+			return next;
+		}
+		public String getBody() {
+			return body;
+		}
+	}
+	
+	/**
+	 * The catalog for a GitHub user (all the pages and the time of the last check)
+	 */
+	public final static class Catalog {
+		private final long       timestamp ;
+		private final List<Page> pages ;
+		public Catalog(long timestamp, List<Page> pages) {
+			super();
+			this.timestamp = timestamp;
+			this.pages = pages;
+		}
+		public long getTimestamp() {
+			return timestamp;
+		}
+		public List<Page> getPages() {
+			return pages;
+		}
+		public Page getPage(String url) {
+			for ( Page page : pages ) {
+				if ( page.getUrl().equals(url) ) {
+					return page ;
+				}
+			}
+			return null ;
+		}
+	}
+	
+	private final File folder ;
+	
+	private final long ttl ;
+	
+	/**
+	 * Constructor
+	 * @param folder the folder where the cache files are stored ( e.g. the downloads folder )
+	 * @param ttl the time (in milliseconds) during which the catalog can be used without checking GitHub
+	 */
+	public GitHubCatalogCache(File folder, long ttl) {
+		super();
+		this.folder = folder;
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Returns the cache file for the given user
+	 * @param userName
+	 * @return
+	 */
+	public File getCacheFile(String userName) {
+		return new File(folder, CACHE_FILE_PREFIX + userName + CACHE_FILE_SUFFIX);
+	}
+	
+	/**
+	 * Returns true if the given catalog can be used without checking GitHub
+	 * @param catalog
+	 * @return
+	 */
+	public boolean isFresh(Catalog catalog) {
+		long age = System.currentTimeMillis() - catalog.getTimestamp() ;
+		return age >= 0 && age < ttl ;
+	}
+	
+	/**
+	 * Loads the catalog stored for the given user
+	 * @param userName
+	 * @return the catalog or null if none (or if the cache file is not valid)
+	 */
+	public Catalog load(String userName) {
+		Properties properties ;
+		try {
+			properties = new PropertiesManager(getCacheFile(userName)).load();
+		} catch (TelosysToolsException e) {
+			return null ;
+		}
+		if ( properties == null ) {
+			return null ;
+		}
+		try {
+			long timestamp = Long.parseLong(properties.getProperty(TIMESTAMP, "0"));
+			int count = Integer.parseInt(properties.getProperty(PAGES_COUNT, "0"));
+			List<Page> pages = new LinkedList<Page>();
+			for ( int i = 0 ; i < count ; i++ ) {
+				String prefix = PAGE + i ;
+				String url  = properties.getProperty(prefix + URL);
+				String body = properties.getProperty(prefix + BODY);
+				if ( url == null || body == null ) {
+					return null ; // invalid file
+				}
+				pages.add(new Page(url, properties.getProperty(prefix + ETAG), 
+						properties.getProperty(prefix + LAST_MODIF), properties.getProperty(prefix + NEXT), body) );
+			}
+			return count > 0 ? new Catalog(timestamp, pages) : null ;
+		} catch (NumberFormatException e) {
+			return null ; // invalid file
+		}
+	}
+	
+	/**
+	 * Saves the catalog for the given user
+	 * @param userName
+	 * @param catalog
+	 * @throws TelosysToolsException
+	 */
+	public void save(String userName, Catalog catalog) throws TelosysToolsException {
+		if ( ! folder.exists() ) {
+			folder.mkdirs();
+		}
+		Properties properties = new Properties();
+		properties.setProperty(TIMESTAMP, String.valueOf(catalog.getTimestamp()) );
+		properties.setProperty(PAGES_COUNT, String.valueOf(catalog.getPages().size()) );
+		int i = 0 ;
+		for ( Page page : catalog.getPages() ) {
+			String prefix = PAGE + i ;
+			properties.setProperty(prefix + URL, page.getUrl() );
+			properties.setProperty(prefix + BODY, page.getBody() );
+			if ( page.getEtag() != null ) {
+				properties.setProperty(prefix + ETAG, page.getEtag() );
+			}
+			if ( page.getLastModified() != null ) {
+				properties.setProperty(prefix + LAST_MODIF, page.getLastModified() );
+			}
+			if ( page.getNext() != null ) {
+				properties.setProperty(prefix + NEXT, page.getNext() );
+			}
+			i++ ;
+		}
+		new PropertiesManager(getCacheFile(userName)).save(properties);
+	}
+}
@@ -15,14 +15,19 @@
  */
 package org.telosys.tools.commons.github;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.json.simple.parser.ParseException;
+import org.telosys.tools.commons.TelosysToolsException;
+import org.telosys.tools.commons.github.GitHubCatalogCache.Catalog;
+import org.telosys.tools.commons.github.GitHubCatalogCache.Page;
 import org.telosys.tools.commons.http.HttpClient;
 import org.telosys.tools.commons.http.HttpResponse;
 
@@ -39,16 +44,57 @@ public class GitHubClient {
 	public final static String GIT_HUB_REPO_URL_PATTERN =  "https://github.com/${USER}/${REPO}/archive/master.zip" ;
 
 	
+	private final static String PER_PAGE  = "per_page=100" ; // max page size allowed by the GitHub API
+	
+	private final static int    MAX_PAGES = 50 ;
+	
+	private final static String ENCODING  = "UTF-8" ;
+	
 //	private final String     gitHubURLPattern ;
 	private final Properties proxyProperties ;
 	
+	private final String     hostURL ;
+	
+	private final HttpClient httpClient ; // thread-safe, shared by all the requests
+	
+	private GitHubCatalogCache catalogCache = null ;
+	
+	private boolean            offline = false ;
+	
 	/**
 	 * Constructor
 	 * @param proxyProperties
 	 */
 	public GitHubClient(Properties proxyProperties) {
+		this(proxyProperties, GIT_HUB_HOST_URL);
+	}
+	
+	/**
+	 * Constructor with a specific API host 
+	 * @param proxyProperties
+	 * @param hostURL the GitHub API host URL ( e.g. "https://api.github.com" )
+	 */
+	public GitHubClient(Properties proxyProperties, String hostURL) {
 		super();
 		this.proxyProperties = proxyProperties;
+		this.hostURL = hostURL ;
+		this.httpClient = new HttpClient(proxyProperties);
+	}
+	
+	/**
+	 * Set the cache to be used for the repositories catalog (no cache if null)
+	 * @param catalogCache
+	 */
+	public void setCatalogCache(GitHubCatalogCache catalogCache) {
+		this.catalogCache = catalogCache;
+	}
+
+	/**
+	 * Set the offline mode : if true the repositories catalog is only taken from the cache
+	 * @param offline
+	 */
+	public void setOffline(boolean offline) {
+		this.offline = offline;
 	}
 //	public GitHubClient(String gitHubURLPattern, Properties proxyProperties) {
 //		super();
@@ -63,13 +109,12 @@ public class GitHubClient {
 	 */
 	public String getRepositoriesJSON( String userName ) {
 
-		String urlString = GIT_HUB_HOST_URL + "/users/" + userName + "/repos" ;
+		String urlString = hostURL + "/users/" + userName + "/repos" ;
 //		HttpClientConfig httpClientConfig = null ;
 //		if ( proxyProperties != null ) {
 //			httpClientConfig = new HttpClientConfig(proxyProperties);
 //		}
 //		HttpClient httpClient = new HttpClient(httpClientConfig);
-		HttpClient httpClient = new HttpClient(proxyProperties);
 		HttpResponse response;
 		try {
 			response = httpClient.get(urlString, null);
@@ -87,14 +132,127 @@ public class GitHubClient {
 	public List<GitHubRepository> getRepositories( String userName ) throws Exception{
 
 		List<GitHubRepository> repositories = new LinkedList<GitHubRepository>();
-		String json = getRepositoriesJSON( userName );
 		JSONParser parser = new JSONParser();
+		for ( Page page : getCatalog(userName).getPages() ) {
+			parseRepositories(parser, page.getBody(), repositories);
+		}
+		GitHubUtil.sortByName(repositories);
+		return repositories ;
+	}
+	
+	/**
+	 * Returns the catalog (all the pages) of the repositories for the given user <br>
+	 * from the cache if it is fresh (or if offline), else from GitHub with conditional requests
+	 * @param userName
+	 * @return
+	 * @throws Exception
+	 */
+	private Catalog getCatalog( String userName ) throws Exception {
+		Catalog cachedCatalog = ( catalogCache != null ? catalogCache.load(userName) : null ) ;
+		if ( cachedCatalog != null && ( offline || catalogCache.isFresh(cachedCatalog) ) ) {
+			return cachedCatalog ;
+		}
+		if ( offline ) {
+			throw new Exception ( "Offline mode : no repositories catalog in cache for '" + userName + "'");
+		}
+		Catalog catalog ;
+		try {
+			catalog = fetchCatalog(userName, cachedCatalog);
+		} catch (Exception e) {
+			if ( cachedCatalog != null ) {
+				return cachedCatalog ; // GitHub not reachable : use the cache even if not fresh
+			}
+			throw e ;
+		}
+		if ( catalogCache != null ) {
+			try {
+				catalogCache.save(userName, catalog);
+			} catch (TelosysToolsException e) {
+				// Not blocking : the catalog will be requested again next time
+			}
+		}
+		return catalog ;
+	}
+
+	/**
+	 * Gets all the pages of the catalog from GitHub ( following the "next" links ) <br>
+	 * The pages already in the cache are revalidated with conditional requests
+	 * @param userName
+	 * @param cachedCatalog the catalog in the cache (or null if none)
+	 * @return
+	 * @throws Exception
+	 */
+	private Catalog fetchCatalog( String userName, Catalog cachedCatalog ) throws Exception {
+		List<Page> pages = new LinkedList<Page>();
+		String url = hostURL + "/users/" + userName + "/repos?" + PER_PAGE ;
+		while ( url != null && pages.size() < MAX_PAGES ) {
+			Page cachedPage = ( cachedCatalog != null ? cachedCatalog.getPage(url) : null ) ;
+			Map<String,String> headers = new HashMap<String,String>();
+			if ( cachedPage != null ) {
+				if ( cachedPage.getEtag() != null ) {
+					headers.put("If-None-Match", cachedPage.getEtag() );
+				}
+				if ( cachedPage.getLastModified() != null ) {
+					headers.put("If-Modified-Since", cachedPage.getLastModified() );
+				}
+			}
+			HttpResponse response = httpClient.get(url, headers);
+			Page page ;
+			if ( response.getStatusCode() == 304 && cachedPage != null ) {
+				page = cachedPage ; // Not modified
+			}
+			else if ( response.getStatusCode() == 200 ) {
+				page = new Page(url, response.getHeader("ETag"), response.getHeader("Last-Modified"), 
+						getNextLink(response.getHeader("Link")), new String(response.getBodyContent(), ENCODING) );
+			}
+			else {
+				throw new Exception ( "Http error : status " + response.getStatusCode() + " for " + url );
+			}
+			pages.add(page);
+			url = page.getNext();
+		}
+		return new Catalog(System.currentTimeMillis(), pages);
+	}
+	
+	/**
+	 * Returns the "next" URL in the given "Link" header value <br>
+	 * e.g. '<https://api.github.com/user/123/repos?page=2>; rel="next", <https://...>; rel="last"'
+	 * @param linkHeader
+	 * @return the URL or null if none
+	 */
+	protected static String getNextLink(String linkHeader) {
+		if ( linkHeader == null ) {
+			return null ;
+		}
+		for ( String link : linkHeader.split(",") ) {
+			String[] parts = link.split(";");
+			if ( parts.length >= 2 ) {
+				String url = parts[0].trim();
+				for ( int i = 1 ; i < parts.length ; i++ ) {
+					String param = parts[i].trim().replace(" ", "");
+					if ( param.equals("rel=\"next\"") && url.startsWith("<") && url.endsWith(">") ) {
+						return url.substring(1, url.length() - 1);
+					}
+				}
+			}
+		}
+		return null ;
+	}
+	
+	/**
+	 * Parses the given JSON array and adds the repositories in the list
+	 * @param parser
+	 * @param json
+	 * @param repositories
+	 * @throws Exception
+	 */
+	private void parseRepositories( JSONParser parser, String json, List<GitHubRepository> repositories ) throws Exception {
 		try {
 			Object oList = parser.parse(json);
 			if ( oList instanceof JSONArray ) {
 				JSONArray repositoriesArray = (JSONArray) oList ;
 				for ( Object repositoryObject: repositoriesArray ) {
-					JSONObject repo = (JSONObject) repositoryObject ; 
+					JSONObject repo = (JSONObject) repositoryObject ; 
 					long   id   = getLongAttribute(repo, "id");
 					String name = getStringAttribute(repo, "name", "(#"+id+"-no-name)");
 					String description = getStringAttribute(repo, "description", "(no-description)");
@@ -109,8 +267,6 @@ public class GitHubClient {
 		} catch (ParseException e) {
 			throw new Exception ( "JSON error : cannot parse the JSON response.");
 		}
-		GitHubUtil.sortByName(repositories);
-		return repositories ;
 	}
 
 	/**
@@ -173,7 +329,6 @@ public class GitHubClient {
 		String url = GitHubUtil.buildGitHubURL(userName, repoName, GIT_HUB_REPO_URL_PATTERN);
 
 		long bytesCount = 0 ;
-		HttpClient httpClient = new HttpClient(proxyProperties);
 //		try {
 //			bytesCount = httpClient.downloadFile(url, destinationFile);
 //		} catch (Exception e) {
@@ -15,27 +15,60 @@
  */
 package org.telosys.tools.commons.http;
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
 import java.net.URL;
 import java.util.Map;
 import java.util.Properties;
 
+/**
+ * Http client <br>
+ * Each instance keeps its own proxies (nothing is pushed in the System properties, 
+ * except the "use system proxies" flag which is global by nature), 
+ * so several instances with different configurations can be used at the same time. <br>
+ * The connections are not explicitly disconnected in order to let the JVM reuse them ("keep-alive"). <br>
+ * An instance is thread-safe and can be shared by concurrent requests/downloads.
+ * 
+ */
 public class HttpClient {
 	
+	private final static int DOWNLOAD_BUFFER_SIZE = 128 * 1024 ;
+	
+	public final static int  DEFAULT_CONNECT_TIMEOUT = 30 * 1000 ; // 30 sec
+	public final static int  DEFAULT_READ_TIMEOUT    = 60 * 1000 ; // 60 sec
+	public final static int  DEFAULT_MAX_RETRIES     = 2 ;
+	public final static long DEFAULT_RETRY_DELAY     = 500 ; // first delay in ms, doubled after each retry
+
+	private final static Object SYSTEM_PROXIES_LOCK = new Object();
+	private static boolean systemProxiesEnabled = false ;
+	
 	private final HttpClientConfig configuration ;
-	private boolean isConfigured = false ;
+
+	private final Proxy  httpProxy ;  // null if none
+	private final String httpProxyAuthorization ; // null if none
+	private final Proxy  httpsProxy ; // null if none
+	private final String httpsProxyAuthorization ; // null if none
+	private final String httpNonProxyHosts ;  // null if none
+	private final String httpsNonProxyHosts ; // null if none
+	
+	private volatile int  connectTimeout = DEFAULT_CONNECT_TIMEOUT ;
+	private volatile int  readTimeout    = DEFAULT_READ_TIMEOUT ;
+	private volatile int  maxRetries     = DEFAULT_MAX_RETRIES ;
+	private volatile long retryDelay     = DEFAULT_RETRY_DELAY ;
 	
 	/**
-	 * Constructor without http configuration (no proxy)
+	 * Constructor without http configuration (system proxies)
 	 */
 	public HttpClient() {
-		super();
-		this.configuration = null;
+		this( (HttpClientConfig) null );
 	}
 	
 	/**
@@ -45,6 +78,25 @@ public class HttpClient {
 	public HttpClient(HttpClientConfig configuration) {
 		super();
 		this.configuration = configuration;
+		if ( configuration == null || configuration.isUseSystemProxies() ) {
+			useSystemProxies() ;
+			this.httpProxy  = null ;
+			this.httpProxyAuthorization = null ;
+			this.httpsProxy = null ;
+			this.httpsProxyAuthorization = null ;
+			this.httpNonProxyHosts  = null ;
+			this.httpsNonProxyHosts = null ;
+		}
+		else {
+			HttpProxy http  = selectProxy(configuration.getHttpProxy(),  configuration.getHttpsProxy() ) ;
+			HttpProxy https = selectProxy(configuration.getHttpsProxy(), configuration.getHttpProxy() ) ;
+			this.httpProxy  = buildProxy(http) ;
+			this.httpProxyAuthorization = buildProxyAuthorization(http) ;
+			this.httpsProxy = buildProxy(https) ;
+			this.httpsProxyAuthorization = buildProxyAuthorization(https) ;
+			this.httpNonProxyHosts  = http  != null ? http.getNonProxyHosts()  : null ;
+			this.httpsNonProxyHosts = https != null ? https.getNonProxyHosts() : null ;
+		}
 	}
 	
 	/**
@@ -52,51 +104,74 @@ public class HttpClient {
 	 * @param proxyProperties proxy properties or null if none
 	 */
 	public HttpClient(Properties proxyProperties) {
-		super();
-		if ( proxyProperties != null ) {
-			this.configuration = new HttpClientConfig(proxyProperties);
+		this( proxyProperties != null ? new HttpClientConfig(proxyProperties) : null );
+	}
+	
+	/**
+	 * Returns the http configuration used by this client (or null if none)
+	 * @return
+	 */
+	public HttpClientConfig getConfiguration() {
+		return configuration ;
+	}
+	
+	/**
+	 * Set the timeouts used for each connection 
+	 * @param connectTimeout connection timeout in milliseconds (0 for infinite)
+	 * @param readTimeout read timeout in milliseconds (0 for infinite)
+	 */
+	public void setTimeouts(int connectTimeout, int readTimeout) {
+		this.connectTimeout = connectTimeout ;
+		this.readTimeout = readTimeout ;
+	}
+	
+	/**
+	 * Set the retry policy for the idempotent requests (GET, HEAD, PUT, DELETE and downloads) <br>
+	 * A request is retried after an I/O error or a "5xx" or "429" status 
+	 * @param maxRetries number of retries (0 for no retry)
+	 * @param retryDelay first delay in milliseconds (doubled after each retry)
+	 */
+	public void setRetries(int maxRetries, long retryDelay) {
+		this.maxRetries = maxRetries ;
+		this.retryDelay = retryDelay ;
+	}
+	
+	private HttpProxy selectProxy(HttpProxy proxy, HttpProxy otherProxy) {
+		if ( proxy != null ) {
+			return proxy ;
 		}
-		else {
-			this.configuration = null ;
+		else if ( otherProxy != null && HttpProxy.ALL.equals(otherProxy.getProtocol()) ) {
+			return otherProxy ;
 		}
+		return null ;
 	}
 	
-	private final void config( HttpClientConfig configuration ) {
-		if ( ! isConfigured ) {
-			if ( configuration != null ) {
-				if ( configuration.isUseSystemProxies() ) {
-					useSystemProxies() ;
-				}
-				else {
-					proxyConfig( configuration.getHttpProxy() );
-					proxyConfig( configuration.getHttpsProxy() );
-				}
-			}
-			else {
-				useSystemProxies() ;
-			}
-			isConfigured = true ;
+	private Proxy buildProxy(HttpProxy proxy) {
+		if ( proxy != null ) {
+			return new Proxy(Proxy.Type.HTTP, InetSocketAddress.createUnresolved(proxy.getHost(), proxy.getPort()) );
 		}
+		return null ;
 	}
 	
-	private void proxyConfig(HttpProxy proxy ) {
-		if ( proxy != null ) {
-			Properties systemProperties = System.getProperties();		
-			systemProperties.setProperty( proxy.getProtocol() + ".proxySet",  "true");
-			systemProperties.setProperty( proxy.getProtocol() + ".proxyHost", proxy.getHost() );
-			systemProperties.setProperty( proxy.getProtocol() + ".proxyPort", String.valueOf(proxy.getPort()) );
-			if ( proxy.getUser() != null ) {
-				systemProperties.setProperty( proxy.getProtocol() + ".proxyUser", String.valueOf(proxy.getUser()) );
-				if ( proxy.getPassword() != null ) {
-					systemProperties.setProperty( proxy.getProtocol() + ".proxyPassword", String.valueOf(proxy.getPassword()) );
-				}
+	private String buildProxyAuthorization(HttpProxy proxy) {
+		if ( proxy != null && proxy.getUser() != null ) {
+			String password = proxy.getPassword() != null ? proxy.getPassword() : "" ;
+			try {
+				return "Basic " + toBase64( (proxy.getUser() + ":" + password).getBytes("UTF-8") );
+			} catch (UnsupportedEncodingException e) {
+				throw new RuntimeException("UTF-8 not supported", e);
 			}
 		}
+		return null ;
 	}
 	
-	private void useSystemProxies() {
-		Properties systemProperties = System.getProperties();
-		systemProperties.setProperty( "java.net.useSystemProxies",  "true");
+	private static void useSystemProxies() {
+		synchronized (SYSTEM_PROXIES_LOCK) {
+			if ( ! systemProxiesEnabled ) {
+				System.setProperty( "java.net.useSystemProxies",  "true");
+				systemProxiesEnabled = true ;
+			}
+		}
 	}	
 
 	//---------------------------------------------------------------------
@@ -193,21 +268,80 @@ public class HttpClient {
 		return process(url, "DELETE", headers, null);
 	}
 
+	//---------------------------------------------------------------------
+	// Streaming GET
+	//---------------------------------------------------------------------
+	/**
+	 * Sends a GET request and returns a response with a stream to read the body <br>
+	 * The response must be closed by the caller
+	 * @param url
+	 * @param headers http headers (can be null)
+	 * @return
+	 * @throws Exception
+	 */
+	public HttpStreamResponse getStream(String url, Map<String, String> headers) throws Exception 
+	{
+		URL u = getURL(url) ;
+		int attempt = 0 ;
+		while ( true ) {
+			HttpURLConnection connection = null ;
+			try {
+				connection = connect(u, "GET", headers, null);
+				int statusCode = connection.getResponseCode();
+				if ( isRetryable(statusCode) && attempt < maxRetries ) {
+					discard(connection);
+				}
+				else {
+					return new HttpStreamResponse(connection);
+				}
+			} catch (IOException e) {
+				if ( attempt >= maxRetries ) {
+					throw new Exception("Connection failed (" + e.getMessage() + ")", e);
+				}
+			}
+			backoff(attempt++);
+		}
+	}
+
 	//---------------------------------------------------------------------
 	// Private methods
 	//---------------------------------------------------------------------
 	private HttpResponse process(URL url, String method, Map<String, String> headers, byte[] data) throws Exception 
 	{
-		config(configuration);
-		
-		HttpURLConnection connection = connect(url, method, headers);
-		if ( data != null )
-		{
-			postData(connection, data);
+		boolean retryable = ! "POST".equals(method) ;
+		int attempt = 0 ;
+		while ( true ) {
+			HttpResponse response = null ;
+			try {
+				HttpURLConnection connection = connect(url, method, headers, data);
+				// NB : no "disconnect()" the response reads and closes the streams => the connection can be reused
+				response = new HttpResponse(connection);
+			} catch (IOException e) {
+				if ( ! retryable || attempt >= maxRetries ) {
+					throw new Exception("Connection failed (" + e.getMessage() + ")", e);
+				}
+			}
+			if ( response != null ) {
+				if ( ! retryable || attempt >= maxRetries || ! isRetryable(response.getStatusCode()) ) {
+					return response ;
+				}
+			}
+			backoff(attempt++);
+		}
+	}
+	
+	private boolean isRetryable(int statusCode) {
+		return statusCode >= 500 || statusCode == 429 ;
+	}
+	
+	private void backoff(int attempt) throws Exception {
+		long delay = retryDelay << Math.min(attempt, 10) ;
+		try {
+			Thread.sleep(delay);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new Exception("Interrupted", e);
 		}
-		HttpResponse response = new HttpResponse(connection);
-		connection.disconnect();
-		return response ;
 	}
 	
 	//---------------------------------------------------------------------
@@ -222,76 +356,98 @@ public class HttpClient {
 	}
 
 	//---------------------------------------------------------------------
-	private HttpURLConnection connect(URL url, String method, Map<String, String> headers) throws Exception {
-		HttpURLConnection connection = null;
-		try {
+	private HttpURLConnection openConnection(URL url) throws IOException {
+		boolean https = "https".equalsIgnoreCase(url.getProtocol()) ;
+		Proxy proxy = https ? httpsProxy : httpProxy ;
+		HttpURLConnection connection ;
+		if ( proxy != null && ! isNonProxyHost(url.getHost(), https ? httpsNonProxyHosts : httpNonProxyHosts ) ) {
+			connection = (HttpURLConnection) url.openConnection(proxy);
+			String authorization = https ? httpsProxyAuthorization : httpProxyAuthorization ;
+			if ( authorization != null ) {
+				connection.setRequestProperty("Proxy-Authorization", authorization);
+			}
+		}
+		else {
 			connection = (HttpURLConnection) url.openConnection();
-			connection.setDoInput(true);
-			connection.setDoOutput(true);
-			connection.setRequestMethod(method);
-			
-			//--- Set http headers if any
-			if ( headers != null ) {
-				for ( String name : headers.keySet() ) {
-					connection.setRequestProperty(name, headers.get(name));
-				}
+		}
+		connection.setConnectTimeout(connectTimeout);
+		connection.setReadTimeout(readTimeout);
+		return connection ;
+	}
+	
+	private boolean isNonProxyHost(String host, String nonProxyHosts) {
+		if ( nonProxyHosts == null || host == null ) {
+			return false ;
+		}
+		for ( String pattern : nonProxyHosts.split("\\|") ) {
+			String p = pattern.trim().toLowerCase() ;
+			String h = host.toLowerCase() ;
+			if ( p.length() == 0 ) {
+				continue ;
+			}
+			if ( p.startsWith("*") ? h.endsWith(p.substring(1)) : 
+				 p.endsWith("*") ? h.startsWith(p.substring(0, p.length()-1)) : h.equals(p) ) {
+				return true ;
 			}
-			
-			connection.connect();
-			return connection;
-		} catch (Exception e) {
-			throw new Exception("Connection failed");
 		}
+		return false ;
 	}
 
 	//---------------------------------------------------------------------
-//	public void disconnect() {
-//		connection.disconnect();
-//	}
+	private HttpURLConnection connect(URL url, String method, Map<String, String> headers, byte[] data) throws IOException {
+		HttpURLConnection connection = openConnection(url);
+		connection.setDoInput(true);
+		connection.setDoOutput(data != null);
+		connection.setRequestMethod(method);
+		
+		//--- Set http headers if any
+		boolean acceptEncoding = false ;
+		if ( headers != null ) {
+			for ( String name : headers.keySet() ) {
+				connection.setRequestProperty(name, headers.get(name));
+				if ( "Accept-Encoding".equalsIgnoreCase(name) ) {
+					acceptEncoding = true ;
+				}
+			}
+		}
+		if ( ! acceptEncoding ) {
+			connection.setRequestProperty("Accept-Encoding", "gzip");
+		}
+		
+		connection.connect();
+		if ( data != null ) {
+			postData(connection, data);
+		}
+		return connection;
+	}
 
 	//---------------------------------------------------------------------
-//	public void displayResponse() throws Exception {
-//		String line;
-//
-//		try {
-//			BufferedReader s = new BufferedReader(new InputStreamReader(
-//					connection.getInputStream()));
-//			line = s.readLine();
-//			while (line != null) {
-//				System.out.println(line);
-//				line = s.readLine();
-//			}
-//			s.close();
-//		} catch (Exception e) {
-//			throw new Exception("Unable to read input stream");
-//		}
-//	}
-//
-	//---------------------------------------------------------------------
-	private void postData(HttpURLConnection connection, byte[] data) throws Exception 
+	private void postData(HttpURLConnection connection, byte[] data) throws IOException 
 	{
+		OutputStream os = connection.getOutputStream();
 		try {
-			OutputStream os = connection.getOutputStream();
 			os.write(data);
 			os.flush();
+		} finally {
 			os.close();
-		} catch (Exception e) {
-			throw new Exception("Cannot post date (unable to write in output stream)");
 		}
 	}
-	//---------------------------------------------------------------------
-//	private void postData(HttpURLConnection connection, String s) throws Exception 
-//	{
-//		try {
-//			BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(
-//					connection.getOutputStream()));
-//			bw.write(s, 0, s.length());
-//			bw.flush();
-//			bw.close();
-//		} catch (Exception e) {
-//			throw new Exception("Cannot post date (unable to write in output stream)");
-//		}
-//	}
+	
+	/**
+	 * Reads and closes the response body of a connection that will not be used (to keep it reusable)
+	 * @param connection
+	 */
+	private void discard(HttpURLConnection connection) {
+		InputStream is = connection.getErrorStream() ;
+		try {
+			if ( is == null ) {
+				is = connection.getInputStream();
+			}
+			HttpResponse.drain(is);
+		} catch (IOException e) {
+			// nothing to discard
+		}
+	}
 	
 	/**
 	 * Downloads a file from the given URL to the given file name 
@@ -300,38 +456,56 @@ public class HttpClient {
 	 * @return the number of bytes (file size)
 	 */
 	public long downloadFile(String url, String destFileName ) throws Exception {
-		return downloadFile(getURL(url), destFileName );
-	}
-	
-	private long downloadFile(URL url, String destFileName ) throws Exception {
-
-		config(configuration);
 		checkDestination(destFileName);
-		
-        long totalBytesRead = 0L;		
-        try {
-			url.openConnection();
-			InputStream reader = url.openStream();
-			
+		HttpStreamResponse response = getStream(url, null);
+		try {
+			checkStatus(response, url);
+	        long totalBytesRead = 0L;		
+			InputStream reader = response.getInputStream();
 	        FileOutputStream writer = new FileOutputStream(destFileName);
-	        int BUFFER_SIZE = 128 * 1024 ;
-	        byte[] buffer = new byte[BUFFER_SIZE];
-	        int bytesRead = 0;
-	 
-	        while ((bytesRead = reader.read(buffer)) > 0)
-	        {  
-	           writer.write(buffer, 0, bytesRead);
-	           buffer = new byte[BUFFER_SIZE];
-	           totalBytesRead += bytesRead;
+	        try {
+		        byte[] buffer = new byte[DOWNLOAD_BUFFER_SIZE]; // reused for each read 
+		        int bytesRead = 0;
+		        while ((bytesRead = reader.read(buffer)) > 0)
+		        {  
+		           writer.write(buffer, 0, bytesRead);
+		           totalBytesRead += bytesRead;
+		        }
 	        }
-
-	        writer.close();
-	        reader.close();
-	 
+	        finally {
+	        	writer.close();
+	        }
+			return totalBytesRead ;
 		} catch (IOException e) {
 			throw new Exception ("IOException", e);
 		}
-		return totalBytesRead ;
+		finally {
+			response.close();
+		}
+	}
+	
+	/**
+	 * Opens a stream to read the content of the given URL ( e.g. to process a file while it is downloaded ) <br>
+	 * The stream must be closed by the caller
+	 * @param url the URL to be read
+	 * @return
+	 * @throws Exception
+	 */
+	public InputStream openInputStream(String url) throws Exception {
+		HttpStreamResponse response = getStream(url, null);
+		try {
+			checkStatus(response, url);
+		} catch (Exception e) {
+			response.close();
+			throw e ;
+		}
+		return new BufferedInputStream(response.getInputStream(), DOWNLOAD_BUFFER_SIZE);
+	}
+	
+	private void checkStatus(HttpStreamResponse response, String url) throws Exception {
+		if ( response.getStatusCode() != HttpURLConnection.HTTP_OK ) {
+			throw new Exception("Cannot read '" + url + "' (http status " + response.getStatusCode() + ")");
+		}
 	}
 	
 	private void checkDestination(String destFileName) throws Exception {
@@ -341,4 +515,20 @@ public class HttpClient {
 			throw new Exception("Download folder doesn't exist '" + parent.getAbsolutePath() + "' ");
 		}
 	}
+	
+	private final static char[] BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+	
+	private static String toBase64(byte[] bytes) {
+		StringBuilder sb = new StringBuilder( ( (bytes.length + 2) / 3 ) * 4 );
+		for ( int i = 0 ; i < bytes.length ; i += 3 ) {
+			int b = ( bytes[i] & 0xFF ) << 16 ;
+			if ( i + 1 < bytes.length ) b |= ( bytes[i+1] & 0xFF ) << 8 ;
+			if ( i + 2 < bytes.length ) b |= ( bytes[i+2] & 0xFF ) ;
+			sb.append( BASE64[ (b >> 18) & 0x3F ] );
+			sb.append( BASE64[ (b >> 12) & 0x3F ] );
+			sb.append( i + 1 < bytes.length ? BASE64[ (b >> 6) & 0x3F ] : '=' );
+			sb.append( i + 2 < bytes.length ? BASE64[ b & 0x3F ] : '=' );
+		}
+		return sb.toString();
+	}
 }
@@ -18,9 +18,12 @@ package org.telosys.tools.commons.http;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.PushbackInputStream;
 import java.net.HttpURLConnection;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 public class HttpResponse {
 
@@ -58,24 +61,104 @@ public class HttpResponse {
 //		} catch (IOException e) {
 //			throw new Exception("Cannot create HttpResponse", e); 
 //		}
-		if ( statusCode == HttpURLConnection.HTTP_OK ) {
+		if ( statusCode == HttpURLConnection.HTTP_OK && hasBody(connection) ) {
 			bodyContent = readResponseBody(connection);
 			contentLength = bodyContent.length ;
 		}
+		else {
+			// read and close the error stream to keep the connection reusable
+			discardResponseBody(connection);
+		}
 		headerFields = connection.getHeaderFields();
 	}
 	
+	/**
+	 * Returns true if a body can be expected in the response <br>
+	 * ( no body for "HEAD", "204 No Content", "304 Not Modified" or "Content-Length: 0" )
+	 * @param connection
+	 * @return
+	 */
+	private boolean hasBody( HttpURLConnection connection ) 
+	{
+		if ( "HEAD".equals(connection.getRequestMethod()) ) {
+			return false ;
+		}
+		if ( statusCode == HttpURLConnection.HTTP_NO_CONTENT || statusCode == HttpURLConnection.HTTP_NOT_MODIFIED ) {
+			return false ;
+		}
+		return contentLength != 0 ;
+	}
+	
 	private byte[] readResponseBody( HttpURLConnection connection ) throws IOException
 	{
 		byte[] body = new byte[0];
 		InputStream is = getInputStream(connection);
 		if ( is != null ) {
-			body = readResponseBody(is);
-			is.close();
+			try {
+				body = readResponseBody( decode(is, contentEncoding) );
+			} finally {
+				is.close();
+			}
 		}
 		return body;
 	}
 	
+	private void discardResponseBody( HttpURLConnection connection ) 
+	{
+		try {
+			InputStream is = connection.getErrorStream();
+			if ( is == null && statusCode < HttpURLConnection.HTTP_BAD_REQUEST ) {
+				is = connection.getInputStream();
+			}
+			drain(is);
+		} catch (IOException e) {
+			// nothing to discard
+		}
+	}
+	
+	/**
+	 * Returns a stream decoding the body according to the given "Content-Encoding" ( gzip or deflate ) <br>
+	 * An empty body is returned as is ( nothing to decode )
+	 * @param is
+	 * @param contentEncoding
+	 * @return
+	 * @throws IOException
+	 */
+	protected static InputStream decode( InputStream is, String contentEncoding ) throws IOException
+	{
+		boolean gzip    = "gzip".equalsIgnoreCase(contentEncoding) || "x-gzip".equalsIgnoreCase(contentEncoding) ;
+		boolean deflate = "deflate".equalsIgnoreCase(contentEncoding) ;
+		if ( ! gzip && ! deflate ) {
+			return is ;
+		}
+		PushbackInputStream pis = new PushbackInputStream(is, 1);
+		int first = pis.read();
+		if ( first < 0 ) {
+			return pis ; // empty body 
+		}
+		pis.unread(first);
+		return gzip ? new GZIPInputStream(pis, 8192) : new InflaterInputStream(pis) ;
+	}
+	
+	/**
+	 * Reads the given stream until the end and closes it 
+	 * @param is (can be null)
+	 * @throws IOException
+	 */
+	protected static void drain( InputStream is ) throws IOException
+	{
+		if ( is != null ) {
+			try {
+				byte[] buffer = new byte[1024] ; 
+				while ( is.read(buffer) >= 0 ) {
+					// skip 
+				}
+			} finally {
+				is.close();
+			}
+		}
+	}
+	
 	private InputStream getInputStream( HttpURLConnection connection ) //throws IOException
 	{
 		InputStream is = null ;
@@ -95,16 +178,14 @@ public class HttpResponse {
 
 	private byte[] readResponseBody( InputStream is ) throws IOException
 	{
-		byte[] buffer = new byte[1024] ; 
-		int totalLength = 0 ;
+		byte[] buffer = new byte[8192] ; 
 
-		ByteArrayOutputStream baos = new ByteArrayOutputStream (1024);
+		ByteArrayOutputStream baos = new ByteArrayOutputStream ( contentLength > 0 ? contentLength : 1024 );
 		int len = 0 ;
 		
-		while ( ( len = is.read(buffer) ) > 0 )
+		while ( ( len = is.read(buffer) ) >= 0 )
 		{
 			baos.write(buffer, 0, len);
-			totalLength = totalLength + len ;
 		}
 		baos.close();
 		
@@ -142,6 +223,15 @@ public class HttpResponse {
 	{
 		//return (String) headerFields.get(name);
 		List<String> values = headerFields.get(name);
+		if ( values == null && name != null ) {
+			// header names are not case sensitive 
+			for ( Map.Entry<String, List<String>> entry : headerFields.entrySet() ) {
+				if ( name.equalsIgnoreCase(entry.getKey()) ) {
+					values = entry.getValue();
+					break ;
+				}
+			}
+		}
 		if ( values != null ) {
 			if ( values.size() > 0 ) {
 				return values.get(0);
@@ -0,0 +1,140 @@
+/**
+ *  Copyright (C) 2008-2014  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.commons.http;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Http response with a streamed body ( the body is not stored in memory ) <br>
+ * The body is decoded if the server uses "gzip" or "deflate" content encoding <br>
+ * The response must be closed by the caller ( the connection can be reused if the body has been fully read )
+ * 
+ */
+public class HttpStreamResponse implements Closeable {
+
+	private final int    statusCode ;
+	private final String statusMessage ;
+	
+	private final long   contentLength ;
+	private final String contentType ;
+	private final String contentEncoding ;
+
+	private final Map<String, List<String>> headerFields ;
+	
+	private final InputStream inputStream ;
+	
+	public HttpStreamResponse(HttpURLConnection connection) throws IOException 
+	{
+		statusCode      = connection.getResponseCode();
+		statusMessage   = connection.getResponseMessage();
+		contentType     = connection.getContentType();
+		contentEncoding = connection.getContentEncoding();
+		contentLength   = getLong(connection.getHeaderField("Content-Length"));
+		headerFields    = connection.getHeaderFields();
+		
+		InputStream is = null ;
+		if ( statusCode < HttpURLConnection.HTTP_BAD_REQUEST ) {
+			is = connection.getInputStream();
+		}
+		else {
+			is = connection.getErrorStream();
+		}
+		inputStream = ( is != null ? HttpResponse.decode(is, contentEncoding) : null );
+	}
+	
+	private long getLong(String s) {
+		if ( s != null ) {
+			try {
+				return Long.parseLong(s.trim());
+			} catch (NumberFormatException e) {
+				return -1 ;
+			}
+		}
+		return -1 ;
+	}
+	
+	public int getStatusCode() {
+		return statusCode ;
+	}
+	
+	public String getStatusMessage() {
+		return statusMessage ;
+	}
+	
+	/**
+	 * Returns the "Content-Length" header value ( length of the encoded body ) or -1 if unknown
+	 * @return
+	 */
+	public long getContentLength() {
+		return contentLength ;
+	}
+	
+	public String getContentType() {
+		return contentType ;
+	}
+	
+	public String getContentEncoding() {
+		return contentEncoding ;
+	}
+	
+	/**
+	 * Returns the stream to read the (decoded) body, or null if no body 
+	 * @return
+	 */
+	public InputStream getInputStream() {
+		return inputStream ;
+	}
+	
+	public String getHeader(String name)
+	{
+		List<String> values = headerFields.get(name);
+		if ( values == null && name != null ) {
+			// header names are not case sensitive 
+			for ( Map.Entry<String, List<String>> entry : headerFields.entrySet() ) {
+				if ( name.equalsIgnoreCase(entry.getKey()) ) {
+					values = entry.getValue();
+					break ;
+				}
+			}
+		}
+		if ( values != null && values.size() > 0 ) {
+			return values.get(0);
+		}
+		return null ;
+	}
+	
+	public Map<String, List<String>> getHeaderMap() {
+		return  headerFields;
+	}
+
+	/**
+	 * Closes the body stream
+	 */
+	public void close() {
+		if ( inputStream != null ) {
+			try {
+				inputStream.close();
+			} catch (IOException e) {
+				// ignore
+			}
+		}
+	}
+}
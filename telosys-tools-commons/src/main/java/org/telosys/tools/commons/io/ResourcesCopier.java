@@ -16,22 +16,76 @@
 package org.telosys.tools.commons.io ;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import org.telosys.tools.commons.FileUtil;
 import org.telosys.tools.commons.exception.CancelException;
 
 
+/**
+ * Copies files and folders ( e.g. the resources of a bundle in the project ) <br>
+ * <br>
+ * The copy is done in 2 steps : <br>
+ * 1) the origin is scanned and the overwrite choices are all resolved before copying anything <br>
+ * 2) the files are copied (with a small pool of threads if there are many files) <br>
+ * <br>
+ * The CopyHandler is always notified in the caller's thread, just before and just after the copy of each file 
+ *
+ */
 public class ResourcesCopier {
 	
+	private final static int PARALLEL_COPY_MIN_FILES = 8 ; // below this number the files are copied sequentially
+	private final static int MAX_THREADS             = 4 ;
+	private final static int COMPARE_BUFFER_SIZE     = 8*1024 ;
+	
 	private final OverwriteChooser   _overwriteChooser;
 	private final CopyHandler        _copyHandler;
+	private final boolean            _skipIdenticalFiles;
 
+	/**
+	 * A file to be copied
+	 */
+	private final static class FileCopy {
+		private final File origin ;
+		private final File destination ;
+		private FileCopy(File origin, File destination) {
+			super();
+			this.origin = origin;
+			this.destination = destination;
+		}
+	}
+	
 	//----------------------------------------------------------------------------------------------------
 	/**
 	 * Constructor
 	 * @param overwriteChooser an OverwriteChooser implementation (if null overwrite is always 'YES')
 	 */
 	public ResourcesCopier(OverwriteChooser overwriteChooser, CopyHandler copyHandler) {
+		this(overwriteChooser, copyHandler, false);
+	}
+	
+	//----------------------------------------------------------------------------------------------------
+	/**
+	 * Constructor
+	 * @param overwriteChooser an OverwriteChooser implementation (if null overwrite is always 'YES')
+	 * @param copyHandler the handler to be notified for each file copied (can be null)
+	 * @param skipIdenticalFiles if true the existing files identical to the original files are not copied 
+	 * (and the OverwriteChooser is not used for them)
+	 */
+	public ResourcesCopier(OverwriteChooser overwriteChooser, CopyHandler copyHandler, boolean skipIdenticalFiles) {
 		super();
 		if ( overwriteChooser != null ) {
 			this._overwriteChooser = overwriteChooser ;
@@ -40,6 +94,7 @@ public class ResourcesCopier {
 			this._overwriteChooser = new DefaultOverwriteChooser(OverwriteChooser.YES) ;
 		}
 		_copyHandler = copyHandler ;
+		_skipIdenticalFiles = skipIdenticalFiles ;
 	}
 	
 	//----------------------------------------------------------------------------------------------------
@@ -57,62 +112,41 @@ public class ResourcesCopier {
 		if ( destination == null ) {
 			throw new IllegalArgumentException("destination is null");
 		}
+		List<File>     folders = new LinkedList<File>();
+		List<FileCopy> files   = new LinkedList<FileCopy>();
 		try {
-			int n = 0 ; 
+			//--- 1) Scan and resolve all the overwrite choices (nothing is copied if canceled)
 			if ( origin.isFile() && destination.exists() && destination.isDirectory() ) {
 				// Copy a single file to an existing directory
-				n = copyFileToFolder(origin, destination);
+		    	String outputFileFullPath = FileUtil.buildFilePath(destination.getAbsolutePath(), origin.getName());
+				scanFile(origin, new File(outputFileFullPath), files);
 			}
 			else {
 				// Copy file to file or folder to folder
-				n = recursiveCopy(origin, destination); 
+				scan(origin, destination, folders, files); 
 			}
-			return n ;
 		}
 		catch(CancelException e) {
 			return -1;
 		}
-	}
-	
-	//----------------------------------------------------------------------------------------------------
-	/**
-	 * Copy a single file in a folder
-	 * @param inputFile
-	 * @param directory
-	 * @return
-	 * @throws Exception
-	 */
-	private int copyFileToFolder(File inputFile , File directory) throws Exception {
-    	String outputFileFullPath = FileUtil.buildFilePath(directory.getAbsolutePath(), inputFile.getName());
-    	File outputFile = new File(outputFileFullPath);
-		if ( outputFile.exists() ) {
-			if ( getOverwriteChoice(outputFile) ) {
-				// overwrite the existing file
-	    		//FileUtil.copy(inputFile, outputFile, true);
-	    		copyFile(inputFile, outputFile);
-        		return 1 ;
-			}
-			else {
-				// "NO" : do not overwrite
-				return 0 ;
-			}
-		}
-		else {
-    		//FileUtil.copy(inputFile, outputFile, true);
-    		copyFile(inputFile, outputFile);
-    		return 1 ;
+		//--- 2) Copy 
+		for ( File folder : folders ) {
+			folder.mkdir();
 		}
+		copyFiles(files);
+		return files.size() ;
 	}
+	
 	//----------------------------------------------------------------------------------------------------
 	/**
-	 * Copies a file to another one, or a directory in another one <br>
+	 * Scans recursively the origin and collects the folders to be created and the files to be copied <br>
 	 * @param origin original file or folder
 	 * @param destination  destination file or folder
-	 * @return
+	 * @param folders 
+	 * @param files
 	 * @throws Exception
 	 */
-	private int recursiveCopy(File origin , File destination) throws Exception {
-		int count = 0 ;
+	private void scan(File origin , File destination, List<File> folders, List<FileCopy> files) throws Exception {
 	    if (origin.isDirectory()) {
 	    	// Source is a directory => destination is supposed to be a directory 
 	        if ( destination.exists() ) {
@@ -121,59 +155,222 @@ public class ResourcesCopier {
 	        	}
 	        }
 	        else {
-	            destination.mkdir();
+	            folders.add(destination);
 	        }
-	        // Copy recursively the content 
+	        // Scan recursively the content 
 	        String[] children = origin.list();
-	        for (String child : children ) {
-	        	count = count + recursiveCopy( new File(origin, child), new File(destination, child) );
+	        if ( children != null ) {
+		        for (String child : children ) {
+		        	scan( new File(origin, child), new File(destination, child), folders, files );
+		        }
 	        }
 	    } else {
 	    	// Source is a file 
-    		if ( destination.exists() ) {
-    			// Destination exists 
-    			if ( destination.isFile() ) {
-        			// Destination exists and is a file
-    				if ( getOverwriteChoice(destination) ) {
-    					// overwrite the existing file
-    		    		//FileUtil.copy(origin, destination, true);
-    		    		copyFile(origin, destination);
-    	        		return 1 ;
-    				}
-    				// else : "NO"
-    			}
-    			else {
-        			// Destination exists and is NOT a file => error
-	        		throw new Exception("'" + destination + "' already exists and is not a file");
-    			}
-    		}
-    		else {
-    			// Destination doesn't exist => copy 
-        		//FileUtil.copy(origin, destination, true);
-	    		copyFile(origin, destination);
-        		return 1 ;
+    		if ( destination.exists() && ! destination.isFile() ) {
+    			// Destination exists and is NOT a file => error
+        		throw new Exception("'" + destination + "' already exists and is not a file");
     		}
+    		scanFile(origin, destination, files);
 	    }
-	    return count ;
 	}
 	
 	/**
-	 * Copy a single file to another one (creates or overwrites if the file exists)<br>
-	 * and notify the handler before and after the copy
+	 * Adds the given file in the files to be copied if the destination doesn't exist <br>
+	 * or if it must be overwritten 
 	 * @param origin
 	 * @param destination
+	 * @param files
 	 * @throws Exception
 	 */
-	private void copyFile(File origin, File destination) throws Exception {
-		if ( _copyHandler != null ) {
-			_copyHandler.beforeCopy(origin, destination);
+	private void scanFile(File origin, File destination, List<FileCopy> files) throws Exception {
+		if ( destination.exists() ) {
+			// Destination exists 
+			if ( _skipIdenticalFiles && isIdentical(origin, destination) ) {
+				// Nothing to copy
+				return ;
+			}
+			if ( ! getOverwriteChoice(destination) ) {
+				// "NO" : do not overwrite
+				return ;
+			}
+		}
+		files.add(new FileCopy(origin, destination));
+	}
+	
+	/**
+	 * Returns true if the 2 files have the same content <br>
+	 * ( same size and same modification date, or same size and same bytes )
+	 * @param file1
+	 * @param file2
+	 * @return
+	 * @throws IOException
+	 */
+	private boolean isIdentical(File file1, File file2) throws IOException {
+		if ( file1.length() != file2.length() ) {
+			return false ;
+		}
+		if ( file1.lastModified() == file2.lastModified() ) {
+			return true ;
+		}
+		InputStream in1 = new FileInputStream(file1);
+		try {
+			InputStream in2 = new FileInputStream(file2);
+			try {
+				byte[] buffer1 = new byte[COMPARE_BUFFER_SIZE];
+				byte[] buffer2 = new byte[COMPARE_BUFFER_SIZE];
+				int n ;
+				while ( ( n = readBlock(in1, buffer1) ) > 0 ) {
+					if ( readBlock(in2, buffer2) != n ) {
+						return false ;
+					}
+					for ( int i = 0 ; i < n ; i++ ) {
+						if ( buffer1[i] != buffer2[i] ) {
+							return false ;
+						}
+					}
+				}
+				return true ;
+			} finally {
+				in2.close();
+			}
+		} finally {
+			in1.close();
+		}
+	}
+	
+	/**
+	 * Reads the next block of the stream ( the buffer is filled unless the end of the stream is reached )
+	 * @param in
+	 * @param buffer
+	 * @return the number of bytes read ( 0 at the end of the stream )
+	 * @throws IOException
+	 */
+	private int readBlock(InputStream in, byte[] buffer) throws IOException {
+		int total = 0 ;
+		while ( total < buffer.length ) {
+			int n = in.read(buffer, total, buffer.length - total);
+			if ( n < 0 ) {
+				break ;
+			}
+			total += n ;
+		}
+		return total ;
+	}
+	
+	/**
+	 * Copies all the given files, in parallel if there are many files <br>
+	 * The handler is notified in the current thread : no more than one copy per thread is submitted 
+	 * in advance, so "beforeCopy" is called just before the copy of each file starts 
+	 * and "afterCopy" as soon as it is done 
+	 * @param files
+	 * @throws Exception
+	 */
+	private void copyFiles(List<FileCopy> files) throws Exception {
+		int nbThreads = Math.min(MAX_THREADS, Runtime.getRuntime().availableProcessors());
+		if ( files.size() < PARALLEL_COPY_MIN_FILES || nbThreads < 2 ) {
+			for ( FileCopy fileCopy : files ) {
+				beforeCopy(fileCopy);
+				copyFile(fileCopy.origin, fileCopy.destination);
+				afterCopy(fileCopy);
+			}
+			return ;
 		}
 		
-		FileUtil.copy(origin, destination, true);
+		ExecutorService executor = Executors.newFixedThreadPool(nbThreads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "resources-copier");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			CompletionService<FileCopy> completionService = new ExecutorCompletionService<FileCopy>(executor);
+			int running = 0 ;
+			for ( final FileCopy fileCopy : files ) {
+				if ( running == nbThreads ) {
+					//--- All the threads are busy : wait for the end of a copy
+					afterCopy( takeCopied(completionService) );
+					running-- ;
+				}
+				beforeCopy(fileCopy);
+				completionService.submit(new Callable<FileCopy>() {
+					public FileCopy call() throws Exception {
+						copyFile(fileCopy.origin, fileCopy.destination);
+						return fileCopy ;
+					}
+				});
+				running++ ;
+			}
+			while ( running > 0 ) {
+				afterCopy( takeCopied(completionService) );
+				running-- ;
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Waits for the next file copied by the threads pool 
+	 * @param completionService
+	 * @return
+	 * @throws Exception the exception thrown by the copy if any
+	 */
+	private FileCopy takeCopied(CompletionService<FileCopy> completionService) throws Exception {
+		try {
+			return completionService.take().get() ;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if ( cause instanceof Exception ) {
+				throw (Exception) cause ;
+			}
+			throw e ;
+		}
+	}
+	
+	private void beforeCopy(FileCopy fileCopy) {
+		if ( _copyHandler != null ) {
+			_copyHandler.beforeCopy(fileCopy.origin, fileCopy.destination);
+		}
+	}
 
+	private void afterCopy(FileCopy fileCopy) {
 		if ( _copyHandler != null ) {
-			_copyHandler.afterCopy(origin, destination);
+			_copyHandler.afterCopy(fileCopy.origin, fileCopy.destination);
+		}
+	}
+	
+	/**
+	 * Copy a single file to another one (creates or overwrites if the file exists)<br>
+	 * using file channels and keeping the original modification date
+	 * @param origin
+	 * @param destination
+	 * @throws Exception
+	 */
+	private void copyFile(File origin, File destination) throws Exception {
+		File parent = destination.getParentFile();
+		if ( parent != null && ! parent.exists() ) {
+			parent.mkdirs();
+		}
+		FileInputStream fis = new FileInputStream(origin);
+		try {
+			FileOutputStream fos = new FileOutputStream(destination);
+			try {
+				FileChannel in  = fis.getChannel();
+				FileChannel out = fos.getChannel();
+				long size = in.size();
+				long position = 0 ;
+				while ( position < size ) {
+					position += in.transferTo(position, size - position, out);
+				}
+			} finally {
+				fos.close();
+			}
+		} finally {
+			fis.close();
 		}
+		destination.setLastModified(origin.lastModified());
 	}
 	
 	/**
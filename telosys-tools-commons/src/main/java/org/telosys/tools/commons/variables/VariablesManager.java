@@ -121,7 +121,7 @@ public class VariablesManager {
         int i = s.indexOf("${");
         if ( i >= 0 ) 
         {
-            int j = s.indexOf("}");
+            int j = s.indexOf("}", i+2); // search the end after "${" ( a "}" can be located before )
             if ( j > i )
             {
                 String var = s.substring(i,j+1); // "${MYVAR}"                
@@ -141,6 +141,10 @@ public class VariablesManager {
                                 
                 replaceVariables( sAfterVar, sb );
             }
+            else
+            {
+                sb.append( s ) ; // no end of variable : keep the string as is
+            }
         }
         else
         {
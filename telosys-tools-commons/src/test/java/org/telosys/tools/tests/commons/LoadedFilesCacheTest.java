@@ -0,0 +1,58 @@
+package org.telosys.tools.tests.commons;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.LoadedFilesCache;
+
+public class LoadedFilesCacheTest extends TestCase {
+
+	private void write(File file, String content) throws IOException {
+		FileWriter writer = new FileWriter(file);
+		writer.write(content);
+		writer.close();
+	}
+	
+	public void testGetAndPut() throws IOException {
+		File file = File.createTempFile("telosys-cache-", ".txt");
+		file.deleteOnExit();
+		write(file, "abc");
+		
+		LoadedFilesCache<String> cache = new LoadedFilesCache<String>();
+		assertNull(cache.get(file));
+		
+		cache.put(file, LoadedFilesCache.getStamp(file), "abc");
+		assertEquals(1, cache.size());
+		assertEquals("abc", cache.get(file));
+		assertEquals("abc", cache.get(new File(file.getAbsolutePath())));
+		assertEquals(2, cache.getHitsCount());
+		assertEquals(1, cache.getMissesCount());
+		
+		//--- File modified (different size) => no longer in the cache 
+		write(file, "abcdef");
+		assertNull(cache.get(file));
+		assertEquals(0, cache.size());
+	}
+
+	public void testRemoveAndNoFile() throws IOException {
+		File file = File.createTempFile("telosys-cache-", ".txt");
+		write(file, "abc");
+		
+		LoadedFilesCache<String> cache = new LoadedFilesCache<String>();
+		cache.put(file, LoadedFilesCache.getStamp(file), "abc");
+		cache.remove(file);
+		assertNull(cache.get(file));
+
+		//--- Removed file => not in the cache 
+		cache.put(file, LoadedFilesCache.getStamp(file), "abc");
+		assertTrue(file.delete());
+		assertNull(cache.get(file));
+		
+		//--- Inexistent file => never stored 
+		cache.put(file, LoadedFilesCache.getStamp(file), "abc");
+		assertEquals(0, cache.size());
+	}
+}
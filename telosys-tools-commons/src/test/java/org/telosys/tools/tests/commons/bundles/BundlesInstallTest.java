@@ -0,0 +1,140 @@
+package org.telosys.tools.tests.commons.bundles;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.bundles.BundleStatus;
+import org.telosys.tools.commons.bundles.BundlesManager;
+import org.telosys.tools.commons.cfg.TelosysToolsCfg;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Bundles installation using a local HTTP server providing a zip file 
+ */
+public class BundlesInstallTest extends TestCase {
+
+	private HttpServer server ;
+	private byte[]     zipContent ;
+	private File       projectFolder ;
+	
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		zipContent = buildZip();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				exchange.sendResponseHeaders(200, zipContent.length);
+				OutputStream os = exchange.getResponseBody();
+				os.write(zipContent);
+				os.close();
+			}
+		});
+		server.start();
+		projectFolder = File.createTempFile("telosys-project-", "");
+		projectFolder.delete();
+		projectFolder.mkdirs();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		server.stop(0);
+		super.tearDown();
+	}
+	
+	private byte[] buildZip() throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ZipOutputStream zos = new ZipOutputStream(baos);
+		zos.putNextEntry(new ZipEntry("mybundle-master/"));
+		zos.closeEntry();
+		zos.putNextEntry(new ZipEntry("mybundle-master/templates.cfg"));
+		zos.write("Bean ; ${BEANNAME}.java ; ${SRC} ; bean.vm \n".getBytes("UTF-8"));
+		zos.closeEntry();
+		// File without folder entry 
+		zos.putNextEntry(new ZipEntry("mybundle-master/resources/js/big.js"));
+		byte[] big = new byte[300*1000];
+		Arrays.fill(big, (byte)'x');
+		zos.write(big);
+		zos.closeEntry();
+		zos.close();
+		return baos.toByteArray();
+	}
+	
+	private String getURL() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + "/mybundle/archive/master.zip" ;
+	}
+	
+	private BundlesManager getBundlesManager() {
+		return new BundlesManager(new TelosysToolsCfg(projectFolder.getAbsolutePath()));
+	}
+	
+	private String sha256(byte[] content) throws Exception {
+		byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+		StringBuilder sb = new StringBuilder();
+		for ( byte b : digest ) {
+			sb.append(String.format("%02x", b & 0xFF));
+		}
+		return sb.toString();
+	}
+	
+	public void testInstallFromURL() throws Exception {
+		BundlesManager bm = getBundlesManager();
+		BundleStatus status = bm.installBundleFromURL(getURL(), "mybundle", sha256(zipContent));
+		assertTrue(status.getMessage(), status.isDone());
+		
+		File bundleFolder = new File(bm.getBundleFolderFullPath("mybundle"));
+		assertTrue(new File(bundleFolder, "templates.cfg").isFile());
+		assertEquals(300*1000, new File(bundleFolder, "resources/js/big.js").length());
+		assertFalse(new File(bundleFolder.getAbsolutePath() + ".installing").exists());
+		
+		//--- Already installed
+		status = bm.installBundleFromURL(getURL(), "mybundle", null);
+		assertFalse(status.isDone());
+	}
+
+	public void testInstallWithInvalidChecksum() throws Exception {
+		BundlesManager bm = getBundlesManager();
+		BundleStatus status = bm.installBundleFromURL(getURL(), "mybundle2", "0123456789abcdef");
+		assertFalse(status.isDone());
+		assertFalse(bm.isBundleAlreadyInstalled("mybundle2"));
+		assertFalse(new File(bm.getBundleFolderFullPath("mybundle2") + ".installing").exists());
+	}
+	
+	public void testInstallConcurrently() throws Exception {
+		final BundlesManager bm = getBundlesManager();
+		final String checksum = sha256(zipContent);
+		List<String> names = Arrays.asList("b1", "b2", "b3", "b4");
+		Thread[] threads = new Thread[names.size()];
+		final BundleStatus[] statusArray = new BundleStatus[names.size()];
+		for ( int i = 0 ; i < threads.length ; i++ ) {
+			final int index = i ;
+			final String name = names.get(i);
+			threads[i] = new Thread() {
+				public void run() {
+					statusArray[index] = bm.installBundleFromURL(getURL(), name, checksum);
+				}
+			};
+			threads[i].start();
+		}
+		for ( Thread thread : threads ) {
+			thread.join();
+		}
+		for ( int i = 0 ; i < threads.length ; i++ ) {
+			assertTrue(statusArray[i].getMessage(), statusArray[i].isDone());
+			assertTrue(bm.isBundleAlreadyInstalled(names.get(i)));
+		}
+	}
+}
@@ -8,6 +8,7 @@ import junit.framework.TestCase;
 import org.telosys.tools.commons.FileUtil;
 import org.telosys.tools.commons.TelosysToolsException;
 import org.telosys.tools.commons.dbcfg.DatabaseConfiguration;
+import org.telosys.tools.commons.dbcfg.DatabaseTypeProvider;
 import org.telosys.tools.commons.dbcfg.DatabasesConfigurations;
 import org.telosys.tools.commons.dbcfg.DbConfigManager;
 
@@ -167,4 +168,32 @@ public class DbConfigManagerTest extends TestCase {
 		System.out.println("SAVED.");
 	}
 	
+	/**
+	 * Metadata provider : default provider of the type or provider defined in the configuration 
+	 * @throws Exception
+	 */
+	public void testMetadataProvider() throws Exception {
+		DatabaseConfiguration postgresql = new DatabaseConfiguration(1, DatabaseTypeProvider.getDatabaseTypeByName("POSTGRESQL"));
+		assertNull(postgresql.getMetadataProvider());
+		assertEquals("", DatabaseTypeProvider.getMetadataProvider(postgresql)); // JDBC by default
+		postgresql.setMetadataProvider("POSTGRESQL");
+		assertEquals("POSTGRESQL", DatabaseTypeProvider.getMetadataProvider(postgresql));
+
+		DatabaseConfiguration h2 = new DatabaseConfiguration(2, DatabaseTypeProvider.getDatabaseTypeByName("H2 embedded"));
+		assertEquals("H2", DatabaseTypeProvider.getMetadataProvider(h2));
+		h2.setMetadataProvider("JDBC");
+		assertEquals("JDBC", DatabaseTypeProvider.getMetadataProvider(h2));
+		
+		//--- Save and load
+		DatabasesConfigurations databasesConfigurations = new DatabasesConfigurations();
+		databasesConfigurations.storeDatabaseConfiguration(postgresql);
+		databasesConfigurations.storeDatabaseConfiguration(h2);
+		File out = File.createTempFile("databases-test-provider", ".dbcfg");
+		out.deleteOnExit();
+		new DbConfigManager(out).save(databasesConfigurations);
+		DatabasesConfigurations loaded = new DbConfigManager(out).load();
+		assertEquals("POSTGRESQL", loaded.getDatabaseConfiguration(1).getMetadataProvider());
+		assertEquals("JDBC", loaded.getDatabaseConfiguration(2).getMetadataProvider());
+	}
+	
 }
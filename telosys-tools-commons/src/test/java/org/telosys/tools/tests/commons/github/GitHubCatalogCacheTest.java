@@ -0,0 +1,132 @@
+package org.telosys.tools.tests.commons.github;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.github.GitHubCatalogCache;
+import org.telosys.tools.commons.github.GitHubClient;
+import org.telosys.tools.commons.github.GitHubRepository;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * GitHub catalog cache tests using a local HTTP server as GitHub API 
+ */
+public class GitHubCatalogCacheTest extends TestCase {
+
+	private HttpServer server ;
+	private File       cacheFolder ;
+	private int        requestsCount = 0 ;
+	private int        fullResponsesCount = 0 ;
+	
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/users/foo/repos", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				requestsCount++ ;
+				String query = exchange.getRequestURI().getQuery();
+				boolean page2 = query != null && query.contains("page=2") ;
+				String etag = page2 ? "\"etag-2\"" : "\"etag-1\"" ;
+				if ( etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match")) ) {
+					exchange.sendResponseHeaders(304, -1);
+					exchange.close();
+					return ;
+				}
+				fullResponsesCount++ ;
+				String body ;
+				if ( page2 ) {
+					body = "[{\"id\":3,\"name\":\"bundle-c\",\"description\":\"C\",\"size\":30}]" ;
+				}
+				else {
+					body = "[{\"id\":2,\"name\":\"bundle-b\",\"description\":\"B\",\"size\":20}," 
+						 + "{\"id\":1,\"name\":\"bundle-a\",\"description\":\"A\",\"size\":10}]" ;
+					exchange.getResponseHeaders().add("Link", 
+						"<" + getHostURL() + "/users/foo/repos?per_page=100&page=2>; rel=\"next\", " 
+						+ "<" + getHostURL() + "/users/foo/repos?per_page=100&page=2>; rel=\"last\"");
+				}
+				exchange.getResponseHeaders().add("ETag", etag);
+				byte[] bytes = body.getBytes("UTF-8");
+				exchange.sendResponseHeaders(200, bytes.length);
+				OutputStream os = exchange.getResponseBody();
+				os.write(bytes);
+				os.close();
+			}
+		});
+		server.start();
+		cacheFolder = File.createTempFile("telosys-downloads-", "");
+		cacheFolder.delete();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		server.stop(0);
+		super.tearDown();
+	}
+	
+	private String getHostURL() {
+		return "http://127.0.0.1:" + server.getAddress().getPort() ;
+	}
+
+	private GitHubClient getClient(long ttl) {
+		GitHubClient client = new GitHubClient(null, getHostURL());
+		client.setCatalogCache(new GitHubCatalogCache(cacheFolder, ttl));
+		return client ;
+	}
+	
+	private void checkRepositories(List<GitHubRepository> repositories) {
+		assertEquals(3, repositories.size());
+		assertEquals("bundle-a", repositories.get(0).getName());
+		assertEquals("bundle-b", repositories.get(1).getName());
+		assertEquals("bundle-c", repositories.get(2).getName());
+	}
+	
+	public void testPaginationAndTTL() throws Exception {
+		checkRepositories( getClient(GitHubCatalogCache.DEFAULT_TTL).getRepositories("foo") );
+		assertEquals(2, requestsCount);
+		assertEquals(2, fullResponsesCount);
+		assertTrue(new GitHubCatalogCache(cacheFolder, 0).getCacheFile("foo").exists());
+		
+		//--- Fresh cache => no request
+		checkRepositories( getClient(GitHubCatalogCache.DEFAULT_TTL).getRepositories("foo") );
+		assertEquals(2, requestsCount);
+	}
+
+	public void testConditionalRequests() throws Exception {
+		checkRepositories( getClient(0).getRepositories("foo") );
+		assertEquals(2, fullResponsesCount);
+		
+		//--- Expired cache => conditional requests ( 304 )
+		checkRepositories( getClient(0).getRepositories("foo") );
+		assertEquals(4, requestsCount);
+		assertEquals(2, fullResponsesCount);
+	}
+
+	public void testOffline() throws Exception {
+		GitHubClient client = getClient(0);
+		client.setOffline(true);
+		try {
+			client.getRepositories("foo");
+			fail("Exception expected (no cache)");
+		} catch (Exception e) {
+			// expected
+		}
+		assertEquals(0, requestsCount);
+		
+		checkRepositories( getClient(0).getRepositories("foo") );
+		server.stop(0);
+		
+		//--- Offline with cache 
+		checkRepositories( client.getRepositories("foo") );
+		//--- Server not reachable => stale cache 
+		checkRepositories( getClient(0).getRepositories("foo") );
+	}
+}
@@ -0,0 +1,211 @@
+package org.telosys.tools.tests.commons.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.http.HttpClient;
+import org.telosys.tools.commons.http.HttpClientConfig;
+import org.telosys.tools.commons.http.HttpProxy;
+import org.telosys.tools.commons.http.HttpResponse;
+import org.telosys.tools.commons.http.HttpStreamResponse;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * HttpClient test case using a local HTTP server 
+ */
+public class HttpClientLocalTest extends TestCase {
+
+	private final static String TEXT = "Telosys http client test content. " ;
+
+	private HttpServer    server ;
+	private AtomicInteger flakyCount = new AtomicInteger(0);
+	private volatile String lastURI ;
+	private volatile String lastProxyAuthorization ;
+	
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				lastURI = exchange.getRequestURI().toString();
+				lastProxyAuthorization = exchange.getRequestHeaders().getFirst("Proxy-Authorization");
+				String path = exchange.getRequestURI().getPath();
+				if ( path.startsWith("/flaky") && flakyCount.incrementAndGet() <= 2 ) {
+					send(exchange, 503, "unavailable".getBytes("UTF-8"));
+				}
+				else if ( path.startsWith("/gzip") ) {
+					ByteArrayOutputStream baos = new ByteArrayOutputStream();
+					GZIPOutputStream gzip = new GZIPOutputStream(baos);
+					gzip.write(getText(100).getBytes("UTF-8"));
+					gzip.close();
+					exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+					if ( "HEAD".equals(exchange.getRequestMethod()) ) {
+						exchange.sendResponseHeaders(200, -1); // no body
+						exchange.close();
+					}
+					else {
+						send(exchange, 200, baos.toByteArray());
+					}
+				}
+				else if ( path.startsWith("/empty") ) {
+					exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+					exchange.sendResponseHeaders(204, -1); // no body
+					exchange.close();
+				}
+				else if ( path.startsWith("/big") ) {
+					send(exchange, 200, getText(10000).getBytes("UTF-8"));
+				}
+				else {
+					send(exchange, 200, "ok".getBytes("UTF-8"));
+				}
+			}
+		});
+		server.start();
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		server.stop(0);
+		super.tearDown();
+	}
+	
+	private void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+		exchange.sendResponseHeaders(status, body.length);
+		OutputStream os = exchange.getResponseBody();
+		os.write(body);
+		os.close();
+	}
+	
+	private String getText(int n) {
+		StringBuilder sb = new StringBuilder();
+		for ( int i = 0 ; i < n ; i++ ) {
+			sb.append(TEXT);
+		}
+		return sb.toString();
+	}
+
+	private String getURL(String path) {
+		return "http://127.0.0.1:" + server.getAddress().getPort() + path ;
+	}
+	
+	public void testGzip() throws Exception {
+		HttpClient httpClient = new HttpClient(new HttpClientConfig((HttpProxy)null));
+		HttpResponse response = httpClient.get(getURL("/gzip"), null);
+		assertEquals(200, response.getStatusCode());
+		assertEquals("gzip", response.getContentEncoding());
+		assertEquals(getText(100), new String(response.getBodyContent(), "UTF-8"));
+	}
+	
+	public void testHeadWithGzip() throws Exception {
+		HttpClient httpClient = new HttpClient(new HttpClientConfig((HttpProxy)null));
+		httpClient.setRetries(0, 10);
+		HttpResponse response = httpClient.head(getURL("/gzip"), null);
+		assertEquals(200, response.getStatusCode());
+		assertEquals("gzip", response.getContentEncoding());
+		assertEquals(0, response.getBodyContent().length);
+	}
+	
+	public void testNoContentWithGzip() throws Exception {
+		HttpClient httpClient = new HttpClient(new HttpClientConfig((HttpProxy)null));
+		httpClient.setRetries(0, 10);
+		HttpResponse response = httpClient.get(getURL("/empty"), null);
+		assertEquals(204, response.getStatusCode());
+		assertEquals(0, response.getBodyContent().length);
+	}
+	
+	public void testRetry() throws Exception {
+		HttpClient httpClient = new HttpClient(new HttpClientConfig((HttpProxy)null));
+		httpClient.setRetries(2, 10);
+		HttpResponse response = httpClient.get(getURL("/flaky"), null);
+		assertEquals(200, response.getStatusCode());
+		assertEquals(3, flakyCount.get());
+	}
+
+	public void testNoRetry() throws Exception {
+		HttpClient httpClient = new HttpClient(new HttpClientConfig((HttpProxy)null));
+		httpClient.setRetries(0, 10);
+		HttpResponse response = httpClient.get(getURL("/flaky"), null);
+		assertEquals(503, response.getStatusCode());
+		assertEquals(1, flakyCount.get());
+	}
+	
+	public void testStream() throws Exception {
+		HttpClient httpClient = new HttpClient(new HttpClientConfig((HttpProxy)null));
+		HttpStreamResponse response = httpClient.getStream(getURL("/big"), null);
+		try {
+			assertEquals(200, response.getStatusCode());
+			assertEquals(getText(10000).length(), response.getContentLength());
+			InputStream is = response.getInputStream();
+			byte[] buffer = new byte[4096];
+			long total = 0 ;
+			int n ;
+			while ( ( n = is.read(buffer) ) >= 0 ) {
+				total += n ;
+			}
+			assertEquals(getText(10000).length(), total);
+		}
+		finally {
+			response.close();
+		}
+	}
+	
+	public void testProxyPerInstance() throws Exception {
+		// The local server is used as a proxy by the first client only
+		HttpProxy proxy = new HttpProxy("http", "127.0.0.1", server.getAddress().getPort(), "user", "pwd") ;
+		HttpClient proxyClient = new HttpClient(new HttpClientConfig(proxy));
+		HttpResponse response = proxyClient.get("http://telosys.invalid/proxied", null);
+		assertEquals(200, response.getStatusCode());
+		assertEquals("http://telosys.invalid/proxied", lastURI);
+		assertEquals("Basic dXNlcjpwd2Q=", lastProxyAuthorization);
+		assertNull(System.getProperty("http.proxyHost"));
+		
+		// Another client without proxy is not impacted 
+		HttpClient directClient = new HttpClient(new HttpClientConfig((HttpProxy)null));
+		response = directClient.get(getURL("/direct"), null);
+		assertEquals(200, response.getStatusCode());
+		assertEquals("/direct", lastURI);
+		assertNull(lastProxyAuthorization);
+	}
+	
+	public void testConcurrentRequests() throws Exception {
+		final HttpClient httpClient = new HttpClient(new HttpClientConfig((HttpProxy)null));
+		final Map<Integer, Integer> results = new HashMap<Integer, Integer>();
+		Thread[] threads = new Thread[8];
+		for ( int i = 0 ; i < threads.length ; i++ ) {
+			final int id = i ;
+			threads[i] = new Thread() {
+				public void run() {
+					try {
+						int len = httpClient.get(getURL("/big"), null).getBodyContent().length ;
+						synchronized (results) {
+							results.put(id, len);
+						}
+					} catch (Exception e) {
+						// result not stored
+					}
+				}
+			};
+			threads[i].start();
+		}
+		for ( Thread t : threads ) {
+			t.join();
+		}
+		assertEquals(threads.length, results.size());
+		for ( Integer len : results.values() ) {
+			assertEquals(getText(10000).length(), len.intValue());
+		}
+	}
+}
@@ -1,9 +1,15 @@
 package org.telosys.tools.tests.commons.io;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import junit.framework.TestCase;
 
+import org.telosys.tools.commons.io.CopyHandler;
 import org.telosys.tools.commons.io.DefaultOverwriteChooser;
 import org.telosys.tools.commons.io.OverwriteChooser;
 import org.telosys.tools.commons.io.ResourcesCopier;
@@ -90,6 +96,106 @@ public class ResourcesCopierTest extends TestCase {
 		assertTrue(n == 0 );
 	}
 	
+	//----------- Skip identical files ------------------
+	public void testCopyFolderSkipIdentical() throws Exception {
+		File root = File.createTempFile("telosys-copier-", "");
+		root.delete();
+		File origin = new File(root, "origin");
+		File destination = new File(root, "destination");
+		for ( int i = 1 ; i <= 20 ; i++ ) {
+			write(new File(origin, "dir" + (i % 3) + "/file" + i + ".txt"), "content " + i );
+		}
+		
+		CopyHandlerLogger handler = new CopyHandlerLogger();
+		ResourcesCopier copier = new ResourcesCopier(new DefaultOverwriteChooser(OverwriteChooser.CANCEL), handler, true);
+		assertEquals(20, copier.copy(origin, destination));
+		assertTrue(new File(destination, "dir2/file20.txt").isFile());
+		
+		//--- Same files => nothing to copy (the chooser is not used)
+		assertEquals(0, copier.copy(origin, destination));
+		
+		//--- One file modified => the chooser is used 
+		write(new File(origin, "dir1/file1.txt"), "modified content");
+		assertEquals(-1, copier.copy(origin, destination));
+		copier = new ResourcesCopier(new DefaultOverwriteChooser(OverwriteChooser.YES), handler, true);
+		assertEquals(1, copier.copy(origin, destination));
+	}
+	
+	public void testCopySkipIdenticalLargeFile() throws Exception {
+		File root = File.createTempFile("telosys-copier-", "");
+		root.delete();
+		File origin = new File(root, "origin/big.bin");
+		File destination = new File(root, "destination/big.bin");
+		byte[] content = new byte[20000];
+		for ( int i = 0 ; i < content.length ; i++ ) {
+			content[i] = (byte) ( i % 251 ) ;
+		}
+		write(origin, content);
+		
+		ResourcesCopier copier = new ResourcesCopier(new DefaultOverwriteChooser(OverwriteChooser.CANCEL), null, true);
+		assertEquals(1, copier.copy(origin.getParentFile(), destination.getParentFile()));
+		
+		//--- Same content with another date => compared and skipped
+		destination.setLastModified(origin.lastModified() - 10000);
+		assertEquals(0, copier.copy(origin.getParentFile(), destination.getParentFile()));
+		
+		//--- Same size, last byte changed => the chooser is used
+		content[content.length - 1]++ ;
+		write(origin, content);
+		destination.setLastModified(origin.lastModified() - 10000);
+		assertEquals(-1, copier.copy(origin.getParentFile(), destination.getParentFile()));
+	}
+	
+	public void testCopyHandlerNotifiedForEachFile() throws Exception {
+		File root = File.createTempFile("telosys-copier-", "");
+		root.delete();
+		File origin = new File(root, "origin");
+		for ( int i = 1 ; i <= 40 ; i++ ) {
+			write(new File(origin, "file" + i + ".txt"), "content " + i );
+		}
+		final List<String> events = new ArrayList<String>();
+		CopyHandler handler = new CopyHandler() {
+			public void beforeCopy(File origin, File destination) {
+				events.add("before:" + origin.getName());
+			}
+			public void afterCopy(File origin, File destination) {
+				assertTrue(destination.isFile());
+				events.add("after:" + origin.getName());
+			}
+		};
+		ResourcesCopier copier = new ResourcesCopier(null, handler);
+		assertEquals(40, copier.copy(origin, new File(root, "destination")));
+		
+		assertEquals(80, events.size());
+		for ( int i = 0 ; i < events.size() ; i++ ) {
+			String event = events.get(i);
+			if ( event.startsWith("after:") ) {
+				int before = events.indexOf("before:" + event.substring(6));
+				assertTrue(before >= 0 && before < i);
+			}
+		}
+		//--- The callbacks are not all grouped before the copies ( at most one copy per thread in progress )
+		int firstAfter = 0 ;
+		while ( ! events.get(firstAfter).startsWith("after:") ) {
+			firstAfter++ ;
+		}
+		assertTrue(firstAfter <= 4);
+	}
+	
+	private void write(File file, byte[] content) throws IOException {
+		file.getParentFile().mkdirs();
+		FileOutputStream out = new FileOutputStream(file);
+		out.write(content);
+		out.close();
+	}
+	
+	private void write(File file, String content) throws IOException {
+		file.getParentFile().mkdirs();
+		FileWriter writer = new FileWriter(file);
+		writer.write(content);
+		writer.close();
+	}
+	
 	//----------------------------------------------
 	private File getOriginFile(String fileOrFolderName ) {
 		return new File(TestsFolders.getFullFileName("resources-origin/" + fileOrFolderName));
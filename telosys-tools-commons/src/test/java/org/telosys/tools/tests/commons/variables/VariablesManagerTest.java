@@ -49,6 +49,15 @@ public class VariablesManagerTest extends TestCase {
 		replaceVariables(variablesManager, "aaa${VAR1}bbb${VAR2}zzz", "aaaVALUE1bbbVALUE2zzz");
 	}
 	
+	public void testReplaceVarWithBraceBefore() {
+		VariablesManager variablesManager = getVariablesManagerInstance();
+		
+		replaceVariables(variablesManager, "a}b${VAR1}c",        "a}bVALUE1c");
+		replaceVariables(variablesManager, "}${VAR1}/}${VAR2}",  "}VALUE1/}VALUE2");
+		replaceVariables(variablesManager, "aaa${VAR1",          "aaa${VAR1");
+		replaceVariables(variablesManager, "a}a${VAR1",          "a}a${VAR1");
+	}
+	
 	public void testGetVariableNames() {
 //		HashMap<String,String> hm = new HashMap<String,String>();
 //		hm.put("${ROOT_PKG}", "org.demo.foo.bar");
@@ -0,0 +1,200 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.metadata;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.telosys.tools.commons.StandardTool;
+import org.telosys.tools.commons.TelosysToolsLogger;
+
+/**
+ * Abstract metadata provider using the system catalog of the database <br>
+ * The columns, the primary keys and the foreign keys of all the tables of the schema 
+ * are loaded with 3 set-based queries when the tables are requested, then they are 
+ * returned table by table without any other query. <br>
+ * <br>
+ * Each query has one parameter ( the schema name pattern ) and must return the 
+ * same columns as the corresponding JDBC "DatabaseMetaData" method 
+ * ( "getColumns", "getPrimaryKeys", "getImportedKeys" ), with the same names 
+ * ( TABLE_CAT, TABLE_SCHEM, TABLE_NAME, COLUMN_NAME, etc ). 
+ * The columns query must also return "IS_AUTOINCREMENT" ( "YES" or "NO" ).
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public abstract class CatalogQueriesMetadataProvider extends StandardTool implements MetadataProvider {
+
+	private final static String IS_AUTOINCREMENT = "IS_AUTOINCREMENT" ;
+	private final static String TABLE_SCHEM      = "TABLE_SCHEM" ;
+	private final static String TABLE_NAME       = "TABLE_NAME" ;
+	private final static String COLUMN_NAME      = "COLUMN_NAME" ;
+	
+	private final MetaDataManager mgr ;
+
+	private final Map<String, List<ColumnMetaData>>           columns       = new HashMap<String, List<ColumnMetaData>>();
+	private final Map<String, List<PrimaryKeyColumnMetaData>> pkColumns     = new HashMap<String, List<PrimaryKeyColumnMetaData>>();
+	private final Map<String, List<ForeignKeyColumnMetaData>> fkColumns     = new HashMap<String, List<ForeignKeyColumnMetaData>>();
+	private final Map<String, List<String>>                   autoIncrement = new HashMap<String, List<String>>();
+	
+	protected CatalogQueriesMetadataProvider(TelosysToolsLogger logger, MetaDataManager mgr) {
+		super(logger);
+		this.mgr = mgr ;
+	}
+	
+	/**
+	 * Returns the query providing the columns of all the tables ( same columns as "DatabaseMetaData.getColumns" + IS_AUTOINCREMENT )
+	 * @return
+	 */
+	protected abstract String getColumnsQuery() ;
+	
+	/**
+	 * Returns the query providing the primary keys columns of all the tables ( same columns as "DatabaseMetaData.getPrimaryKeys" )
+	 * @return
+	 */
+	protected abstract String getPrimaryKeysQuery() ;
+	
+	/**
+	 * Returns the query providing the foreign keys columns of all the tables ( same columns as "DatabaseMetaData.getImportedKeys" )
+	 * @return
+	 */
+	protected abstract String getForeignKeysQuery() ;
+	
+	private String key(String schemaName, String tableName) {
+		return schemaName + "." + tableName ;
+	}
+	
+	private String key(TableMetaData table) {
+		return key(table.getSchemaName(), table.getTableName() ) ;
+	}
+	
+	private <T> void add(Map<String, List<T>> map, String key, T element) {
+		List<T> list = map.get(key);
+		if ( list == null ) {
+			list = new LinkedList<T>();
+			map.put(key, list);
+		}
+		list.add(element);
+	}
+	
+	private <T> List<T> get(Map<String, List<T>> map, TableMetaData table) {
+		List<T> list = map.get( key(table) );
+		return list != null ? list : new LinkedList<T>() ;
+	}
+	
+	public List<TableMetaData> getTables(Connection con, String catalog, String schema, 
+			String tableNamePattern, String[] tableTypes, 
+			String tableNameInclude, String tableNameExclude) throws SQLException {
+		
+		List<TableMetaData> tables = mgr.getTables(con.getMetaData(), catalog, schema, 
+				tableNamePattern, tableTypes, tableNameInclude, tableNameExclude);
+		
+		String schemaPattern = ( schema == null || "!".equals(schema) ) ? "%" : schema ;
+		long t0 = System.currentTimeMillis();
+		loadColumns(con, schemaPattern);
+		loadPrimaryKeys(con, schemaPattern);
+		loadForeignKeys(con, schemaPattern);
+		log("Catalog queries executed in " + ( System.currentTimeMillis() - t0 ) + " ms" 
+				+ " ( " + columns.size() + " table(s) ) ");
+		return tables ;
+	}
+	
+	private ResultSet executeQuery(PreparedStatement ps, String schemaPattern) throws SQLException {
+		ps.setString(1, schemaPattern);
+		return ps.executeQuery();
+	}
+	
+	private void loadColumns(Connection con, String schemaPattern) throws SQLException {
+		PreparedStatement ps = con.prepareStatement( getColumnsQuery() );
+		mgr.register(ps);
+		try {
+			ResultSet rs = executeQuery(ps, schemaPattern);
+			ResultSetColumns rsColumns = new ResultSetColumns(rs);
+			while ( rs.next() ) {
+				String key = key( rsColumns.getString(TABLE_SCHEM), rsColumns.getString(TABLE_NAME) );
+				add(columns, key, MetaDataBuilder.buildColumnMetaData(rsColumns, mgr.isReadRemarks(), mgr.isReadDefaultValues()) );
+				if ( "YES".equalsIgnoreCase( rsColumns.getString(IS_AUTOINCREMENT) ) ) {
+					add(autoIncrement, key, rsColumns.getString(COLUMN_NAME) );
+				}
+			}
+			rs.close();
+		} finally {
+			mgr.unregister(ps);
+			ps.close();
+		}
+	}
+
+	private void loadPrimaryKeys(Connection con, String schemaPattern) throws SQLException {
+		PreparedStatement ps = con.prepareStatement( getPrimaryKeysQuery() );
+		mgr.register(ps);
+		try {
+			ResultSet rs = executeQuery(ps, schemaPattern);
+			ResultSetColumns rsColumns = new ResultSetColumns(rs);
+			while ( rs.next() ) {
+				PrimaryKeyColumnMetaData pk = MetaDataBuilder.buildPKColumnMetaData(rsColumns);
+				add(pkColumns, key(pk.getSchemaName(), pk.getTableName()), pk );
+			}
+			rs.close();
+		} finally {
+			mgr.unregister(ps);
+			ps.close();
+		}
+	}
+
+	private void loadForeignKeys(Connection con, String schemaPattern) throws SQLException {
+		PreparedStatement ps = con.prepareStatement( getForeignKeysQuery() );
+		mgr.register(ps);
+		try {
+			ResultSet rs = executeQuery(ps, schemaPattern);
+			ResultSetColumns rsColumns = new ResultSetColumns(rs);
+			while ( rs.next() ) {
+				ForeignKeyColumnMetaData fk = MetaDataBuilder.buildFKColumnMetaData(rsColumns);
+				add(fkColumns, key(fk.getFkSchemaName(), fk.getFkTableName()), fk );
+			}
+			rs.close();
+		} finally {
+			mgr.unregister(ps);
+			ps.close();
+		}
+		//--- Sort by Foreign Key name ( as MetaDataManager.getFKColumns ) 
+		for ( List<ForeignKeyColumnMetaData> list : fkColumns.values() ) {
+			Collections.sort(list);
+		}
+	}
+
+	public List<ColumnMetaData> getColumns(Connection con, TableMetaData table) throws SQLException {
+		return get(columns, table);
+	}
+
+	public List<PrimaryKeyColumnMetaData> getPKColumns(Connection con, TableMetaData table) throws SQLException {
+		return get(pkColumns, table);
+	}
+
+	public List<ForeignKeyColumnMetaData> getFKColumns(Connection con, TableMetaData table) throws SQLException {
+		return get(fkColumns, table);
+	}
+
+	public List<String> getAutoIncrementedColumns(Connection con, TableMetaData table) throws SQLException {
+		return get(autoIncrement, table);
+	}
+}
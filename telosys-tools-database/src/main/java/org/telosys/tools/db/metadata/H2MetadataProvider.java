@@ -0,0 +1,72 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.metadata;
+
+import org.telosys.tools.commons.TelosysToolsLogger;
+
+/**
+ * H2 metadata provider using the "INFORMATION_SCHEMA" views <br>
+ * ( the same views as the H2 JDBC driver, queried once for the whole schema )
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class H2MetadataProvider extends CatalogQueriesMetadataProvider {
+
+	private final static String COLUMNS_QUERY = 
+		"SELECT TABLE_CATALOG TABLE_CAT, TABLE_SCHEMA TABLE_SCHEM, TABLE_NAME, COLUMN_NAME, " 
+		+ " DATA_TYPE, TYPE_NAME, CHARACTER_MAXIMUM_LENGTH COLUMN_SIZE, NUMERIC_SCALE DECIMAL_DIGITS, " 
+		+ " NUMERIC_PRECISION_RADIX NUM_PREC_RADIX, NULLABLE, REMARKS, COLUMN_DEFAULT COLUMN_DEF, " 
+		+ " CHARACTER_OCTET_LENGTH CHAR_OCTET_LENGTH, ORDINAL_POSITION, " 
+		+ " CASE WHEN SEQUENCE_NAME IS NULL THEN 'NO' ELSE 'YES' END IS_AUTOINCREMENT " 
+		+ " FROM INFORMATION_SCHEMA.COLUMNS " 
+		+ " WHERE TABLE_SCHEMA LIKE ? " 
+		+ " ORDER BY TABLE_SCHEM, TABLE_NAME, ORDINAL_POSITION" ;
+
+	private final static String PRIMARY_KEYS_QUERY = 
+		"SELECT TABLE_CATALOG TABLE_CAT, TABLE_SCHEMA TABLE_SCHEM, TABLE_NAME, COLUMN_NAME, " 
+		+ " ORDINAL_POSITION KEY_SEQ, IFNULL(CONSTRAINT_NAME, INDEX_NAME) PK_NAME " 
+		+ " FROM INFORMATION_SCHEMA.INDEXES " 
+		+ " WHERE TABLE_SCHEMA LIKE ? AND PRIMARY_KEY = TRUE " 
+		+ " ORDER BY TABLE_SCHEM, TABLE_NAME, COLUMN_NAME" ;
+
+	private final static String FOREIGN_KEYS_QUERY = 
+		"SELECT PKTABLE_CATALOG PKTABLE_CAT, PKTABLE_SCHEMA PKTABLE_SCHEM, PKTABLE_NAME, PKCOLUMN_NAME, " 
+		+ " FKTABLE_CATALOG FKTABLE_CAT, FKTABLE_SCHEMA FKTABLE_SCHEM, FKTABLE_NAME, FKCOLUMN_NAME, " 
+		+ " ORDINAL_POSITION KEY_SEQ, UPDATE_RULE, DELETE_RULE, FK_NAME, PK_NAME, DEFERRABILITY " 
+		+ " FROM INFORMATION_SCHEMA.CROSS_REFERENCES " 
+		+ " WHERE FKTABLE_SCHEMA LIKE ? " 
+		+ " ORDER BY FKTABLE_SCHEM, FKTABLE_NAME, FK_NAME, KEY_SEQ" ;
+
+	public H2MetadataProvider(TelosysToolsLogger logger, MetaDataManager mgr) {
+		super(logger, mgr);
+	}
+
+	@Override
+	protected String getColumnsQuery() {
+		return COLUMNS_QUERY ;
+	}
+
+	@Override
+	protected String getPrimaryKeysQuery() {
+		return PRIMARY_KEYS_QUERY ;
+	}
+
+	@Override
+	protected String getForeignKeysQuery() {
+		return FOREIGN_KEYS_QUERY ;
+	}
+}
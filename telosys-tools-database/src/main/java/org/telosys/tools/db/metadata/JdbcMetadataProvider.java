@@ -0,0 +1,68 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.metadata;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Default metadata provider based on the standard JDBC "DatabaseMetaData" 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class JdbcMetadataProvider implements MetadataProvider {
+
+	private final MetaDataManager mgr ;
+	
+	private DatabaseMetaData dbmd = null ;
+	
+	public JdbcMetadataProvider(MetaDataManager mgr) {
+		super();
+		this.mgr = mgr ;
+	}
+	
+	private DatabaseMetaData getDatabaseMetaData(Connection con) throws SQLException {
+		if ( dbmd == null ) {
+			dbmd = con.getMetaData();
+		}
+		return dbmd ;
+	}
+
+	public List<TableMetaData> getTables(Connection con, String catalog, String schema, 
+			String tableNamePattern, String[] tableTypes, 
+			String tableNameInclude, String tableNameExclude) throws SQLException {
+		return mgr.getTables(getDatabaseMetaData(con), catalog, schema, tableNamePattern, tableTypes, tableNameInclude, tableNameExclude);
+	}
+
+	public List<ColumnMetaData> getColumns(Connection con, TableMetaData table) throws SQLException {
+		return mgr.getColumns(getDatabaseMetaData(con), table.getCatalogName(), table.getSchemaName(), table.getTableName() );
+	}
+
+	public List<PrimaryKeyColumnMetaData> getPKColumns(Connection con, TableMetaData table) throws SQLException {
+		return mgr.getPKColumns(getDatabaseMetaData(con), table.getCatalogName(), table.getSchemaName(), table.getTableName() );
+	}
+
+	public List<ForeignKeyColumnMetaData> getFKColumns(Connection con, TableMetaData table) throws SQLException {
+		return mgr.getFKColumns(getDatabaseMetaData(con), table.getCatalogName(), table.getSchemaName(), table.getTableName() );
+	}
+
+	public List<String> getAutoIncrementedColumns(Connection con, TableMetaData table) throws SQLException {
+		return mgr.getAutoIncrementedColumns(con, table.getSchemaName(), table.getTableName() );
+	}
+}
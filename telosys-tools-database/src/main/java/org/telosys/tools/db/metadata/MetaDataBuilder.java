@@ -78,13 +78,20 @@ public class MetaDataBuilder
 //	//  9 */ private final static String SELF_REFERENCING_COL_NAME = "SELF_REFERENCING_COL_NAME" ; // name of the designated "identifier" column of a typed table (may be null) 
 //	// 10 */ private final static String REF_GENERATION = "REF_GENERATION" ; // specifies how values in SELF_REFERENCING_COL_NAME are created. Values are "SYSTEM", "USER", "DERIVED". (may be null) 
 	//--------------------------------------------------------------------------------------------
-	protected static TableMetaData buildTableMetaData( ResultSet rs ) throws SQLException
+	/**
+	 * Builds the table metadata for the current row
+	 * @param rs
+	 * @param readRemarks true to read the "REMARKS" field ( can be expensive with some drivers ), else the comment is null
+	 * @return
+	 * @throws SQLException
+	 */
+	protected static TableMetaData buildTableMetaData( ResultSetColumns rs, boolean readRemarks ) throws SQLException
 	{
 	    String catalogName = rs.getString(TABLE_CAT);
 	    String schemaName  = rs.getString(TABLE_SCHEM);
 	    String tableName   = rs.getString(TABLE_NAME);	    
 	    String tableType   = rs.getString(TABLE_TYPE);
-	    String comment     = rs.getString(REMARKS);
+	    String comment     = ( readRemarks ? rs.getString(REMARKS) : null ) ;
 
 	    TableMetaData tableMetaData = new TableMetaData(tableName, tableType, catalogName, schemaName, comment);
 		
@@ -114,7 +121,15 @@ public class MetaDataBuilder
 	/* 17 */ private final static String ORDINAL_POSITION  = "ORDINAL_POSITION" ; // int : index of column in table (starting at 1) 
 	// 18 to 22 unused 
 	//--------------------------------------------------------------------------------------------
-	protected static ColumnMetaData buildColumnMetaData( ResultSet rs ) throws SQLException
+	/**
+	 * Builds the column metadata for the current row
+	 * @param rs
+	 * @param readRemarks true to read the "REMARKS" field ( can be expensive with some drivers ), else the comment is null
+	 * @param readDefaultValue true to read the "COLUMN_DEF" field, else the default value is null
+	 * @return
+	 * @throws SQLException
+	 */
+	protected static ColumnMetaData buildColumnMetaData( ResultSetColumns rs, boolean readRemarks, boolean readDefaultValue ) throws SQLException
 	{
 		//--- 1 
 	    String tableCatalog = rs.getString(TABLE_CAT);
@@ -162,11 +177,11 @@ public class MetaDataBuilder
 	    	notNull = true ;
 	    }
 	    
-	    //--- 12 : Column Comment/Remarks :
-	    String comment = rs.getString(REMARKS);
+	    //--- 12 : Column Comment/Remarks : ( optional )
+	    String comment = ( readRemarks ? rs.getString(REMARKS) : null ) ;
 	    
-	    //--- 13 : Column default value :
-	    String defaultValue = rs.getString(COLUMN_DEF);
+	    //--- 13 : Column default value : ( optional )
+	    String defaultValue = ( readDefaultValue ? rs.getString(COLUMN_DEF) : null ) ;
 	    
 	    //--- 16 : 
 	    int charOctetLength = rs.getInt(CHAR_OCTET_LENGTH); 
@@ -198,7 +213,7 @@ public class MetaDataBuilder
 	/*  6 */ private final static String PK_NAME        = "PK_NAME" ; // String => primary key name (may be null) 
 	
 	//--------------------------------------------------------------------------------------------
-	protected static PrimaryKeyColumnMetaData buildPKColumnMetaData( ResultSet rs ) throws SQLException
+	protected static PrimaryKeyColumnMetaData buildPKColumnMetaData( ResultSetColumns rs ) throws SQLException
 	{
 	    String tableCatalog = rs.getString(TABLE_CAT);
 	    String tableSchema  = rs.getString(TABLE_SCHEM);
@@ -239,7 +254,7 @@ public class MetaDataBuilder
 	/* 14 */ private final static String DEFERRABILITY  = "DEFERRABILITY" ; // short => can the evaluation of foreign key constraints be deferred until commit
 
 	//--------------------------------------------------------------------------------------------
-	protected static ForeignKeyColumnMetaData buildFKColumnMetaData( ResultSet rs ) throws SQLException
+	protected static ForeignKeyColumnMetaData buildFKColumnMetaData( ResultSetColumns rs ) throws SQLException
 	{
 	    String pkTableCatalog = rs.getString(PKTABLE_CAT);
 	    String pkTableSchema  = rs.getString(PKTABLE_SCHEM);
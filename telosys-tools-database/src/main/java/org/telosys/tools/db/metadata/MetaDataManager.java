@@ -31,10 +31,79 @@ import org.telosys.tools.commons.TelosysToolsLogger;
 
 public class MetaDataManager extends StandardTool
 {
+	private QueryCanceler queryCanceler = null ;
+	
+	private boolean readRemarks = true ;
+	
+	private boolean readDefaultValues = true ;
+	
 	public MetaDataManager(TelosysToolsLogger logger) {
 		super(logger);
 	}
 
+	/**
+	 * Defines if the optional "REMARKS" field is read for the tables and the columns <br>
+	 * ( can be expensive with some drivers, default is true )
+	 * @param readRemarks
+	 */
+	public void setReadRemarks(boolean readRemarks) {
+		this.readRemarks = readRemarks ;
+	}
+	
+	public boolean isReadRemarks() {
+		return readRemarks ;
+	}
+	
+	/**
+	 * Defines if the optional "COLUMN_DEF" field ( column default value ) is read for the columns <br>
+	 * ( default is true )
+	 * @param readDefaultValues
+	 */
+	public void setReadDefaultValues(boolean readDefaultValues) {
+		this.readDefaultValues = readDefaultValues ;
+	}
+	
+	public boolean isReadDefaultValues() {
+		return readDefaultValues ;
+	}
+
+	/**
+	 * Sets the canceler used to register the statements while they are executed 
+	 * ( allows to cancel a long running metadata query from another thread )
+	 * @param queryCanceler (can be null)
+	 */
+	public void setQueryCanceler(QueryCanceler queryCanceler) {
+		this.queryCanceler = queryCanceler ;
+	}
+	
+	protected void register(Statement statement) {
+		if ( queryCanceler != null ) {
+			queryCanceler.register(statement);
+		}
+	}
+	
+	protected void unregister(Statement statement) {
+		if ( queryCanceler != null ) {
+			queryCanceler.unregister(statement);
+		}
+	}
+	
+	/**
+	 * Returns the statement that produced the given metadata result set (if provided by the driver)
+	 * @param rs
+	 * @return the statement or null
+	 */
+	private Statement getStatement(ResultSet rs) {
+		if ( queryCanceler != null ) {
+			try {
+				return rs.getStatement();
+			} catch (SQLException e) {
+				// not supported by the driver
+			}
+		}
+		return null ;
+	}
+
 	//--------------------------------------------------------------------------------------------
 	public List<String> getCatalogs(Connection con ) throws SQLException
 	{
@@ -207,12 +276,13 @@ public class MetaDataManager extends StandardTool
 		
 		//--- For each table ...
 		int iTablesCount = 0;
+		ResultSetColumns columns = new ResultSetColumns(rs);
 		while ( rs.next() ) 
 		{
 			iTablesCount++;
 			log("getTables : try to build table #" + iTablesCount +"..." );
 			
-			TableMetaData tableMetaData = MetaDataBuilder.buildTableMetaData(rs);
+			TableMetaData tableMetaData = MetaDataBuilder.buildTableMetaData(columns, readRemarks);
 			log("getTables : table #" + iTablesCount +  " built ( name = " + tableMetaData.getTableName() + " )");
 
 			String tableName = tableMetaData.getTableName();
@@ -300,11 +370,14 @@ public class MetaDataManager extends StandardTool
 
 		//--- Get the columns of the table ...
 		ResultSet rs = dbmd.getColumns(catalog, schema, tableName, "%");
-
-		// --- For each column of the table ...
-		while ( rs.next() ) 
-		{
-			ColumnMetaData columnMetaData =  MetaDataBuilder.buildColumnMetaData(rs);
+		Statement statement = getStatement(rs);
+		register(statement);
+		try {
+			ResultSetColumns columns = new ResultSetColumns(rs);
+			// --- For each column of the table ...
+			while ( rs.next() ) 
+			{
+				ColumnMetaData columnMetaData =  MetaDataBuilder.buildColumnMetaData(columns, readRemarks, readDefaultValues);
 			
 
 //			// --- If this column is in the Table Primary Key
@@ -316,10 +389,12 @@ public class MetaDataManager extends StandardTool
 //			// --- If this column is a member of a Foreign Key
 //			setFkAttribute(dbColName, column, listFK);
 			
-			list.addLast(columnMetaData);
+				list.addLast(columnMetaData);
+			}
+		} finally {
+			unregister(statement);
+			rs.close();
 		}
-
-		rs.close();
 		
 		return list ;
 	}
@@ -356,12 +431,19 @@ public class MetaDataManager extends StandardTool
 		LinkedList<PrimaryKeyColumnMetaData> list = new LinkedList<PrimaryKeyColumnMetaData>();
 	
 		ResultSet rs = dbmd.getPrimaryKeys(catalog, schema, tableName);
-		while ( rs.next() ) 
-		{
-			PrimaryKeyColumnMetaData pkColumnMetaData =  MetaDataBuilder.buildPKColumnMetaData(rs);
-			list.addLast(pkColumnMetaData);
+		Statement statement = getStatement(rs);
+		register(statement);
+		try {
+			ResultSetColumns columns = new ResultSetColumns(rs);
+			while ( rs.next() ) 
+			{
+				PrimaryKeyColumnMetaData pkColumnMetaData =  MetaDataBuilder.buildPKColumnMetaData(columns);
+				list.addLast(pkColumnMetaData);
+			}
+		} finally {
+			unregister(statement);
+			rs.close();
 		}
-		rs.close();
 		
 		return list ;
 	}
@@ -388,12 +470,19 @@ public class MetaDataManager extends StandardTool
 		LinkedList<ForeignKeyColumnMetaData> list = new LinkedList<ForeignKeyColumnMetaData>();
 	
 		ResultSet rs = dbmd.getImportedKeys(catalog, schema, tableName);
-		while ( rs.next() ) 
-		{
-			ForeignKeyColumnMetaData fkColumnMetaData =  MetaDataBuilder.buildFKColumnMetaData(rs);
-			list.addLast(fkColumnMetaData);
+		Statement statement = getStatement(rs);
+		register(statement);
+		try {
+			ResultSetColumns columns = new ResultSetColumns(rs);
+			while ( rs.next() ) 
+			{
+				ForeignKeyColumnMetaData fkColumnMetaData =  MetaDataBuilder.buildFKColumnMetaData(columns);
+				list.addLast(fkColumnMetaData);
+			}
+		} finally {
+			unregister(statement);
+			rs.close();
 		}
-		rs.close();
 		
 		//--- Sort by Foreign Key name 
 		Collections.sort(list);
@@ -415,27 +504,33 @@ public class MetaDataManager extends StandardTool
 
 		LinkedList<String> result = new LinkedList<String>();
 		
-		Statement stmt = conn.createStatement();
-		
 		String fullName = tableName.trim() ;
 		if ( schemaName != null )
 		{
 			fullName = schemaName.trim() + "." + tableName.trim() ;
 		}
 		
-		ResultSet rs = stmt.executeQuery("SELECT * FROM " + fullName + " WHERE 1 = 0");
-		
-		ResultSetMetaData rsmd = rs.getMetaData();
-		int n = rsmd.getColumnCount();
-		
-		// for each column 
-		for ( int i = 1 ; i < n ; i++)
-		{
-			if ( rsmd.isAutoIncrement(i) ) 
+		Statement stmt = conn.createStatement();
+		register(stmt);
+		try {
+			ResultSet rs = stmt.executeQuery("SELECT * FROM " + fullName + " WHERE 1 = 0");
+			
+			ResultSetMetaData rsmd = rs.getMetaData();
+			int n = rsmd.getColumnCount();
+			
+			// for each column 
+			for ( int i = 1 ; i < n ; i++)
 			{
-				String colName = rsmd.getColumnName(i);
-				result.addLast(colName);
+				if ( rsmd.isAutoIncrement(i) ) 
+				{
+					String colName = rsmd.getColumnName(i);
+					result.addLast(colName);
+				}
 			}
+			rs.close();
+		} finally {
+			unregister(stmt);
+			stmt.close();
 		}
 		return result ;
 	}
@@ -0,0 +1,86 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.metadata;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Provider of the database metadata used to build the database model <br>
+ * The default implementation uses the standard JDBC "DatabaseMetaData" ( one or more queries for each table ) <br>
+ * A dialect implementation can use the system catalog of the database ( a few queries for the whole schema ) <br>
+ * <br>
+ * A provider instance is used for a single model loading : 
+ * "getTables" is called first, then the other methods for each table returned by "getTables"
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public interface MetadataProvider {
+
+	/**
+	 * Returns the tables matching the given criteria
+	 * @param con
+	 * @param catalog
+	 * @param schema
+	 * @param tableNamePattern
+	 * @param tableTypes
+	 * @param tableNameInclude
+	 * @param tableNameExclude
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<TableMetaData> getTables(Connection con, String catalog, String schema, 
+			String tableNamePattern, String[] tableTypes,
+			String tableNameInclude, String tableNameExclude ) throws SQLException ;
+
+	/**
+	 * Returns the columns of the given table ( ordered by ORDINAL_POSITION )
+	 * @param con
+	 * @param table
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<ColumnMetaData> getColumns(Connection con, TableMetaData table) throws SQLException ;
+	
+	/**
+	 * Returns the primary key columns of the given table
+	 * @param con
+	 * @param table
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<PrimaryKeyColumnMetaData> getPKColumns(Connection con, TableMetaData table) throws SQLException ;
+	
+	/**
+	 * Returns the foreign keys columns of the given table ( sorted by foreign key name )
+	 * @param con
+	 * @param table
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<ForeignKeyColumnMetaData> getFKColumns(Connection con, TableMetaData table) throws SQLException ;
+	
+	/**
+	 * Returns the names of the auto-incremented columns of the given table
+	 * @param con
+	 * @param table
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<String> getAutoIncrementedColumns(Connection con, TableMetaData table) throws SQLException ;
+}
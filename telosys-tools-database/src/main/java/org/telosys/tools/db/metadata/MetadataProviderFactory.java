@@ -0,0 +1,76 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.metadata;
+
+import java.lang.reflect.Constructor;
+
+import org.telosys.tools.commons.TelosysToolsLogger;
+
+/**
+ * Factory creating the metadata provider for a database type <br>
+ * The provider name is defined by the database configuration ( &lt;metadata provider="..." /&gt; ) 
+ * or by default by the database type ( see "DatabaseType.getMetadataProvider()" ) <br>
+ * It can be : <br>
+ * . "", "JDBC" or null : standard JDBC metadata provider <br>
+ * . "H2" or "POSTGRESQL" : predefined dialect provider ( "POSTGRESQL" is never used by default ) <br>
+ * . a class name : specific provider with a constructor ( TelosysToolsLogger, MetaDataManager ) 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class MetadataProviderFactory {
+
+	public final static String JDBC       = "" ;
+	public final static String JDBC_NAME  = "JDBC" ;
+	public final static String H2         = "H2" ;
+	public final static String POSTGRESQL = "POSTGRESQL" ;
+	
+	private MetadataProviderFactory() {
+	}
+	
+	/**
+	 * Creates a new metadata provider ( a provider must be used for only one model loading )
+	 * @param providerName the provider name or class name ( JDBC provider if null or void )
+	 * @param logger
+	 * @param mgr the metadata manager ( with the loading options )
+	 * @return
+	 */
+	public static MetadataProvider createMetadataProvider(String providerName, TelosysToolsLogger logger, MetaDataManager mgr) {
+		String name = ( providerName != null ? providerName.trim() : JDBC ) ;
+		if ( JDBC.equals(name) || JDBC_NAME.equalsIgnoreCase(name) ) {
+			return new JdbcMetadataProvider(mgr);
+		}
+		else if ( H2.equalsIgnoreCase(name) ) {
+			return new H2MetadataProvider(logger, mgr);
+		}
+		else if ( POSTGRESQL.equalsIgnoreCase(name) ) {
+			return new PostgreSqlMetadataProvider(logger, mgr);
+		}
+		else {
+			return createSpecificProvider(name, logger, mgr);
+		}
+	}
+	
+	private static MetadataProvider createSpecificProvider(String className, TelosysToolsLogger logger, MetaDataManager mgr) {
+		try {
+			Class<?> clazz = Class.forName(className);
+			Constructor<?> constructor = clazz.getConstructor(TelosysToolsLogger.class, MetaDataManager.class);
+			return (MetadataProvider) constructor.newInstance(logger, mgr);
+		} catch (Exception e) {
+			throw new IllegalArgumentException("Cannot create metadata provider '" + className + "'", e);
+		}
+	}
+}
@@ -0,0 +1,133 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.metadata;
+
+import org.telosys.tools.commons.TelosysToolsLogger;
+
+/**
+ * PostgreSQL metadata provider using the "pg_catalog" tables <br>
+ * The JDBC types, sizes and rules are computed as the PostgreSQL JDBC driver does for the usual types 
+ * ( the other types are reported as "OTHER" ) <br>
+ * Not used by default for PostgreSQL : to be enabled explicitly with &lt;metadata provider="POSTGRESQL" ... /&gt; 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class PostgreSqlMetadataProvider extends CatalogQueriesMetadataProvider {
+
+	private final static String COLUMN_DEFAULT = "pg_catalog.pg_get_expr(d.adbin, d.adrelid)" ;
+	
+	/** "serial" column ( default "nextval(...)" ) */
+	private final static String SERIAL = "( " + COLUMN_DEFAULT + " LIKE 'nextval(%' )" ;
+	
+	/** column owning a sequence : "serial" or "GENERATED ... AS IDENTITY" column */
+	private final static String OWNED_SEQUENCE = "EXISTS ( SELECT 1 FROM pg_catalog.pg_depend dep " 
+		+ " JOIN pg_catalog.pg_class seq ON seq.oid = dep.objid AND seq.relkind = 'S' " 
+		+ " WHERE dep.classid = 'pg_catalog.pg_class'::regclass AND dep.refobjid = a.attrelid AND dep.refobjsubid = a.attnum )" ;
+	
+	private final static String COLUMNS_QUERY = 
+		"SELECT current_database() AS TABLE_CAT, n.nspname AS TABLE_SCHEM, c.relname AS TABLE_NAME, a.attname AS COLUMN_NAME, " 
+		+ " CASE t.typname " 
+		+ "   WHEN 'int2' THEN 5 WHEN 'int4' THEN 4 WHEN 'int8' THEN -5 WHEN 'oid' THEN -5 " 
+		+ "   WHEN 'numeric' THEN 2 WHEN 'float4' THEN 7 WHEN 'float8' THEN 8 WHEN 'money' THEN 8 " 
+		+ "   WHEN 'bpchar' THEN 1 WHEN 'char' THEN 1 WHEN 'varchar' THEN 12 WHEN 'text' THEN 12 WHEN 'name' THEN 12 " 
+		+ "   WHEN 'bytea' THEN -2 WHEN 'bool' THEN -7 WHEN 'bit' THEN -7 " 
+		+ "   WHEN 'date' THEN 91 WHEN 'time' THEN 92 WHEN 'timetz' THEN 92 WHEN 'timestamp' THEN 93 WHEN 'timestamptz' THEN 93 " 
+		+ "   ELSE 1111 END AS DATA_TYPE, " 
+		+ " CASE " 
+		+ "   WHEN t.typname = 'int2' AND " + SERIAL + " THEN 'smallserial' " 
+		+ "   WHEN t.typname = 'int4' AND " + SERIAL + " THEN 'serial' " 
+		+ "   WHEN t.typname = 'int8' AND " + SERIAL + " THEN 'bigserial' " 
+		+ "   ELSE t.typname END AS TYPE_NAME, " 
+		+ " CASE " 
+		+ "   WHEN t.typname IN ('varchar', 'bpchar') AND a.atttypmod > 4 THEN a.atttypmod - 4 " 
+		+ "   WHEN t.typname = 'numeric' AND a.atttypmod > 4 THEN ( ( a.atttypmod - 4 ) >> 16 ) & 65535 " 
+		+ "   WHEN t.typname = 'numeric' THEN 1000 " 
+		+ "   WHEN t.typname = 'int2' THEN 5 WHEN t.typname = 'int4' THEN 10 WHEN t.typname IN ('int8', 'oid') THEN 19 " 
+		+ "   WHEN t.typname = 'float4' THEN 8 WHEN t.typname IN ('float8', 'money') THEN 17 " 
+		+ "   WHEN t.typname IN ('bool', 'char') THEN 1 WHEN t.typname = 'date' THEN 13 " 
+		+ "   WHEN t.typname IN ('time', 'timetz') THEN 15 WHEN t.typname IN ('timestamp', 'timestamptz') THEN 29 " 
+		+ "   ELSE 2147483647 END AS COLUMN_SIZE, " 
+		+ " CASE " 
+		+ "   WHEN t.typname = 'numeric' AND a.atttypmod > 4 THEN ( a.atttypmod - 4 ) & 65535 " 
+		+ "   WHEN t.typname IN ('time', 'timetz', 'timestamp', 'timestamptz') THEN 6 " 
+		+ "   ELSE 0 END AS DECIMAL_DIGITS, " 
+		+ " 10 AS NUM_PREC_RADIX, " 
+		+ " CASE WHEN a.attnotnull THEN 0 ELSE 1 END AS NULLABLE, " 
+		+ " pg_catalog.col_description(a.attrelid, a.attnum) AS REMARKS, " 
+		+ " " + COLUMN_DEFAULT + " AS COLUMN_DEF, " 
+		+ " CASE WHEN t.typname IN ('varchar', 'bpchar') AND a.atttypmod > 4 THEN a.atttypmod - 4 ELSE 2147483647 END AS CHAR_OCTET_LENGTH, " 
+		+ " a.attnum AS ORDINAL_POSITION, " 
+		+ " CASE WHEN " + SERIAL + " OR " + OWNED_SEQUENCE + " THEN 'YES' ELSE 'NO' END AS IS_AUTOINCREMENT " 
+		+ " FROM pg_catalog.pg_namespace n " 
+		+ " JOIN pg_catalog.pg_class c ON c.relnamespace = n.oid " 
+		+ " JOIN pg_catalog.pg_attribute a ON a.attrelid = c.oid " 
+		+ " JOIN pg_catalog.pg_type t ON t.oid = a.atttypid " 
+		+ " LEFT JOIN pg_catalog.pg_attrdef d ON d.adrelid = a.attrelid AND d.adnum = a.attnum " 
+		+ " WHERE a.attnum > 0 AND NOT a.attisdropped AND c.relkind IN ('r', 'v', 'p', 'm', 'f') AND n.nspname LIKE ? " 
+		+ " ORDER BY TABLE_SCHEM, TABLE_NAME, ORDINAL_POSITION" ;
+
+	private final static String PRIMARY_KEYS_QUERY = 
+		"SELECT current_database() AS TABLE_CAT, n.nspname AS TABLE_SCHEM, ct.relname AS TABLE_NAME, a.attname AS COLUMN_NAME, " 
+		+ " ( i.keys ).n AS KEY_SEQ, ci.relname AS PK_NAME " 
+		+ " FROM pg_catalog.pg_class ct " 
+		+ " JOIN pg_catalog.pg_namespace n ON n.oid = ct.relnamespace " 
+		+ " JOIN pg_catalog.pg_attribute a ON a.attrelid = ct.oid " 
+		+ " JOIN ( SELECT x.indexrelid, x.indrelid, x.indisprimary, information_schema._pg_expandarray(x.indkey) AS keys " 
+		+ "        FROM pg_catalog.pg_index x ) i ON a.attnum = ( i.keys ).x AND a.attrelid = i.indrelid " 
+		+ " JOIN pg_catalog.pg_class ci ON ci.oid = i.indexrelid " 
+		+ " WHERE i.indisprimary AND n.nspname LIKE ? " 
+		+ " ORDER BY TABLE_SCHEM, TABLE_NAME, COLUMN_NAME" ;
+
+	private final static String FOREIGN_KEYS_QUERY = 
+		"SELECT current_database() AS PKTABLE_CAT, pkn.nspname AS PKTABLE_SCHEM, pkc.relname AS PKTABLE_NAME, pka.attname AS PKCOLUMN_NAME, " 
+		+ " current_database() AS FKTABLE_CAT, fkn.nspname AS FKTABLE_SCHEM, fkc.relname AS FKTABLE_NAME, fka.attname AS FKCOLUMN_NAME, " 
+		+ " pos.n AS KEY_SEQ, " 
+		+ " CASE con.confupdtype WHEN 'c' THEN 0 WHEN 'r' THEN 1 WHEN 'n' THEN 2 WHEN 'd' THEN 4 ELSE 3 END AS UPDATE_RULE, " 
+		+ " CASE con.confdeltype WHEN 'c' THEN 0 WHEN 'r' THEN 1 WHEN 'n' THEN 2 WHEN 'd' THEN 4 ELSE 3 END AS DELETE_RULE, " 
+		+ " con.conname AS FK_NAME, pki.relname AS PK_NAME, " 
+		+ " CASE WHEN con.condeferrable AND con.condeferred THEN 5 WHEN con.condeferrable THEN 6 ELSE 7 END AS DEFERRABILITY " 
+		+ " FROM pg_catalog.pg_constraint con " 
+		+ " JOIN pg_catalog.generate_series(1, 32) pos(n) ON pos.n <= array_upper(con.conkey, 1) " 
+		+ " JOIN pg_catalog.pg_class fkc ON fkc.oid = con.conrelid " 
+		+ " JOIN pg_catalog.pg_namespace fkn ON fkn.oid = fkc.relnamespace " 
+		+ " JOIN pg_catalog.pg_attribute fka ON fka.attrelid = con.conrelid AND fka.attnum = con.conkey[pos.n] " 
+		+ " JOIN pg_catalog.pg_class pkc ON pkc.oid = con.confrelid " 
+		+ " JOIN pg_catalog.pg_namespace pkn ON pkn.oid = pkc.relnamespace " 
+		+ " JOIN pg_catalog.pg_attribute pka ON pka.attrelid = con.confrelid AND pka.attnum = con.confkey[pos.n] " 
+		+ " LEFT JOIN pg_catalog.pg_class pki ON pki.oid = con.conindid " 
+		+ " WHERE con.contype = 'f' AND fkn.nspname LIKE ? " 
+		+ " ORDER BY FKTABLE_SCHEM, FKTABLE_NAME, FK_NAME, KEY_SEQ" ;
+
+	public PostgreSqlMetadataProvider(TelosysToolsLogger logger, MetaDataManager mgr) {
+		super(logger, mgr);
+	}
+
+	@Override
+	protected String getColumnsQuery() {
+		return COLUMNS_QUERY ;
+	}
+
+	@Override
+	protected String getPrimaryKeysQuery() {
+		return PRIMARY_KEYS_QUERY ;
+	}
+
+	@Override
+	protected String getForeignKeysQuery() {
+		return FOREIGN_KEYS_QUERY ;
+	}
+}
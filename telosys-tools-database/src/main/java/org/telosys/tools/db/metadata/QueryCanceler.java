@@ -0,0 +1,81 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.metadata;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Holds the statement currently executed by a MetaDataManager in order to cancel it 
+ * from another thread ( a "watcher" thread or a user interface thread ) <br>
+ * Once canceled, any statement registered later is canceled as soon as it is registered.
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class QueryCanceler {
+
+	private Statement currentStatement = null ;
+	
+	private boolean   canceled = false ;
+	
+	/**
+	 * Registers the statement that is going to be executed (or read)
+	 * @param statement (can be null)
+	 */
+	public synchronized void register(Statement statement) {
+		currentStatement = statement ;
+		if ( canceled ) {
+			cancelStatement();
+		}
+	}
+	
+	/**
+	 * Unregisters the given statement (if it is the current one)
+	 * @param statement
+	 */
+	public synchronized void unregister(Statement statement) {
+		if ( currentStatement == statement ) {
+			currentStatement = null ;
+		}
+	}
+	
+	/**
+	 * Cancels the current statement (if any) and all the statements registered after this call
+	 */
+	public synchronized void cancel() {
+		canceled = true ;
+		cancelStatement();
+	}
+	
+	/**
+	 * Returns true if cancel() has been called
+	 * @return
+	 */
+	public synchronized boolean isCanceled() {
+		return canceled ;
+	}
+	
+	private void cancelStatement() {
+		if ( currentStatement != null ) {
+			try {
+				currentStatement.cancel();
+			} catch (SQLException e) {
+				// cancel not supported by the driver or statement already closed : nothing to do
+			}
+		}
+	}
+}
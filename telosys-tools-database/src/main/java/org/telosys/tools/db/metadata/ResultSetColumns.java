@@ -0,0 +1,79 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.metadata;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reader for a metadata result set : the index of each column is resolved once 
+ * ( from the ResultSetMetaData ) and the values are read by index <br>
+ * ( a "getXxx(columnName)" call is resolved by the JDBC driver for each row, often with a linear search )
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+class ResultSetColumns {
+
+	private final ResultSet rs ;
+	
+	private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+	
+	protected ResultSetColumns(ResultSet rs) throws SQLException {
+		super();
+		this.rs = rs ;
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int n = rsmd.getColumnCount();
+		for ( int i = n ; i >= 1 ; i-- ) {
+			// in reverse order : if a name is duplicated the first column is retained ( as "findColumn" does ) 
+			String label = rsmd.getColumnLabel(i);
+			if ( label != null ) {
+				indexes.put(label.toUpperCase(), i);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the index of the given column 
+	 * @param columnName the standard metadata column name ( upper case )
+	 * @return
+	 * @throws SQLException if the result set has no column with this name 
+	 */
+	private int index(String columnName) throws SQLException {
+		Integer index = indexes.get(columnName);
+		if ( index == null ) {
+			//--- Not found in the labels : let the driver search the column ( throws SQLException if not found ) 
+			index = rs.findColumn(columnName) ;
+			indexes.put(columnName, index);
+		}
+		return index.intValue() ;
+	}
+	
+	protected String getString(String columnName) throws SQLException {
+		return rs.getString( index(columnName) );
+	}
+	
+	protected int getInt(String columnName) throws SQLException {
+		return rs.getInt( index(columnName) );
+	}
+	
+	protected short getShort(String columnName) throws SQLException {
+		return rs.getShort( index(columnName) );
+	}
+}
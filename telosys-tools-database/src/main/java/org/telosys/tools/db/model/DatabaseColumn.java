@@ -122,6 +122,10 @@ public class DatabaseColumn {
 		return this.usedInForeignKey ;
 	}
 	
+	protected ColumnMetaData getColumnMetaData() {
+		return this.columnMetaData ;
+	}
+	
 	protected void setAutoIncremented(boolean v) {
 		this.autoIncremented = v ;
 	}
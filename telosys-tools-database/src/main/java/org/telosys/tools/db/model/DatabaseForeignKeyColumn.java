@@ -35,6 +35,10 @@ public class DatabaseForeignKeyColumn {
 //		return foreignKeyColumnMetaData.equals(arg0);
 //	}
 
+	protected ForeignKeyColumnMetaData getForeignKeyColumnMetaData() {
+		return foreignKeyColumnMetaData;
+	}
+
 	public int getDeferrability() {
 		return foreignKeyColumnMetaData.getDeferrability();
 	}
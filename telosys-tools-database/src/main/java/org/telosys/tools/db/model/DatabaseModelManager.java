@@ -15,58 +15,208 @@
  */
 package org.telosys.tools.db.model;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.sql.Connection;
-import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.List;
 
 import org.telosys.tools.commons.StandardTool;
 import org.telosys.tools.commons.TelosysToolsLogger;
+import org.telosys.tools.commons.exception.CancelException;
 import org.telosys.tools.db.metadata.ColumnMetaData;
 import org.telosys.tools.db.metadata.ForeignKeyColumnMetaData;
 import org.telosys.tools.db.metadata.MetaDataManager;
+import org.telosys.tools.db.metadata.MetadataProvider;
+import org.telosys.tools.db.metadata.MetadataProviderFactory;
 import org.telosys.tools.db.metadata.PrimaryKeyColumnMetaData;
+import org.telosys.tools.db.metadata.QueryCanceler;
 import org.telosys.tools.db.metadata.TableMetaData;
 
 public class DatabaseModelManager extends StandardTool
 {
+	private final static long WATCHER_POLLING_INTERVAL = 100 ; // milliseconds
 
+	private boolean readRemarks = true ;
+	
+	private boolean readDefaultValues = true ;
+	
+	private String  metadataProvider  = MetadataProviderFactory.JDBC ;
+	
 	public DatabaseModelManager(TelosysToolsLogger logger) {
 		super(logger);
 	}
 
+	/**
+	 * Defines if the tables and columns remarks ( comments ) are loaded ( default is true ) <br>
+	 * If false the comments are null 
+	 * @param readRemarks
+	 */
+	public void setReadRemarks(boolean readRemarks) {
+		this.readRemarks = readRemarks ;
+	}
+
+	/**
+	 * Defines if the columns default values are loaded ( default is true ) <br>
+	 * If false the default values are null 
+	 * @param readDefaultValues
+	 */
+	public void setReadDefaultValues(boolean readDefaultValues) {
+		this.readDefaultValues = readDefaultValues ;
+	}
+
+	/**
+	 * Defines the metadata provider to be used ( standard JDBC metadata by default ) <br>
+	 * See MetadataProviderFactory for the possible values
+	 * @param metadataProvider the provider name, or null for the standard JDBC provider 
+	 */
+	public void setMetadataProvider(String metadataProvider) {
+		this.metadataProvider = metadataProvider ;
+	}
+
 	public DatabaseTables getDatabaseTables(Connection con, String catalog, String schema, 
 			String tableNamePattern, String[] tableTypes,
 			String tableNameInclude, String tableNameExclude ) throws SQLException
 	{
-		DatabaseTables databaseTables = new DatabaseTables();
+		try {
+			return getDatabaseTables(con, catalog, schema, tableNamePattern, tableTypes, 
+					tableNameInclude, tableNameExclude, null);
+		} catch (CancelException e) {
+			// cannot happen without monitor
+			throw new SQLException("Unexpected cancellation", e);
+		}
+	}
+	
+	/**
+	 * Loads the database tables ( columns, primary key, foreign keys ) reporting the progress 
+	 * to the given monitor and checking for cancellation between each table. <br>
+	 * When the monitor requests the cancellation, the current metadata query is canceled 
+	 * ( if supported by the JDBC driver ) and a CancelException is thrown.
+	 * 
+	 * @param con
+	 * @param catalog
+	 * @param schema
+	 * @param tableNamePattern
+	 * @param tableTypes
+	 * @param tableNameInclude
+	 * @param tableNameExclude
+	 * @param monitor the monitor to notify (can be null)
+	 * @return
+	 * @throws SQLException
+	 * @throws CancelException
+	 */
+	public DatabaseTables getDatabaseTables(Connection con, String catalog, String schema, 
+			String tableNamePattern, String[] tableTypes,
+			String tableNameInclude, String tableNameExclude, 
+			DatabaseModelMonitor monitor ) throws SQLException, CancelException
+	{
+		DatabaseModelStatistics statistics = new DatabaseModelStatistics();
+		QueryCanceler queryCanceler = new QueryCanceler();
 		
 		MetaDataManager mgr = new MetaDataManager( this.getLogger() );
+		mgr.setReadRemarks(readRemarks);
+		mgr.setReadDefaultValues(readDefaultValues);
+		statistics.setOptionalFields(readRemarks, readDefaultValues);
+		MetadataProvider provider = MetadataProviderFactory.createMetadataProvider(metadataProvider, this.getLogger(), mgr);
+		log("Metadata provider : " + provider.getClass().getSimpleName() );
+		
+		Thread watcher = null ;
+		if ( monitor != null ) {
+			mgr.setQueryCanceler(queryCanceler);
+			watcher = startCancellationWatcher(monitor, queryCanceler);
+		}
+		try {
+			DatabaseTables databaseTables = loadDatabaseTables(provider, con, catalog, schema, 
+					tableNamePattern, tableTypes, tableNameInclude, tableNameExclude, monitor, statistics);
+			statistics.end();
+			log("Database model loaded : " + statistics );
+			if ( monitor != null ) {
+				monitor.loadingDone(statistics);
+			}
+			return databaseTables ;
+		} catch (SQLException e) {
+			if ( queryCanceler.isCanceled() ) {
+				// the SQLException is the consequence of "Statement.cancel()" 
+				throw new CancelException("Database model loading canceled");
+			}
+			throw e ;
+		} finally {
+			if ( watcher != null ) {
+				watcher.interrupt();
+			}
+		}
+	}
+	
+	/**
+	 * Starts a daemon thread polling the monitor in order to cancel the current query as soon as requested
+	 * @param monitor
+	 * @param queryCanceler
+	 * @return
+	 */
+	private Thread startCancellationWatcher(final DatabaseModelMonitor monitor, final QueryCanceler queryCanceler) 
+	{
+		Thread watcher = new Thread("telosys-metadata-cancellation-watcher") {
+			@Override
+			public void run() {
+				try {
+					while ( ! monitor.isCanceled() ) {
+						Thread.sleep(WATCHER_POLLING_INTERVAL);
+					}
+					queryCanceler.cancel();
+				} catch (InterruptedException e) {
+					// loading finished 
+				}
+			}
+		};
+		watcher.setDaemon(true);
+		watcher.start();
+		return watcher ;
+	}
+	
+	private DatabaseTables loadDatabaseTables(MetadataProvider provider, Connection con, String catalog, String schema, 
+			String tableNamePattern, String[] tableTypes,
+			String tableNameInclude, String tableNameExclude, 
+			DatabaseModelMonitor monitor, DatabaseModelStatistics statistics ) throws SQLException, CancelException
+	{
+		DatabaseTables databaseTables = new DatabaseTables();
+		databaseTables.setDatabaseProductName( con.getMetaData().getDatabaseProductName() );
 		
-		//--- Get the database Meta-Data
-		DatabaseMetaData dbmd = con.getMetaData();		
-
 		//--- Initialize the tables ( table, columns, PK, FK ) 
-		List<TableMetaData> tablesMetaData = mgr.getTables(dbmd, catalog, schema, tableNamePattern, tableTypes, tableNameInclude, tableNameExclude);	
+		List<TableMetaData> tablesMetaData = provider.getTables(con, catalog, schema, tableNamePattern, tableTypes, tableNameInclude, tableNameExclude);	
+		
+		int tablesCount = tablesMetaData.size() ;
+		statistics.setTablesCount(tablesCount);
+		if ( monitor != null ) {
+			monitor.tablesDiscovered(tablesCount);
+		}
 		
 		//--- For each table get columns, primary key and foreign keys
 		for ( TableMetaData tableMetaData : tablesMetaData ) {
+			checkCancellation(monitor);
+			
 			//--- Table columns
-			List<ColumnMetaData> columnsMetaData = mgr.getColumns(dbmd, tableMetaData.getCatalogName(), tableMetaData.getSchemaName(), tableMetaData.getTableName() );
+			List<ColumnMetaData> columnsMetaData = provider.getColumns(con, tableMetaData);
 
 			//--- Table primary key columns
-			List<PrimaryKeyColumnMetaData> pkColumnsMetaData = mgr.getPKColumns(dbmd, tableMetaData.getCatalogName(), tableMetaData.getSchemaName(), tableMetaData.getTableName() );
+			List<PrimaryKeyColumnMetaData> pkColumnsMetaData = provider.getPKColumns(con, tableMetaData);
 
 			//--- Table foreign keys columns
-			List<ForeignKeyColumnMetaData> fkColumnsMetaData = mgr.getFKColumns(dbmd, tableMetaData.getCatalogName(), tableMetaData.getSchemaName(), tableMetaData.getTableName() );
+			List<ForeignKeyColumnMetaData> fkColumnsMetaData = provider.getFKColumns(con, tableMetaData);
 
 			//--- Build the table model
 			DatabaseTable databaseTable = new DatabaseTable(tableMetaData,columnsMetaData,pkColumnsMetaData,fkColumnsMetaData);
 			
 			//--- Set auto-incremented columns if any
-			findAutoIncrementedColums(mgr, con, databaseTable);
+			findAutoIncrementedColums(provider, con, tableMetaData, databaseTable);
 			
 			databaseTables.addTable(databaseTable);
+			
+			statistics.tableLoaded( columnsMetaData.size() + pkColumnsMetaData.size() + fkColumnsMetaData.size() );
+			if ( monitor != null ) {
+				monitor.tableLoaded(statistics.getTablesLoaded(), tablesCount, databaseTable, statistics);
+			}
 		}
 		
 		//--- Initialize the stored procedures
@@ -75,7 +225,54 @@ public class DatabaseModelManager extends StandardTool
 		return databaseTables ;
 	}
 	
-	private void findAutoIncrementedColums( MetaDataManager mgr, Connection con, DatabaseTable databaseTable ) throws SQLException
+	/**
+	 * Exports the given database tables in a "database model" file <br>
+	 * ( the file can be used later to generate or update a repository without database connection )
+	 * @param databaseTables
+	 * @param file
+	 * @throws IOException
+	 */
+	public void exportDatabaseTables(DatabaseTables databaseTables, File file) throws IOException
+	{
+		long t0 = System.currentTimeMillis();
+		DatabaseTablesWriter writer = new DatabaseTablesWriter(new FileOutputStream(file), databaseTables.getDatabaseProductName() );
+		try {
+			writer.writeTables(databaseTables);
+		} finally {
+			writer.close();
+		}
+		log("Database model exported : " + writer.getTablesCount() + " table(s) in " + ( System.currentTimeMillis() - t0 ) + " ms" 
+				+ " ( file '" + file.getName() + "', " + file.length() + " bytes )" );
+	}
+	
+	/**
+	 * Imports the database tables from the given "database model" file 
+	 * @param file
+	 * @return
+	 * @throws IOException
+	 */
+	public DatabaseTables importDatabaseTables(File file) throws IOException
+	{
+		long t0 = System.currentTimeMillis();
+		DatabaseTablesReader reader = new DatabaseTablesReader(new FileInputStream(file));
+		try {
+			DatabaseTables databaseTables = reader.readTables();
+			log("Database model imported : " + databaseTables.getTables().size() + " table(s) in " + ( System.currentTimeMillis() - t0 ) + " ms" 
+					+ " ( exported " + reader.getExportDate() + " from " + reader.getDatabaseProductName() + " )" );
+			return databaseTables ;
+		} finally {
+			reader.close();
+		}
+	}
+	
+	private void checkCancellation(DatabaseModelMonitor monitor) throws CancelException
+	{
+		if ( monitor != null && monitor.isCanceled() ) {
+			throw new CancelException("Database model loading canceled");
+		}
+	}
+	
+	private void findAutoIncrementedColums( MetadataProvider provider, Connection con, TableMetaData tableMetaData, DatabaseTable databaseTable ) throws SQLException
 	{
 		List<String> autoIncrColumns = null ;
 		
@@ -85,7 +282,7 @@ public class DatabaseModelManager extends StandardTool
 //			// TODO Auto-generated catch block
 //			// ERROR : cannot get autoincremented columns
 //		}
-		autoIncrColumns = mgr.getAutoIncrementedColumns(con, databaseTable.getSchemaName(), databaseTable.getTableName() );
+		autoIncrColumns = provider.getAutoIncrementedColumns(con, tableMetaData);
 		
 		if ( autoIncrColumns != null ) {
 			if ( ! autoIncrColumns.isEmpty() ) {
@@ -0,0 +1,58 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.model;
+
+/**
+ * Monitor notified during the loading of the database model ( tables metadata ) <br>
+ * Allows to report the progress and to cancel the loading between two tables <br>
+ * ( the metadata query in progress is also canceled if the JDBC driver supports it ) <br>
+ * 
+ * All the methods are called in the thread that loads the model, except "isCanceled()" 
+ * which is also polled by a watcher thread.
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public interface DatabaseModelMonitor {
+
+	/**
+	 * Called once when the list of tables to load is known
+	 * @param tablesCount
+	 */
+	public void tablesDiscovered(int tablesCount) ;
+	
+	/**
+	 * Called after each table loaded 
+	 * @param tableNumber the number of the table ( 1 to tablesCount )
+	 * @param tablesCount
+	 * @param table the table just loaded
+	 * @param statistics the current statistics ( elapsed time, metadata rows read, etc )
+	 */
+	public void tableLoaded(int tableNumber, int tablesCount, DatabaseTable table, DatabaseModelStatistics statistics) ;
+	
+	/**
+	 * Called at the end of the loading ( not called if the loading is canceled or has failed )
+	 * @param statistics the final statistics ( throughput summary )
+	 */
+	public void loadingDone(DatabaseModelStatistics statistics) ;
+	
+	/**
+	 * Returns true if the loading must be canceled 
+	 * @return
+	 */
+	public boolean isCanceled() ;
+	
+}
@@ -0,0 +1,142 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.model;
+
+/**
+ * Statistics of a database model loading ( progress and throughput ) <br>
+ * The "metadata rows" are the rows read in the metadata result sets ( columns, primary keys and foreign keys )
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class DatabaseModelStatistics {
+
+	private final long startTime ;
+	
+	private long endTime      = 0 ;
+	
+	private int  tablesCount  = 0 ;
+	
+	private int  tablesLoaded = 0 ;
+	
+	private long metadataRows = 0 ;
+	
+	private boolean remarksRead       = true ;
+	
+	private boolean defaultValuesRead = true ;
+	
+	protected DatabaseModelStatistics() {
+		super();
+		this.startTime = System.currentTimeMillis();
+	}
+	
+	protected void setTablesCount(int tablesCount) {
+		this.tablesCount = tablesCount ;
+	}
+	
+	protected void tableLoaded(int rows) {
+		this.tablesLoaded++ ;
+		this.metadataRows += rows ;
+	}
+	
+	protected void setOptionalFields(boolean remarksRead, boolean defaultValuesRead) {
+		this.remarksRead = remarksRead ;
+		this.defaultValuesRead = defaultValuesRead ;
+	}
+	
+	protected void end() {
+		this.endTime = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Returns the number of tables to load
+	 * @return
+	 */
+	public int getTablesCount() {
+		return tablesCount;
+	}
+
+	/**
+	 * Returns the number of tables already loaded
+	 * @return
+	 */
+	public int getTablesLoaded() {
+		return tablesLoaded;
+	}
+
+	/**
+	 * Returns the number of metadata rows already read 
+	 * @return
+	 */
+	public long getMetadataRows() {
+		return metadataRows;
+	}
+
+	/**
+	 * Returns true if the optional "REMARKS" field has been read 
+	 * @return
+	 */
+	public boolean isRemarksRead() {
+		return remarksRead;
+	}
+
+	/**
+	 * Returns true if the optional "COLUMN_DEF" field ( default value ) has been read 
+	 * @return
+	 */
+	public boolean isDefaultValuesRead() {
+		return defaultValuesRead;
+	}
+
+	/**
+	 * Returns the elapsed time in milliseconds ( until now or until the end of the loading )
+	 * @return
+	 */
+	public long getElapsedTime() {
+		long t = ( endTime > 0 ? endTime : System.currentTimeMillis() ) ;
+		return t - startTime ;
+	}
+	
+	/**
+	 * Returns the number of metadata rows read per second 
+	 * @return
+	 */
+	public long getRowsPerSecond() {
+		return perSecond(metadataRows) ;
+	}
+	
+	/**
+	 * Returns the number of tables loaded per second 
+	 * @return
+	 */
+	public long getTablesPerSecond() {
+		return perSecond(tablesLoaded) ;
+	}
+	
+	private long perSecond(long n) {
+		long elapsed = getElapsedTime() ;
+		return elapsed > 0 ? ( n * 1000 ) / elapsed : n * 1000 ;
+	}
+	
+	@Override
+	public String toString() {
+		return tablesLoaded + "/" + tablesCount + " table(s), " 
+				+ metadataRows + " metadata row(s) in " + getElapsedTime() + " ms" 
+				+ " ( " + getRowsPerSecond() + " rows/s, " + getTablesPerSecond() + " tables/s )" 
+				+ " [ remarks : " + ( remarksRead ? "yes" : "no" ) 
+				+ ", default values : " + ( defaultValuesRead ? "yes" : "no" ) + " ]" ;
+	}
+}
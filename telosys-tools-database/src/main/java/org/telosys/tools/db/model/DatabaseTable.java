@@ -178,6 +178,10 @@ public class DatabaseTable {
 		return n ;
 	}
 
+	protected TableMetaData getTableMetaData() {
+		return tableMetaData;
+	}
+
 	/**
 	 * Returns the catalog name for this table if any (may be null) 
 	 * @return
@@ -23,6 +23,20 @@ public class DatabaseTables implements Iterable<DatabaseTable>
 {
 	private LinkedList<DatabaseTable> tables = new LinkedList<DatabaseTable>();
 	
+	private String databaseProductName = null ;
+	
+	/**
+	 * Returns the database product name ( as provided by the JDBC driver when the tables have been loaded )
+	 * @return
+	 */
+	public String getDatabaseProductName() {
+		return databaseProductName ;
+	}
+	
+	protected void setDatabaseProductName(String databaseProductName) {
+		this.databaseProductName = databaseProductName ;
+	}
+	
 	
 	protected void addTable(DatabaseTable databaseTable )
 	{
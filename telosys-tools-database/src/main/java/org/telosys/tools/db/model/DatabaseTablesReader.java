@@ -0,0 +1,183 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.model;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Date;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.telosys.tools.db.metadata.ColumnMetaData;
+import org.telosys.tools.db.metadata.ForeignKeyColumnMetaData;
+import org.telosys.tools.db.metadata.PrimaryKeyColumnMetaData;
+import org.telosys.tools.db.metadata.TableMetaData;
+
+/**
+ * Reader for the "database model" files ( see DatabaseTablesWriter ) 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class DatabaseTablesReader {
+
+	private final DataInputStream in ;
+	
+	private final int    formatVersion ;
+	
+	private final String databaseProductName ;
+	
+	private final Date   exportDate ;
+	
+	private boolean end = false ;
+	
+	/**
+	 * Constructor : reads and checks the file header
+	 * @param inputStream
+	 * @throws IOException if the file is not a database model file or if its version is not supported
+	 */
+	public DatabaseTablesReader(InputStream inputStream) throws IOException {
+		super();
+		this.in = new DataInputStream( new BufferedInputStream( new GZIPInputStream(inputStream) ) );
+		if ( in.readInt() != DatabaseTablesWriter.MAGIC_NUMBER ) {
+			throw new IOException("Invalid database model file (bad magic number)");
+		}
+		this.formatVersion = in.readInt();
+		if ( formatVersion > DatabaseTablesWriter.FORMAT_VERSION ) {
+			throw new IOException("Unsupported database model file version " + formatVersion 
+					+ " (version " + DatabaseTablesWriter.FORMAT_VERSION + " expected)" );
+		}
+		this.databaseProductName = readString();
+		this.exportDate = new Date( in.readLong() );
+	}
+	
+	public int getFormatVersion() {
+		return formatVersion;
+	}
+
+	public String getDatabaseProductName() {
+		return databaseProductName;
+	}
+
+	public Date getExportDate() {
+		return exportDate;
+	}
+
+	/**
+	 * Reads all the remaining tables 
+	 * @return
+	 * @throws IOException
+	 */
+	public DatabaseTables readTables() throws IOException {
+		DatabaseTables databaseTables = new DatabaseTables();
+		databaseTables.setDatabaseProductName(databaseProductName);
+		DatabaseTable databaseTable = readTable() ;
+		while ( databaseTable != null ) {
+			databaseTables.addTable(databaseTable);
+			databaseTable = readTable() ;
+		}
+		return databaseTables ;
+	}
+	
+	/**
+	 * Reads the next table 
+	 * @return the table or null if no more table 
+	 * @throws IOException
+	 */
+	public DatabaseTable readTable() throws IOException {
+		if ( end ) {
+			return null ;
+		}
+		byte record = in.readByte();
+		if ( record == DatabaseTablesWriter.END_RECORD ) {
+			end = true ;
+			return null ;
+		}
+		else if ( record != DatabaseTablesWriter.TABLE_RECORD ) {
+			throw new IOException("Invalid database model file (unexpected record type " + record + ")");
+		}
+		
+		//--- Table
+		String tableName   = readString();
+		String tableType   = readString();
+		String catalogName = readString();
+		String schemaName  = readString();
+		String comment     = readString();
+		String pkName      = readString();
+		TableMetaData tableMetaData = new TableMetaData(tableName, tableType, catalogName, schemaName, comment);
+		
+		//--- Columns and primary key columns
+		int columnsCount = in.readInt();
+		List<ColumnMetaData> columns = new LinkedList<ColumnMetaData>();
+		List<PrimaryKeyColumnMetaData> pkColumns = new LinkedList<PrimaryKeyColumnMetaData>();
+		List<String> autoIncrementedColumns = new LinkedList<String>();
+		for ( int i = 0 ; i < columnsCount ; i++ ) {
+			ColumnMetaData column = new ColumnMetaData(
+					readString(), readString(), readString(), // catalog, schema, table
+					readString(), in.readInt(), readString(), // column name, JDBC type, db type 
+					in.readBoolean(), in.readInt(),           // not null, size
+					in.readInt(), in.readInt(),               // decimal digits, radix 
+					in.readInt(), in.readInt(),               // char octet length, ordinal position
+					readString(),                             // default value 
+					readString() );                           // comment
+			columns.add(column);
+			boolean inPrimaryKey = in.readBoolean();
+			short   pkSequence   = in.readShort();
+			if ( inPrimaryKey ) {
+				pkColumns.add( new PrimaryKeyColumnMetaData(column.getCatalogName(), column.getSchemaName(), column.getTableName(), 
+						column.getColumnName(), pkSequence, pkName) );
+			}
+			if ( in.readBoolean() ) {
+				autoIncrementedColumns.add(column.getColumnName());
+			}
+		}
+		
+		//--- Foreign keys columns 
+		int fkColumnsCount = in.readInt();
+		List<ForeignKeyColumnMetaData> fkColumns = new LinkedList<ForeignKeyColumnMetaData>();
+		for ( int i = 0 ; i < fkColumnsCount ; i++ ) {
+			fkColumns.add( new ForeignKeyColumnMetaData(
+					readString(), readString(), readString(), readString(), // PK catalog, schema, table, column
+					readString(), readString(), readString(), readString(), // FK catalog, schema, table, column
+					in.readShort(), in.readShort(), in.readShort(),         // sequence, update rule, delete rule
+					readString(), readString(),                             // FK name, PK name
+					in.readShort() ) );                                     // deferrability
+		}
+		
+		DatabaseTable databaseTable = new DatabaseTable(tableMetaData, columns, pkColumns, fkColumns);
+		for ( String columnName : autoIncrementedColumns ) {
+			databaseTable.getColumnByName(columnName).setAutoIncremented(true);
+		}
+		return databaseTable ;
+	}
+	
+	public void close() throws IOException {
+		in.close();
+	}
+	
+	private String readString() throws IOException {
+		int length = in.readInt();
+		if ( length < 0 ) {
+			return null ;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, "UTF-8");
+	}
+}
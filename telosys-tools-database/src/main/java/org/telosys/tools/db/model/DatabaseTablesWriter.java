@@ -0,0 +1,177 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.db.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.zip.GZIPOutputStream;
+
+import org.telosys.tools.db.metadata.ColumnMetaData;
+import org.telosys.tools.db.metadata.ForeignKeyColumnMetaData;
+import org.telosys.tools.db.metadata.TableMetaData;
+
+/**
+ * Writer for the "database model" files <br>
+ * A database model file contains the raw metadata of the tables ( columns, primary keys, 
+ * foreign keys, auto-incremented flags ) in order to generate or update a repository without 
+ * any database connection. <br>
+ * <br>
+ * Format ( gzip compressed ) : <br>
+ * . header : magic number, format version, database product name, export date <br>
+ * . one record per table <br>
+ * . end marker <br>
+ * The tables are written one by one ( the file can be read table by table ) 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class DatabaseTablesWriter {
+
+	protected final static int  MAGIC_NUMBER   = 0x54444D46 ; // "TDMF" : Telosys Database Model File
+	protected final static int  FORMAT_VERSION = 1 ;
+	
+	protected final static byte TABLE_RECORD   = 1 ;
+	protected final static byte END_RECORD     = 0 ;
+	
+	private final DataOutputStream out ;
+	
+	private int tablesCount = 0 ;
+	
+	/**
+	 * Constructor : writes the file header
+	 * @param outputStream
+	 * @param databaseProductName
+	 * @throws IOException
+	 */
+	public DatabaseTablesWriter(OutputStream outputStream, String databaseProductName) throws IOException {
+		super();
+		this.out = new DataOutputStream( new BufferedOutputStream( new GZIPOutputStream(outputStream) ) );
+		out.writeInt(MAGIC_NUMBER);
+		out.writeInt(FORMAT_VERSION);
+		writeString(databaseProductName);
+		out.writeLong( new Date().getTime() );
+	}
+	
+	/**
+	 * Writes all the given tables
+	 * @param databaseTables
+	 * @throws IOException
+	 */
+	public void writeTables(DatabaseTables databaseTables) throws IOException {
+		for ( DatabaseTable databaseTable : databaseTables ) {
+			writeTable(databaseTable);
+		}
+	}
+	
+	/**
+	 * Writes the given table
+	 * @param databaseTable
+	 * @throws IOException
+	 */
+	public void writeTable(DatabaseTable databaseTable) throws IOException {
+		out.writeByte(TABLE_RECORD);
+		
+		//--- Table
+		TableMetaData table = databaseTable.getTableMetaData();
+		writeString(table.getTableName());
+		writeString(table.getTableType());
+		writeString(table.getCatalogName());
+		writeString(table.getSchemaName());
+		writeString(table.getComment());
+		writeString(databaseTable.getPrimaryKeyName());
+		
+		//--- Columns 
+		out.writeInt(databaseTable.getColumns().size());
+		for ( DatabaseColumn databaseColumn : databaseTable.getColumns() ) {
+			ColumnMetaData column = databaseColumn.getColumnMetaData();
+			writeString(column.getCatalogName());
+			writeString(column.getSchemaName());
+			writeString(column.getTableName());
+			writeString(column.getColumnName());
+			out.writeInt(column.getJdbcTypeCode());
+			writeString(column.getDbTypeName());
+			out.writeBoolean(column.isNotNull());
+			out.writeInt(column.getSize());
+			out.writeInt(column.getDecimalDigits());
+			out.writeInt(column.getNumPrecRadix());
+			out.writeInt(column.getCharOctetLength());
+			out.writeInt(column.getOrdinalPosition());
+			writeString(column.getDefaultValue());
+			writeString(column.getComment());
+			out.writeBoolean(databaseColumn.isInPrimaryKey());
+			out.writeShort(databaseColumn.getPrimaryKeySequence());
+			out.writeBoolean(databaseColumn.isAutoIncremented());
+		}
+		
+		//--- Foreign keys columns ( sorted by foreign key name )
+		int fkColumnsCount = 0 ;
+		for ( DatabaseForeignKey fk : databaseTable.getForeignKeys() ) {
+			fkColumnsCount += fk.getForeignKeyColumns().size() ;
+		}
+		out.writeInt(fkColumnsCount);
+		for ( DatabaseForeignKey fk : databaseTable.getForeignKeys() ) {
+			for ( DatabaseForeignKeyColumn fkColumn : fk.getForeignKeyColumns() ) {
+				ForeignKeyColumnMetaData fkc = fkColumn.getForeignKeyColumnMetaData();
+				writeString(fkc.getPkCatalogName());
+				writeString(fkc.getPkSchemaName());
+				writeString(fkc.getPkTableName());
+				writeString(fkc.getPkColumnName());
+				writeString(fkc.getFkCatalogName());
+				writeString(fkc.getFkSchemaName());
+				writeString(fkc.getFkTableName());
+				writeString(fkc.getFkColumnName());
+				out.writeShort(fkc.getFkSequence());
+				out.writeShort(fkc.getUpdateRule());
+				out.writeShort(fkc.getDeleteRule());
+				writeString(fkc.getFkName());
+				writeString(fkc.getPkName());
+				out.writeShort(fkc.getDeferrability());
+			}
+		}
+		tablesCount++ ;
+	}
+	
+	/**
+	 * Returns the number of tables written 
+	 * @return
+	 */
+	public int getTablesCount() {
+		return tablesCount ;
+	}
+	
+	/**
+	 * Writes the end marker and closes the file
+	 * @throws IOException
+	 */
+	public void close() throws IOException {
+		out.writeByte(END_RECORD);
+		out.close();
+	}
+	
+	private void writeString(String s) throws IOException {
+		if ( s == null ) {
+			out.writeInt(-1);
+		}
+		else {
+			byte[] bytes = s.getBytes("UTF-8");
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+}
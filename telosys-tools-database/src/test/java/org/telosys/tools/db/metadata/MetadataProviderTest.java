@@ -0,0 +1,179 @@
+package org.telosys.tools.db.metadata;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class MetadataProviderTest extends TestCase {
+
+	private static final String[] TABLE_TYPES = { "TABLE" } ;
+	
+	private Connection createDatabase(String name, int detailTables) throws Exception {
+		Class.forName("org.h2.Driver");
+		Connection con = DriverManager.getConnection("jdbc:h2:mem:" + name, "sa", "");
+		Statement stmt = con.createStatement();
+		stmt.execute("CREATE TABLE COUNTRY ( CODE CHAR(2) PRIMARY KEY, NAME VARCHAR(45) NOT NULL DEFAULT 'unknown' COMMENT 'Country name' )");
+		stmt.execute("COMMENT ON TABLE COUNTRY IS 'The countries'");
+		stmt.execute("CREATE TABLE CITY ( COUNTRY_CODE CHAR(2), CITY_ID INT, NAME VARCHAR(80), POPULATION BIGINT, AREA DECIMAL(10,2), " 
+				+ " PRIMARY KEY ( COUNTRY_CODE, CITY_ID ), " 
+				+ " CONSTRAINT FK_CITY_COUNTRY FOREIGN KEY ( COUNTRY_CODE ) REFERENCES COUNTRY ( CODE ) ON DELETE CASCADE )");
+		for ( int i = 1 ; i <= detailTables ; i++ ) {
+			stmt.execute("CREATE TABLE DETAIL_" + i + " ( ID INT AUTO_INCREMENT PRIMARY KEY, CC CHAR(2), CITY INT, LABEL VARCHAR(20), " 
+					+ " CREATED TIMESTAMP, FLAG BOOLEAN, " 
+					+ " CONSTRAINT FK_DETAIL_" + i + "_CITY FOREIGN KEY ( CC, CITY ) REFERENCES CITY ( COUNTRY_CODE, CITY_ID ), " 
+					+ " CONSTRAINT FK_DETAIL_" + i + "_COUNTRY FOREIGN KEY ( CC ) REFERENCES COUNTRY ( CODE ) )");
+		}
+		stmt.close();
+		return con ;
+	}
+	
+	public void testFactory() {
+		MetaDataManager mgr = new MetaDataManager(null);
+		Assert.assertTrue(MetadataProviderFactory.createMetadataProvider(null, null, mgr) instanceof JdbcMetadataProvider);
+		Assert.assertTrue(MetadataProviderFactory.createMetadataProvider("", null, mgr) instanceof JdbcMetadataProvider);
+		Assert.assertTrue(MetadataProviderFactory.createMetadataProvider("jdbc", null, mgr) instanceof JdbcMetadataProvider);
+		Assert.assertTrue(MetadataProviderFactory.createMetadataProvider("H2", null, mgr) instanceof H2MetadataProvider);
+		Assert.assertTrue(MetadataProviderFactory.createMetadataProvider("postgresql", null, mgr) instanceof PostgreSqlMetadataProvider);
+		Assert.assertTrue(MetadataProviderFactory.createMetadataProvider(H2MetadataProvider.class.getName(), null, mgr) instanceof H2MetadataProvider);
+		try {
+			MetadataProviderFactory.createMetadataProvider("org.foo.Unknown", null, mgr);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException e) {
+			// expected
+		}
+	}
+	
+	public void testH2ProviderSameAsJdbc() throws Exception {
+		Connection con = createDatabase("providers", 3);
+		try {
+			MetaDataManager mgr = new MetaDataManager(null);
+			MetadataProvider jdbc = new JdbcMetadataProvider(mgr);
+			MetadataProvider h2   = new H2MetadataProvider(null, mgr);
+			
+			List<TableMetaData> jdbcTables = jdbc.getTables(con, null, "PUBLIC", "%", TABLE_TYPES, null, null);
+			List<TableMetaData> h2Tables   = h2.getTables(con, null, "PUBLIC", "%", TABLE_TYPES, null, null);
+			Assert.assertEquals(5, jdbcTables.size());
+			Assert.assertEquals(jdbcTables.size(), h2Tables.size());
+			
+			for ( int t = 0 ; t < jdbcTables.size() ; t++ ) {
+				TableMetaData table = h2Tables.get(t);
+				Assert.assertEquals(jdbcTables.get(t).getTableName(), table.getTableName());
+				
+				//--- Columns 
+				List<ColumnMetaData> expectedColumns = jdbc.getColumns(con, jdbcTables.get(t));
+				List<ColumnMetaData> columns = h2.getColumns(con, table);
+				Assert.assertFalse(columns.isEmpty());
+				Assert.assertEquals(expectedColumns.size(), columns.size());
+				for ( int i = 0 ; i < columns.size() ; i++ ) {
+					assertSameColumn(expectedColumns.get(i), columns.get(i));
+				}
+				
+				//--- Primary key 
+				List<PrimaryKeyColumnMetaData> expectedPK = jdbc.getPKColumns(con, jdbcTables.get(t));
+				List<PrimaryKeyColumnMetaData> pk = h2.getPKColumns(con, table);
+				Assert.assertFalse(pk.isEmpty());
+				Assert.assertEquals(expectedPK.size(), pk.size());
+				for ( int i = 0 ; i < pk.size() ; i++ ) {
+					Assert.assertEquals(expectedPK.get(i).getColumnName(), pk.get(i).getColumnName());
+					Assert.assertEquals(expectedPK.get(i).getPkSequence(), pk.get(i).getPkSequence());
+					Assert.assertEquals(expectedPK.get(i).getPkName(), pk.get(i).getPkName());
+				}
+				
+				//--- Foreign keys 
+				List<ForeignKeyColumnMetaData> expectedFK = jdbc.getFKColumns(con, jdbcTables.get(t));
+				List<ForeignKeyColumnMetaData> fk = h2.getFKColumns(con, table);
+				Assert.assertEquals(expectedFK.size(), fk.size());
+				for ( int i = 0 ; i < fk.size() ; i++ ) {
+					assertSameForeignKeyColumn(expectedFK.get(i), fk.get(i));
+				}
+			}
+			
+			//--- Table comment
+			TableMetaData country = h2Tables.get(findTable(h2Tables, "COUNTRY"));
+			Assert.assertEquals("The countries", country.getComment());
+			
+			//--- Auto-incremented columns ( NB : the JDBC provider never checks the last column )
+			TableMetaData detail = h2Tables.get(findTable(h2Tables, "DETAIL_1"));
+			Assert.assertEquals(jdbc.getAutoIncrementedColumns(con, detail), h2.getAutoIncrementedColumns(con, detail));
+			Assert.assertEquals(1, h2.getAutoIncrementedColumns(con, detail).size());
+			Assert.assertEquals("ID", h2.getAutoIncrementedColumns(con, detail).get(0));
+			Assert.assertEquals(0, h2.getAutoIncrementedColumns(con, country).size());
+		} finally {
+			con.close();
+		}
+	}
+	
+	public void testH2ProviderTiming() throws Exception {
+		Connection con = createDatabase("timing", 200);
+		try {
+			MetaDataManager mgr = new MetaDataManager(null);
+			long jdbcTime = load(new JdbcMetadataProvider(mgr), con);
+			long h2Time   = load(new H2MetadataProvider(null, mgr), con);
+			System.out.println("202 tables : JDBC metadata provider " + jdbcTime + " ms, H2 metadata provider " + h2Time + " ms");
+		} finally {
+			con.close();
+		}
+	}
+	
+	private long load(MetadataProvider provider, Connection con) throws Exception {
+		long t0 = System.currentTimeMillis();
+		List<TableMetaData> tables = provider.getTables(con, null, "PUBLIC", "%", TABLE_TYPES, null, null);
+		int columnsCount = 0 ;
+		for ( TableMetaData table : tables ) {
+			columnsCount += provider.getColumns(con, table).size();
+			provider.getPKColumns(con, table);
+			provider.getFKColumns(con, table);
+			provider.getAutoIncrementedColumns(con, table);
+		}
+		Assert.assertEquals(202, tables.size());
+		Assert.assertEquals(2 + 5 + 200 * 6, columnsCount);
+		return System.currentTimeMillis() - t0 ;
+	}
+	
+	private int findTable(List<TableMetaData> tables, String name) {
+		for ( int i = 0 ; i < tables.size() ; i++ ) {
+			if ( name.equals(tables.get(i).getTableName()) ) {
+				return i ;
+			}
+		}
+		fail("Table " + name + " not found");
+		return -1 ;
+	}
+	
+	private void assertSameColumn(ColumnMetaData expected, ColumnMetaData column) {
+		String name = expected.getTableName() + "." + expected.getColumnName() ;
+		Assert.assertEquals(name, expected.getCatalogName(), column.getCatalogName());
+		Assert.assertEquals(name, expected.getSchemaName(), column.getSchemaName());
+		Assert.assertEquals(name, expected.getTableName(), column.getTableName());
+		Assert.assertEquals(name, expected.getColumnName(), column.getColumnName());
+		Assert.assertEquals(name, expected.getJdbcTypeCode(), column.getJdbcTypeCode());
+		Assert.assertEquals(name, expected.getDbTypeName(), column.getDbTypeName());
+		Assert.assertEquals(name, expected.getSize(), column.getSize());
+		Assert.assertEquals(name, expected.getDecimalDigits(), column.getDecimalDigits());
+		Assert.assertEquals(name, expected.getNumPrecRadix(), column.getNumPrecRadix());
+		Assert.assertEquals(name, expected.isNotNull(), column.isNotNull());
+		Assert.assertEquals(name, expected.getComment(), column.getComment());
+		Assert.assertEquals(name, expected.getDefaultValue(), column.getDefaultValue());
+		Assert.assertEquals(name, expected.getCharOctetLength(), column.getCharOctetLength());
+		Assert.assertEquals(name, expected.getOrdinalPosition(), column.getOrdinalPosition());
+	}
+	
+	private void assertSameForeignKeyColumn(ForeignKeyColumnMetaData expected, ForeignKeyColumnMetaData fk) {
+		String name = expected.getFkName() + "." + expected.getFkColumnName() ;
+		Assert.assertEquals(name, expected.getFkName(), fk.getFkName());
+		Assert.assertEquals(name, expected.getPkName(), fk.getPkName());
+		Assert.assertEquals(name, expected.getFkSequence(), fk.getFkSequence());
+		Assert.assertEquals(name, expected.getFkTableName(), fk.getFkTableName());
+		Assert.assertEquals(name, expected.getFkColumnName(), fk.getFkColumnName());
+		Assert.assertEquals(name, expected.getPkSchemaName(), fk.getPkSchemaName());
+		Assert.assertEquals(name, expected.getPkTableName(), fk.getPkTableName());
+		Assert.assertEquals(name, expected.getPkColumnName(), fk.getPkColumnName());
+		Assert.assertEquals(name, expected.getUpdateRule(), fk.getUpdateRule());
+		Assert.assertEquals(name, expected.getDeleteRule(), fk.getDeleteRule());
+		Assert.assertEquals(name, expected.getDeferrability(), fk.getDeferrability());
+	}
+}
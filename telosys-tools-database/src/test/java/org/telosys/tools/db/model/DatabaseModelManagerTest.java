@@ -0,0 +1,187 @@
+package org.telosys.tools.db.model;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.exception.CancelException;
+
+public class DatabaseModelManagerTest extends TestCase {
+	
+	private static final String[] TABLE_TYPES = { "TABLE" } ;
+	
+	private Connection createDatabase(String name, int tablesCount) throws Exception {
+		Class.forName("org.h2.Driver");
+		Connection con = DriverManager.getConnection("jdbc:h2:mem:" + name, "sa", "");
+		Statement stmt = con.createStatement();
+		stmt.execute("CREATE TABLE MASTER ( ID INT AUTO_INCREMENT PRIMARY KEY, NAME VARCHAR(40) )");
+		for ( int i = 1 ; i < tablesCount ; i++ ) {
+			stmt.execute("CREATE TABLE DETAIL_" + i + " ( ID INT PRIMARY KEY, MASTER_ID INT, LABEL VARCHAR(20), " 
+					+ " FOREIGN KEY (MASTER_ID) REFERENCES MASTER(ID) )");
+		}
+		stmt.close();
+		return con ;
+	}
+	
+	private DatabaseTables load(Connection con, DatabaseModelMonitor monitor) throws SQLException, CancelException {
+		DatabaseModelManager manager = new DatabaseModelManager(null);
+		return manager.getDatabaseTables(con, null, "PUBLIC", "%", TABLE_TYPES, null, null, monitor);
+	}
+	
+	public void testProgress() throws Exception {
+		Connection con = createDatabase("progress", 5);
+		try {
+			RecordingMonitor monitor = new RecordingMonitor(-1);
+			DatabaseTables tables = load(con, monitor);
+			
+			Assert.assertEquals(5, tables.getTables().size());
+			Assert.assertEquals(5, monitor.discovered);
+			Assert.assertEquals(5, monitor.tablesNumbers.size());
+			for ( int i = 0 ; i < 5 ; i++ ) {
+				Assert.assertEquals(i+1, monitor.tablesNumbers.get(i).intValue());
+			}
+			Assert.assertNotNull(monitor.summary);
+			Assert.assertEquals(5, monitor.summary.getTablesLoaded());
+			Assert.assertEquals(5, monitor.summary.getTablesCount());
+			// 2 columns + 1 PK for MASTER, 3 columns + 1 PK + 1 FK for each DETAIL table
+			Assert.assertEquals(3 + 4 * 5, monitor.summary.getMetadataRows());
+			Assert.assertTrue(monitor.summary.getRowsPerSecond() > 0);
+			
+			DatabaseColumn id = tables.getTables().get(0).getColumnByName("ID");
+			Assert.assertNotNull(id);
+		} finally {
+			con.close();
+		}
+	}
+
+	public void testNoMonitor() throws Exception {
+		Connection con = createDatabase("nomonitor", 3);
+		try {
+			DatabaseModelManager manager = new DatabaseModelManager(null);
+			DatabaseTables tables = manager.getDatabaseTables(con, null, "PUBLIC", "%", TABLE_TYPES, null, null);
+			Assert.assertEquals(3, tables.getTables().size());
+		} finally {
+			con.close();
+		}
+	}
+
+	public void testH2MetadataProvider() throws Exception {
+		Connection con = createDatabase("h2provider", 5);
+		try {
+			DatabaseModelManager manager = new DatabaseModelManager(null);
+			manager.setMetadataProvider("H2");
+			RecordingMonitor monitor = new RecordingMonitor(-1);
+			DatabaseTables tables = manager.getDatabaseTables(con, null, "PUBLIC", "%", TABLE_TYPES, null, null, monitor);
+			Assert.assertEquals(5, tables.getTables().size());
+			Assert.assertEquals(3 + 4 * 5, monitor.summary.getMetadataRows());
+			DatabaseTable master = findTable(tables, "MASTER");
+			Assert.assertTrue(master.getColumnByName("ID").isAutoIncremented());
+			Assert.assertEquals(1, findTable(tables, "DETAIL_1").getForeignKeys().size());
+		} finally {
+			con.close();
+		}
+	}
+
+	public void testCancelBetweenTables() throws Exception {
+		Connection con = createDatabase("cancel", 6);
+		try {
+			RecordingMonitor monitor = new RecordingMonitor(2);
+			try {
+				load(con, monitor);
+				fail("CancelException expected");
+			} catch (CancelException e) {
+				// expected
+			}
+			Assert.assertEquals(2, monitor.tablesNumbers.size());
+			Assert.assertNull(monitor.summary);
+		} finally {
+			con.close();
+		}
+	}
+
+	public void testOptionalFields() throws Exception {
+		Connection con = createDatabase("optional", 1);
+		try {
+			Statement stmt = con.createStatement();
+			stmt.execute("CREATE TABLE BOOK ( ID INT PRIMARY KEY, TITLE VARCHAR(80) DEFAULT 'none' COMMENT 'Book title' )");
+			stmt.execute("COMMENT ON TABLE BOOK IS 'Books'");
+			stmt.close();
+			
+			//--- Default : all the fields are read 
+			RecordingMonitor monitor = new RecordingMonitor(-1);
+			DatabaseTables tables = load(con, monitor);
+			DatabaseTable book = findTable(tables, "BOOK");
+			Assert.assertEquals("Books", book.getComment());
+			Assert.assertEquals("Book title", book.getColumnByName("TITLE").getComment());
+			Assert.assertNotNull(book.getColumnByName("TITLE").getDefaultValue());
+			Assert.assertTrue(monitor.summary.isRemarksRead());
+			System.out.println("With remarks and default values    : " + monitor.summary);
+			
+			//--- Optional fields skipped
+			DatabaseModelManager manager = new DatabaseModelManager(null);
+			manager.setReadRemarks(false);
+			manager.setReadDefaultValues(false);
+			monitor = new RecordingMonitor(-1);
+			tables = manager.getDatabaseTables(con, null, "PUBLIC", "%", TABLE_TYPES, null, null, monitor);
+			book = findTable(tables, "BOOK");
+			Assert.assertNull(book.getComment());
+			Assert.assertNull(book.getColumnByName("TITLE").getComment());
+			Assert.assertNull(book.getColumnByName("TITLE").getDefaultValue());
+			Assert.assertEquals("VARCHAR", book.getColumnByName("TITLE").getDbTypeName());
+			Assert.assertEquals(80, book.getColumnByName("TITLE").getSize());
+			Assert.assertFalse(monitor.summary.isRemarksRead());
+			Assert.assertFalse(monitor.summary.isDefaultValuesRead());
+			System.out.println("Without remarks and default values : " + monitor.summary);
+		} finally {
+			con.close();
+		}
+	}
+	
+	private DatabaseTable findTable(DatabaseTables tables, String name) {
+		for ( DatabaseTable table : tables.getTables() ) {
+			if ( name.equals(table.getTableName()) ) {
+				return table ;
+			}
+		}
+		fail("Table " + name + " not found");
+		return null ;
+	}
+
+	/**
+	 * Monitor recording the notifications and requesting the cancellation after N tables
+	 */
+	private static class RecordingMonitor implements DatabaseModelMonitor {
+		private final int cancelAfter ;
+		private int discovered = 0 ;
+		private final List<Integer> tablesNumbers = new LinkedList<Integer>();
+		private DatabaseModelStatistics summary = null ;
+		private volatile boolean canceled = false ;
+		
+		RecordingMonitor(int cancelAfter) {
+			this.cancelAfter = cancelAfter ;
+		}
+		public void tablesDiscovered(int tablesCount) {
+			discovered = tablesCount ;
+		}
+		public void tableLoaded(int tableNumber, int tablesCount, DatabaseTable table, DatabaseModelStatistics statistics) {
+			Assert.assertEquals(discovered, tablesCount);
+			Assert.assertEquals(tableNumber, statistics.getTablesLoaded());
+			tablesNumbers.add(tableNumber);
+			if ( tableNumber == cancelAfter ) {
+				canceled = true ;
+			}
+		}
+		public void loadingDone(DatabaseModelStatistics statistics) {
+			summary = statistics ;
+		}
+		public boolean isCanceled() {
+			return canceled ;
+		}
+	}
+}
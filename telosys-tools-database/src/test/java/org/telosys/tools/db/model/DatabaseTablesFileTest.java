@@ -0,0 +1,125 @@
+package org.telosys.tools.db.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+
+import junit.framework.Assert;
+import junit.framework.TestCase;
+
+public class DatabaseTablesFileTest extends TestCase {
+
+	private static final String[] TABLE_TYPES = { "TABLE" } ;
+	
+	private Connection createDatabase(String name, int detailTables) throws Exception {
+		Class.forName("org.h2.Driver");
+		Connection con = DriverManager.getConnection("jdbc:h2:mem:" + name, "sa", "");
+		Statement stmt = con.createStatement();
+		stmt.execute("CREATE TABLE COUNTRY ( CODE CHAR(2) PRIMARY KEY, NAME VARCHAR(45) NOT NULL DEFAULT 'unknown' COMMENT 'Country name (é)' )");
+		stmt.execute("COMMENT ON TABLE COUNTRY IS 'The countries'");
+		stmt.execute("CREATE TABLE CITY ( COUNTRY_CODE CHAR(2), CITY_ID INT, NAME VARCHAR(80), AREA DECIMAL(10,2), " 
+				+ " PRIMARY KEY ( COUNTRY_CODE, CITY_ID ), " 
+				+ " CONSTRAINT FK_CITY_COUNTRY FOREIGN KEY ( COUNTRY_CODE ) REFERENCES COUNTRY ( CODE ) ON DELETE CASCADE )");
+		for ( int i = 1 ; i <= detailTables ; i++ ) {
+			stmt.execute("CREATE TABLE DETAIL_" + i + " ( ID INT AUTO_INCREMENT PRIMARY KEY, CC CHAR(2), CITY INT, LABEL VARCHAR(20), " 
+					+ " CONSTRAINT FK_DETAIL_" + i + "_CITY FOREIGN KEY ( CC, CITY ) REFERENCES CITY ( COUNTRY_CODE, CITY_ID ), " 
+					+ " CONSTRAINT FK_DETAIL_" + i + "_COUNTRY FOREIGN KEY ( CC ) REFERENCES COUNTRY ( CODE ) )");
+		}
+		stmt.close();
+		return con ;
+	}
+	
+	public void testExportImport() throws Exception {
+		Connection con = createDatabase("export", 300);
+		try {
+			DatabaseModelManager manager = new DatabaseModelManager(null);
+			DatabaseTables tables = manager.getDatabaseTables(con, null, "PUBLIC", "%", TABLE_TYPES, null, null);
+			Assert.assertEquals(302, tables.getTables().size());
+			Assert.assertEquals("H2", tables.getDatabaseProductName());
+			
+			File file = File.createTempFile("telosys-dbmodel", ".dbm");
+			file.deleteOnExit();
+			long t0 = System.currentTimeMillis();
+			manager.exportDatabaseTables(tables, file);
+			long t1 = System.currentTimeMillis();
+			DatabaseTables imported = manager.importDatabaseTables(file);
+			long t2 = System.currentTimeMillis();
+			System.out.println("302 tables : export " + ( t1 - t0 ) + " ms, import " + ( t2 - t1 ) + " ms, " + file.length() + " bytes");
+			
+			Assert.assertEquals("H2", imported.getDatabaseProductName());
+			assertSameTables(tables, imported);
+			
+			DatabaseTable country = imported.getTableByName("COUNTRY");
+			Assert.assertEquals("The countries", country.getComment());
+			Assert.assertEquals("Country name (é)", country.getColumnByName("NAME").getComment());
+			Assert.assertTrue(imported.getTableByName("DETAIL_1").getColumnByName("ID").isAutoIncremented());
+			Assert.assertEquals(2, imported.getTableByName("DETAIL_1").getForeignKeys().size());
+		} finally {
+			con.close();
+		}
+	}
+	
+	public void testInvalidFile() throws Exception {
+		try {
+			new DatabaseTablesReader(new ByteArrayInputStream("not a database model".getBytes()));
+			fail("IOException expected");
+		} catch (IOException e) {
+			// expected
+		}
+	}
+	
+	private void assertSameTables(DatabaseTables expected, DatabaseTables actual) {
+		Assert.assertEquals(expected.getTables().size(), actual.getTables().size());
+		for ( int t = 0 ; t < expected.getTables().size() ; t++ ) {
+			DatabaseTable e = expected.getTables().get(t);
+			DatabaseTable a = actual.getTables().get(t);
+			Assert.assertEquals(e.getTableName(), a.getTableName());
+			Assert.assertEquals(e.getTableType(), a.getTableType());
+			Assert.assertEquals(e.getCatalogName(), a.getCatalogName());
+			Assert.assertEquals(e.getSchemaName(), a.getSchemaName());
+			Assert.assertEquals(e.getComment(), a.getComment());
+			Assert.assertEquals(e.hasPrimaryKey(), a.hasPrimaryKey());
+			Assert.assertEquals(e.getPrimaryKeyName(), a.getPrimaryKeyName());
+			
+			Assert.assertEquals(e.getColumns().size(), a.getColumns().size());
+			for ( int c = 0 ; c < e.getColumns().size() ; c++ ) {
+				DatabaseColumn ec = e.getColumns().get(c);
+				DatabaseColumn ac = a.getColumns().get(c);
+				String name = e.getTableName() + "." + ec.getColumnName() ;
+				Assert.assertEquals(name, ec.getColumnName(), ac.getColumnName());
+				Assert.assertEquals(name, ec.getJdbcTypeCode(), ac.getJdbcTypeCode());
+				Assert.assertEquals(name, ec.getDbTypeName(), ac.getDbTypeName());
+				Assert.assertEquals(name, ec.getSize(), ac.getSize());
+				Assert.assertEquals(name, ec.isNotNull(), ac.isNotNull());
+				Assert.assertEquals(name, ec.getDefaultValue(), ac.getDefaultValue());
+				Assert.assertEquals(name, ec.getComment(), ac.getComment());
+				Assert.assertEquals(name, ec.getOrdinalPosition(), ac.getOrdinalPosition());
+				Assert.assertEquals(name, ec.isInPrimaryKey(), ac.isInPrimaryKey());
+				Assert.assertEquals(name, ec.getPrimaryKeySequence(), ac.getPrimaryKeySequence());
+				Assert.assertEquals(name, ec.getUsedInForeignKey(), ac.getUsedInForeignKey());
+				Assert.assertEquals(name, ec.isAutoIncremented(), ac.isAutoIncremented());
+			}
+			
+			Assert.assertEquals(e.getForeignKeys().size(), a.getForeignKeys().size());
+			for ( int f = 0 ; f < e.getForeignKeys().size() ; f++ ) {
+				List<DatabaseForeignKeyColumn> efk = e.getForeignKeys().get(f).getForeignKeyColumns();
+				List<DatabaseForeignKeyColumn> afk = a.getForeignKeys().get(f).getForeignKeyColumns();
+				Assert.assertEquals(e.getForeignKeys().get(f).getForeignKeyName(), a.getForeignKeys().get(f).getForeignKeyName());
+				Assert.assertEquals(efk.size(), afk.size());
+				for ( int c = 0 ; c < efk.size() ; c++ ) {
+					Assert.assertEquals(efk.get(c).getFkSequence(), afk.get(c).getFkSequence());
+					Assert.assertEquals(efk.get(c).getFkColumnName(), afk.get(c).getFkColumnName());
+					Assert.assertEquals(efk.get(c).getPkColumnName(), afk.get(c).getPkColumnName());
+					Assert.assertEquals(efk.get(c).getPkTableName(), afk.get(c).getPkTableName());
+					Assert.assertEquals(efk.get(c).getDeleteRule(), afk.get(c).getDeleteRule());
+					Assert.assertEquals(efk.get(c).getUpdateRule(), afk.get(c).getUpdateRule());
+					Assert.assertEquals(efk.get(c).getDeferrability(), afk.get(c).getDeferrability());
+				}
+			}
+		}
+	}
+}
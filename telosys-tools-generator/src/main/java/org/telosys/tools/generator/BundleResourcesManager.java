@@ -146,7 +146,7 @@ public class BundleResourcesManager {
 	private int copy(File origin, File destination, OverwriteChooser overwriteChooser, CopyHandler copyHandler ) {
 		int n = 0 ;
 		log("copy from '" + origin + "' to '" + destination + "'...");
-		ResourcesCopier copier = new ResourcesCopier(overwriteChooser, copyHandler );
+		ResourcesCopier copier = new ResourcesCopier(overwriteChooser, copyHandler, true ); // skip files already up to date
 		try {
 			n = copier.copy(origin, destination);
 			log(n + " file(s) copied");
@@ -32,7 +32,8 @@ public class EntitiesManager {
 	private final GeneratorConfig _generatorConfig ;
 	private final EnvInContext    _env ;
 	
-	private final Map<String,EntityInContext> _entities = new Hashtable<String,EntityInContext>();
+	private Map<String,EntityInContext> _entities = new Hashtable<String,EntityInContext>();
+	private boolean _allEntitiesBuilt = false ;
 //	public EntitiesBuilder() {
 //		_env = new EnvInContext() ; // Default environment
 //	}
@@ -43,7 +44,7 @@ public class EntitiesManager {
 		_generatorConfig = generatorConfig ;
 		_env             = env ; // Specific environment instance
 		
-		buildAllEntities(repositoryModel, generatorConfig);
+		// the entities are built on demand ( the repository model can be loaded lazily ) 
 	}
 	
 	
@@ -106,26 +107,25 @@ public class EntitiesManager {
 //	}	
 	
 	/**
-	 * Builds a list of context Entities for all the entities defined in the model 
-	 * @param repositoryModel
-	 * @param generatorConfig
-	 * @return
+	 * Builds the context Entities for all the entities defined in the model 
 	 * @throws GeneratorException
 	 */
-	private List<EntityInContext> buildAllEntities( RepositoryModel repositoryModel, GeneratorConfig generatorConfig) throws GeneratorException 
+	private synchronized void buildAllEntities() throws GeneratorException 
 	{
-		List<EntityInContext> javaBeanClasses = new LinkedList<EntityInContext>();
+		if ( _allEntitiesBuilt ) return ;
 		//--- Get the names of all the entities defined in the model 
-		String[] names = repositoryModel.getEntitiesNames();
+		String[] names = _repositoryModel.getEntitiesNames();
+		Map<String,EntityInContext> entities = new Hashtable<String,EntityInContext>();
 		for ( String entityName : names ) {
-//			//--- Build an "entity BeanClass" for each
-//			EntityInContext entity = buildEntity( entityName );
-////			javaBeanClasses.add(entityBeanClass);
-//			_entities.put(entityName, entity) 
-			EntityInContext entity = buildEntity(entityName) ;
-			_entities.put(entityName, entity) ;
+			EntityInContext entity = _entities.get(entityName) ;
+			if ( entity == null ) {
+				entity = buildEntity(entityName) ;
+			}
+			entities.put(entityName, entity) ;
 		}
-		return javaBeanClasses ;
+		//--- Same storage order as if all the entities were built at once 
+		_entities = entities ;
+		_allEntitiesBuilt = true ;
 	}
 	
 	//---------------------------------------------------------------------------------------------------
@@ -135,11 +135,15 @@ public class EntitiesManager {
 	 * @return
 	 * @throws GeneratorException
 	 */
-	public EntityInContext getEntity( String entityName ) throws GeneratorException
+	public synchronized EntityInContext getEntity( String entityName ) throws GeneratorException
 	{
 		EntityInContext entity =_entities.get(entityName) ;
 		if ( entity == null ) {
-			throw new GeneratorException("Unknown entity '" + entityName + "'");
+			if ( _allEntitiesBuilt || _repositoryModel.getEntityByName(entityName) == null ) {
+				throw new GeneratorException("Unknown entity '" + entityName + "'");
+			}
+			entity = buildEntity(entityName) ;
+			_entities.put(entityName, entity) ;
 		}
 		return entity ;
 	}
@@ -150,8 +154,9 @@ public class EntitiesManager {
 	 * @return
 	 * @throws GeneratorException
 	 */
-	public List<EntityInContext> getAllEntities() throws GeneratorException
+	public synchronized List<EntityInContext> getAllEntities() throws GeneratorException
 	{
+		buildAllEntities();
 		List<EntityInContext> allEntities = new LinkedList<EntityInContext>();
 		
 		//--- For each entity 
@@ -176,13 +181,7 @@ public class EntitiesManager {
 		List<EntityInContext> selectedEntities = new LinkedList<EntityInContext>();
 		if ( entitiesNames != null ) {
 			for ( String entityName : entitiesNames ) {
-				EntityInContext entity = _entities.get(entityName);
-				if ( entity != null ) {
-					selectedEntities.add(entity);
-				}
-				else {
-					throw new GeneratorException("Unknown entity '" + entityName + "'");
-				}
+				selectedEntities.add( getEntity(entityName) );
 			}
 		}
 		return selectedEntities ;
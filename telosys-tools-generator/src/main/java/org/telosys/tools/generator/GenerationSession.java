@@ -0,0 +1,240 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.velocity.app.VelocityEngine;
+import org.telosys.tools.generator.context.Loader;
+import org.telosys.tools.generator.context.tools.CodeFragmentsCache;
+import org.telosys.tools.generator.context.tools.SpecificClassLoader;
+
+/**
+ * Generation session shared by all the generators launched for the same generation request <br>
+ * ( e.g. all the targets generated for all the selected entities ) <br>
+ * It holds the objects that can be reused from one target to another.
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class GenerationSession {
+
+	private final static String CLASSES_FOLDER = "classes/" ; // specific classes folder in the templates folder
+
+	private final CodeFragmentsCache _codeFragmentsCache ;
+	
+	private final Map<Class<?>,Object> _sharedInstances ; // specific tools instances shared by all the targets
+	
+	private final Map<String,VelocityEngine> _velocityEngines ; // initialized engines (with parsed templates) by template
+	
+	private final Map<String,TemplateDependencyGraph> _dependencyGraphs ; // templates dependencies by templates folder
+	
+	private final Map<String,SpecificClassLoader> _classLoaders ; // specific class loaders checked in this session by folder
+	
+	private final Set<String> _preloadedTools ; // tools classes already preloaded ( templates folder + class name )
+	
+	private boolean _precompiledTemplates = false ; 
+	
+	/**
+	 * Constructor
+	 */
+	public GenerationSession() {
+		super();
+		_codeFragmentsCache = new CodeFragmentsCache();
+		_sharedInstances = new HashMap<Class<?>,Object>();
+		_velocityEngines = new HashMap<String,VelocityEngine>();
+		_dependencyGraphs = new HashMap<String,TemplateDependencyGraph>();
+		_classLoaders = new HashMap<String,SpecificClassLoader>();
+		_preloadedTools = new HashSet<String>();
+	}
+
+	/**
+	 * Returns the cache of code fragments built by $jpa, $java and $beanValidation 
+	 * @return
+	 */
+	public CodeFragmentsCache getCodeFragmentsCache() {
+		return _codeFragmentsCache;
+	}
+
+	/**
+	 * Returns the instance of the given class shared by all the targets of the session 
+	 * @param javaClass
+	 * @return the instance or null if none
+	 */
+	public synchronized Object getSharedInstance(Class<?> javaClass) {
+		return _sharedInstances.get(javaClass);
+	}
+
+	/**
+	 * Stores the instance of the given class to be shared by all the targets of the session 
+	 * @param javaClass
+	 * @param instance
+	 */
+	public synchronized void putSharedInstance(Class<?> javaClass, Object instance) {
+		_sharedInstances.put(javaClass, instance);
+	}
+
+	private String engineKey(String templatesFolder, String templateFileName) {
+		return templatesFolder + "|" + templateFileName ;
+	}
+	
+	/**
+	 * Returns the Velocity engine already initialized for the given template 
+	 * @param templatesFolder
+	 * @param templateFileName
+	 * @return the engine or null if none
+	 */
+	public synchronized VelocityEngine getVelocityEngine(String templatesFolder, String templateFileName) {
+		return _velocityEngines.get( engineKey(templatesFolder, templateFileName) );
+	}
+
+	/**
+	 * Stores the Velocity engine initialized for the given template ( to be reused by the next targets )
+	 * @param templatesFolder
+	 * @param templateFileName
+	 * @param velocityEngine
+	 */
+	public synchronized void putVelocityEngine(String templatesFolder, String templateFileName, VelocityEngine velocityEngine) {
+		_velocityEngines.put( engineKey(templatesFolder, templateFileName), velocityEngine );
+	}
+
+	/**
+	 * Returns the number of Velocity engines kept in the session 
+	 * @return
+	 */
+	public synchronized int getVelocityEnginesCount() {
+		return _velocityEngines.size();
+	}
+	
+	/**
+	 * Returns true if the templates are compiled when they are loaded ( "precompiled templates" mode )
+	 * @return
+	 */
+	public synchronized boolean isPrecompiledTemplates() {
+		return _precompiledTemplates;
+	}
+
+	/**
+	 * Enables or disables the "precompiled templates" mode ( disabled by default ) <br>
+	 * The templates are compiled by {@link org.telosys.tools.generator.engine.TemplateCompiler} <br>
+	 * To be set before the first generation ( the engines already created are not changed )
+	 * @param precompiledTemplates
+	 */
+	public synchronized void setPrecompiledTemplates(boolean precompiledTemplates) {
+		_precompiledTemplates = precompiledTemplates;
+	}
+
+	/**
+	 * Returns the dependency graph of the templates located in the given folder <br>
+	 * ( created with a static scan of the templates at the first call ) 
+	 * @param templatesFolder
+	 * @return
+	 */
+	public synchronized TemplateDependencyGraph getTemplateDependencyGraph(String templatesFolder) {
+		TemplateDependencyGraph graph = _dependencyGraphs.get(templatesFolder);
+		if ( graph == null ) {
+			graph = new TemplateDependencyGraph(new File(templatesFolder));
+			graph.scan();
+			_dependencyGraphs.put(templatesFolder, graph);
+		}
+		return graph ;
+	}
+	
+	/**
+	 * Returns the class loader for the given "classes" folder <br>
+	 * The folder content is checked only at the first call in the session ( not for each target ), 
+	 * then the same class loader is used by all the targets of the session 
+	 * @param classesFolder
+	 * @param parent the parent class loader
+	 * @return
+	 * @throws MalformedURLException
+	 */
+	public synchronized SpecificClassLoader getSpecificClassLoader(File classesFolder, ClassLoader parent) throws MalformedURLException {
+		String key = classesFolder.getAbsolutePath() ;
+		SpecificClassLoader specificClassLoader = _classLoaders.get(key);
+		if ( specificClassLoader == null ) {
+			specificClassLoader = SpecificClassLoader.getClassLoader(classesFolder, parent);
+			_classLoaders.put(key, specificClassLoader);
+		}
+		return specificClassLoader ;
+	}
+	
+	/**
+	 * Preloads the given tools classes ( located in the "classes" folder of the templates ) once for the session, <br>
+	 * then "$loader" finds them in the class loader cache in all the targets 
+	 * @param templatesFolder the templates folder full path 
+	 * @param toolsClassNames the tools classes declared for the templates
+	 * @return the number of classes loaded by this call ( the classes already preloaded are ignored )
+	 * @throws GeneratorException if a class cannot be loaded
+	 */
+	public synchronized int preloadTools(String templatesFolder, Collection<String> toolsClassNames) throws GeneratorException {
+		Loader loader = new Loader(templatesFolder, this);
+		int count = 0 ;
+		for ( String javaClassName : toolsClassNames ) {
+			String key = templatesFolder + "|" + javaClassName ;
+			if ( ! _preloadedTools.contains(key) ) {
+				loader.loadClass(javaClassName);
+				_preloadedTools.add(key);
+				count++ ;
+			}
+		}
+		return count ;
+	}
+	
+	/**
+	 * Invalidates the templates affected by the given changed files of the templates folder : <br>
+	 * the dependencies of the changed files are scanned again and the Velocity engines of the <br>
+	 * changed templates and of all the templates using them ( "#parse", "#include" ) are removed <br>
+	 * The specific class loaders will be checked again if a file of the "classes" folder has changed 
+	 * @param templatesFolder
+	 * @param changedFiles the names of the changed files ( relative to the templates folder )
+	 * @return the names of the affected templates 
+	 */
+	public synchronized Set<String> invalidateTemplates(String templatesFolder, Collection<String> changedFiles) {
+		TemplateDependencyGraph graph = getTemplateDependencyGraph(templatesFolder);
+		for ( String fileName : changedFiles ) {
+			graph.scanTemplate(fileName);
+		}
+		Set<String> affectedTemplates = graph.getAffectedTemplates(changedFiles);
+		for ( String templateName : affectedTemplates ) {
+			_velocityEngines.remove( engineKey(templatesFolder, templateName) );
+		}
+		for ( String fileName : changedFiles ) {
+			if ( fileName.startsWith(CLASSES_FOLDER) ) {
+				_classLoaders.clear();
+				_preloadedTools.clear();
+				break ;
+			}
+		}
+		return affectedTemplates ;
+	}
+	
+	/**
+	 * Clears the objects depending on the model ( code fragments and shared instances ) <br>
+	 * The Velocity engines are kept ( to be used when the model has been reloaded in a long-lived session )
+	 */
+	public synchronized void clearModelData() {
+		_codeFragmentsCache.clear();
+		_sharedInstances.clear();
+	}
+
+}
@@ -52,11 +52,14 @@ import org.telosys.tools.generator.context.ProjectInContext;
 import org.telosys.tools.generator.context.Target;
 import org.telosys.tools.generator.context.Today;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.CodeFragmentsCache;
 import org.telosys.tools.generator.directive.AssertFalseDirective;
 import org.telosys.tools.generator.directive.AssertTrueDirective;
 import org.telosys.tools.generator.directive.DirectiveException;
 import org.telosys.tools.generator.directive.ErrorDirective;
 import org.telosys.tools.generator.directive.UsingDirective;
+import org.telosys.tools.generator.engine.CompilingResourceManager;
+import org.telosys.tools.generator.engine.GeneratorUberspect;
 import org.telosys.tools.generator.events.GeneratorEvents;
 import org.telosys.tools.repository.model.RepositoryModel;
 
@@ -96,6 +99,8 @@ public class Generator {
 
 	private final String             _sTemplateFileName ;
 
+	private final GenerationSession  _session ;
+	
 	/**
 	 * Constructor
 	 * @param target the target to be generated
@@ -106,9 +111,30 @@ public class Generator {
 	 */
 	public Generator( Target target, GeneratorConfig generatorConfig, 
 						RepositoryModel repositoryModel, TelosysToolsLogger logger) throws GeneratorException 
+	{
+		this(target, generatorConfig, repositoryModel, logger, new GenerationSession() );
+	}
+	
+	/**
+	 * Constructor with a session shared by all the generators of the same generation request
+	 * @param target the target to be generated
+	 * @param generatorConfig the generator configuration
+	 * @param repositoryModel the current repository model
+	 * @param logger
+	 * @param session the current generation session
+	 * @throws GeneratorException
+	 */
+	public Generator( Target target, GeneratorConfig generatorConfig, 
+						RepositoryModel repositoryModel, TelosysToolsLogger logger, 
+						GenerationSession session) throws GeneratorException 
 	{
 		_logger = logger;
 		
+		if ( null == session) {
+			throw new GeneratorException("Generation session is null (Generator constructor argument)");
+		}
+		_session = session ;
+		
 		if ( null == target) {
 			throw new GeneratorException("Target is null (Generator constructor argument)");
 		}
@@ -154,7 +180,8 @@ public class Generator {
 			log("Generator constructor : VelocityContext created.");
 			
 			log("Generator constructor : VelocityContext events attachment ...");
-			GeneratorEvents.attachEvents(_velocityContext);
+			GeneratorEvents.attachEvents(_velocityContext, 
+					_session.getTemplateDependencyGraph(generatorConfig.getTemplatesFolderFullPath()) );
 			log("Generator constructor : VelocityContext events attached.");
 	
 			log("Generator constructor : VelocityContext initialization ...");
@@ -172,23 +199,17 @@ public class Generator {
 			checkTemplate(sTemplateDirectory, sTemplateFileName);
 			_sTemplateFileName  = sTemplateFileName;
 	
-			log("Generator constructor : VelocityEngine initialization ...");
-			_velocityEngine = new VelocityEngine();
-			_velocityEngine.setProperty(VelocityEngine.FILE_RESOURCE_LOADER_PATH, sTemplateDirectory);
-			try {
-				// init() : 
-				//   initialize the Velocity runtime engine, using the default properties of the Velocity distribution
-				// _velocityEngine.init();
-
-				// init(Properties p) : 
-				//    initialize the Velocity runtime engine, using default properties 
-				//    plus the properties in the passed in java.util.Properties object
-				_velocityEngine.init( getSpecificVelocityProperties() ); // ver 2.0.7
-				
-			} catch (Exception e) {
-				throw new GeneratorException("Cannot init VelocityEngine", e );
+			//--- The engine (and its parsed templates) is shared by all the targets using the same template
+			//--- NB : one engine per template to keep the inline macros isolated as before
+			VelocityEngine velocityEngine = _session.getVelocityEngine(sTemplateDirectory, sTemplateFileName);
+			if ( velocityEngine != null ) {
+				_velocityEngine = velocityEngine ;
+				log("Generator constructor : VelocityEngine reused.");
+			}
+			else {
+				_velocityEngine = createVelocityEngine(sTemplateDirectory);
+				_session.putVelocityEngine(sTemplateDirectory, sTemplateFileName, _velocityEngine);
 			}
-			log("Generator constructor : VelocityEngine initialized.");
 		}
 		finally {
 			currentThread.setContextClassLoader(originalClassLoader); // Restore the original classLoader
@@ -198,6 +219,27 @@ public class Generator {
 		//------------------------------------------------------------------
 	}
 
+	private VelocityEngine createVelocityEngine(String sTemplateDirectory) throws GeneratorException {
+		log("Generator constructor : VelocityEngine initialization ...");
+		VelocityEngine velocityEngine = new VelocityEngine();
+		velocityEngine.setProperty(VelocityEngine.FILE_RESOURCE_LOADER_PATH, sTemplateDirectory);
+		try {
+			// init() : 
+			//   initialize the Velocity runtime engine, using the default properties of the Velocity distribution
+			// _velocityEngine.init();
+
+			// init(Properties p) : 
+			//    initialize the Velocity runtime engine, using default properties 
+			//    plus the properties in the passed in java.util.Properties object
+			velocityEngine.init( getSpecificVelocityProperties( _session.isPrecompiledTemplates() ) ); // ver 2.0.7
+			
+		} catch (Exception e) {
+			throw new GeneratorException("Cannot init VelocityEngine", e );
+		}
+		log("Generator constructor : VelocityEngine initialized.");
+		return velocityEngine ;
+	}
+
 	private void log(String s) {
 		if (_logger != null) {
 			_logger.log(s);
@@ -244,9 +286,10 @@ public class Generator {
 	//========================================================================
 	/**
 	 * Returns the Specific Velocity properties to be added at the default Velocity runtime properties
+	 * @param precompiledTemplates true to compile the templates when they are loaded 
 	 * @return
 	 */
-	private Properties getSpecificVelocityProperties()
+	private Properties getSpecificVelocityProperties(boolean precompiledTemplates)
 	{
 		Properties p = new Properties();
 		
@@ -262,6 +305,18 @@ public class Generator {
 				+ ErrorDirective.class.getCanonicalName() 
 				); // one or n directive(s) separated by a comma 
 		
+		// Parsed templates kept in the engine (reloaded if the file has been modified)
+		p.setProperty("file.resource.loader.cache", "true");
+		p.setProperty("file.resource.loader.modificationCheckInterval", "2"); // seconds
+		
+		// Introspection shared by all the engines 
+		p.setProperty("runtime.introspector.uberspect", GeneratorUberspect.class.getCanonicalName());
+		
+		// Templates compiled when loaded (optional)
+		if ( precompiledTemplates ) {
+			p.setProperty("resource.manager.class", CompilingResourceManager.class.getCanonicalName());
+		}
+		
 		return p;
 	}
 	
@@ -288,9 +343,11 @@ public class Generator {
 		_velocityContext.put(ContextName.TODAY,           new Today()); // Current date and time 
 		_velocityContext.put(ContextName.CONST,           new Const()); // Constants (static values)
 		_velocityContext.put(ContextName.FN,              new Fn(_velocityContext));    // Utility function
-		_velocityContext.put(ContextName.JAVA,            new Java());  // Java utility functions
-		_velocityContext.put(ContextName.JPA,             new Jpa());   // JPA utility functions
-		_velocityContext.put(ContextName.BEAN_VALIDATION, new BeanValidation()); // Bean Validation utility functions
+		//--- Code fragments shared by all the targets of the session
+		CodeFragmentsCache fragmentsCache = _session.getCodeFragmentsCache();
+		_velocityContext.put(ContextName.JAVA,            new Java(fragmentsCache));  // Java utility functions
+		_velocityContext.put(ContextName.JPA,             new Jpa(fragmentsCache));   // JPA utility functions
+		_velocityContext.put(ContextName.BEAN_VALIDATION, new BeanValidation(fragmentsCache)); // Bean Validation utility functions
 
 		_velocityContext.put(ContextName.DATABASES,
 							new DatabasesInContext( generatorConfig.getDatabasesConfigurations() ) ); // ver 2.1.0
@@ -299,7 +356,7 @@ public class Generator {
 		
 		//--- Set the dynamic class loader 
 		//Loader loader = new Loader(projectConfiguration, _velocityContext);
-		Loader loader = new Loader( generatorConfig.getTemplatesFolderFullPath() ); // ver 2.1.0
+		Loader loader = new Loader( generatorConfig.getTemplatesFolderFullPath(), _session ); // ver 2.1.0
 		_velocityContext.put(ContextName.LOADER, loader);
 		
 		//--- Set the "$project" variable in the context
@@ -514,7 +571,7 @@ public class Generator {
 		
 		//--- Set the "$generator"  in the context ( "real" embedded generator )
 		EmbeddedGenerator embeddedGenerator = new EmbeddedGenerator(
-				repositoryModel, _generatorConfig, _logger, selectedEntitiesNames, generatedTargets );
+				repositoryModel, _generatorConfig, _logger, selectedEntitiesNames, generatedTargets, _session );
 		_velocityContext.put(ContextName.GENERATOR, embeddedGenerator );
 		
 		//---------- ((( GENERATION ))) 
@@ -527,6 +584,10 @@ public class Generator {
 		saveStreamInFile(is, outputFileName, true );
 		_logger.info("Target file saved." );
 		
+		//---------- Keep the link between the template and the generated file ( for invalidation )
+		_session.getTemplateDependencyGraph( _generatorConfig.getTemplatesFolderFullPath() )
+			.addGeneratedFile(_sTemplateFileName, outputFileName);
+		
 		//---------- Add the generated target in the list if any
 		if ( generatedTargets != null ) {
 			generatedTargets.add(target);
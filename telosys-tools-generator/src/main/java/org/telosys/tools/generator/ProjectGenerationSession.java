@@ -0,0 +1,329 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator;
+
+import java.io.File;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.telosys.tools.commons.FileUtil;
+import org.telosys.tools.commons.TelosysToolsLogger;
+import org.telosys.tools.generator.config.GeneratorConfig;
+import org.telosys.tools.generator.config.GeneratorConfigManager;
+import org.telosys.tools.generator.context.Target;
+import org.telosys.tools.generator.target.TargetDefinition;
+import org.telosys.tools.generator.target.TargetVariables;
+import org.telosys.tools.generator.target.TargetsFile;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.model.RepositoryModel;
+
+/**
+ * Long-lived generation session for a project and a repository model <br>
+ * ( e.g. attached to an open repository editor ) <br>
+ * It keeps the generator configuration, the project variables, the targets defined in "templates.cfg" 
+ * and the {@link GenerationSession} ( Velocity engines with parsed templates, templates dependencies, code fragments ) <br>
+ * so that the successive generations only render the templates and write the files. <br>
+ * The owner is in charge of notifying the changes : {@link #modelChanged(RepositoryModel)}, 
+ * {@link #templatesChanged(Collection)}, {@link #configurationChanged()} and {@link #setBundleName(String)}
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class ProjectGenerationSession {
+
+	private final static String TEMPLATES_CFG = "templates.cfg" ;
+	
+	private final String             projectFolder ;
+	private final TelosysToolsLogger logger ;
+	
+	private String            bundleName ;
+	private RepositoryModel   repositoryModel ;
+	
+	private GenerationSession      generationSession = new GenerationSession() ;
+	private GeneratorConfig        generatorConfig   = null ; // loaded on first use
+	private TargetVariables        targetVariables   = null ; // built on first use
+	private List<TargetDefinition> targets           = null ; // loaded on first use
+	
+	private int configLoadsCount  = 0 ;
+	private int targetsLoadsCount = 0 ;
+	
+	/**
+	 * Constructor
+	 * @param projectFolder the project folder (where "telosys-tools.cfg" is located)
+	 * @param bundleName the current bundle of templates (or null if none)
+	 * @param repositoryModel the repository model used for the generations
+	 * @param logger
+	 */
+	public ProjectGenerationSession(String projectFolder, String bundleName, RepositoryModel repositoryModel, TelosysToolsLogger logger) {
+		super();
+		if ( projectFolder == null ) {
+			throw new IllegalArgumentException("Project folder is null");
+		}
+		this.projectFolder   = projectFolder ;
+		this.bundleName      = bundleName ;
+		this.repositoryModel = repositoryModel ;
+		this.logger          = logger ;
+	}
+
+	private void log(String msg) {
+		if ( logger != null ) {
+			logger.log("ProjectGenerationSession : " + msg);
+		}
+	}
+	
+	/**
+	 * Returns the current bundle name 
+	 * @return
+	 */
+	public synchronized String getBundleName() {
+		return bundleName;
+	}
+
+	/**
+	 * Changes the current bundle <br>
+	 * Everything is invalidated if the bundle is not the same 
+	 * @param bundleName
+	 */
+	public synchronized void setBundleName(String bundleName) {
+		boolean same = ( bundleName != null ? bundleName.equals(this.bundleName) : this.bundleName == null ) ;
+		if ( ! same ) {
+			this.bundleName = bundleName ;
+			invalidateAll();
+		}
+	}
+
+	/**
+	 * Returns the current repository model
+	 * @return
+	 */
+	public synchronized RepositoryModel getRepositoryModel() {
+		return repositoryModel;
+	}
+
+	/**
+	 * Returns the generation session kept for all the generations ( Velocity engines, code fragments, etc )
+	 * @return
+	 */
+	public synchronized GenerationSession getGenerationSession() {
+		return generationSession;
+	}
+
+	/**
+	 * Returns the generator configuration ( loaded at the first call and kept until invalidation )
+	 * @return
+	 * @throws GeneratorException
+	 */
+	public synchronized GeneratorConfig getGeneratorConfig() throws GeneratorException {
+		if ( generatorConfig == null ) {
+			GeneratorConfigManager configManager = new GeneratorConfigManager(logger);
+			generatorConfig = configManager.initFromDirectory(projectFolder, bundleName);
+			configLoadsCount++ ;
+			log("configuration loaded (bundle '" + bundleName + "')");
+		}
+		return generatorConfig;
+	}
+
+	/**
+	 * Returns the project variables table shared by all the targets ( built once )
+	 * @return
+	 * @throws GeneratorException
+	 */
+	public synchronized TargetVariables getTargetVariables() throws GeneratorException {
+		if ( targetVariables == null ) {
+			targetVariables = new TargetVariables( getGeneratorConfig().getTelosysToolsCfg().getAllVariables() );
+		}
+		return targetVariables;
+	}
+
+	/**
+	 * Returns all the targets defined in the "templates.cfg" file of the current bundle ( templates and resources ) <br>
+	 * The file is parsed at the first call and kept until invalidation
+	 * @return a copy of the targets list
+	 * @throws GeneratorException
+	 */
+	public synchronized List<TargetDefinition> getTargets() throws GeneratorException {
+		if ( targets == null ) {
+			String file = FileUtil.buildFilePath(getGeneratorConfig().getTemplatesFolderFullPath(), TEMPLATES_CFG);
+			targets = new TargetsFile(file).load();
+			targetsLoadsCount++ ;
+			log(targets.size() + " target(s) loaded from '" + file + "'");
+		}
+		return new LinkedList<TargetDefinition>(targets);
+	}
+
+	/**
+	 * Returns the number of times the configuration has been loaded since the creation of the session
+	 * @return
+	 */
+	public synchronized int getConfigLoadsCount() {
+		return configLoadsCount;
+	}
+
+	/**
+	 * Returns the number of times the targets have been loaded since the creation of the session
+	 * @return
+	 */
+	public synchronized int getTargetsLoadsCount() {
+		return targetsLoadsCount;
+	}
+
+	//-----------------------------------------------------------------------------------------------
+	// Invalidation
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * To be called when the repository model has been modified ( or replaced ) <br>
+	 * The objects depending on the model are dropped, the parsed templates are kept 
+	 * @param repositoryModel the current model (can be the same instance)
+	 */
+	public synchronized void modelChanged(RepositoryModel repositoryModel) {
+		this.repositoryModel = repositoryModel ;
+		generationSession.clearModelData();
+		log("model changed");
+	}
+	
+	/**
+	 * To be called when the project configuration has been modified <br>
+	 * The configuration, the variables and the targets will be reloaded, the parsed templates are kept 
+	 */
+	public synchronized void configurationChanged() {
+		generatorConfig = null ;
+		targetVariables = null ;
+		targets = null ;
+		generationSession.clearModelData(); // the code fragments depend on the configuration 
+		log("configuration changed");
+	}
+	
+	/**
+	 * To be called when files have been modified ( or created or deleted ) in the templates folder <br>
+	 * The targets are reloaded if "templates.cfg" is modified and the parsed templates are dropped 
+	 * for the modified templates and for all the templates using them 
+	 * @param changedFiles the names of the changed files ( relative to the templates folder )
+	 * @return the names of the affected templates 
+	 */
+	public synchronized Set<String> templatesChanged(Collection<String> changedFiles) {
+		if ( changedFiles == null || changedFiles.isEmpty() ) {
+			return new TreeSet<String>();
+		}
+		if ( changedFiles.contains(TEMPLATES_CFG) ) {
+			targets = null ;
+		}
+		if ( generatorConfig == null ) {
+			return new TreeSet<String>(); // nothing parsed yet
+		}
+		Set<String> affectedTemplates = generationSession.invalidateTemplates(
+				generatorConfig.getTemplatesFolderFullPath(), changedFiles);
+		log("templates changed " + changedFiles + " -> invalidated : " + affectedTemplates);
+		return affectedTemplates ;
+	}
+	
+	/**
+	 * Drops everything ( configuration, variables, targets and parsed templates )
+	 */
+	public synchronized void invalidateAll() {
+		generatorConfig = null ;
+		targetVariables = null ;
+		targets = null ;
+		generationSession = new GenerationSession();
+		log("all invalidated");
+	}
+	
+	//-----------------------------------------------------------------------------------------------
+	// Generation
+	//-----------------------------------------------------------------------------------------------
+	/**
+	 * Returns the templates folder of the current bundle
+	 * @return
+	 * @throws GeneratorException
+	 */
+	public File getTemplatesFolder() throws GeneratorException {
+		return new File( getGeneratorConfig().getTemplatesFolderFullPath() );
+	}
+	
+	/**
+	 * Builds the target for the given entity ( or without entity if the target is a "once" target )
+	 * @param targetDefinition
+	 * @param entityName the entity name (ignored for a "once" target)
+	 * @return
+	 * @throws GeneratorException
+	 */
+	public synchronized Target createTarget(TargetDefinition targetDefinition, String entityName) throws GeneratorException {
+		if ( targetDefinition.isOnce() ) {
+			return new Target( targetDefinition, "", "", getTargetVariables() );
+		}
+		Entity entity = ( repositoryModel != null ? repositoryModel.getEntityByName(entityName) : null ) ;
+		if ( entity == null ) {
+			throw new GeneratorException("Entity '" + entityName + "' not found in the repository");
+		}
+		return new Target( targetDefinition, entity.getName(), entity.getBeanJavaClass(), getTargetVariables() );
+	}
+	
+	/**
+	 * Generates the given target with the objects kept in the session <br>
+	 * More than one file can be generated if the embedded generator is used in the template.
+	 * @param target
+	 * @param selectedEntitiesNames list of names for all the selected entities (or null if none)
+	 * @param generatedTargets list of generated targets to be updated (or null if not useful)
+	 * @throws GeneratorException
+	 */
+	public synchronized void generateTarget(Target target, List<String> selectedEntitiesNames, 
+			List<Target> generatedTargets) throws GeneratorException {
+		if ( repositoryModel == null ) {
+			throw new GeneratorException("No repository model in the generation session");
+		}
+		Generator generator = new Generator(target, getGeneratorConfig(), repositoryModel, logger, generationSession);
+		generator.generateTarget(target, repositoryModel, selectedEntitiesNames, generatedTargets);
+	}
+	
+	/**
+	 * Generates the given targets for the given entities ( "once" targets are generated at the end )
+	 * @param entitiesNames the selected entities
+	 * @param targetDefinitions the selected targets ( the resources targets are ignored )
+	 * @param generatedTargets list of generated targets to be updated (or null if not useful)
+	 * @return the number of targets generated
+	 * @throws GeneratorException
+	 */
+	public synchronized int generate(List<String> entitiesNames, List<TargetDefinition> targetDefinitions,
+			List<Target> generatedTargets) throws GeneratorException {
+		List<TargetDefinition> onceTargets   = new LinkedList<TargetDefinition>() ; 
+		List<TargetDefinition> entityTargets = new LinkedList<TargetDefinition>() ; 
+		for ( TargetDefinition targetDefinition : targetDefinitions ) {
+			if ( targetDefinition.isResource() ) {
+				continue ;
+			}
+			if ( targetDefinition.isOnce() ) {
+				onceTargets.add(targetDefinition); 
+			}
+			else {
+				entityTargets.add(targetDefinition);
+			}
+		}
+		int count = 0 ;
+		for ( String entityName : entitiesNames ) {
+			for ( TargetDefinition targetDefinition : entityTargets ) {
+				generateTarget( createTarget(targetDefinition, entityName), entitiesNames, generatedTargets);
+				count++ ;
+			}
+		}
+		for ( TargetDefinition targetDefinition : onceTargets ) {
+			generateTarget( createTarget(targetDefinition, null), entitiesNames, generatedTargets);
+			count++ ;
+		}
+		return count ;
+	}
+}
@@ -0,0 +1,286 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Dependency graph of the templates located in a templates folder <br>
+ * A template depends on the files it uses with "#parse" or "#include" ( e.g. shared macros ). <br>
+ * The graph is built by a static scan of the templates ( string literals only ) 
+ * and completed at runtime by the Velocity include events ( dynamic names ). <br>
+ * It also keeps the files generated with each template, so that a change in any file of the 
+ * templates folder can be mapped to the templates and the generated files to be invalidated. <br>
+ * The templates are identified by their name ( path relative to the templates folder with '/' ).
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class TemplateDependencyGraph {
+
+	private final static Pattern COMMENT_BLOCK = Pattern.compile("#\\*.*?\\*#", Pattern.DOTALL);
+	private final static Pattern COMMENT_LINE  = Pattern.compile("##.*$", Pattern.MULTILINE);
+	private final static Pattern DIRECTIVE     = Pattern.compile("#\\{?(parse|include)\\}?\\s*\\(([^)]*)\\)");
+	private final static Pattern LITERAL       = Pattern.compile("\"([^\"$]+)\"|'([^'$]+)'");
+	
+	private final static int MAX_TEMPLATE_SIZE = 1024 * 1024 ; 
+	
+	private final File templatesFolder ;
+	
+	private final Map<String, Set<String>> dependencies   = new HashMap<String, Set<String>>(); // template -> files used
+	
+	private final Map<String, Set<String>> generatedFiles = new HashMap<String, Set<String>>(); // template -> files generated
+	
+	/**
+	 * Constructor
+	 * @param templatesFolder
+	 */
+	public TemplateDependencyGraph(File templatesFolder) {
+		super();
+		this.templatesFolder = templatesFolder;
+	}
+
+	public File getTemplatesFolder() {
+		return templatesFolder;
+	}
+
+	/**
+	 * Returns the template name for the given file ( path relative to the templates folder )
+	 * @param file
+	 * @return the name or null if the file is not in the templates folder
+	 */
+	public String getTemplateName(File file) {
+		String folderPath = templatesFolder.getAbsolutePath() ;
+		String filePath = file.getAbsolutePath() ;
+		if ( filePath.startsWith(folderPath) && filePath.length() > folderPath.length() + 1 ) {
+			return filePath.substring(folderPath.length() + 1).replace('\\', '/') ;
+		}
+		return null ;
+	}
+	
+	//------------------------------------------------------------------------------------------
+	// Static scan
+	//------------------------------------------------------------------------------------------
+	/**
+	 * Scans all the ".vm" files of the templates folder ( including sub-folders )
+	 */
+	public synchronized void scan() {
+		scanFolder(templatesFolder);
+	}
+	
+	private void scanFolder(File folder) {
+		File[] files = folder.listFiles();
+		if ( files != null ) {
+			for ( File file : files ) {
+				if ( file.isDirectory() ) {
+					scanFolder(file);
+				}
+				else if ( file.getName().endsWith(".vm") ) {
+					scanTemplate( getTemplateName(file) );
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Scans the given template ( its previous dependencies are replaced ) 
+	 * @param templateName
+	 */
+	public synchronized void scanTemplate(String templateName) {
+		File file = new File(templatesFolder, templateName);
+		Set<String> set = new TreeSet<String>();
+		if ( file.isFile() ) {
+			try {
+				set.addAll( parseDependencies( readFile(file) ) );
+			} catch (IOException e) {
+				// Cannot read the file : no dependency
+			}
+		}
+		dependencies.put(templateName, set);
+	}
+	
+	/**
+	 * Returns the files used with "#parse" or "#include" ( with a string literal ) in the given template text
+	 * @param text
+	 * @return
+	 */
+	public static Collection<String> parseDependencies(String text) {
+		String s = COMMENT_BLOCK.matcher(text).replaceAll("");
+		s = COMMENT_LINE.matcher(s).replaceAll("");
+		Collection<String> list = new LinkedList<String>();
+		Matcher m = DIRECTIVE.matcher(s);
+		while ( m.find() ) {
+			Matcher literal = LITERAL.matcher(m.group(2));
+			while ( literal.find() ) {
+				list.add( literal.group(1) != null ? literal.group(1) : literal.group(2) );
+			}
+		}
+		return list ;
+	}
+	
+	private String readFile(File file) throws IOException {
+		int length = (int) Math.min(file.length(), MAX_TEMPLATE_SIZE);
+		byte[] bytes = new byte[length];
+		InputStream is = new FileInputStream(file);
+		try {
+			int offset = 0 ;
+			int n = 0 ;
+			while ( offset < length && ( n = is.read(bytes, offset, length - offset) ) > 0 ) {
+				offset = offset + n ;
+			}
+			return new String(bytes, 0, offset, "ISO-8859-1"); // only ASCII directives are searched
+		} finally {
+			is.close();
+		}
+	}
+	
+	//------------------------------------------------------------------------------------------
+	// Dependencies
+	//------------------------------------------------------------------------------------------
+	/**
+	 * Adds a dependency ( e.g. detected at runtime )
+	 * @param templateName
+	 * @param dependency the file used by the template
+	 */
+	public synchronized void addDependency(String templateName, String dependency) {
+		Set<String> set = dependencies.get(templateName);
+		if ( set == null ) {
+			set = new TreeSet<String>();
+			dependencies.put(templateName, set);
+		}
+		set.add(dependency);
+	}
+
+	/**
+	 * Returns the files directly used by the given template
+	 * @param templateName
+	 * @return
+	 */
+	public synchronized Set<String> getDependencies(String templateName) {
+		Set<String> set = dependencies.get(templateName);
+		return set != null ? new TreeSet<String>(set) : new TreeSet<String>() ;
+	}
+	
+	/**
+	 * Returns all the files used by the given template ( directly or not )
+	 * @param templateName
+	 * @return
+	 */
+	public synchronized Set<String> getAllDependencies(String templateName) {
+		Set<String> result = new TreeSet<String>();
+		LinkedList<String> toVisit = new LinkedList<String>();
+		toVisit.add(templateName);
+		while ( ! toVisit.isEmpty() ) {
+			Set<String> set = dependencies.get(toVisit.removeFirst());
+			if ( set != null ) {
+				for ( String dependency : set ) {
+					if ( result.add(dependency) ) {
+						toVisit.add(dependency);
+					}
+				}
+			}
+		}
+		result.remove(templateName); // in case of cycle
+		return result ;
+	}
+	
+	/**
+	 * Returns the templates directly using the given file 
+	 * @param fileName
+	 * @return
+	 */
+	public synchronized Set<String> getDependents(String fileName) {
+		Set<String> result = new TreeSet<String>();
+		for ( Map.Entry<String, Set<String>> entry : dependencies.entrySet() ) {
+			if ( entry.getValue().contains(fileName) ) {
+				result.add(entry.getKey());
+			}
+		}
+		return result ;
+	}
+	
+	/**
+	 * Returns the templates affected by the given changed files : <br>
+	 * the changed files themselves and all the templates using them ( directly or not )
+	 * @param changedFiles
+	 * @return
+	 */
+	public synchronized Set<String> getAffectedTemplates(Collection<String> changedFiles) {
+		Set<String> result = new TreeSet<String>();
+		LinkedList<String> toVisit = new LinkedList<String>(changedFiles);
+		while ( ! toVisit.isEmpty() ) {
+			String name = toVisit.removeFirst();
+			if ( result.add(name) ) {
+				toVisit.addAll( getDependents(name) );
+			}
+		}
+		return result ;
+	}
+	
+	//------------------------------------------------------------------------------------------
+	// Generated files
+	//------------------------------------------------------------------------------------------
+	/**
+	 * Registers a file generated with the given template
+	 * @param templateName
+	 * @param fileName
+	 */
+	public synchronized void addGeneratedFile(String templateName, String fileName) {
+		Set<String> set = generatedFiles.get(templateName);
+		if ( set == null ) {
+			set = new TreeSet<String>();
+			generatedFiles.put(templateName, set);
+		}
+		set.add(fileName);
+	}
+	
+	/**
+	 * Returns the files generated with the given template
+	 * @param templateName
+	 * @return
+	 */
+	public synchronized Set<String> getGeneratedFiles(String templateName) {
+		Set<String> set = generatedFiles.get(templateName);
+		return set != null ? new TreeSet<String>(set) : new TreeSet<String>() ;
+	}
+	
+	/**
+	 * Returns the generated files to be invalidated if the given files are changed
+	 * @param changedFiles
+	 * @return
+	 */
+	public synchronized Set<String> getAffectedGeneratedFiles(Collection<String> changedFiles) {
+		Set<String> result = new TreeSet<String>();
+		for ( String templateName : getAffectedTemplates(changedFiles) ) {
+			Set<String> set = generatedFiles.get(templateName);
+			if ( set != null ) {
+				result.addAll(set);
+			}
+		}
+		return result ;
+	}
+}
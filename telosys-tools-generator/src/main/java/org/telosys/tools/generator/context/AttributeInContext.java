@@ -78,6 +78,7 @@ public class AttributeInContext
 	private final String  _sSimpleType ;  // Short java type without package, without blank, eg : "int", "BigDecimal", "Date"
 	private final String  _sFullType ;    // Full java type with package, : "java.math.BigDecimal", "java.util.Date"
 	private boolean       _bUseFullType = false ;
+	private String        _sFragmentKey = null ; // "TABLE.COLUMN" built on demand
 	
 	private final String  _sInitialValue ; // can be null 
 //	private final String  _sGetter ; // Dynamic since v 2.0.7
@@ -308,6 +309,20 @@ public class AttributeInContext
 	{
 		_bUseFullType = true ;
 	}
+
+	/**
+	 * Returns the key identifying this attribute in the model ( "TABLE.COLUMN" ) <br>
+	 * Used to retrieve the code fragments already built for the attribute
+	 * @return
+	 */
+	/* package */ String getFragmentKey()
+	{
+		if ( _sFragmentKey == null ) {
+			String table = ( _entity != null ? _entity.getDatabaseTable() : "" ) ;
+			_sFragmentKey = table + "." + _sDataBaseName ;
+		}
+		return _sFragmentKey ;
+	}
 	
 	@VelocityMethod(
 			text={	
@@ -15,10 +15,13 @@
  */
 package org.telosys.tools.generator.context;
 
+import java.util.List;
+
 import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.names.ContextName;
 import org.telosys.tools.generator.context.tools.AnnotationsForBeanValidation;
+import org.telosys.tools.generator.context.tools.CodeFragmentsCache;
 
 //-------------------------------------------------------------------------------------
 @VelocityObject(
@@ -32,6 +35,24 @@ import org.telosys.tools.generator.context.tools.AnnotationsForBeanValidation;
 //-------------------------------------------------------------------------------------
 public class BeanValidation {
 
+	private final CodeFragmentsCache _fragmentsCache ;
+	
+	//-------------------------------------------------------------------------------------
+	// CONSTRUCTORS
+	//-------------------------------------------------------------------------------------
+	public BeanValidation() {
+		this(new CodeFragmentsCache());
+	}
+	
+	/**
+	 * Constructor with a cache shared by all the generators of the same session
+	 * @param fragmentsCache
+	 */
+	public BeanValidation(CodeFragmentsCache fragmentsCache) {
+		super();
+		_fragmentsCache = fragmentsCache ;
+	}
+
 	//-------------------------------------------------------------------------------------------------------------
 	// ANNOTATIONS FOR FIELDS
 	//-------------------------------------------------------------------------------------------------------------
@@ -50,8 +71,14 @@ public class BeanValidation {
 	)
 	public String annotations(int iLeftMargin, AttributeInContext attribute )
     {
-		AnnotationsForBeanValidation annotations = new AnnotationsForBeanValidation(attribute);
-		return annotations.getValidationAnnotations(iLeftMargin );
+		List<Object> key = CodeFragmentsCache.key("beanValidation.field", attribute.getFragmentKey(), iLeftMargin );
+		String fragment = _fragmentsCache.get(key);
+		if ( fragment == null ) {
+			AnnotationsForBeanValidation annotations = new AnnotationsForBeanValidation(attribute);
+			fragment = annotations.getValidationAnnotations(iLeftMargin );
+			_fragmentsCache.put(key, fragment);
+		}
+		return fragment ;
     }
 
 	//-------------------------------------------------------------------------------------------------------------
@@ -19,6 +19,7 @@ import java.util.List;
 
 import org.telosys.tools.commons.TelosysToolsLogger;
 import org.telosys.tools.commons.variables.Variable;
+import org.telosys.tools.generator.GenerationSession;
 import org.telosys.tools.generator.Generator;
 import org.telosys.tools.generator.GeneratorException;
 import org.telosys.tools.generator.GeneratorVersion;
@@ -51,6 +52,7 @@ public class EmbeddedGenerator {
 	private final List<String>       selectedEntitiesNames;	
 	private final boolean            canGenerate ;
 	private final List<Target>       generatedTargets ;
+	private final GenerationSession  session ;
 	
 	/**
 	 * Constructor for limited generator without generation capabilities
@@ -63,6 +65,7 @@ public class EmbeddedGenerator {
 		this.selectedEntitiesNames = null ;
 		this.canGenerate = false ;
 		this.generatedTargets = null ;
+		this.session = null ;
 	}
 
 	/**
@@ -78,11 +81,30 @@ public class EmbeddedGenerator {
 								TelosysToolsLogger logger, 
 								List<String> selectedEntitiesNames,
 								List<Target> generatedTargets) {
+		this(repositoryModel, generatorConfig, logger, selectedEntitiesNames, generatedTargets, new GenerationSession());
+	}
+
+	/**
+	 * Constructor for real generator that can generate sub-targets from a template
+	 * @param repositoryModel
+	 * @param generatorConfig
+	 * @param logger
+	 * @param selectedEntitiesNames
+	 * @param generatedTargets
+	 * @param session the current generation session (shared with the sub-targets generators)
+	 */
+	public EmbeddedGenerator(	RepositoryModel repositoryModel,
+								GeneratorConfig generatorConfig, 
+								TelosysToolsLogger logger, 
+								List<String> selectedEntitiesNames,
+								List<Target> generatedTargets,
+								GenerationSession session) {
 		super();
+		this.session = session ;
 		this.repositoryModel = repositoryModel;
 		this.generatorConfig = generatorConfig;
 		this.logger = logger;
-		if ( repositoryModel != null && generatorConfig != null && logger != null ) {
+		if ( repositoryModel != null && generatorConfig != null && logger != null && session != null ) {
 			this.canGenerate = true ;
 		}
 		else {
@@ -172,7 +194,7 @@ public class EmbeddedGenerator {
 		Target target = new Target( genericTarget, entity.getName(), entity.getBeanJavaClass(), allVariables ); // v 2.1.0
 		
 		//Generator generator = new Generator(target, generatorConfig, logger);
-		Generator generator = new Generator(target, generatorConfig, repositoryModel, logger); // v 2.0.7
+		Generator generator = new Generator(target, generatorConfig, repositoryModel, logger, session); // v 2.0.7
 		
 		generator.generateTarget(target, repositoryModel, selectedEntitiesNames, this.generatedTargets);
 		
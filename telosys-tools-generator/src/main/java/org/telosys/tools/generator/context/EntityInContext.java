@@ -16,8 +16,10 @@
 package org.telosys.tools.generator.context;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
 import org.telosys.tools.generator.EntitiesManager;
 import org.telosys.tools.generator.GeneratorContextException;
@@ -1082,7 +1084,7 @@ public class EntityInContext
 
 		//--- Duplicated short types detection
 		AmbiguousTypesDetector duplicatedTypesDetector = new AmbiguousTypesDetector(_attributes);
-		List<String> ambiguousTypes = duplicatedTypesDetector.getAmbiguousTypes();
+		Set<String> ambiguousTypes = new HashSet<String>( duplicatedTypesDetector.getAmbiguousTypes() );
 		for ( AttributeInContext attribute : _attributes ) {
 			//--- Is this attribute's type ambiguous ?
 			if ( ambiguousTypes.contains( attribute.getFullType() ) ) {
@@ -15,8 +15,10 @@
  */
 package org.telosys.tools.generator.context;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.telosys.tools.commons.JavaTypeUtil;
 
@@ -29,16 +31,21 @@ import org.telosys.tools.commons.JavaTypeUtil;
  */
 public class ImportsList {
 
-	private LinkedList<String> _list = new LinkedList<String>() ; // List of Java "full types" to import ( eg : "java.math.BigDecimal" )
+	// Java "full types" to import ( eg : "java.math.BigDecimal" ) in declaration order
+	private final Set<String> _types = new LinkedHashSet<String>() ; 
 	
 	public ImportsList() 
 	{
 		super();
 	}
 
+	/**
+	 * Returns a new list containing the declared types (in declaration order)
+	 * @return
+	 */
 	public List<String> getList()
 	{
-		return _list ;
+		return new ArrayList<String>(_types) ;
 	}
 	
 	/**
@@ -56,7 +63,7 @@ public class ImportsList {
 //					return true ; // Found = declared
 //				}
 //			}
-			return _list.contains(type);
+			return _types.contains(type);
 		}
 		return false ;
 	}
@@ -71,11 +78,7 @@ public class ImportsList {
 		{
 			return ;
 		}
-		if ( isDeclared(type) )
-		{
-			return ;
-		}
-		_list.add(type);
+		_types.add(type); // not added if already declared
 	}
 	
 //	private int shortNameCount(String shortName)
@@ -15,6 +15,7 @@
  */
 package org.telosys.tools.generator.context;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -22,6 +23,7 @@ import org.telosys.tools.generator.GeneratorException;
 import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.CodeFragmentsCache;
 import org.telosys.tools.generator.context.tools.LinesBuilder;
 
 //-------------------------------------------------------------------------------------
@@ -38,6 +40,56 @@ public class Java {
 
 	private final static List<String> VOID_STRINGS_LIST = new LinkedList<String>();
 
+	private final static int TABS = -1 ; // indentation with tabulations (no indentation size) 
+
+	private final CodeFragmentsCache _fragmentsCache ;
+	
+	//-------------------------------------------------------------------------------------
+	// CONSTRUCTORS
+	//-------------------------------------------------------------------------------------
+	public Java() {
+		this(new CodeFragmentsCache());
+	}
+	
+	/**
+	 * Constructor with a cache shared by all the generators of the same session
+	 * @param fragmentsCache
+	 */
+	public Java(CodeFragmentsCache fragmentsCache) {
+		super();
+		_fragmentsCache = fragmentsCache ;
+	}
+	
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Builds the key of a code fragment from the values used to build it
+	 * @param fragmentType 
+	 * @param arg1
+	 * @param arg2
+	 * @param indentSpaces indentation size ( or TABS )
+	 * @param attributes list of attributes (can be null)
+	 * @return
+	 */
+	private List<Object> fragmentKey(String fragmentType, Object arg1, Object arg2, int indentSpaces, 
+			List<AttributeInContext> attributes ) {
+		int size = ( attributes != null ? attributes.size() : 0 ) ;
+		List<Object> key = new ArrayList<Object>( 4 + size );
+		key.add(fragmentType);
+		key.add(arg1);
+		key.add(arg2);
+		key.add(indentSpaces);
+		if ( attributes != null ) {
+			for ( AttributeInContext attribute : attributes ) {
+				key.add( attribute.getFragmentKey() );
+			}
+		}
+		return key ;
+	}
+	
+	private LinesBuilder newLinesBuilder(int indentSpaces) {
+		return indentSpaces == TABS ? new LinesBuilder() : new LinesBuilder(indentSpaces) ;
+	}
+
 	//-------------------------------------------------------------------------------------
 	@VelocityMethod(
 		text={	
@@ -53,7 +105,7 @@ public class Java {
 			)
 	public String equalsMethod( String className, List<AttributeInContext> fieldsList ) {
 		
-		return equalsMethod( className , fieldsList, new LinesBuilder() ); 
+		return cachedEqualsMethod( className , fieldsList, TABS ); 
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -72,7 +124,18 @@ public class Java {
 			)
 	public String equalsMethod( String className, List<AttributeInContext> fieldsList, int indentSpaces ) {
 		
-		return equalsMethod( className , fieldsList, new LinesBuilder(indentSpaces) ); 
+		return cachedEqualsMethod( className , fieldsList, indentSpaces ); 
+	}
+	
+	//-------------------------------------------------------------------------------------
+	private String cachedEqualsMethod( String className, List<AttributeInContext> fieldsList, int indentSpaces ) {
+		List<Object> key = fragmentKey("java.equals", className, null, indentSpaces, fieldsList);
+		String fragment = _fragmentsCache.get(key);
+		if ( fragment == null ) {
+			fragment = equalsMethod( className , fieldsList, newLinesBuilder(indentSpaces) );
+			_fragmentsCache.put(key, fragment);
+		}
+		return fragment ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -148,7 +211,7 @@ public class Java {
 			since = "2.0.7"
 				)
 	public String hashCodeMethod( String className, List<AttributeInContext> fieldsList ) {
-		return hashCodeMethod( className , fieldsList, new LinesBuilder() ); 
+		return cachedHashCodeMethod( className , fieldsList, TABS ); 
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -166,7 +229,18 @@ public class Java {
 			since = "2.0.7"
 				)
 	public String hashCodeMethod( String className, List<AttributeInContext> fieldsList, int indentSpaces ) {
-		return hashCodeMethod( className , fieldsList, new LinesBuilder(indentSpaces) ); 
+		return cachedHashCodeMethod( className , fieldsList, indentSpaces ); 
+	}
+	
+	//-------------------------------------------------------------------------------------
+	private String cachedHashCodeMethod( String className, List<AttributeInContext> fieldsList, int indentSpaces ) {
+		List<Object> key = fragmentKey("java.hashCode", className, null, indentSpaces, fieldsList);
+		String fragment = _fragmentsCache.get(key);
+		if ( fragment == null ) {
+			fragment = hashCodeMethod( className , fieldsList, newLinesBuilder(indentSpaces) );
+			_fragmentsCache.put(key, fragment);
+		}
+		return fragment ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -251,13 +325,18 @@ public class Java {
 				)
 	public List<String> imports( List<AttributeInContext> attributesList ) {
 		if ( attributesList != null ) {
-			ImportsList imports = new ImportsList();
-			for ( AttributeInContext attribute : attributesList ) {
-				// register the type to be imported if necessary
-				imports.declareType( attribute.getFullType() ); 
+			List<Object> key = fragmentKey("java.imports", null, null, 0, attributesList);
+			List<String> resultList = _fragmentsCache.getImports(key);
+			if ( resultList == null ) {
+				ImportsList imports = new ImportsList();
+				for ( AttributeInContext attribute : attributesList ) {
+					// register the type to be imported if necessary
+					imports.declareType( attribute.getFullType() ); 
+				}
+				resultList = imports.getList();
+				java.util.Collections.sort(resultList);
+				_fragmentsCache.putImports(key, resultList);
 			}
-			List<String> resultList = imports.getList();
-			java.util.Collections.sort(resultList);
 			return resultList ;
 		}
 		return VOID_STRINGS_LIST ;
@@ -280,6 +359,12 @@ public class Java {
 				)
 	public List<String> imports( EntityInContext entity ) throws GeneratorException {
 		if ( entity != null ) {
+			//--- Computed once per entity in the current session
+			List<Object> key = CodeFragmentsCache.key("java.entityImports", entity.getDatabaseTable());
+			List<String> cachedList = _fragmentsCache.getImports(key);
+			if ( cachedList != null ) {
+				return cachedList ;
+			}
 			ImportsList imports = new ImportsList();
 			//--- All the attributes
 			for ( AttributeInContext attribute : entity.getAttributes() ) {
@@ -300,6 +385,7 @@ public class Java {
 			//--- Resulting list of imports
 			List<String> resultList = imports.getList();
 			java.util.Collections.sort(resultList);
+			_fragmentsCache.putImports(key, resultList);
 			return resultList ;
 		}
 		return VOID_STRINGS_LIST ;
@@ -340,8 +426,18 @@ public class Java {
 		since = "2.1.0"
 			)
 	public String toStringMethod( List<AttributeInContext> attributes, int indentSpaces ) {
+		List<Object> key = fragmentKey("java.toString", null, null, indentSpaces, attributes);
+		String fragment = _fragmentsCache.get(key);
+		if ( fragment == null ) {
+			fragment = toStringMethod( attributes, new LinesBuilder(indentSpaces) );
+			_fragmentsCache.put(key, fragment);
+		}
+		return fragment ;
+	}
+	
+	//-------------------------------------------------------------------------------------
+	private String toStringMethod( List<AttributeInContext> attributes, LinesBuilder lb ) {
 
-		LinesBuilder lb = new LinesBuilder(indentSpaces) ;
 		int indent = 1 ;
 		lb.append(indent, "public String toString() { ");
 		
@@ -376,7 +472,7 @@ public class Java {
 			)
 	public String toStringMethod( EntityInContext entity, List<AttributeInContext> nonKeyAttributes, String embeddedIdName ) {
 			
-		return toStringMethod( entity , nonKeyAttributes, embeddedIdName, new LinesBuilder() ); 
+		return cachedToStringMethod( entity , nonKeyAttributes, embeddedIdName, TABS ); 
 	}
 		
 	//-------------------------------------------------------------------------------------
@@ -398,7 +494,18 @@ public class Java {
 			)
 	public String toStringMethod( EntityInContext entity, List<AttributeInContext> nonKeyAttributes, String embeddedIdName, int indentSpaces ) {
 		
-		return toStringMethod( entity , nonKeyAttributes, embeddedIdName, new LinesBuilder(indentSpaces) ); 
+		return cachedToStringMethod( entity , nonKeyAttributes, embeddedIdName, indentSpaces ); 
+	}
+	
+	//-------------------------------------------------------------------------------------
+	private String cachedToStringMethod( EntityInContext entity, List<AttributeInContext> nonKeyAttributes, String embeddedIdName, int indentSpaces ) {
+		List<Object> key = fragmentKey("java.toStringWithKey", entity.getDatabaseTable(), embeddedIdName, indentSpaces, nonKeyAttributes);
+		String fragment = _fragmentsCache.get(key);
+		if ( fragment == null ) {
+			fragment = toStringMethod( entity , nonKeyAttributes, embeddedIdName, newLinesBuilder(indentSpaces) );
+			_fragmentsCache.put(key, fragment);
+		}
+		return fragment ;
 	}
 	
 	//-------------------------------------------------------------------------------------
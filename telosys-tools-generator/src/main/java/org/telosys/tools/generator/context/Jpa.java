@@ -15,6 +15,7 @@
  */
 package org.telosys.tools.generator.context;
 
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -26,6 +27,7 @@ import org.telosys.tools.generator.context.doc.VelocityReturnType;
 import org.telosys.tools.generator.context.names.ContextName;
 import org.telosys.tools.generator.context.tools.AnnotationsBuilder;
 import org.telosys.tools.generator.context.tools.AnnotationsForJPA;
+import org.telosys.tools.generator.context.tools.CodeFragmentsCache;
 
 //-------------------------------------------------------------------------------------
 @VelocityObject(
@@ -46,11 +48,22 @@ public class Jpa {
 	
 	private final static List<String> VOID_STRINGS_LIST = new LinkedList<String>();
 
+	private final CodeFragmentsCache _fragmentsCache ;
+	
 	//-------------------------------------------------------------------------------------
 	// CONSTRUCTOR
 	//-------------------------------------------------------------------------------------
 	public Jpa() {
+		this(new CodeFragmentsCache());
+	}
+	
+	/**
+	 * Constructor with a cache shared by all the generators of the same session
+	 * @param fragmentsCache
+	 */
+	public Jpa(CodeFragmentsCache fragmentsCache) {
 		super();
+		_fragmentsCache = fragmentsCache ;
 	}
 	
 	//-------------------------------------------------------------------------------------
@@ -75,10 +88,18 @@ public class Jpa {
 	//public List<String> imports(JavaBeanClass entity) 
 	public List<String> imports(EntityInContext entity) 
 	{
+		//--- Computed once per entity in the current session
+		List<Object> key = CodeFragmentsCache.key("jpa.entityImports", entity != null ? entity.getDatabaseTable() : null );
+		List<String> imports = _fragmentsCache.getImports(key);
+		if ( imports != null ) {
+			return imports ;
+		}
 		ImportsList _importsJpa = buildJpaImportsList(entity) ;
 		if ( _importsJpa != null )
 		{
-			return _importsJpa.getList() ;
+			imports = _importsJpa.getList() ;
+			_fragmentsCache.putImports(key, imports);
+			return imports ;
 		}
 		return VOID_STRINGS_LIST ;
 	}
@@ -176,6 +197,41 @@ public class Jpa {
 		//String targetEntityClassName = entityLink.getTargetEntitySimpleType() ; // refactoring v 2.1.0
 		String targetEntityClassName = entityLink.getTargetEntity().getName();
 
+		//--- The "already mapped fields" are only used to flag the join columns 
+		List<Object> key = CodeFragmentsCache.key("jpa.link", entityLink.getFragmentKey(), marginSize, 
+				targetEntityClassName, getMappedJoinColumns(entityLink, alreadyMappedFields) );
+		String fragment = _fragmentsCache.get(key);
+		if ( fragment == null ) {
+			fragment = buildLinkAnnotations(marginSize, entityLink, targetEntityClassName, alreadyMappedFields);
+			_fragmentsCache.put(key, fragment);
+		}
+		return fragment ;
+	}
+	
+	/**
+	 * Returns the join columns of the given link that are already mapped as simple fields <br>
+	 * ( bit 'i' is set if the join column 'i' is already mapped )
+	 * @param entityLink
+	 * @param alreadyMappedFields
+	 * @return
+	 */
+	private BitSet getMappedJoinColumns( LinkInContext entityLink, List<AttributeInContext> alreadyMappedFields ) {
+		BitSet mapped = new BitSet();
+		if ( alreadyMappedFields != null ) {
+			int i = 0 ;
+			for ( JoinColumnInContext joinColumn : entityLink.getJoinColumns() ) {
+				if ( isColumnAlreadyMappedAsAField(joinColumn, alreadyMappedFields) ) {
+					mapped.set(i);
+				}
+				i++ ;
+			}
+		}
+		return mapped ;
+	}
+	
+	private String buildLinkAnnotations( int marginSize, LinkInContext entityLink, String targetEntityClassName, 
+				List<AttributeInContext> alreadyMappedFields ) throws GeneratorException {
+
 		AnnotationsBuilder annotations = new AnnotationsBuilder(marginSize);
 		
 		//if ( _link.isOwningSide() ) 
@@ -744,8 +800,7 @@ public class Jpa {
 	)
 	public String fieldAnnotations(int iLeftMargin, AttributeInContext attribute )
     {
-		AnnotationsForJPA annotationsJPA = new AnnotationsForJPA(attribute);
-		return annotationsJPA.getJpaAnnotations(iLeftMargin, AnnotationsForJPA.EMBEDDED_ID_FALSE );
+		return getFieldAnnotations(iLeftMargin, attribute, AnnotationsForJPA.EMBEDDED_ID_FALSE );
     }
 
 	//-------------------------------------------------------------------------------------------------------------
@@ -764,8 +819,20 @@ public class Jpa {
 		)
 	public String embeddedIdAnnotations(int iLeftMargin, AttributeInContext attribute )
     {
-		AnnotationsForJPA annotationsJPA = new AnnotationsForJPA(attribute);
-		return annotationsJPA.getJpaAnnotations(iLeftMargin, AnnotationsForJPA.EMBEDDED_ID_TRUE );
+		return getFieldAnnotations(iLeftMargin, attribute, AnnotationsForJPA.EMBEDDED_ID_TRUE );
+    }
+
+	//-------------------------------------------------------------------------------------------------------------
+	private String getFieldAnnotations(int iLeftMargin, AttributeInContext attribute, boolean embeddedId )
+    {
+		List<Object> key = CodeFragmentsCache.key("jpa.field", attribute.getFragmentKey(), iLeftMargin, embeddedId );
+		String fragment = _fragmentsCache.get(key);
+		if ( fragment == null ) {
+			AnnotationsForJPA annotationsJPA = new AnnotationsForJPA(attribute);
+			fragment = annotationsJPA.getJpaAnnotations(iLeftMargin, embeddedId );
+			_fragmentsCache.put(key, fragment);
+		}
+		return fragment ;
     }
 	//-------------------------------------------------------------------------------------------------------------
 	
@@ -355,6 +355,17 @@ public class LinkInContext {
 		return _link.getId();
 	}
 
+	//-------------------------------------------------------------------------------------
+	/**
+	 * Returns the key identifying this link in the model ( "TABLE.LINK_ID" ) <br>
+	 * Used to retrieve the code fragments already built for the link
+	 * @return
+	 */
+	/* package */ String getFragmentKey() {
+		String table = ( _entity != null ? _entity.getDatabaseTable() : "" ) ;
+		return table + "." + _link.getId() ;
+	}
+
 	//-------------------------------------------------------------------------------------
 	@VelocityMethod(
 		text={	
@@ -17,13 +17,13 @@ package org.telosys.tools.generator.context;
 
 import java.io.File;
 import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
 
+import org.telosys.tools.generator.GenerationSession;
 import org.telosys.tools.generator.GeneratorException;
 import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.names.ContextName;
+import org.telosys.tools.generator.context.tools.SpecificClassLoader;
 
 /**
  * Special class used as a specific class loader <br> 
@@ -57,14 +57,27 @@ public class Loader {
 
 	private final String templatesFolderFullPath ; // Full templates full path with bundle name
 	
+	private final GenerationSession session ; // for the instances shared by all the targets
+	
+	private SpecificClassLoader specificClassLoader = null ; // retrieved on first use 
+	
 	/**
 	 * Constructor ( ver 2.1.0 )
 	 * @param templatesFolderFullPath
-	 * @param velocityContext
 	 */
 	public Loader(String templatesFolderFullPath) {
+		this(templatesFolderFullPath, new GenerationSession());
+	}
+
+	/**
+	 * Constructor 
+	 * @param templatesFolderFullPath
+	 * @param session the current generation session
+	 */
+	public Loader(String templatesFolderFullPath, GenerationSession session) {
 		super();
 		this.templatesFolderFullPath = templatesFolderFullPath;
+		this.session = session ;
 	}
 
 	//--------------------------------------------------------------------------------------------------------------
@@ -177,31 +190,51 @@ public class Loader {
 		return instance ;
 	}
 	
+	//--------------------------------------------------------------------------------------------------------------
+	@VelocityMethod (
+		text = {
+				"Returns the instance of the given java class shared by all the targets of the current generation",
+				"The instance is created on the first call (as with 'newInstance') and then reused",
+				"NB : The shared instance must not keep a state specific to a target"
+		},
+		parameters = {
+				"javaClassName : the name of the Java class "
+		},
+		example = {
+				"#set( $tool = $loader.sharedInstance('MyTool') )"
+		},
+		since="2.1.1"
+		
+	)
+	public Object sharedInstance(String javaClassName ) throws GeneratorException
+	{
+		Class<?> javaClass = loadJavaClassFromFile( javaClassName ) ;
+		synchronized (session) {
+			Object instance = session.getSharedInstance(javaClass);
+			if ( instance == null ) {
+				instance = newInstance(javaClassName);
+				session.putSharedInstance(javaClass, instance);
+			}
+			return instance ;
+		}
+	}
+	
 	//--------------------------------------------------------------------------------------------------------------
 	private Class<?> loadJavaClassFromFile( String javaClassName ) throws GeneratorException
 	{
-		ClassLoader currentClassLoader = this.getClass().getClassLoader();
-		File file = getClassesFolderAsFile();
-		
-		Class<?> javaClass = null ;
-		
 		try {
-		    // Convert File to URL
-		    URL url = file.toURI().toURL();    //  "file:/c:/templatesFolder/"
-		    URL[] urls = new URL[]{url}; // the URLs from which to load classes and resources
-
-		    // Create a new class loader with the given directory and the current class loader as parent class loader
-		    ClassLoader classLoader = new URLClassLoader(urls, currentClassLoader );
-
-		    // Load the class ( should be located in "file:/c:/templatesFolder/" )
-		    javaClass = classLoader.loadClass(javaClassName);
+			if ( specificClassLoader == null ) {
+				// The class loader is reused while the "classes" folder doesn't change ( checked once per session )
+				specificClassLoader = session.getSpecificClassLoader(getClassesFolderAsFile(), 
+						this.getClass().getClassLoader() );
+			}
+			// Load the class ( should be located in "file:/c:/templatesFolder/classes/" )
+			return specificClassLoader.loadClass(javaClassName);
 		} catch (MalformedURLException e) {
 			throw new GeneratorException("Cannot load class " + javaClassName + " (MalformedURLException)", e);
 		} catch (ClassNotFoundException e) {
 			throw new GeneratorException("Cannot load class " + javaClassName + " (ClassNotFoundException)", e);
 		}
-		
-		return javaClass ;
 	}
 	
 }
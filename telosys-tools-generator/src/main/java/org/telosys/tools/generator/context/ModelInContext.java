@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.telosys.tools.generator.EntitiesManager;
+import org.telosys.tools.generator.GeneratorContextException;
 import org.telosys.tools.generator.GeneratorException;
 import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityObject;
@@ -44,9 +45,10 @@ public class ModelInContext
 //	private final List<JavaBeanClass>       _allEntities ;
 //	private final Map<String,JavaBeanClass> _entitiesByTableName ;
 //	private final Map<String,JavaBeanClass> _entitiesByClassName ;
-	private final List<EntityInContext>       _allEntities ;
-	private final Map<String,EntityInContext> _entitiesByTableName ;
-	private final Map<String,EntityInContext> _entitiesByClassName ;
+	private final EntitiesManager             _entitiesManager ;
+	private List<EntityInContext>             _allEntities = null ; // built on first use 
+	private Map<String,EntityInContext>       _entitiesByTableName ;
+	private Map<String,EntityInContext>       _entitiesByClassName ;
 	private final int      _databaseId ;
 	private final String   _databaseProductName ;
 	
@@ -65,10 +67,24 @@ public class ModelInContext
 //		if ( env == null ) throw new GeneratorException("EnvInContext is null");
 		if ( entitiesManager == null ) throw new GeneratorException("EntitiesBuilder is null");
 		
+		//--- All the entities are built on first use ( the model can be loaded on demand )
+		_entitiesManager = entitiesManager ;
+		
+		_databaseId          = repositoryModel.getDatabaseId();
+		_databaseProductName = repositoryModel.getDatabaseProductName();
+	}
+
+	//-------------------------------------------------------------------------------------
+	private synchronized void init() {
+		if ( _allEntities != null ) return ;
 		//--- All the entities
 		//_allEntities = RepositoryModelUtil.buildAllJavaBeanClasses(repositoryModel, generatorConfig );
 //		EntitiesBuilder entitiesBuilder = new EntitiesBuilder(repositoryModel, generatorConfig, env);
-		_allEntities = entitiesManager.getAllEntities();
+		try {
+			_allEntities = _entitiesManager.getAllEntities();
+		} catch (GeneratorException e) {
+			throw new GeneratorContextException("Cannot build the model entities : " + e.getMessage());
+		}
 		
 		//--- Entities by TABLE NAME
 		//_entitiesByTableName = new HashMap<String,JavaBeanClass>();
@@ -87,9 +103,6 @@ public class ModelInContext
 			// The class name is supposed to be unique 
 			_entitiesByClassName.put(entity.getName(), entity);
 		}
-		
-		_databaseId          = repositoryModel.getDatabaseId();
-		_databaseProductName = repositoryModel.getDatabaseProductName();
 	}
 
 	//-------------------------------------------------------------------------------------
@@ -100,6 +113,7 @@ public class ModelInContext
 	)
     public int getNumberOfEntities()
     {
+        init();
         return _allEntities.size() ;
     }
 
@@ -112,6 +126,7 @@ public class ModelInContext
     //public List<JavaBeanClass> getAllEntites()
     public List<EntityInContext> getAllEntites()
     {
+		init();
 		return _allEntities ;
     }
 
@@ -128,6 +143,7 @@ public class ModelInContext
     //public JavaBeanClass getEntityByTableName( String name )
     public EntityInContext getEntityByTableName( String name )
     {
+		init();
 		return _entitiesByTableName.get(name);
     }
 
@@ -144,6 +160,7 @@ public class ModelInContext
     //public JavaBeanClass getEntityByClassName( String name )
     public EntityInContext getEntityByClassName( String name )
     {
+		init();
 		return _entitiesByClassName.get(name);
     }
 
@@ -159,6 +176,7 @@ public class ModelInContext
 	)
     public boolean hasEntityWithTableName( String name )
     {
+		init();
 		return ( _entitiesByTableName.get(name) != null ) ;
     }
 
@@ -174,6 +192,7 @@ public class ModelInContext
 	)
     public boolean hasEntityWithClassName( String name )
     {
+		init();
 		return ( _entitiesByClassName.get(name) != null ) ;
     }
 
@@ -15,15 +15,13 @@
  */
 package org.telosys.tools.generator.context;
 
-import org.telosys.tools.commons.StrUtil;
-import org.telosys.tools.commons.config.ConfigDefaults;
 import org.telosys.tools.commons.variables.Variable;
-import org.telosys.tools.commons.variables.VariablesManager;
 import org.telosys.tools.generator.context.doc.VelocityMethod;
 import org.telosys.tools.generator.context.doc.VelocityNoDoc;
 import org.telosys.tools.generator.context.doc.VelocityObject;
 import org.telosys.tools.generator.context.names.ContextName;
 import org.telosys.tools.generator.target.TargetDefinition;
+import org.telosys.tools.generator.target.TargetVariables;
 
 /**
  * The generation target file <br>  
@@ -81,6 +79,19 @@ public class Target
 	 * @param variables  the project's specific variables to be applied 
 	 */
 	public Target( TargetDefinition targetDefinition, String entityName, String entityJavaClassName, Variable[] variables ) 
+	{
+		this(targetDefinition, entityName, entityJavaClassName, new TargetVariables(variables) );
+	}
+
+	/**
+	 * Constructor using a variables table shared by all the targets
+	 * @param targetDefinition  the initial target as defined in the targets configuration file
+	 * @param entityName  the name of the entity (as defined in the repository model)
+	 * @param entityJavaClassName 
+	 * @param variables  the project's specific variables to be applied 
+	 * @since 2.1.1
+	 */
+	public Target( TargetDefinition targetDefinition, String entityName, String entityJavaClassName, TargetVariables variables ) 
 	{
 		super();
 		
@@ -91,17 +102,10 @@ public class Target
 		//--- Specialization for the given entity
 		this.entityName = entityName ;
 
-//		this.templateOnly = false ; // v 2.1.1
-		
-		//--- Replace the "$" variables in _sFile and _sFolder
-		VariablesManager variablesManager = null ;
-		if ( variables != null ) {
-			variablesManager = new VariablesManager( variables );
-		}
-		this.file   = replaceVariables( targetDefinition.getFile(),   entityJavaClassName, variablesManager );
-		
-		variablesManager.transformPackageVariablesToDirPath(); // for each variable ${XXXX_PKG} : replace '.' by '/' 
-		this.folder = replaceVariables( targetDefinition.getFolder(), entityJavaClassName, variablesManager );
+		//--- Replace the "$" variables in file and folder (templates precompiled in the target definition)
+		this.file   = targetDefinition.getFileTemplate().resolve(entityJavaClassName, variables, false);
+		//--- for each variable ${XXXX_PKG} : '.' replaced by '/' in the folder
+		this.folder = targetDefinition.getFolderTemplate().resolve(entityJavaClassName, variables, true);
 	}
 
 	// removed in v 2.1.1	
@@ -236,43 +240,6 @@ public class Target
 		return s2 ;
 	}
 	
-	//-----------------------------------------------------------------------
-	private String replaceVariables( String originalString, String sBeanClass, VariablesManager varmanager )
-	{
-		//--- Replace the generic name "${BEANNAME}" if any
-		String s1 = replace(originalString, ConfigDefaults.BEANNAME, sBeanClass);
-
-		//--- Replace the global project variables if any
-		if ( varmanager != null ) {
-			return varmanager.replaceVariables(s1);
-		}
-		else {
-			return s1 ;
-		}
-	}
-	
-	//-----------------------------------------------------------------------
-    private String replace(String sOriginal, String sSymbolicVar, String sValue) 
-    {
-    	String s   = "${" + sSymbolicVar + "}" ;
-    	String sUC = "${" + sSymbolicVar + "_UC}" ;
-    	String sLC = "${" + sSymbolicVar + "_LC}" ;
-    	
-		if ( sOriginal.indexOf(s) >= 0 )
-		{
-			return StrUtil.replaceVar(sOriginal, s, sValue);
-		}
-		else if ( sOriginal.indexOf(sUC) >= 0 )
-		{
-			return StrUtil.replaceVar(sOriginal, sUC, sValue.toUpperCase());
-		}
-		else if ( sOriginal.indexOf(sLC) >= 0 )
-		{
-			return StrUtil.replaceVar(sOriginal, sLC, sValue.toLowerCase());
-		}
-		return sOriginal ;
-    }
-    
 	/**
 	 * Returns the full path of the of the generated file in the project<br>
 	 * by combining the folder and the basic file name
@@ -244,6 +244,14 @@ public class DocBuilder {
 		EnvInContext.class, // ver 2.1.0
 	};
 	
+	/**
+	 * Returns all the Java classes used in the Velocity context ( annotated with "@VelocityObject" )
+	 * @return
+	 */
+	public static Class<?>[] getVelocityClasses() {
+		return velocityClasses.clone();
+	}
+	
 	public Map<String,ClassInfo> getVelocityClassesInfo() {
 		
 		Map<String,ClassInfo> map = new Hashtable<String, ClassInfo>();
@@ -15,16 +15,19 @@
  */
 package org.telosys.tools.generator.context.tools;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-import org.telosys.tools.commons.JavaClassUtil;
 import org.telosys.tools.generator.context.AttributeInContext;
 
 public class AmbiguousTypesDetector {
 
 	//private final List<JavaBeanClassAttribute> _attributes ;
-	private final List<String>                 _fullTypesList ;
+	private final Set<String>                  _fullTypesList ; // registered types in registration order
 
 	//-----------------------------------------------------------------------------------------------
 	/**
@@ -36,7 +39,7 @@ public class AmbiguousTypesDetector {
 		super();
 		//this._attributes = attributes;
 		
-		_fullTypesList = new LinkedList<String>();
+		_fullTypesList = new LinkedHashSet<String>();
 		for ( AttributeInContext attribute : attributes ) {
 			if ( attribute.isPrimitiveType() != true ) {
 				registerType( attribute.getFullType() ); // "java.math.BigDecimal", "java.util.Date", ...
@@ -50,7 +53,7 @@ public class AmbiguousTypesDetector {
 	 */
 	public AmbiguousTypesDetector() {
 		super();
-		_fullTypesList = new LinkedList<String>();
+		_fullTypesList = new LinkedHashSet<String>();
 	}
 	
 	//-----------------------------------------------------------------------------------------------
@@ -62,9 +65,7 @@ public class AmbiguousTypesDetector {
 	public void registerType(String fullType)
 	{
 		// Store it only if not yet present in the list
-		if ( _fullTypesList.contains(fullType) == false ) {
-			_fullTypesList.add(fullType);
-		}
+		_fullTypesList.add(fullType);
 	}
 	
 	//-----------------------------------------------------------------------------------------------
@@ -91,12 +92,23 @@ public class AmbiguousTypesDetector {
 	{
 		LinkedList<String> ambiguousTypes = new LinkedList<String>() ;
 
+		//--- 1st pass : number of occurrences of each short name 
+		Map<String,Integer> shortNamesCount = new HashMap<String,Integer>();
+		for ( String fullType : _fullTypesList ) {
+			String shortName = packagedShortName(fullType);
+			if ( shortName != null ) {
+				Integer count = shortNamesCount.get(shortName);
+				shortNamesCount.put(shortName, count != null ? count + 1 : 1 );
+			}
+		}
+		
+		//--- 2nd pass : keep the types with a short name used more than once 
 		for ( String fullType : _fullTypesList ) {
-			String shortName = JavaClassUtil.shortName(fullType);
+			Integer count = shortNamesCount.get( shortName(fullType) );
 			
 			// if more than one occurrence of this short name in the list 
 			// ( eg  2 occurrences : "java.util.Date" and "java.sql.Date" for the "Date" short name )
-			if ( shortNameCount(shortName) > 1 ) 
+			if ( count != null && count > 1 ) 
 			{
 //				if ( collidedTypes.contains(fullType) != true ) {
 //					collidedTypes.add(fullType);
@@ -110,20 +122,25 @@ public class AmbiguousTypesDetector {
 	
 	//-----------------------------------------------------------------------------------------------
 	/**
-	 * Count the number of occurrences of the given short name in the list of types
-	 * @param shortName
+	 * Returns the short name of the given type ( the part after the last '.' if any )
+	 * @param fullType
 	 * @return
 	 */
-	private int shortNameCount(String shortName)
+	private String shortName(String fullType)
 	{
-		int count = 0 ;
-		String end = "." + shortName ;
-		for ( String s : _fullTypesList ) {
-			if ( s.endsWith(end))
-			{
-				count++ ;
-			}
-		}
-		return count ;
+		int i = fullType.lastIndexOf('.');
+		return i >= 0 ? fullType.substring(i+1) : fullType ;
+	}
+
+	/**
+	 * Returns the short name of the given type if it has a package ( else null ) <br>
+	 * NB : a type without package ( eg "MyClass" ) is not counted as an occurrence of its short name
+	 * @param fullType
+	 * @return
+	 */
+	private String packagedShortName(String fullType)
+	{
+		int i = fullType.lastIndexOf('.');
+		return i >= 0 ? fullType.substring(i+1) : null ;
 	}
 }
@@ -25,7 +25,7 @@ import org.telosys.tools.generator.GeneratorUtil;
  */
 public class AnnotationsBuilder {
 
-	private StringBuffer _sbAnnotationsBuffer = null;
+	private StringBuilder _sbAnnotationsBuffer = null;
 
 	private String       _sLeftMargin = "" ;
 	
@@ -38,7 +38,7 @@ public class AnnotationsBuilder {
 	 */
 	public AnnotationsBuilder(int iLeftMargin) {
 		super();
-		_sbAnnotationsBuffer = new StringBuffer();
+		_sbAnnotationsBuffer = new StringBuilder(256);
 		_iAnnotationsCount = 0 ;
 		_sLeftMargin = GeneratorUtil.blanks(iLeftMargin);		
 	}
@@ -51,7 +51,7 @@ public class AnnotationsBuilder {
 	public void addLine(String sAnnotation)
 	{
 		if ( _iAnnotationsCount > 0 ) {
-			_sbAnnotationsBuffer.append( "\n" );
+			_sbAnnotationsBuffer.append( '\n' );
 		}
 		_sbAnnotationsBuffer.append( _sLeftMargin );
 		_sbAnnotationsBuffer.append( sAnnotation );
@@ -0,0 +1,146 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.context.tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache for the code fragments and imports lists built by the context tools ( $jpa, $java, $beanValidation ) <br>
+ * The same fragment is often requested by several templates for the same attribute or link, <br>
+ * so it is built once and kept for the whole generation session. <br>
+ * Each fragment is identified by a key composed of the fragment type and all the values used to build it.
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class CodeFragmentsCache {
+
+	private final Map<List<Object>, String> _fragments = new HashMap<List<Object>, String>();
+	
+	private final Map<List<Object>, List<String>> _imports = new HashMap<List<Object>, List<String>>();
+	
+	private int _hitsCount   = 0 ;
+	private int _missesCount = 0 ;
+	
+	/**
+	 * Constructor
+	 */
+	public CodeFragmentsCache() {
+		super();
+	}
+
+	/**
+	 * Builds a key for the given parts ( the parts must implement 'equals' and 'hashCode' )
+	 * @param parts
+	 * @return
+	 */
+	public static List<Object> key(Object... parts) {
+		return Arrays.asList(parts);
+	}
+	
+	/**
+	 * Returns the fragment associated with the given key 
+	 * @param key
+	 * @return the fragment or null if not yet in the cache
+	 */
+	public synchronized String get(List<Object> key) {
+		String fragment = _fragments.get(key);
+		if ( fragment != null ) {
+			_hitsCount++ ;
+		}
+		else {
+			_missesCount++ ;
+		}
+		return fragment ;
+	}
+
+	/**
+	 * Stores the given fragment in the cache 
+	 * @param key
+	 * @param fragment
+	 */
+	public synchronized void put(List<Object> key, String fragment) {
+		if ( fragment != null ) {
+			_fragments.put(key, fragment);
+		}
+	}
+
+	/**
+	 * Returns a copy of the imports list associated with the given key 
+	 * @param key
+	 * @return a new list or null if not yet in the cache
+	 */
+	public synchronized List<String> getImports(List<Object> key) {
+		List<String> imports = _imports.get(key);
+		if ( imports != null ) {
+			_hitsCount++ ;
+			return new ArrayList<String>(imports); // the caller can modify its own list
+		}
+		else {
+			_missesCount++ ;
+			return null ;
+		}
+	}
+
+	/**
+	 * Stores a copy of the given imports list in the cache 
+	 * @param key
+	 * @param imports
+	 */
+	public synchronized void putImports(List<Object> key, List<String> imports) {
+		if ( imports != null ) {
+			_imports.put(key, new ArrayList<String>(imports) );
+		}
+	}
+
+	/**
+	 * Returns the number of fragments currently stored in the cache
+	 * @return
+	 */
+	public synchronized int size() {
+		return _fragments.size() + _imports.size();
+	}
+	
+	/**
+	 * Returns the number of requests resolved with a fragment already in the cache
+	 * @return
+	 */
+	public synchronized int getHitsCount() {
+		return _hitsCount;
+	}
+
+	/**
+	 * Returns the number of requests that required to build the fragment
+	 * @return
+	 */
+	public synchronized int getMissesCount() {
+		return _missesCount;
+	}
+
+	/**
+	 * Removes all the fragments and resets the counters
+	 */
+	public synchronized void clear() {
+		_fragments.clear();
+		_imports.clear();
+		_hitsCount   = 0 ;
+		_missesCount = 0 ;
+	}
+}
@@ -15,6 +15,8 @@
  */
 package org.telosys.tools.generator.context.tools;
 
+import org.telosys.tools.generator.GeneratorUtil;
+
 public class LinesBuilder {
 	
 	final static int TYPE_TABS   = 1 ;
@@ -24,15 +26,17 @@ public class LinesBuilder {
 	
 	private final int type ;
 	private final int indentationSize ;
+	private final String indentationUnit ; // one level of indentation ( a tab or N spaces )
 	
 	/**
 	 * Constructor for TABS indentation
 	 */
 	public LinesBuilder() {
 		super();
-		this.sb = new StringBuilder() ;
+		this.sb = new StringBuilder(1024) ;
 		this.type = TYPE_TABS ;
 		this.indentationSize = 0; // Not used
+		this.indentationUnit = "\t" ;
 	}
 	
 	/**
@@ -41,15 +45,19 @@ public class LinesBuilder {
 	 */
 	public LinesBuilder(int indentationSize) {
 		super();
-		this.sb = new StringBuilder() ;
+		this.sb = new StringBuilder(1024) ;
 		this.type = TYPE_SPACES ;
 		this.indentationSize = indentationSize; // Number of spaces
+		this.indentationUnit = GeneratorUtil.blanks(indentationSize) ;
 	}
 
 	public void append(int indentationLevel, String line) {
-		sb.append( getIndentation(indentationLevel) );
+		//--- Indentation appended directly (no intermediate string)
+		for ( int level = 0 ; level < indentationLevel ; level++ ) {
+			sb.append( indentationUnit );
+		}
 		sb.append( line );
-		sb.append( "\n" );
+		sb.append( '\n' );
 	}
 
 	@Override
@@ -0,0 +1,203 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.context.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class loader for the specific classes located in the "classes" folder of the templates <br>
+ * ( the folder itself and the jar files located in this folder ) <br>
+ * <br>
+ * One instance is kept for each folder and reused while the folder content doesn't change, <br>
+ * so the classes are loaded only once and not for each target. <br>
+ * The loaded classes are kept in a cache. <br>
+ * A replaced instance ( folder content changed or folder not used recently ) is only removed from the map, <br>
+ * it is not closed because it can still be used by a generation session ( classes loaded lazily by the tools ), <br>
+ * it is released by the garbage collector when no longer referenced. <br>
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public final class SpecificClassLoader {
+
+	private final static String JAR_SUFFIX = ".jar" ;
+	
+	private final static int MAX_FOLDERS = 16 ; // the class loaders of the least recently used folders are forgotten
+	
+	/**
+	 * Class loaders by folder canonical path ( one entry per folder, in access order ) 
+	 */
+	private final static Map<String,SpecificClassLoader> classLoaders = 
+		new LinkedHashMap<String,SpecificClassLoader>(MAX_FOLDERS, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String,SpecificClassLoader> eldest) {
+				return size() > MAX_FOLDERS ;
+			}
+		};
+	
+	private final String      key ;
+	
+	private final File        classesFolder ;
+	
+	private final long        folderStamp ;
+	
+	private final ClassLoader classLoader ;
+	
+	private final Map<String,Class<?>> classes = new HashMap<String,Class<?>>();
+
+	//--------------------------------------------------------------------------------------------------------------
+	/**
+	 * Returns the class loader for the given folder <br>
+	 * The class loader is created if none or if the folder content has changed since its creation
+	 * @param classesFolder the "classes" folder
+	 * @param parent the parent class loader
+	 * @return
+	 * @throws MalformedURLException
+	 */
+	public static SpecificClassLoader getClassLoader(File classesFolder, ClassLoader parent) throws MalformedURLException {
+		String key = getKey(classesFolder) ;
+		long stamp = computeStamp(classesFolder);
+		synchronized (classLoaders) {
+			SpecificClassLoader specificClassLoader = classLoaders.get(key);
+			if ( specificClassLoader == null 
+					|| specificClassLoader.folderStamp != stamp 
+					|| specificClassLoader.classLoader.getParent() != parent ) {
+				//--- New (or invalidated) class loader : replaces the previous one for this folder
+				specificClassLoader = new SpecificClassLoader(key, classesFolder, stamp, parent);
+				classLoaders.put(key, specificClassLoader);
+			}
+			return specificClassLoader ;
+		}
+	}
+
+	//--------------------------------------------------------------------------------------------------------------
+	/**
+	 * Returns true if the given class loader is still the one kept for its folder <br>
+	 * ( without checking the folder content )
+	 * @param specificClassLoader
+	 * @return
+	 */
+	public static boolean isCurrent(SpecificClassLoader specificClassLoader) {
+		synchronized (classLoaders) {
+			return classLoaders.get(specificClassLoader.key) == specificClassLoader ;
+		}
+	}
+	
+	//--------------------------------------------------------------------------------------------------------------
+	/**
+	 * Removes all the class loaders kept 
+	 */
+	public static void clear() {
+		synchronized (classLoaders) {
+			classLoaders.clear();
+		}
+	}
+	
+	//--------------------------------------------------------------------------------------------------------------
+	/**
+	 * Returns the key of the given folder ( the same folder always has the same key )
+	 * @param folder
+	 * @return
+	 */
+	private static String getKey(File folder) {
+		try {
+			return folder.getCanonicalPath();
+		} catch (IOException e) {
+			return folder.getAbsolutePath();
+		}
+	}
+	
+	//--------------------------------------------------------------------------------------------------------------
+	/**
+	 * Computes a "stamp" for the given folder content (all the files in the folder tree) <br>
+	 * using each file path, size and last modified date 
+	 * @param folder
+	 * @return the stamp ( 0 if the folder doesn't exist )
+	 */
+	private static long computeStamp(File folder) {
+		if ( ! folder.isDirectory() ) {
+			return 0 ;
+		}
+		long stamp = folder.lastModified() ;
+		File[] files = folder.listFiles();
+		if ( files != null ) {
+			for ( File file : files ) {
+				long fileStamp = file.isDirectory() ? computeStamp(file) : ( file.lastModified() * 31 + file.length() ) ;
+				stamp = stamp * 31 + file.getName().hashCode() ;
+				stamp = stamp * 31 + fileStamp ;
+			}
+		}
+		return stamp ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------------------
+	private SpecificClassLoader(String key, File classesFolder, long folderStamp, ClassLoader parent) throws MalformedURLException {
+		super();
+		this.key = key ;
+		this.classesFolder = classesFolder ;
+		this.folderStamp = folderStamp ;
+		
+		//--- URLs : the folder ( "file:/c:/templatesFolder/classes/" ) and the jars in the folder
+		List<URL> urls = new LinkedList<URL>();
+		urls.add( classesFolder.toURI().toURL() );
+		File[] files = classesFolder.listFiles();
+		if ( files != null ) {
+			for ( File file : files ) {
+				if ( file.isFile() && file.getName().toLowerCase().endsWith(JAR_SUFFIX) ) {
+					urls.add( file.toURI().toURL() );
+				}
+			}
+		}
+		this.classLoader = new URLClassLoader(urls.toArray(new URL[urls.size()]), parent );
+	}
+
+	//--------------------------------------------------------------------------------------------------------------
+	/**
+	 * Returns the folder where the classes are searched
+	 * @return
+	 */
+	public File getClassesFolder() {
+		return classesFolder ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------------------
+	/**
+	 * Loads the given class ( or returns it if already loaded )
+	 * @param javaClassName
+	 * @return
+	 * @throws ClassNotFoundException
+	 */
+	public Class<?> loadClass(String javaClassName) throws ClassNotFoundException {
+		synchronized (classes) {
+			Class<?> javaClass = classes.get(javaClassName);
+			if ( javaClass == null ) {
+				javaClass = classLoader.loadClass(javaClassName);
+				classes.put(javaClassName, javaClass);
+			}
+			return javaClass ;
+		}
+	}
+}
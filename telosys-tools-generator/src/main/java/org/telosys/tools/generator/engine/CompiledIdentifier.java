@@ -0,0 +1,168 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.engine;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+
+import org.apache.velocity.app.event.EventHandlerUtil;
+import org.apache.velocity.context.InternalContextAdapter;
+import org.apache.velocity.exception.MethodInvocationException;
+import org.apache.velocity.exception.TemplateInitException;
+import org.apache.velocity.runtime.parser.ParserTreeConstants;
+import org.apache.velocity.runtime.parser.node.ASTIdentifier;
+
+/**
+ * Compiled form of a Velocity property reference ( e.g. ".name" in "$entity.name" ) <br>
+ * The getter is resolved once for the class of the object ( monomorphic inline cache ) 
+ * with the same rules as the Velocity "PropertyExecutor" ( "getfoo" then "getFoo" ) 
+ * and then invoked directly, without the Velocity introspection on each evaluation. <br>
+ * An exception thrown by the getter is reported as Velocity does ( "MethodInvocationException" 
+ * with the template location, after the "MethodExceptionEventHandler" if any ). <br>
+ * All the other cases ( Map, "isFoo", "get(String)", non public class, etc ) 
+ * are delegated to the standard Velocity interpreter ( same results and same error handling ). 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class CompiledIdentifier extends ASTIdentifier {
+
+	/**
+	 * Getter resolved for a class ( immutable )
+	 */
+	private final static class Getter {
+		private final Class<?> type ;
+		private final Method   method ; // null if no direct getter for this class
+		private Getter(Class<?> type, Method method) {
+			this.type = type ;
+			this.method = method ;
+		}
+	}
+	
+	private String propertyName = null ;
+	
+	private volatile Getter lastGetter = null ; // last class seen by this node 
+	
+	/**
+	 * Constructor
+	 * @param original the identifier node parsed by Velocity 
+	 */
+	public CompiledIdentifier(ASTIdentifier original) {
+		super(ParserTreeConstants.JJTIDENTIFIER);
+		this.first = original.getFirstToken();
+		this.last  = original.getLastToken();
+		this.templateName = original.getTemplateName();
+		this.parent = original.jjtGetParent();
+		setInfo(original.getInfo());
+	}
+
+	@Override
+	public Object init(InternalContextAdapter context, Object data) throws TemplateInitException {
+		Object o = super.init(context, data);
+		propertyName = getFirstToken().image ;
+		return o ;
+	}
+
+	@Override
+	public Object execute(Object o, InternalContextAdapter context) throws MethodInvocationException {
+		if ( o != null ) {
+			Getter getter = lastGetter ;
+			if ( getter == null || getter.type != o.getClass() ) {
+				getter = new Getter(o.getClass(), resolveGetter(o.getClass(), propertyName) );
+				lastGetter = getter ;
+			}
+			if ( getter.method != null ) {
+				try {
+					return getter.method.invoke(o, (Object[]) null);
+				} catch (IllegalAccessException e) {
+					// Not invoked : no direct call for this class, resolved by Velocity 
+					lastGetter = new Getter(o.getClass(), null);
+				} catch (InvocationTargetException e) {
+					// Invoked : the getter must not be called again by Velocity
+					return invocationError(o, context, getter.method, e);
+				}
+			}
+		}
+		return super.execute(o, context);
+	}
+	
+	/**
+	 * Reports the exception thrown by the getter in the same way as "ASTIdentifier"
+	 * @param o
+	 * @param context
+	 * @param method
+	 * @param e
+	 * @return the value provided by the "MethodExceptionEventHandler" if any 
+	 * @throws MethodInvocationException
+	 */
+	private Object invocationError(Object o, InternalContextAdapter context, Method method, 
+			InvocationTargetException e) throws MethodInvocationException {
+		Throwable t = e.getTargetException();
+		if ( t instanceof Exception ) {
+			try {
+				return EventHandlerUtil.methodException(rsvc, context, o.getClass(), method.getName(), (Exception) t);
+			} catch (Exception e2) {
+				// no event handler ( or the handler has rethrown the exception )
+			}
+		}
+		throw new MethodInvocationException( 
+				"Invocation of method '" + method.getName() + "'" 
+				+ " in  " + o.getClass() 
+				+ " threw exception " + t.toString(), 
+				t, method.getName(), getTemplateName(), this.getLine(), this.getColumn() );
+	}
+	
+	/**
+	 * Returns the public getter to be used for the given property ( same rules as Velocity "PropertyExecutor" )
+	 * @param type
+	 * @param property
+	 * @return the getter or null if the property cannot be resolved directly 
+	 */
+	public static Method resolveGetter(Class<?> type, String property) {
+		if ( property == null || property.length() == 0 ) {
+			return null ;
+		}
+		StringBuilder sb = new StringBuilder("get");
+		sb.append(property);
+		Method method = getPublicMethod(type, sb.toString()) ;
+		if ( method == null ) {
+			char c = sb.charAt(3);
+			sb.setCharAt(3, Character.isLowerCase(c) ? Character.toUpperCase(c) : Character.toLowerCase(c) );
+			method = getPublicMethod(type, sb.toString()) ;
+		}
+		if ( method == null && Map.class.isAssignableFrom(type) ) {
+			return null ; // Map.get(key) : Velocity "MapGetExecutor"
+		}
+		return method ;
+	}
+	
+	private static Method getPublicMethod(Class<?> type, String name) {
+		try {
+			Method method = type.getMethod(name, (Class<?>[]) null);
+			if ( Modifier.isPublic(method.getDeclaringClass().getModifiers()) 
+					&& Modifier.isPublic(type.getModifiers()) ) {
+				return method ;
+			}
+			return null ; // not visible for Velocity ( or visible only through a public interface ) 
+		} catch (NoSuchMethodException e) {
+			return null ;
+		} catch (SecurityException e) {
+			return null ;
+		}
+	}
+}
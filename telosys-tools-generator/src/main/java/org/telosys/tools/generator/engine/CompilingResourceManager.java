@@ -0,0 +1,43 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.engine;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.exception.ParseErrorException;
+import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.runtime.resource.Resource;
+import org.apache.velocity.runtime.resource.ResourceManagerImpl;
+
+/**
+ * Velocity resource manager compiling the templates when they are loaded <br>
+ * ( the main template and the templates used with "#parse" ) <br>
+ * Used with the Velocity property "resource.manager.class" 
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class CompilingResourceManager extends ResourceManagerImpl {
+
+	@Override
+	public Resource getResource(String resourceName, int resourceType, String encoding) 
+			throws ResourceNotFoundException, ParseErrorException {
+		Resource resource = super.getResource(resourceName, resourceType, encoding);
+		if ( resource instanceof Template ) {
+			TemplateCompiler.compile((Template) resource, rsvc);
+		}
+		return resource ;
+	}
+}
@@ -0,0 +1,214 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.engine;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.velocity.runtime.log.Log;
+import org.apache.velocity.runtime.log.NullLogChute;
+import org.apache.velocity.util.introspection.Info;
+import org.apache.velocity.util.introspection.Introspector;
+import org.apache.velocity.util.introspection.UberspectImpl;
+import org.apache.velocity.util.introspection.VelMethod;
+import org.apache.velocity.util.introspection.VelPropertyGet;
+import org.telosys.tools.generator.context.doc.DocBuilder;
+
+/**
+ * Velocity "Uberspect" shared by all the engines of the generator <br>
+ * ( used with the Velocity property "runtime.introspector.uberspect" ) <br>
+ * The introspection of the classes loaded by the generator ( context classes annotated with 
+ * "@VelocityObject", JDK classes ) is done once per JVM and shared by all the engines and threads : <br>
+ * . the methods maps are built by a shared introspector ( prepared at the first engine initialization 
+ * for all the classes listed by {@link DocBuilder#getVelocityClasses()} ) <br>
+ * . the methods and getters resolved for these classes are kept in shared caches <br>
+ * The other classes ( e.g. classes loaded with "$loader" ) keep a specific introspection by engine 
+ * ( nothing shared refers to them ). <br>
+ * The shared caches hits and misses are counted ( see {@link #getHits()} and {@link #getMisses()} ).
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class GeneratorUberspect extends UberspectImpl {
+
+	private final static ClassLoader GENERATOR_CLASS_LOADER = GeneratorUberspect.class.getClassLoader();
+	
+	private final static SharedUberspect sharedUberspect = new SharedUberspect();
+	
+	private final static ConcurrentMap<CacheKey, VelMethod>      sharedMethods = new ConcurrentHashMap<CacheKey, VelMethod>();
+	
+	private final static ConcurrentMap<CacheKey, VelPropertyGet> sharedGetters = new ConcurrentHashMap<CacheKey, VelPropertyGet>();
+	
+	private final static AtomicLong hits   = new AtomicLong();
+	
+	private final static AtomicLong misses = new AtomicLong();
+	
+	private static boolean warmedUp = false ;
+	
+	/**
+	 * Key for a method or a getter resolved for a class ( with the arguments types if any )
+	 */
+	private final static class CacheKey {
+		private final Class<?>   type ;
+		private final String     name ;
+		private final Class<?>[] argsTypes ;
+		private final int        hashCode ;
+		
+		private CacheKey(Class<?> type, String name, Class<?>[] argsTypes) {
+			this.type = type ;
+			this.name = name ;
+			this.argsTypes = argsTypes ;
+			this.hashCode = 31 * ( 31 * type.hashCode() + name.hashCode() ) + Arrays.hashCode(argsTypes) ;
+		}
+		@Override
+		public int hashCode() {
+			return hashCode ;
+		}
+		@Override
+		public boolean equals(Object o) {
+			if ( o instanceof CacheKey ) {
+				CacheKey other = (CacheKey) o ;
+				return type == other.type && name.equals(other.name) && Arrays.equals(argsTypes, other.argsTypes) ;
+			}
+			return false ;
+		}
+	}
+	
+	/**
+	 * Standard Uberspect ( not linked to an engine ) used for the shared introspection 
+	 */
+	private final static class SharedUberspect extends UberspectImpl {
+		private SharedUberspect() {
+			super();
+			setLog( new Log( new NullLogChute() ) );
+			init();
+		}
+		private Introspector getIntrospector() {
+			return introspector ;
+		}
+	}
+	
+	@Override
+	public void init() {
+		super.init();
+		warmUp();
+	}
+	
+	/**
+	 * Builds the methods maps of all the context classes in the shared introspector ( once per JVM )
+	 */
+	public static synchronized void warmUp() {
+		if ( ! warmedUp ) {
+			for ( Class<?> c : DocBuilder.getVelocityClasses() ) {
+				sharedUberspect.getIntrospector().getMethod(c, "toString", new Object[0]); // creates the class map
+			}
+			warmedUp = true ;
+		}
+	}
+	
+	private static boolean isShareable(Class<?> c) {
+		ClassLoader classLoader = c.getClassLoader() ;
+		return classLoader == null || classLoader == GENERATOR_CLASS_LOADER ;
+	}
+	
+	private static CacheKey buildKey(Object obj, String name, Object[] args) {
+		if ( obj == null || obj instanceof Class || ! isShareable(obj.getClass()) ) {
+			return null ; // static methods of a class, specific class : not shared
+		}
+		Class<?>[] argsTypes = new Class<?>[ args != null ? args.length : 0 ] ;
+		for ( int i = 0 ; i < argsTypes.length ; i++ ) {
+			if ( args[i] != null ) {
+				argsTypes[i] = args[i].getClass();
+				if ( ! isShareable(argsTypes[i]) ) {
+					return null ;
+				}
+			}
+		}
+		return new CacheKey(obj.getClass(), name, argsTypes);
+	}
+	
+	@Override
+	public VelMethod getMethod(Object obj, String methodName, Object[] args, Info i) throws Exception {
+		CacheKey key = buildKey(obj, methodName, args) ;
+		if ( key == null ) {
+			return super.getMethod(obj, methodName, args, i);
+		}
+		VelMethod velMethod = sharedMethods.get(key);
+		if ( velMethod != null ) {
+			hits.incrementAndGet();
+			return velMethod ;
+		}
+		misses.incrementAndGet();
+		velMethod = sharedUberspect.getMethod(obj, methodName, args, i);
+		if ( velMethod != null ) {
+			sharedMethods.putIfAbsent(key, velMethod);
+		}
+		return velMethod ;
+	}
+
+	@Override
+	public VelPropertyGet getPropertyGet(Object obj, String identifier, Info i) throws Exception {
+		CacheKey key = buildKey(obj, identifier, null) ;
+		if ( key == null ) {
+			return super.getPropertyGet(obj, identifier, i);
+		}
+		VelPropertyGet velPropertyGet = sharedGetters.get(key);
+		if ( velPropertyGet != null ) {
+			hits.incrementAndGet();
+			return velPropertyGet ;
+		}
+		misses.incrementAndGet();
+		velPropertyGet = sharedUberspect.getPropertyGet(obj, identifier, i);
+		if ( velPropertyGet != null && velPropertyGet.isCacheable() ) {
+			sharedGetters.putIfAbsent(key, velPropertyGet);
+		}
+		return velPropertyGet ;
+	}
+	
+	/**
+	 * Returns the number of methods and getters found in the shared caches
+	 * @return
+	 */
+	public static long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Returns the number of methods and getters not found in the shared caches ( resolved by introspection )
+	 * @return
+	 */
+	public static long getMisses() {
+		return misses.get();
+	}
+	
+	/**
+	 * Returns the number of methods and getters kept in the shared caches 
+	 * @return
+	 */
+	public static int getSharedCount() {
+		return sharedMethods.size() + sharedGetters.size() ;
+	}
+	
+	/**
+	 * Resets the hits and misses counters
+	 */
+	public static void resetCounters() {
+		hits.set(0);
+		misses.set(0);
+	}
+}
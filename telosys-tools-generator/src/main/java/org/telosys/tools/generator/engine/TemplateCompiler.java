@@ -0,0 +1,105 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.engine;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.context.InternalContextAdapterImpl;
+import org.apache.velocity.exception.TemplateInitException;
+import org.apache.velocity.runtime.RuntimeServices;
+import org.apache.velocity.runtime.parser.node.ASTIdentifier;
+import org.apache.velocity.runtime.parser.node.ASTReference;
+import org.apache.velocity.runtime.parser.node.Node;
+
+/**
+ * Templates compiler <br>
+ * Translates the AST of a parsed template : each property reference ( "$entity.name", "$attribute.getter", etc ) 
+ * is replaced by a compiled node with a direct call to the getter resolved for the object class. <br>
+ * The other nodes ( directives, macros, methods with arguments, etc ) are kept as is and interpreted by Velocity. <br>
+ * A template is compiled only once ( the compiled AST is kept with the template in the engine cache 
+ * until the template file is modified ).
+ * 
+ * @author Laurent GUERIN
+ *
+ */
+public class TemplateCompiler {
+
+	private final static Map<Template, Integer> compiledTemplates = 
+			Collections.synchronizedMap( new WeakHashMap<Template, Integer>() ) ;
+	
+	/**
+	 * Private constructor
+	 */
+	private TemplateCompiler() {
+	}
+	
+	/**
+	 * Compiles the given template if not yet compiled 
+	 * @param template a parsed template
+	 * @param rsvc the Velocity runtime owning the template
+	 * @return the number of compiled nodes 
+	 */
+	public static int compile(Template template, RuntimeServices rsvc) {
+		synchronized (template) {
+			Integer count = compiledTemplates.get(template);
+			if ( count == null ) {
+				int n = 0 ;
+				Object data = template.getData() ;
+				if ( data instanceof Node ) {
+					InternalContextAdapterImpl ica = new InternalContextAdapterImpl( new VelocityContext() );
+					n = compileNode((Node) data, ica, rsvc);
+				}
+				count = Integer.valueOf(n);
+				compiledTemplates.put(template, count);
+			}
+			return count.intValue() ;
+		}
+	}
+	
+	/**
+	 * Returns true if the given template has been compiled 
+	 * @param template
+	 * @return
+	 */
+	public static boolean isCompiled(Template template) {
+		return compiledTemplates.containsKey(template) ;
+	}
+	
+	private static int compileNode(Node node, InternalContextAdapterImpl ica, RuntimeServices rsvc) {
+		int count = 0 ;
+		for ( int i = 0 ; i < node.jjtGetNumChildren() ; i++ ) {
+			Node child = node.jjtGetChild(i) ;
+			if ( child instanceof ASTIdentifier && node instanceof ASTReference && ! ( child instanceof CompiledIdentifier ) ) {
+				CompiledIdentifier compiledIdentifier = new CompiledIdentifier((ASTIdentifier) child);
+				try {
+					compiledIdentifier.init(ica, rsvc);
+					node.jjtAddChild(compiledIdentifier, i); // replace the original node
+					count++ ;
+				} catch (TemplateInitException e) {
+					// cannot compile : keep the original node
+				}
+			}
+			else {
+				count = count + compileNode(child, ica, rsvc);
+			}
+		}
+		return count ;
+	}
+}
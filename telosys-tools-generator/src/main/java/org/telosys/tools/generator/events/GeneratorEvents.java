@@ -17,6 +17,7 @@ package org.telosys.tools.generator.events;
 
 import org.apache.velocity.app.event.EventCartridge;
 import org.apache.velocity.context.Context;
+import org.telosys.tools.generator.TemplateDependencyGraph;
 
 /**
  * Velocity Generator EVENT HANDLERS 
@@ -27,6 +28,15 @@ import org.apache.velocity.context.Context;
 public class GeneratorEvents {
 
 	public final static void attachEvents(Context context) {
+		attachEvents(context, null);
+	}
+	
+	/**
+	 * Attaches the event handlers to the given context 
+	 * @param context
+	 * @param graph the graph where to register the templates dependencies ( or null if none )
+	 */
+	public final static void attachEvents(Context context, TemplateDependencyGraph graph) {
 		
 		//--- Make a cartridge to hold the event handlers 
 		EventCartridge ec = new EventCartridge();
@@ -34,6 +44,11 @@ public class GeneratorEvents {
 		//--- Event handler for "Invalid Reference"
 		ec.addInvalidReferenceEventHandler( new InvalidReferenceEventImpl() );
 		
+		//--- Event handler for "#parse" and "#include" ( templates dependencies )
+		if ( graph != null ) {
+			ec.addIncludeEventHandler( new IncludeEventImpl(graph) );
+		}
+		
 		//ec.addNullSetEventHandler( new NullSetEventImpl() );
 		
 		//--- Finally let it attach itself to the context
@@ -0,0 +1,50 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.events;
+
+import org.apache.velocity.app.event.IncludeEventHandler;
+import org.telosys.tools.generator.TemplateDependencyGraph;
+
+/**
+ * Velocity "include event" handler : called for each "#parse" and "#include" <br>
+ * Used to register the templates dependencies ( the resource path is not changed )
+ * 
+ * @author Laurent Guerin
+ *
+ */
+public class IncludeEventImpl implements IncludeEventHandler {
+
+	private final TemplateDependencyGraph graph ;
+	
+	/**
+	 * Constructor
+	 * @param graph the graph where to register the dependencies 
+	 */
+	public IncludeEventImpl(TemplateDependencyGraph graph) {
+		super();
+		this.graph = graph;
+	}
+
+	/**
+	 * Called when an include-type directive is encountered ( #include or #parse ) 
+	 */
+	public String includeEvent(String includeResourcePath, String currentResourcePath, String directiveName) {
+		if ( includeResourcePath != null && currentResourcePath != null ) {
+			graph.addDependency(currentResourcePath, includeResourcePath);
+		}
+		return includeResourcePath ;
+	}
+}
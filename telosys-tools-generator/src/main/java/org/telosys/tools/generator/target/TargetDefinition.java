@@ -35,6 +35,10 @@ public class TargetDefinition
 	private final String  _sTemplate ; // or resource ( since v 2.0.7 )
 
 	private final String  _sType ; // "1", "R", "*" or ""
+
+	private final TargetPathTemplate _fileTemplate ;   // file compiled once for all the entities
+
+	private final TargetPathTemplate _folderTemplate ; // folder compiled once for all the entities
 	//private final boolean  _bOnce ;
 
 	//-----------------------------------------------------------------------
@@ -54,6 +58,8 @@ public class TargetDefinition
 		_sFolder = folder;
 		_sTemplate = template;
 		_sType = ( type != null ? type.trim() : "" ) ;
+		_fileTemplate   = TargetPathTemplate.compile(file);
+		_folderTemplate = TargetPathTemplate.compile(folder);
 		//_bOnce = getOnceFlag(type) ;
 	}
 	
@@ -101,6 +107,26 @@ public class TargetDefinition
 		return _sFolder ;
 	}
 	
+	//-----------------------------------------------------------------------
+	/**
+	 * Returns the precompiled template of the file name
+	 * @return
+	 */
+	public TargetPathTemplate getFileTemplate()
+	{
+		return _fileTemplate ;
+	}
+	
+	//-----------------------------------------------------------------------
+	/**
+	 * Returns the precompiled template of the folder
+	 * @return
+	 */
+	public TargetPathTemplate getFolderTemplate()
+	{
+		return _folderTemplate ;
+	}
+	
 	//-----------------------------------------------------------------------
 	public String getFullFileName()
 	{
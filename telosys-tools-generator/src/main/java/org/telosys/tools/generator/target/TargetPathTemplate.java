@@ -0,0 +1,193 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.target;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.telosys.tools.commons.config.ConfigDefaults;
+
+/**
+ * Precompiled path template for a target file or folder ( e.g. "${SRC}/${ROOT_PKG}/${BEANNAME_LC}" ) <br>
+ * The original string is parsed only once into literal and variable segments, <br>
+ * then it can be resolved for each entity without any further parsing. <br>
+ * <br>
+ * Resolution rules : <br>
+ * . "${BEANNAME}", "${BEANNAME_UC}" and "${BEANNAME_LC}" are replaced by the entity class name <br>
+ * . the other variables are replaced by their values ( kept as is if unknown ) <br>
+ * . "${" without a closing "}" is kept as literal <br>
+ * 
+ * @author L. Guerin
+ *
+ */
+public final class TargetPathTemplate 
+{
+	private final static int LITERAL     = 0 ;
+	private final static int VARIABLE    = 1 ;
+	private final static int BEANNAME    = 2 ;
+	private final static int BEANNAME_UC = 3 ;
+	private final static int BEANNAME_LC = 4 ;
+	
+	private final static String BEANNAME_VAR    = ConfigDefaults.BEANNAME ;
+	private final static String BEANNAME_UC_VAR = ConfigDefaults.BEANNAME + "_UC" ;
+	private final static String BEANNAME_LC_VAR = ConfigDefaults.BEANNAME + "_LC" ;
+	
+	private final String   _sOriginal ;
+	
+	private final int[]    _kinds ;    // kind of each segment
+	
+	private final String[] _texts ;    // literal text or variable name (without "${" and "}")
+	
+	private final int      _literalsLength ;
+
+	private final boolean  _hasVariables ;
+	
+	/**
+	 * Compiles the given path 
+	 * @param path the original path (can be null)
+	 * @return
+	 */
+	public static TargetPathTemplate compile( String path ) 
+	{
+		return new TargetPathTemplate( path );
+	}
+	
+	private TargetPathTemplate( String path ) 
+	{
+		super();
+		_sOriginal = path ;
+		List<Integer> kinds = new ArrayList<Integer>();
+		List<String>  texts = new ArrayList<String>();
+		int literalsLength = 0 ;
+		if ( path != null ) {
+			int len = path.length();
+			int pos = 0 ;
+			while ( pos < len ) {
+				int start = path.indexOf("${", pos);
+				int end   = ( start >= 0 ? path.indexOf('}', start + 2) : -1 ) ;
+				if ( start < 0 || end < 0 ) {
+					//--- No more variable : the end of the string is a literal
+					literalsLength += addLiteral(kinds, texts, path.substring(pos) );
+					break ;
+				}
+				if ( start > pos ) {
+					literalsLength += addLiteral(kinds, texts, path.substring(pos, start) );
+				}
+				String name = path.substring(start + 2, end) ;
+				if ( name.length() == 0 ) {
+					literalsLength += addLiteral(kinds, texts, "${}" );
+				}
+				else {
+					kinds.add( variableKind(name) );
+					texts.add( name );
+				}
+				pos = end + 1 ;
+			}
+		}
+		_kinds = new int[kinds.size()];
+		_texts = new String[texts.size()];
+		boolean hasVariables = false ;
+		for ( int i = 0 ; i < _kinds.length ; i++ ) {
+			_kinds[i] = kinds.get(i) ;
+			_texts[i] = texts.get(i) ;
+			if ( _kinds[i] != LITERAL ) {
+				hasVariables = true ;
+			}
+		}
+		_literalsLength = literalsLength ;
+		_hasVariables = hasVariables ;
+	}
+
+	private int addLiteral( List<Integer> kinds, List<String> texts, String literal ) 
+	{
+		int last = kinds.size() - 1 ;
+		if ( last >= 0 && kinds.get(last) == LITERAL ) {
+			//--- Merge with the previous literal
+			texts.set(last, texts.get(last) + literal );
+		}
+		else {
+			kinds.add( LITERAL );
+			texts.add( literal );
+		}
+		return literal.length();
+	}
+	
+	private int variableKind( String name ) 
+	{
+		if ( BEANNAME_VAR.equals(name) )    return BEANNAME ;
+		if ( BEANNAME_UC_VAR.equals(name) ) return BEANNAME_UC ;
+		if ( BEANNAME_LC_VAR.equals(name) ) return BEANNAME_LC ;
+		return VARIABLE ;
+	}
+	
+	/**
+	 * Returns the original path (as defined in the targets file)
+	 * @return
+	 */
+	public String getOriginal() 
+	{
+		return _sOriginal ;
+	}
+	
+	/**
+	 * Resolves the template for the given entity class name
+	 * @param beanClassName the entity class name (used for "${BEANNAME}", "${BEANNAME_UC}" and "${BEANNAME_LC}")
+	 * @param variables the project variables (can be null)
+	 * @param packageAsDirectory if true the "XXX_PKG" variables are resolved as directory paths ( '.' replaced by '/' )
+	 * @return the resolved path (or null if the original path is null)
+	 */
+	public String resolve( String beanClassName, TargetVariables variables, boolean packageAsDirectory ) 
+	{
+		if ( _sOriginal == null ) return null ;
+		if ( ! _hasVariables ) return _sOriginal ;
+		
+		String beanName = ( beanClassName != null ? beanClassName : "" ) ;
+		StringBuilder sb = new StringBuilder( _literalsLength + ( _kinds.length * 16 ) ) ;
+		for ( int i = 0 ; i < _kinds.length ; i++ ) {
+			String text = _texts[i] ;
+			switch ( _kinds[i] ) {
+			case LITERAL :
+				sb.append(text);
+				break ;
+			case BEANNAME :
+				sb.append(beanName);
+				break ;
+			case BEANNAME_UC :
+				sb.append(beanName.toUpperCase());
+				break ;
+			case BEANNAME_LC :
+				sb.append(beanName.toLowerCase());
+				break ;
+			default :
+				String value = ( variables != null ? variables.getValue(text, packageAsDirectory) : null ) ;
+				if ( value != null ) {
+					sb.append(value);
+				}
+				else {
+					//--- Unknown variable : kept as is
+					sb.append("${").append(text).append('}');
+				}
+			}
+		}
+		return sb.toString();
+	}
+
+	@Override
+	public String toString() 
+	{
+		return "TargetPathTemplate [" + _sOriginal + "]" ;
+	}
+}
@@ -0,0 +1,84 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.generator.target;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.telosys.tools.commons.variables.Variable;
+
+/**
+ * Immutable table of the project variables used to resolve the targets paths <br>
+ * Built once for a set of variables and shared by all the targets (no copy per target) <br>
+ * The values of the "package variables" ( "XXX_PKG" ) are also kept as directory paths 
+ * ( '.' replaced by '/' ) to be used in the folders 
+ * 
+ * @author L. Guerin
+ *
+ */
+public final class TargetVariables 
+{
+	private final static String PKG_SUFFIX = "_PKG" ;
+	
+	private final Map<String,String> _values ;    // variable name ( without "${" and "}" ) --> value
+	
+	private final Map<String,String> _dirValues ; // same with package variables converted to directory path
+
+	/**
+	 * Constructor
+	 * @param variables the project variables (can be null)
+	 */
+	public TargetVariables( Variable[] variables ) 
+	{
+		super();
+		int size = ( variables != null ? variables.length : 0 ) ;
+		Map<String,String> values    = new HashMap<String,String>( size * 2 + 1 ) ;
+		Map<String,String> dirValues = new HashMap<String,String>( size * 2 + 1 ) ;
+		if ( variables != null ) {
+			for ( Variable v : variables ) {
+				if ( v != null && v.getName() != null && v.getValue() != null ) {
+					String name  = v.getName() ;
+					String value = v.getValue() ;
+					values.put(name, value);
+					dirValues.put(name, name.endsWith(PKG_SUFFIX) ? value.replace('.', '/') : value );
+				}
+			}
+		}
+		_values    = Collections.unmodifiableMap(values);
+		_dirValues = Collections.unmodifiableMap(dirValues);
+	}
+
+	/**
+	 * Returns the value of the given variable 
+	 * @param name the variable name ( without "${" and "}" )
+	 * @param packageAsDirectory if true the "XXX_PKG" values are returned as directory paths
+	 * @return the value or null if the variable is not defined
+	 */
+	public String getValue( String name, boolean packageAsDirectory ) 
+	{
+		return packageAsDirectory ? _dirValues.get(name) : _values.get(name) ;
+	}
+
+	/**
+	 * Returns the number of variables
+	 * @return
+	 */
+	public int size() 
+	{
+		return _values.size() ;
+	}
+}
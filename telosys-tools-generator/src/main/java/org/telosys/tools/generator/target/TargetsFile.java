@@ -17,12 +17,15 @@ package org.telosys.tools.generator.target;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.LinkedList;
 import java.util.List;
 
+import org.telosys.tools.commons.LoadedFilesCache;
 import org.telosys.tools.commons.StrUtil;
 import org.telosys.tools.generator.GeneratorException;
 
@@ -36,6 +39,14 @@ public class TargetsFile {
 	
     private static final int  BUFFER_SIZE  = 2048;
 	
+    private static final String ENCODING   = "UTF-8";
+	
+    /**
+     * Targets loaded from the files (shared by all the instances) <br>
+     * a file is parsed again only if it has been modified 
+     */
+    private static final LoadedFilesCache<List<TargetDefinition>> targetsCache = new LoadedFilesCache<List<TargetDefinition>>();
+	
     private final String targetsFileName ;
     
     /**
@@ -63,8 +74,18 @@ public class TargetsFile {
 	 */
 	public List<TargetDefinition> load() throws GeneratorException
     {
+		File file = ( targetsFileName != null ? new File(targetsFileName) : null ) ;
+		if ( file != null ) {
+			List<TargetDefinition> cachedList = targetsCache.get(file);
+			if ( cachedList != null ) {
+				// Copy ( the targets definitions are immutable )
+				return new LinkedList<TargetDefinition>(cachedList) ;
+			}
+		}
+		
     	List<TargetDefinition> list = null ;
-        FileReader fr = getFileReader();
+		long[] stamp = ( file != null ? LoadedFilesCache.getStamp(file) : null ) ;
+        Reader fr = getFileReader();
         if ( fr != null )
         {
         	boolean ioException = false ;
@@ -87,6 +108,7 @@ public class TargetsFile {
         else {
         	throw new GeneratorException("Targets file '" + targetsFileName + "' not found");
         }
+        targetsCache.put(file, stamp, new LinkedList<TargetDefinition>(list) );
         return list ;
     }
     
@@ -137,25 +159,28 @@ public class TargetsFile {
     }
 
     /**
-     * Return a FileReader for the current file name or null if the file doesn't exist
+     * Return a Reader for the current file name or null if the file doesn't exist
      * @return
      */
-    private FileReader getFileReader()
+    private Reader getFileReader()
     {
-    	FileReader fr = null ;
+    	Reader fr = null ;
     	if ( targetsFileName != null )
     	{
             try {
-				fr = new FileReader(targetsFileName);
+				fr = new InputStreamReader(new FileInputStream(targetsFileName), ENCODING);
 			} catch (FileNotFoundException e) {
 				// Not an error // MsgBox.error("File '" + sFileName + "' not found");
 				fr = null ;
+			} catch (IOException e) {
+				// Unsupported encoding : cannot happen with UTF-8
+				fr = null ;
 			}
     	}
     	return fr; 
     }
     
-    private void close(FileReader fr)
+    private void close(Reader fr)
     {
     	if ( fr != null )
     	{
@@ -21,6 +21,7 @@ import java.util.List;
 import org.telosys.tools.commons.TelosysToolsException;
 import org.telosys.tools.commons.TelosysToolsLogger;
 import org.telosys.tools.commons.variables.Variable;
+import org.telosys.tools.generator.GenerationSession;
 import org.telosys.tools.generator.Generator;
 import org.telosys.tools.generator.GeneratorException;
 import org.telosys.tools.generator.config.GeneratorConfig;
@@ -45,6 +46,8 @@ public class GeneratorRunner {
 	
 	private final TelosysToolsLogger  logger ;
 	
+	private final GenerationSession   session ; // shared by all the generations launched by this runner
+	
 	/**
 	 * Constructor 
 	 * 
@@ -64,6 +67,7 @@ public class GeneratorRunner {
 		this.repositoryModel = repositoryModel;
 		this.generatorConfig = generatorConfig;
 		this.logger = logger;
+		this.session = new GenerationSession();
 	}
 
 	/**
@@ -79,11 +83,11 @@ public class GeneratorRunner {
 		super();
 		this.logger = logger;
 		
-		//--- Load the repository 
+		//--- Load the repository ( each entity is loaded on its first use )
 		StandardFilePersistenceManager pm = new StandardFilePersistenceManager( repositoryFileName, logger );		
 		RepositoryModel repositoryModel = null ;
 		try {
-			repositoryModel = pm.load();
+			repositoryModel = pm.loadLazily();
 		} catch (TelosysToolsException e) {
 			throw new GeneratorException("Cannot load the repository from file '" + repositoryFileName + "'", e);
 		}
@@ -93,7 +97,7 @@ public class GeneratorRunner {
 		GeneratorConfigManager configManager = new GeneratorConfigManager(logger);
 		GeneratorConfig config = configManager.initFromDirectory(projectLocation, null);
 		this.generatorConfig = config ;
- 
+		this.session = new GenerationSession();
 	}
 
 
@@ -104,55 +108,48 @@ public class GeneratorRunner {
 	 * @param outputFile - the file to be generated
 	 * @param outputFolder - the folder where to put the generated file
 	 * @param templateFileName - the Velocity template to be used
+	 * @throws GeneratorException
 	 */
 	public void generateEntity(String entityName, 
 			String outputFile, 
 			String outputFolder, 
 			String templateFileName
-			) 
+			) throws GeneratorException
 	{
+		//----------------------------------------------------------------
+		// 1) Build the target
+		//----------------------------------------------------------------
+		
+		//----------------------------------------------------------------
+		// Option 1 : Test OK
+		//----------------------------------------------------------------
+		// Target target = new Target("TEST_TARGET", outputFile, outputFolder, templateFileName, entityName) ;
+		
+		//----------------------------------------------------------------
+		// Option 2 : 
+		//----------------------------------------------------------------
+		String err = "ERROR " ;
 
-		try {
-			//----------------------------------------------------------------
-			// 1) Build the target
-			//----------------------------------------------------------------
-			
-			//----------------------------------------------------------------
-			// Option 1 : Test OK
-			//----------------------------------------------------------------
-			// Target target = new Target("TEST_TARGET", outputFile, outputFolder, templateFileName, entityName) ;
-			
-			//----------------------------------------------------------------
-			// Option 2 : 
-			//----------------------------------------------------------------
-			String err = "ERROR " ;
-
-			//ProjectConfiguration projectConfiguration = generatorConfig.getProjectConfiguration();
-			
-			Entity entity = repositoryModel.getEntityByName(entityName.trim());
-			if ( null == entity ) {
-				throw new GeneratorException( err + "(entity '" + entityName + "' not found in repository)");
-			}
-
-			TargetDefinition genericTarget = new TargetDefinition("Dynamic target", outputFile, outputFolder, templateFileName, "");
-			//Target target = new Target( genericTarget, entity.getName(), entity.getBeanJavaClass(), projectConfiguration.getAllVariables() );
-			
-			Variable[] allVariables = this.generatorConfig.getTelosysToolsCfg().getAllVariables(); // ver 2.1.0
-			Target target = new Target( genericTarget, entity.getName(), entity.getBeanJavaClass(), allVariables );
-			
-			//----------------------------------------------------------------
-			// 2) Launch the generation 
-			//----------------------------------------------------------------
-
-			List<Target> generatedTargets = new LinkedList<Target>();
-			//Generator generator = new Generator(target, generatorConfig, logger);
-			Generator generator = new Generator(target, generatorConfig, repositoryModel, logger); // v 2.0.7
-			generator.generateTarget(target, repositoryModel, null, generatedTargets);
-			
-		} catch (GeneratorException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+		//ProjectConfiguration projectConfiguration = generatorConfig.getProjectConfiguration();
+		
+		Entity entity = repositoryModel.getEntityByName(entityName.trim());
+		if ( null == entity ) {
+			throw new GeneratorException( err + "(entity '" + entityName + "' not found in repository)");
 		}
+
+		TargetDefinition genericTarget = new TargetDefinition("Dynamic target", outputFile, outputFolder, templateFileName, "");
+		//Target target = new Target( genericTarget, entity.getName(), entity.getBeanJavaClass(), projectConfiguration.getAllVariables() );
+		
+		Variable[] allVariables = this.generatorConfig.getTelosysToolsCfg().getAllVariables(); // ver 2.1.0
+		Target target = new Target( genericTarget, entity.getName(), entity.getBeanJavaClass(), allVariables );
 		
+		//----------------------------------------------------------------
+		// 2) Launch the generation 
+		//----------------------------------------------------------------
+
+		List<Target> generatedTargets = new LinkedList<Target>();
+		//Generator generator = new Generator(target, generatorConfig, logger);
+		Generator generator = new Generator(target, generatorConfig, repositoryModel, logger, session); // v 2.0.7
+		generator.generateTarget(target, repositoryModel, null, generatedTargets);
 	}	
 }
@@ -0,0 +1,194 @@
+package org.telosys.tools.test.generator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.generator.GenerationSession;
+import org.telosys.tools.generator.GeneratorException;
+import org.telosys.tools.generator.ProjectGenerationSession;
+import org.telosys.tools.generator.context.Target;
+import org.telosys.tools.generator.target.TargetDefinition;
+import org.telosys.tools.repository.model.RepositoryModel;
+import org.telosys.tools.repository.persistence.StandardFilePersistenceManager;
+import org.telosys.tools.test.velocity.LoggerProvider;
+
+/**
+ * Long-lived generation session : reuse of the configuration, targets and parsed templates and invalidation
+ */
+public class ProjectGenerationSessionTest extends TestCase {
+
+	private final static String PROJECT_LOCATION = "src/test/resources" ;
+	private final static String REPOSITORY       = "repos/repo_for_tests.dbrep" ;
+	
+	private File createProject() throws IOException {
+		File folder = File.createTempFile("telosys-project-session-", "");
+		folder.delete();
+		folder.mkdirs();
+		copy(new File(PROJECT_LOCATION, "telosys-tools.cfg"), new File(folder, "telosys-tools.cfg"));
+		copy(new File(PROJECT_LOCATION, REPOSITORY), new File(folder, REPOSITORY));
+		File templates = new File(folder, "templates");
+		templates.mkdirs();
+		write(new File(templates, "templates.cfg"), 
+				"Entity ; ${BEANNAME}.txt ; generated ; entity.vm ; * \n" +
+				"Once   ; entities.txt    ; generated ; once.vm   ; 1 \n" );
+		write(new File(templates, "entity.vm"), "Entity $entity.name" );
+		write(new File(templates, "once.vm"), "#foreach( $e in $selectedEntities )$e.name #end" );
+		return folder ;
+	}
+	
+	private void copy(File source, File destination) throws IOException {
+		destination.getParentFile().mkdirs();
+		InputStream is = new FileInputStream(source);
+		OutputStream os = new FileOutputStream(destination);
+		try {
+			byte[] buffer = new byte[8192];
+			int n ;
+			while ( ( n = is.read(buffer) ) > 0 ) {
+				os.write(buffer, 0, n);
+			}
+		} finally {
+			is.close();
+			os.close();
+		}
+	}
+	
+	private void write(File file, String content) throws IOException {
+		OutputStream os = new FileOutputStream(file);
+		try {
+			os.write(content.getBytes("UTF-8"));
+		} finally {
+			os.close();
+		}
+	}
+	
+	private String read(File file) throws IOException {
+		byte[] bytes = new byte[(int)file.length()];
+		InputStream is = new FileInputStream(file);
+		try {
+			int offset = 0 ;
+			while ( offset < bytes.length ) {
+				offset = offset + is.read(bytes, offset, bytes.length - offset);
+			}
+		} finally {
+			is.close();
+		}
+		return new String(bytes, "UTF-8");
+	}
+	
+	private ProjectGenerationSession createSession(File projectFolder) throws Exception {
+		RepositoryModel model = new StandardFilePersistenceManager(new File(projectFolder, REPOSITORY), 
+				LoggerProvider.getLogger()).load();
+		return new ProjectGenerationSession(projectFolder.getAbsolutePath(), null, model, LoggerProvider.getLogger());
+	}
+	
+	private File entityFile(File projectFolder, ProjectGenerationSession session, String entityName) {
+		String beanName = session.getRepositoryModel().getEntityByName(entityName).getBeanJavaClass();
+		return new File(projectFolder, "generated/" + beanName + ".txt");
+	}
+	
+	private List<String> allEntities(ProjectGenerationSession session) {
+		return Arrays.asList( session.getRepositoryModel().getEntitiesNames() );
+	}
+	
+	public void testSuccessiveGenerations() throws Exception {
+		File projectFolder = createProject();
+		ProjectGenerationSession session = createSession(projectFolder);
+		List<String> entities = allEntities(session);
+		assertTrue(entities.size() > 1);
+		
+		List<Target> generatedTargets = new LinkedList<Target>();
+		int n = session.generate(entities, session.getTargets(), generatedTargets);
+		assertEquals(entities.size() + 1, n);
+		assertEquals(n, generatedTargets.size());
+		assertEquals(2, session.getGenerationSession().getVelocityEnginesCount());
+		
+		String firstEntity = entities.get(0);
+		assertTrue(read(entityFile(projectFolder, session, firstEntity)).startsWith("Entity "));
+		assertTrue(read(new File(projectFolder, "generated/entities.txt")).length() > 0);
+		
+		//--- Second generation : nothing reloaded
+		GenerationSession generationSession = session.getGenerationSession();
+		session.generate(entities, session.getTargets(), null);
+		assertSame(generationSession, session.getGenerationSession());
+		assertEquals(2, generationSession.getVelocityEnginesCount());
+		assertEquals(1, session.getConfigLoadsCount());
+		assertEquals(1, session.getTargetsLoadsCount());
+		
+		//--- Model changed : the parsed templates are kept
+		session.modelChanged(session.getRepositoryModel());
+		session.generate(entities, session.getTargets(), null);
+		assertEquals(2, generationSession.getVelocityEnginesCount());
+		assertEquals(1, session.getTargetsLoadsCount());
+	}
+	
+	public void testTemplatesChanged() throws Exception {
+		File projectFolder = createProject();
+		ProjectGenerationSession session = createSession(projectFolder);
+		List<String> entities = allEntities(session);
+		session.generate(entities, session.getTargets(), null);
+		
+		//--- Template modified : only this template is parsed again 
+		write(new File(projectFolder, "templates/entity.vm"), "Modified $entity.name" );
+		Set<String> affected = session.templatesChanged(Arrays.asList("entity.vm"));
+		assertEquals(1, affected.size());
+		assertTrue(affected.contains("entity.vm"));
+		assertEquals(1, session.getGenerationSession().getVelocityEnginesCount());
+		session.generate(entities, session.getTargets(), null);
+		String firstEntity = entities.get(0);
+		assertTrue(read(entityFile(projectFolder, session, firstEntity)).startsWith("Modified "));
+		assertEquals(1, session.getTargetsLoadsCount());
+		
+		//--- "templates.cfg" modified : targets reloaded
+		write(new File(projectFolder, "templates/templates.cfg"), 
+				"Entity ; ${BEANNAME}.txt ; generated ; entity.vm ; * \n" );
+		session.templatesChanged(Arrays.asList("templates.cfg"));
+		assertEquals(1, session.getTargets().size());
+		assertEquals(2, session.getTargetsLoadsCount());
+		assertEquals(1, session.getConfigLoadsCount());
+	}
+	
+	public void testInvalidation() throws Exception {
+		File projectFolder = createProject();
+		ProjectGenerationSession session = createSession(projectFolder);
+		session.generate(allEntities(session), session.getTargets(), null);
+		GenerationSession generationSession = session.getGenerationSession();
+		
+		//--- Same bundle : nothing invalidated
+		session.setBundleName(null);
+		assertSame(generationSession, session.getGenerationSession());
+		
+		//--- Configuration changed : reloaded, parsed templates kept
+		session.configurationChanged();
+		session.getTargets();
+		assertEquals(2, session.getConfigLoadsCount());
+		assertEquals(2, session.getTargetsLoadsCount());
+		assertSame(generationSession, session.getGenerationSession());
+		
+		//--- Other bundle : everything dropped
+		session.setBundleName("other-bundle");
+		assertNotSame(generationSession, session.getGenerationSession());
+		assertEquals(0, session.getGenerationSession().getVelocityEnginesCount());
+	}
+	
+	public void testUnknownEntity() throws Exception {
+		File projectFolder = createProject();
+		ProjectGenerationSession session = createSession(projectFolder);
+		TargetDefinition targetDefinition = session.getTargets().get(0);
+		try {
+			session.createTarget(targetDefinition, "NoSuchEntity");
+			fail("GeneratorException expected");
+		} catch (GeneratorException e) {
+			// expected
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package org.telosys.tools.test.generator.context;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.TelosysToolsException;
+import org.telosys.tools.generator.EntitiesManager;
+import org.telosys.tools.generator.GeneratorException;
+import org.telosys.tools.generator.config.GeneratorConfig;
+import org.telosys.tools.generator.config.GeneratorConfigManager;
+import org.telosys.tools.generator.context.AttributeInContext;
+import org.telosys.tools.generator.context.BeanValidation;
+import org.telosys.tools.generator.context.EntityInContext;
+import org.telosys.tools.generator.context.EnvInContext;
+import org.telosys.tools.generator.context.Java;
+import org.telosys.tools.generator.context.Jpa;
+import org.telosys.tools.generator.context.LinkInContext;
+import org.telosys.tools.generator.context.tools.CodeFragmentsCache;
+import org.telosys.tools.repository.model.RepositoryModel;
+import org.telosys.tools.repository.persistence.StandardFilePersistenceManager;
+import org.telosys.tools.test.velocity.LoggerProvider;
+
+public class CodeFragmentsCacheTest extends TestCase {
+
+	private final static String PROJECT_LOCATION = "src/test/resources" ;
+	private final static String REPOSITORY_FILE  = PROJECT_LOCATION + "/repos/repo_for_tests.dbrep" ;
+	
+	private EntitiesManager buildEntitiesManager(RepositoryModel model) throws GeneratorException {
+		GeneratorConfig config = new GeneratorConfigManager(null).initFromDirectory(PROJECT_LOCATION, null);
+		return new EntitiesManager(model, config, new EnvInContext() );
+	}
+	
+	private RepositoryModel loadModel() throws TelosysToolsException {
+		StandardFilePersistenceManager pm = new StandardFilePersistenceManager(REPOSITORY_FILE, LoggerProvider.getLogger());
+		return pm.load();
+	}
+	
+	public void testSameFragmentsWithAndWithoutCache() throws Exception {
+		RepositoryModel model = loadModel();
+		EntityInContext entity = buildEntitiesManager(model).getEntity("BOOK");
+		
+		CodeFragmentsCache cache = new CodeFragmentsCache();
+		Jpa jpa = new Jpa(cache);
+		Java java = new Java(cache);
+		BeanValidation beanValidation = new BeanValidation(cache);
+		
+		for ( AttributeInContext attribute : entity.getAttributes() ) {
+			assertEquals(new Jpa().fieldAnnotations(4, attribute), jpa.fieldAnnotations(4, attribute) );
+			assertEquals(new Jpa().embeddedIdAnnotations(4, attribute), jpa.embeddedIdAnnotations(4, attribute) );
+			assertEquals(new BeanValidation().annotations(4, attribute), beanValidation.annotations(4, attribute) );
+		}
+		for ( LinkInContext link : entity.getLinks() ) {
+			assertEquals(new Jpa().linkAnnotations(4, link, entity.getAttributes()), 
+					jpa.linkAnnotations(4, link, entity.getAttributes()) );
+			assertEquals(new Jpa().linkAnnotations(4, link, null), 
+					jpa.linkAnnotations(4, link, null) );
+		}
+		assertEquals(new Java().equalsMethod("Book", entity.getAttributes()), 
+				java.equalsMethod("Book", entity.getAttributes()) );
+		assertEquals(new Java().hashCodeMethod("Book", entity.getAttributes(), 4), 
+				java.hashCodeMethod("Book", entity.getAttributes(), 4) );
+		assertEquals(new Java().toStringMethod(entity, 4), java.toStringMethod(entity, 4) );
+		assertEquals(new Java().toStringMethod(entity, entity.getNonKeyAttributes(), "compositePrimaryKey", 4), 
+				java.toStringMethod(entity, entity.getNonKeyAttributes(), "compositePrimaryKey", 4) );
+	}
+
+	public void testFragmentsSharedBetweenTargets() throws Exception {
+		RepositoryModel model = loadModel();
+		CodeFragmentsCache cache = new CodeFragmentsCache();
+
+		//--- Each target has its own entities and its own $jpa/$java objects, the cache is shared
+		EntityInContext entity1 = buildEntitiesManager(model).getEntity("BOOK");
+		Jpa jpa1 = new Jpa(cache);
+		for ( AttributeInContext attribute : entity1.getAttributes() ) {
+			jpa1.fieldAnnotations(4, attribute);
+		}
+		int size = cache.size();
+		assertEquals(entity1.getAttributesCount(), size);
+		assertEquals(0, cache.getHitsCount());
+		
+		EntityInContext entity2 = buildEntitiesManager(model).getEntity("BOOK");
+		Jpa jpa2 = new Jpa(cache);
+		for ( AttributeInContext attribute : entity2.getAttributes() ) {
+			jpa2.fieldAnnotations(4, attribute);
+		}
+		assertEquals(size, cache.size());
+		assertEquals(entity2.getAttributesCount(), cache.getHitsCount());
+
+		//--- Another margin is another fragment
+		jpa2.fieldAnnotations(2, entity2.getAttributes().get(0));
+		assertEquals(size + 1, cache.size());
+	}
+
+	public void testImportsSharedBetweenTargets() throws Exception {
+		RepositoryModel model = loadModel();
+		CodeFragmentsCache cache = new CodeFragmentsCache();
+
+		EntityInContext entity1 = buildEntitiesManager(model).getEntity("AUTHOR");
+		List<String> imports1 = new Java(cache).imports(entity1);
+		assertEquals(new Java().imports(entity1), imports1);
+		assertEquals(new Jpa().imports(entity1), new Jpa(cache).imports(entity1));
+		assertEquals(0, cache.getHitsCount());
+		
+		EntityInContext entity2 = buildEntitiesManager(model).getEntity("AUTHOR");
+		List<String> imports2 = new Java(cache).imports(entity2);
+		new Jpa(cache).imports(entity2);
+		assertEquals(imports1, imports2);
+		assertEquals(2, cache.getHitsCount());
+		
+		//--- Each call returns its own list
+		imports2.add("foo.Bar");
+		assertEquals(imports1, new Java(cache).imports(entity2));
+	}
+
+	public void testEqualsMethodWithDifferentFields() throws Exception {
+		RepositoryModel model = loadModel();
+		EntityInContext entity = buildEntitiesManager(model).getEntity("BOOK");
+		Java java = new Java(new CodeFragmentsCache());
+		
+		String s1 = java.equalsMethod("Book", entity.getKeyAttributes());
+		String s2 = java.equalsMethod("Book", entity.getNonKeyAttributes());
+		assertFalse(s1.equals(s2));
+		assertEquals(s1, java.equalsMethod("Book", entity.getKeyAttributes()));
+		assertFalse(s1.equals(java.equalsMethod("Book2", entity.getKeyAttributes())));
+	}
+}
@@ -0,0 +1,144 @@
+package org.telosys.tools.test.generator.context;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.telosys.tools.generator.GenerationSession;
+import org.telosys.tools.generator.TemplateDependencyGraph;
+import org.telosys.tools.generator.events.GeneratorEvents;
+
+public class TemplateDependencyGraphTest extends TestCase {
+
+	private File createTemplatesFolder() throws IOException {
+		File folder = File.createTempFile("templates", "");
+		folder.delete();
+		folder.mkdirs();
+		new File(folder, "include").mkdirs();
+		writeFile(folder, "include/macros.vm", "#macro( hello $x )Hello $x#end\n");
+		writeFile(folder, "include/header.txt", "/* header */\n");
+		writeFile(folder, "common.vm", "#parse(\"include/macros.vm\")\n");
+		writeFile(folder, "bean.vm", 
+				  "#parse( \"common.vm\" )\n" 
+				+ "#include('include/header.txt')\n" 
+				+ "## #parse(\"ignored1.vm\")\n" 
+				+ "#* #parse(\"ignored2.vm\") *#\n" 
+				+ "#parse( $dynamic )\n" 
+				+ "#hello( 'bean' )\n");
+		writeFile(folder, "dao.vm", "DAO\n");
+		writeFile(folder, "dynamic.vm", "dynamic\n");
+		return folder ;
+	}
+	
+	private void writeFile(File folder, String name, String content) throws IOException {
+		FileWriter writer = new FileWriter(new File(folder, name));
+		try {
+			writer.write(content);
+		} finally {
+			writer.close();
+		}
+	}
+	
+	public void testParseDependencies() {
+		Collection<String> list = TemplateDependencyGraph.parseDependencies(
+				"#parse('a.vm') #{parse}(\"b.vm\") #include(\"c.txt\", 'd.txt') ## #parse(\"e.vm\")\n #parse($f) #parse(\"$g.vm\")");
+		assertEquals(Arrays.asList("a.vm", "b.vm", "c.txt", "d.txt"), list);
+	}
+	
+	public void testStaticScan() throws IOException {
+		File folder = createTemplatesFolder();
+		TemplateDependencyGraph graph = new TemplateDependencyGraph(folder);
+		graph.scan();
+		
+		assertEquals("common.vm", graph.getTemplateName(new File(folder, "common.vm")));
+		assertEquals("include/macros.vm", graph.getTemplateName(new File(new File(folder, "include"), "macros.vm")));
+		assertNull(graph.getTemplateName(new File("foo.vm")));
+		
+		Set<String> dependencies = graph.getDependencies("bean.vm") ;
+		assertEquals(2, dependencies.size());
+		assertTrue(dependencies.contains("common.vm"));
+		assertTrue(dependencies.contains("include/header.txt"));
+		
+		Set<String> allDependencies = graph.getAllDependencies("bean.vm") ;
+		assertEquals(3, allDependencies.size());
+		assertTrue(allDependencies.contains("include/macros.vm"));
+		
+		assertTrue(graph.getDependencies("dao.vm").isEmpty());
+		assertEquals(1, graph.getDependents("common.vm").size());
+		
+		//--- Affected templates
+		Set<String> affected = graph.getAffectedTemplates(Arrays.asList("include/macros.vm"));
+		assertEquals(3, affected.size());
+		assertTrue(affected.contains("include/macros.vm"));
+		assertTrue(affected.contains("common.vm"));
+		assertTrue(affected.contains("bean.vm"));
+		assertFalse(affected.contains("dao.vm"));
+		
+		affected = graph.getAffectedTemplates(Arrays.asList("dao.vm"));
+		assertEquals(1, affected.size());
+		
+		//--- Affected generated files
+		graph.addGeneratedFile("bean.vm", "/out/Book.java");
+		graph.addGeneratedFile("bean.vm", "/out/Author.java");
+		graph.addGeneratedFile("dao.vm", "/out/BookDAO.java");
+		Set<String> files = graph.getAffectedGeneratedFiles(Arrays.asList("include/header.txt"));
+		assertEquals(2, files.size());
+		assertTrue(files.contains("/out/Book.java"));
+		assertFalse(files.contains("/out/BookDAO.java"));
+	}
+	
+	public void testRescanTemplate() throws IOException {
+		File folder = createTemplatesFolder();
+		TemplateDependencyGraph graph = new TemplateDependencyGraph(folder);
+		graph.scan();
+		assertTrue(graph.getDependencies("dao.vm").isEmpty());
+		
+		writeFile(folder, "dao.vm", "#parse(\"common.vm\")\n");
+		graph.scanTemplate("dao.vm");
+		assertEquals(1, graph.getDependencies("dao.vm").size());
+		assertTrue(graph.getAffectedTemplates(Arrays.asList("include/macros.vm")).contains("dao.vm"));
+	}
+	
+	public void testRuntimeDependencies() throws Exception {
+		File folder = createTemplatesFolder();
+		TemplateDependencyGraph graph = new TemplateDependencyGraph(folder);
+		graph.scan();
+		assertFalse(graph.getDependencies("bean.vm").contains("dynamic.vm"));
+		
+		VelocityEngine engine = new VelocityEngine();
+		engine.setProperty(VelocityEngine.FILE_RESOURCE_LOADER_PATH, folder.getAbsolutePath());
+		engine.init();
+		VelocityContext context = new VelocityContext();
+		GeneratorEvents.attachEvents(context, graph);
+		context.put("dynamic", "dynamic.vm");
+		StringWriter writer = new StringWriter();
+		engine.mergeTemplate("bean.vm", "UTF-8", context, writer);
+		
+		assertTrue(writer.toString().contains("Hello bean"));
+		assertTrue(graph.getDependencies("bean.vm").contains("dynamic.vm"));
+		assertTrue(graph.getAffectedTemplates(Arrays.asList("dynamic.vm")).contains("bean.vm"));
+	}
+	
+	public void testSessionInvalidation() throws IOException {
+		File folder = createTemplatesFolder();
+		String path = folder.getAbsolutePath();
+		GenerationSession session = new GenerationSession();
+		session.putVelocityEngine(path, "bean.vm", new VelocityEngine());
+		session.putVelocityEngine(path, "dao.vm", new VelocityEngine());
+		assertEquals(2, session.getVelocityEnginesCount());
+		
+		Set<String> affected = session.invalidateTemplates(path, Arrays.asList("include/macros.vm"));
+		assertTrue(affected.contains("bean.vm"));
+		assertNull(session.getVelocityEngine(path, "bean.vm"));
+		assertNotNull(session.getVelocityEngine(path, "dao.vm"));
+		assertEquals(1, session.getVelocityEnginesCount());
+	}
+}
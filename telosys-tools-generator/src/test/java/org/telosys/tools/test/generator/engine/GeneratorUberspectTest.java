@@ -0,0 +1,71 @@
+package org.telosys.tools.test.generator.engine;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import junit.framework.TestCase;
+
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.telosys.tools.generator.context.Fn;
+import org.telosys.tools.generator.context.doc.DocBuilder;
+import org.telosys.tools.generator.engine.GeneratorUberspect;
+
+public class GeneratorUberspectTest extends TestCase {
+
+	private final static String TEMPLATE = "#set( $list = [ 'a', 'bb' ] )"
+			+ "#foreach( $s in $list )$s.length() $s.toUpperCase() $fn.quote($s) #end $bean.name" ;
+	
+	private VelocityEngine createEngine() throws Exception {
+		VelocityEngine engine = new VelocityEngine();
+		engine.setProperty("runtime.introspector.uberspect", GeneratorUberspect.class.getCanonicalName());
+		engine.init();
+		return engine ;
+	}
+	
+	private String evaluate(VelocityEngine engine, Object bean) throws Exception {
+		VelocityContext context = new VelocityContext();
+		context.put("fn", new Fn(context));
+		context.put("bean", bean);
+		StringWriter writer = new StringWriter();
+		engine.evaluate(context, writer, "test", TEMPLATE);
+		return writer.toString();
+	}
+	
+	public void testVelocityClasses() {
+		assertTrue(DocBuilder.getVelocityClasses().length > 10);
+	}
+	
+	public void testSharedBetweenEngines() throws Exception {
+		PrecompiledTemplatesTest.Bean bean = new PrecompiledTemplatesTest.Bean();
+		
+		VelocityEngine engine1 = createEngine();
+		String result = evaluate(engine1, bean);
+		assertEquals("1 A \"a\" 2 BB \"bb\"  lower-name", result);
+		int shared = GeneratorUberspect.getSharedCount();
+		assertTrue(shared >= 4);
+		
+		//--- Another engine : all the methods are found in the shared caches 
+		GeneratorUberspect.resetCounters();
+		VelocityEngine engine2 = createEngine();
+		assertEquals(result, evaluate(engine2, bean));
+		assertEquals(0, GeneratorUberspect.getMisses());
+		assertTrue(GeneratorUberspect.getHits() >= 4);
+		assertEquals(shared, GeneratorUberspect.getSharedCount());
+	}
+	
+	public void testSpecificClassLoader() throws Exception {
+		//--- Same class loaded by another class loader : not shared
+		URL testClasses = new File("target/test-classes").toURI().toURL();
+		URLClassLoader classLoader = new URLClassLoader(new URL[] { testClasses }, null);
+		Object bean = classLoader.loadClass(PrecompiledTemplatesTest.Bean.class.getName()).newInstance();
+		
+		VelocityEngine engine = createEngine();
+		evaluate(engine, new PrecompiledTemplatesTest.Bean());
+		int shared = GeneratorUberspect.getSharedCount();
+		assertTrue(evaluate(engine, bean).endsWith(" lower-name"));
+		assertEquals(shared, GeneratorUberspect.getSharedCount());
+	}
+}
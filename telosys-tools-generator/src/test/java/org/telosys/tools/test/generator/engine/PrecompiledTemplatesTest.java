@@ -0,0 +1,332 @@
+package org.telosys.tools.test.generator.engine;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.exception.MethodInvocationException;
+import org.telosys.tools.generator.GenerationSession;
+import org.telosys.tools.generator.Generator;
+import org.telosys.tools.generator.config.GeneratorConfig;
+import org.telosys.tools.generator.config.GeneratorConfigManager;
+import org.telosys.tools.generator.context.Target;
+import org.telosys.tools.generator.engine.CompiledIdentifier;
+import org.telosys.tools.generator.engine.CompilingResourceManager;
+import org.telosys.tools.generator.engine.TemplateCompiler;
+import org.telosys.tools.generator.events.GeneratorEvents;
+import org.telosys.tools.generator.target.TargetDefinition;
+import org.telosys.tools.generator.target.TargetVariables;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.model.RepositoryModel;
+import org.telosys.tools.repository.persistence.StandardFilePersistenceManager;
+import org.telosys.tools.test.velocity.LoggerProvider;
+
+/**
+ * Equivalence between the interpreted templates and the precompiled templates 
+ */
+public class PrecompiledTemplatesTest extends TestCase {
+
+	private final static String PROJECT_LOCATION = "src/test/resources" ;
+	private final static String REPOSITORY       = "repos/repo_for_tests.dbrep" ;
+	private final static String[] TEMPLATES      = { "jpa_bean_with_links.vm", "jpa_bean_pk.vm" }; // templates up to date with v 2.1
+	
+	/**
+	 * Replaces "$today" to get the same result for all the generations 
+	 */
+	public static class FixedToday {
+		public String getDate() { return "01/01/2014" ; }
+		public String date(String format) { return "01/01/2014" ; }
+		public String getTime() { return "12:00:00" ; }
+		public String time(String format) { return "12:00" ; }
+	}
+	
+	/**
+	 * Object used to check the property resolution rules
+	 */
+	public static class Bean {
+		public String getName() { return "name" ; }
+		public String getname() { return "lower-name" ; }
+		public String getUrl() { return "url" ; }
+		public boolean isActive() { return true ; }
+		public String get(String key) { return "get-" + key ; }
+		public Bean getChild() { return new Bean() ; }
+		public Object getNothing() { return null ; }
+		public List<String> getItems() { return Arrays.asList("a", "b") ; }
+		public String getFailure() { throw new IllegalStateException("failure") ; }
+		public String label(String s) { return "label-" + s ; }
+	}
+	
+	/**
+	 * Object with a failing getter counting its calls
+	 */
+	public static class CountingBean {
+		private int calls = 0 ;
+		public String getFailure() { 
+			calls++ ;
+			throw new IllegalStateException("failure " + calls) ; 
+		}
+	}
+	
+	private static class HiddenBean extends Bean {
+		@Override
+		public String getUrl() { return "hidden-url" ; }
+	}
+	
+	//-------------------------------------------------------------------------------------
+	
+	private File createFolder(String prefix) throws IOException {
+		File folder = File.createTempFile(prefix, "");
+		folder.delete();
+		folder.mkdirs();
+		return folder ;
+	}
+	
+	private void copy(File source, File destination) throws IOException {
+		if ( source.isDirectory() ) {
+			destination.mkdirs();
+			for ( File file : source.listFiles() ) {
+				copy(file, new File(destination, file.getName()));
+			}
+		}
+		else {
+			InputStream is = new FileInputStream(source);
+			OutputStream os = new FileOutputStream(destination);
+			try {
+				byte[] buffer = new byte[8192];
+				int n ;
+				while ( ( n = is.read(buffer) ) > 0 ) {
+					os.write(buffer, 0, n);
+				}
+			} finally {
+				is.close();
+				os.close();
+			}
+		}
+	}
+	
+	private byte[] read(File file) throws IOException {
+		byte[] bytes = new byte[(int)file.length()];
+		InputStream is = new FileInputStream(file);
+		try {
+			int offset = 0 ;
+			while ( offset < bytes.length ) {
+				offset = offset + is.read(bytes, offset, bytes.length - offset);
+			}
+		} finally {
+			is.close();
+		}
+		return bytes ;
+	}
+	
+	private void collectFiles(File folder, String prefix, Map<String, File> files) {
+		for ( File file : folder.listFiles() ) {
+			if ( file.isDirectory() ) {
+				collectFiles(file, prefix + file.getName() + "/", files);
+			}
+			else {
+				files.put(prefix + file.getName(), file);
+			}
+		}
+	}
+	
+	/**
+	 * Generates all the test templates for all the entities in a new project folder
+	 * @param precompiled
+	 * @return the folder where the files have been generated
+	 */
+	private File generateTestTemplates(boolean precompiled) throws Exception {
+		File projectFolder = createFolder("telosys-precompiled-");
+		copy(new File(PROJECT_LOCATION, "telosys-tools.cfg"), new File(projectFolder, "telosys-tools.cfg"));
+		copy(new File(PROJECT_LOCATION, "templates"), new File(projectFolder, "templates"));
+		copy(new File(PROJECT_LOCATION, "repos"), new File(projectFolder, "repos"));
+		
+		GeneratorConfig config = new GeneratorConfigManager(null).initFromDirectory(projectFolder.getAbsolutePath(), null);
+		RepositoryModel model = new StandardFilePersistenceManager(new File(projectFolder, REPOSITORY), LoggerProvider.getLogger()).load();
+		List<String> entitiesNames = Arrays.asList(model.getEntitiesNames());
+		TargetVariables targetVariables = new TargetVariables(config.getTelosysToolsCfg().getAllVariables());
+		GenerationSession session = new GenerationSession();
+		session.setPrecompiledTemplates(precompiled);
+		
+		List<TargetDefinition> targetDefinitions = new LinkedList<TargetDefinition>();
+		for ( String template : TEMPLATES ) {
+			targetDefinitions.add(new TargetDefinition(template, "${BEANNAME}_" + template + ".txt", "generated", template, "*"));
+		}
+		for ( TargetDefinition targetDefinition : targetDefinitions ) {
+			if ( targetDefinition.isOnce() ) {
+				generate(new Target(targetDefinition, "", "", targetVariables), config, model, entitiesNames, session);
+			}
+			else {
+				for ( String entityName : entitiesNames ) {
+					Entity entity = model.getEntityByName(entityName);
+					generate(new Target(targetDefinition, entity.getName(), entity.getBeanJavaClass(), targetVariables), 
+							config, model, entitiesNames, session);
+				}
+			}
+		}
+		return projectFolder ;
+	}
+	
+	private void generate(Target target, GeneratorConfig config, RepositoryModel model, List<String> entitiesNames, 
+			GenerationSession session) throws Exception {
+		Generator generator = new Generator(target, config, model, LoggerProvider.getLogger(), session);
+		generator.setContextAttribute("today", new FixedToday());
+		generator.generateTarget(target, model, entitiesNames, null);
+	}
+	
+	public void testTemplatesEquivalence() throws Exception {
+		File interpreted = generateTestTemplates(false);
+		File precompiled = generateTestTemplates(true);
+		
+		Map<String, File> interpretedFiles = new TreeMap<String, File>();
+		collectFiles(interpreted, "", interpretedFiles);
+		Map<String, File> precompiledFiles = new TreeMap<String, File>();
+		collectFiles(precompiled, "", precompiledFiles);
+		
+		assertEquals(interpretedFiles.keySet(), precompiledFiles.keySet());
+		assertTrue(interpretedFiles.size() > 10);
+		for ( Map.Entry<String, File> entry : interpretedFiles.entrySet() ) {
+			byte[] expected = read(entry.getValue());
+			byte[] actual   = read(precompiledFiles.get(entry.getKey()));
+			if ( ! Arrays.equals(expected, actual) ) {
+				// the files generated by "$generator.generate" use the current time 
+				assertEquals("Different result for " + entry.getKey(), withoutTime(expected), withoutTime(actual));
+			}
+		}
+		delete(interpreted);
+		delete(precompiled);
+	}
+	
+	private String withoutTime(byte[] content) throws IOException {
+		return new String(content, "ISO-8859-1").replaceAll("Created on [^\n]*", "Created on ...");
+	}
+	
+	private void delete(File file) {
+		File[] files = file.listFiles();
+		if ( files != null ) {
+			for ( File f : files ) {
+				delete(f);
+			}
+		}
+		file.delete();
+	}
+	
+	//-------------------------------------------------------------------------------------
+	
+	private VelocityEngine createEngine(File folder, boolean precompiled) throws Exception {
+		VelocityEngine engine = new VelocityEngine();
+		engine.setProperty(VelocityEngine.FILE_RESOURCE_LOADER_PATH, folder.getAbsolutePath());
+		if ( precompiled ) {
+			engine.setProperty("resource.manager.class", CompilingResourceManager.class.getCanonicalName());
+		}
+		engine.init();
+		return engine ;
+	}
+	
+	private String merge(VelocityEngine engine, String templateName, boolean events) throws Exception {
+		VelocityContext context = new VelocityContext();
+		if ( events ) {
+			GeneratorEvents.attachEvents(context);
+		}
+		Map<String, String> map = new HashMap<String, String>();
+		map.put("key", "value");
+		context.put("bean", new Bean());
+		context.put("hidden", new HiddenBean());
+		context.put("map", map);
+		StringWriter writer = new StringWriter();
+		try {
+			engine.getTemplate(templateName).merge(context, writer);
+		} catch (Exception e) {
+			return "EXCEPTION " + e.getClass().getName() + " : " + e.getMessage() ;
+		}
+		return writer.toString();
+	}
+	
+	public void testResolutionRules() throws Exception {
+		File folder = createFolder("telosys-precompiled-");
+		FileWriter writer = new FileWriter(new File(folder, "rules.vm"));
+		writer.write(
+				  "name=$bean.name lower=$bean.Name url=$bean.url hidden=$hidden.url active=$bean.active\n"
+				+ "get=$bean.other map=$map.key missing=$map.missing quiet=$!bean.nothing null=$bean.nothing\n"
+				+ "child=$bean.child.child.name formal=${bean.child.name} escaped=\\$bean.name label=$bean.label($bean.name)\n"
+				+ "#macro( show $b )[$b.name:$b.child.url]#end\n"
+				+ "#show( $bean ) #show( $hidden )\n"
+				+ "#foreach( $item in $bean.items )$item:$foreach.count:$velocityCount #end\n"
+				+ "#if( $bean.active && $bean.nothing )yes#else no#end\n"
+				+ "#set( $x = $bean.child )$x.name\n");
+		writer.close();
+		writer = new FileWriter(new File(folder, "failure.vm"));
+		writer.write("failure=$bean.failure\n");
+		writer.close();
+		writer = new FileWriter(new File(folder, "invalid.vm"));
+		writer.write("invalid=$bean.nothing.name\n");
+		writer.close();
+		
+		VelocityEngine interpreter = createEngine(folder, false);
+		VelocityEngine compiler = createEngine(folder, true);
+		
+		String expected = merge(interpreter, "rules.vm", false);
+		assertTrue(expected.startsWith("name=lower-name lower=name url=url hidden=hidden-url active=get-active"));
+		assertEquals(expected, merge(compiler, "rules.vm", false));
+		assertEquals(expected, merge(compiler, "rules.vm", false)); // with the getters already resolved
+		
+		assertEquals(merge(interpreter, "failure.vm", false), merge(compiler, "failure.vm", false));
+		assertTrue(merge(compiler, "failure.vm", false).startsWith("EXCEPTION "));
+		assertEquals(merge(interpreter, "invalid.vm", true), merge(compiler, "invalid.vm", true));
+		assertTrue(merge(compiler, "invalid.vm", true).startsWith("EXCEPTION "));
+		
+		Template template = compiler.getTemplate("rules.vm");
+		assertTrue(TemplateCompiler.isCompiled(template));
+		assertFalse(TemplateCompiler.isCompiled(interpreter.getTemplate("rules.vm")));
+		delete(folder);
+	}
+	
+	public void testFailingGetterCalledOnce() throws Exception {
+		File folder = createFolder("telosys-precompiled-");
+		FileWriter writer = new FileWriter(new File(folder, "counting.vm"));
+		writer.write("line 1\nfailure=$bean.failure\n");
+		writer.close();
+		VelocityEngine compiler = createEngine(folder, true);
+		Template template = compiler.getTemplate("counting.vm");
+		for ( int i = 1 ; i <= 2 ; i++ ) {
+			CountingBean bean = new CountingBean();
+			VelocityContext context = new VelocityContext();
+			context.put("bean", bean);
+			try {
+				template.merge(context, new StringWriter());
+				fail("MethodInvocationException expected");
+			} catch (MethodInvocationException e) {
+				assertEquals(1, bean.calls);
+				assertEquals("failure 1", e.getWrappedThrowable().getMessage());
+				assertEquals("getFailure", e.getMethodName());
+				assertEquals("counting.vm", e.getTemplateName());
+				assertEquals(2, e.getLineNumber());
+				assertEquals(15, e.getColumnNumber()); // "failure" identifier
+			}
+		}
+		delete(folder);
+	}
+	
+	public void testResolveGetter() throws Exception {
+		assertEquals("getname", CompiledIdentifier.resolveGetter(Bean.class, "name").getName());
+		assertEquals("getName", CompiledIdentifier.resolveGetter(Bean.class, "Name").getName());
+		assertNull(CompiledIdentifier.resolveGetter(Bean.class, "active")); // "isActive" : interpreted
+		assertNull(CompiledIdentifier.resolveGetter(HashMap.class, "key")); // Map : interpreted
+		assertNull(CompiledIdentifier.resolveGetter(HiddenBean.class, "url")); // not public : interpreted
+	}
+}
@@ -8,7 +8,7 @@ public class GenerateTargets {
 
 	private final static String OUTPUT_FOLDER = "GENERATED_FILES" ; // output folder in the project location
 	
-	public static void main(String[] args) {
+	public static void main(String[] args) throws GeneratorException {
 
 		TelosysToolsLogger logger = LoggerProvider.getLogger();
 		
@@ -37,6 +37,20 @@ public class AmbiguousTypesDetectorTest extends TestCase  {
 		report(detector, 6, 4);
 	}
 	
+	public void test4() {		
+		AmbiguousTypesDetector detector = new AmbiguousTypesDetector();
+		detector.registerType("java.util.Date");
+		detector.registerType("java.util.Date"); // registered once
+		detector.registerType("MyClass"); // no package : not counted as an occurrence of "MyClass"
+		detector.registerType("foo.bar.MyClass");
+		report(detector, 3, 0);
+		
+		detector.registerType("java.sql.Date");
+		List<String> ambiguousTypes = detector.getAmbiguousTypes();
+		assertEquals("java.util.Date", ambiguousTypes.get(0));
+		assertEquals("java.sql.Date", ambiguousTypes.get(1));
+	}
+	
 	private void report(AmbiguousTypesDetector detector, int countAll, int countAmbiguous) {
 		List<String> allTypes = detector.getAllTypes();
 		print(allTypes);
@@ -0,0 +1,36 @@
+package org.telosys.tools.test.velocity.context;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.generator.context.ImportsList;
+
+public class ImportsListTest extends TestCase {
+
+	public void testDeclareType() {		
+		ImportsList imports = new ImportsList();
+		imports.declareType("java.util.Date");
+		imports.declareType("java.math.BigDecimal");
+		imports.declareType("java.util.Date");   // already declared
+		imports.declareType("java.lang.String"); // no import for "java.lang"
+		imports.declareType("int");              // no package
+		imports.declareType(null);
+
+		assertTrue(imports.isDeclared("java.util.Date"));
+		assertFalse(imports.isDeclared("java.lang.String"));
+		
+		List<String> list = imports.getList();
+		assertEquals(2, list.size());
+		assertEquals("java.util.Date", list.get(0)); // declaration order
+		assertEquals("java.math.BigDecimal", list.get(1));
+	}
+
+	public void testGetListIsACopy() {		
+		ImportsList imports = new ImportsList();
+		imports.declareType("java.util.Date");
+		List<String> list = imports.getList();
+		list.add("foo.Bar");
+		assertEquals(1, imports.getList().size());
+	}
+}
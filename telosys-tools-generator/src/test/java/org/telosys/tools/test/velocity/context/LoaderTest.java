@@ -0,0 +1,209 @@
+package org.telosys.tools.test.velocity.context;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.generator.GenerationSession;
+import org.telosys.tools.generator.GeneratorException;
+import org.telosys.tools.generator.context.Loader;
+import org.telosys.tools.generator.context.tools.SpecificClassLoader;
+
+public class LoaderTest extends TestCase {
+
+	/**
+	 * Tool class copied in the "classes" folder ( loaded by the specific class loader without parent )
+	 */
+	public static class Tool {
+		public String getName() { return "tool" ; }
+	}
+	
+	private final static String TOOL_CLASS = Tool.class.getName() ;
+	
+	private void copyToolClass(File classesFolder) throws IOException {
+		String path = TOOL_CLASS.replace('.', '/') + ".class" ;
+		File file = new File(classesFolder, path);
+		file.getParentFile().mkdirs();
+		InputStream in = this.getClass().getClassLoader().getResourceAsStream(path);
+		OutputStream out = new FileOutputStream(file);
+		try {
+			byte[] buffer = new byte[4096];
+			int n ;
+			while ( ( n = in.read(buffer) ) > 0 ) {
+				out.write(buffer, 0, n);
+			}
+		} finally {
+			in.close();
+			out.close();
+		}
+	}
+	
+	private void delete(File file) {
+		File[] files = file.listFiles();
+		if ( files != null ) {
+			for ( File f : files ) {
+				delete(f);
+			}
+		}
+		file.delete();
+	}
+
+	private File createTemplatesFolder() throws IOException {
+		File file = File.createTempFile("telosys-templates-", "");
+		file.delete();
+		File classesFolder = new File(file, "classes");
+		assertTrue(classesFolder.mkdirs());
+		return file ;
+	}
+	
+	public void testClassLoaderReused() throws IOException, GeneratorException {
+		File templatesFolder = createTemplatesFolder();
+		File classesFolder = new File(templatesFolder, "classes");
+		ClassLoader parent = this.getClass().getClassLoader();
+		
+		SpecificClassLoader loader1 = SpecificClassLoader.getClassLoader(classesFolder, parent);
+		SpecificClassLoader loader2 = SpecificClassLoader.getClassLoader(classesFolder, parent);
+		assertTrue(loader1 == loader2);
+		
+		//--- Folder content changed => new class loader 
+		File newFile = new File(classesFolder, "foo.txt");
+		FileWriter writer = new FileWriter(newFile);
+		writer.write("foo");
+		writer.close();
+		SpecificClassLoader loader3 = SpecificClassLoader.getClassLoader(classesFolder, parent);
+		assertFalse(loader1 == loader3);
+		assertFalse(SpecificClassLoader.isCurrent(loader1)); // replaced 
+		assertTrue(SpecificClassLoader.isCurrent(loader3));
+		
+		//--- Same folder with another path => same class loader 
+		File otherPath = new File(templatesFolder, "classes/../classes");
+		assertTrue(loader3 == SpecificClassLoader.getClassLoader(otherPath, parent));
+		
+		newFile.delete();
+		classesFolder.delete();
+		templatesFolder.delete();
+	}
+
+	public void testClassLoadersLimited() throws IOException {
+		ClassLoader parent = this.getClass().getClassLoader();
+		SpecificClassLoader first = null ;
+		for ( int i = 0 ; i < 20 ; i++ ) {
+			File classesFolder = new File(createTemplatesFolder(), "classes");
+			SpecificClassLoader loader = SpecificClassLoader.getClassLoader(classesFolder, parent);
+			if ( first == null ) {
+				first = loader ;
+			}
+		}
+		//--- The least recently used folders are dropped 
+		assertFalse(SpecificClassLoader.isCurrent(first));
+	}
+
+	public void testClassLoaderCheckedOncePerSession() throws IOException {
+		File templatesFolder = createTemplatesFolder();
+		File classesFolder = new File(templatesFolder, "classes");
+		ClassLoader parent = this.getClass().getClassLoader();
+		GenerationSession session = new GenerationSession();
+		
+		SpecificClassLoader loader1 = session.getSpecificClassLoader(classesFolder, parent);
+		File newFile = new File(classesFolder, "foo.txt");
+		FileWriter writer = new FileWriter(newFile);
+		writer.write("foo");
+		writer.close();
+		//--- Not checked again in the same session
+		assertTrue(loader1 == session.getSpecificClassLoader(classesFolder, parent));
+		//--- Checked in a new session
+		SpecificClassLoader loader2 = new GenerationSession().getSpecificClassLoader(classesFolder, parent);
+		assertFalse(loader1 == loader2);
+		
+		//--- Replaced by another session => still used by this session
+		assertTrue(loader1 == session.getSpecificClassLoader(classesFolder, parent));
+		
+		//--- Changes notified in a long-lived session => checked again 
+		newFile.delete();
+		session.invalidateTemplates(templatesFolder.getAbsolutePath(), Arrays.asList("classes/foo.txt"));
+		SpecificClassLoader loader3 = session.getSpecificClassLoader(classesFolder, parent);
+		assertFalse(loader1 == loader3);
+		assertFalse(loader2 == loader3);
+		
+		classesFolder.delete();
+		templatesFolder.delete();
+	}
+
+	public void testReplacedClassLoaderStillUsable() throws Exception {
+		File templatesFolder = createTemplatesFolder();
+		File classesFolder = new File(templatesFolder, "classes");
+		copyToolClass(classesFolder);
+		
+		SpecificClassLoader loader1 = SpecificClassLoader.getClassLoader(classesFolder, null);
+		FileWriter writer = new FileWriter(new File(classesFolder, "foo.txt"));
+		writer.write("foo");
+		writer.close();
+		SpecificClassLoader loader2 = SpecificClassLoader.getClassLoader(classesFolder, null);
+		assertFalse(loader1 == loader2);
+		
+		//--- The replaced class loader can still load the classes ( not closed )
+		Class<?> toolClass = loader1.loadClass(TOOL_CLASS);
+		assertFalse(toolClass == Tool.class);
+		assertEquals("tool", toolClass.getMethod("getName").invoke(toolClass.newInstance()));
+		
+		delete(templatesFolder);
+	}
+
+	public void testPreloadTools() throws Exception {
+		File templatesFolder = createTemplatesFolder();
+		GenerationSession session = new GenerationSession();
+		String folder = templatesFolder.getAbsolutePath();
+		
+		assertEquals(2, session.preloadTools(folder, Arrays.asList("java.lang.StringBuilder", "java.util.ArrayList")));
+		//--- Once per session
+		assertEquals(1, session.preloadTools(folder, Arrays.asList("java.lang.StringBuilder", "java.util.HashMap")));
+		assertEquals(0, session.preloadTools(folder, Arrays.asList("java.util.HashMap")));
+		
+		try {
+			session.preloadTools(folder, Arrays.asList("org.demo.NotFound"));
+			fail("GeneratorException expected");
+		} catch (GeneratorException e) {
+			// expected
+		}
+		
+		//--- Preloaded again after a change in the "classes" folder
+		session.invalidateTemplates(folder, Arrays.asList("classes/foo.txt"));
+		assertEquals(1, session.preloadTools(folder, Arrays.asList("java.util.HashMap")));
+		
+		delete(templatesFolder);
+	}
+
+	public void testLoadClassAndSharedInstance() throws IOException, GeneratorException {
+		File templatesFolder = createTemplatesFolder();
+		GenerationSession session = new GenerationSession();
+		
+		Loader loader1 = new Loader(templatesFolder.getAbsolutePath(), session);
+		Loader loader2 = new Loader(templatesFolder.getAbsolutePath(), session);
+		assertEquals(StringBuilder.class, loader1.loadClass("java.lang.StringBuilder"));
+		
+		Object instance1 = loader1.sharedInstance("java.lang.StringBuilder");
+		Object instance2 = loader2.sharedInstance("java.lang.StringBuilder");
+		assertTrue(instance1 == instance2);
+		assertFalse(instance1 == loader1.newInstance("java.lang.StringBuilder"));
+		
+		//--- Another session => another instance 
+		Loader loader3 = new Loader(templatesFolder.getAbsolutePath(), new GenerationSession());
+		assertFalse(instance1 == loader3.sharedInstance("java.lang.StringBuilder"));
+		
+		try {
+			loader1.loadClass("org.demo.NotFound");
+			fail("GeneratorException expected");
+		} catch (GeneratorException e) {
+			// expected
+		}
+		
+		new File(templatesFolder, "classes").delete();
+		templatesFolder.delete();
+	}
+}
@@ -5,6 +5,7 @@ import junit.framework.TestCase;
 import org.telosys.tools.commons.variables.Variable;
 import org.telosys.tools.generator.context.Target;
 import org.telosys.tools.generator.target.TargetDefinition;
+import org.telosys.tools.generator.target.TargetVariables;
 
 public class TargetTest extends TestCase {
 
@@ -61,4 +62,53 @@ public class TargetTest extends TestCase {
 		
 	}
 	
+	public void testTargetCreationWithBraceBeforeVariable() {
+		
+		TargetDefinition targetDef = new TargetDefinition(
+				"Target 3", 
+				"}${BEANNAME_LC}}.txt", 
+				"x}/${SRC}/${ROOT_PKG}", 
+				"bean.vm", 
+				"*");
+		
+		Target target = new Target( targetDef, "AUTHOR", "Author", getVariables() ); 
+		
+		assertEquals("}author}.txt", target.getFile());
+		assertEquals("x}//src/org/demo/foo/bar", target.getFolder());
+	}
+
+	public void testTargetCreationWithSharedVariables() {
+		
+		TargetDefinition targetDef = new TargetDefinition(
+				"Target 4", 
+				"${BEANNAME}_${BEANNAME_UC}_${BEANNAME_LC}_${UNKNOWN}_${ROOT_PKG}.txt", 
+				"${SRC}/${ENTITY_PKG}/${VAR1}/${", 
+				"bean.vm", 
+				"*");
+		
+		TargetVariables variables = new TargetVariables( getVariables() );
+		
+		Target target1 = new Target( targetDef, "AUTHOR", "Author", variables ); 
+		assertEquals("Author_AUTHOR_author_${UNKNOWN}_org.demo.foo.bar.txt", target1.getFile());
+		assertEquals("/src/org/demo/foo/bar/bean/VALUE1/${", target1.getFolder());
+		
+		Target target2 = new Target( targetDef, "BOOK", "Book", variables ); 
+		assertEquals("Book_BOOK_book_${UNKNOWN}_org.demo.foo.bar.txt", target2.getFile());
+		assertEquals("/src/org/demo/foo/bar/bean/VALUE1/${", target2.getFolder());
+	}
+
+	public void testTargetCreationWithoutVariables() {
+		
+		TargetDefinition targetDef = new TargetDefinition(
+				"Target 5", 
+				"${BEANNAME}.java", 
+				"src/${ROOT_PKG}", 
+				"bean.vm", 
+				"*");
+		
+		Target target = new Target( targetDef, "AUTHOR", "Author", (Variable[]) null ); 
+		assertEquals("Author.java", target.getFile());
+		assertEquals("src/${ROOT_PKG}", target.getFolder());
+	}
+	
 }
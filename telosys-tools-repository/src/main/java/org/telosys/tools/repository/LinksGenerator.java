@@ -15,7 +15,19 @@
  */
 package org.telosys.tools.repository;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.telosys.tools.commons.TelosysToolsException;
 import org.telosys.tools.commons.TelosysToolsLogger;
@@ -38,15 +50,37 @@ import org.telosys.tools.repository.persistence.util.RepositoryConst;
  */
 public class LinksGenerator {
 
+	/**
+	 * Minimum number of entities to compute the links in parallel 
+	 */
+	private static final int PARALLEL_THRESHOLD = 64 ;
+	
+	/**
+	 * Number of entities processed by each parallel task
+	 */
+	private static final int ENTITIES_PER_TASK = 32 ;
+	
 	//private static final String COLLECTION_JAVA_TYPE = "java.util.List";
 	private final TelosysToolsLogger _logger;
 
+	private final int _threads ;
+	
 	/**
 	 * Constructor
 	 * @param logger
 	 */
 	public LinksGenerator(TelosysToolsLogger logger) {
+		this(logger, Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Constructor
+	 * @param logger
+	 * @param threads the number of threads used to build the links of a large model ( 1 for no parallel building )
+	 */
+	public LinksGenerator(TelosysToolsLogger logger, int threads) {
 		_logger = logger;
+		_threads = threads ;
 	}
 	
 	private void log(String msg) {
@@ -56,7 +90,13 @@ public class LinksGenerator {
 	}
 
 	/**
-	 * Generates all the links from all the Foreign Keys defined in the repository
+	 * Generates all the links from all the Foreign Keys defined in the repository <br>
+	 * The links are generated in 2 phases : <br>
+	 * 1) the relations of each entity are built against a read-only snapshot of the model 
+	 *    ( in parallel if the model is large ) <br>
+	 * 2) the relations are committed in the model in the entities order <br>
+	 * The result is the same as calling "generateEntityLinks" for each entity 
+	 * 
 	 * @param model the repository to update with generated links
 	 * @return the number of links generated 
 	 * @throws TelosysToolsException 
@@ -65,11 +105,31 @@ public class LinksGenerator {
 	{
 		log("generateAllLinks()...");
 		
-		int count = 0 ;
 		Entity[] entities = model.getEntities();
-		for ( Entity entity : entities ) {
-			count = count + generateEntityLinks(model, entity);
+		
+		//--- Phase 1 : build the relations of each entity 
+		List<List<Relation>> relations = buildAllRelations(entities);
+		
+		//--- Phase 2 : commit the relations in the entities order 
+		LinksIndex linksIndex = new LinksIndex(entities);
+		int count = 0 ;
+		for ( List<Relation> entityRelations : relations ) {
+			for ( Relation relation : entityRelations ) {
+				//--- Remove the links if they are already in the model
+				linksIndex.removeLinkById(relation.inverseSideLink.getId());
+				linksIndex.removeLinkById(relation.owningSideLink.getId());
+				//--- Store the 2 links 
+				linksIndex.storeLink(relation.owningSideEntity, relation.owningSideLink);
+				linksIndex.storeLink(relation.inverseSideEntity, relation.inverseSideLink);
+				count = count + 2 ;
+			}
 		}
+		
+		//--- Store the updated entities ( useless for a model fully in memory, required for a model loaded on demand )
+		for ( Entity entity : linksIndex.getUpdatedEntities() ) {
+			model.storeEntity(entity);
+		}
+		log("generateAllLinks() : " + count + " link(s) generated");
 		return count ;
 	}
 
@@ -84,29 +144,108 @@ public class LinksGenerator {
 	{
 		log("generateEntityLinks()...");
 		int count = 0 ;
+		for ( Relation relation : buildEntityRelations(model, entity) ) {
+			//--- Remove the links if they are already in the model
+			model.removeLinkById(relation.inverseSideLink.getId());
+			model.removeLinkById(relation.owningSideLink.getId());
+			//--- Store the 2 links 
+			relation.owningSideEntity.storeLink(relation.owningSideLink);
+			relation.inverseSideEntity.storeLink(relation.inverseSideLink);
+			count = count + 2 ;
+		}
+		return count ;
+	}
+
+	/**
+	 * Builds the relations of all the given entities ( in parallel if the number of entities is large ) <br>
+	 * The model is not modified 
+	 * @param entities
+	 * @return the relations of each entity ( in the same order as the entities )
+	 * @throws TelosysToolsException
+	 */
+	private List<List<Relation>> buildAllRelations(Entity[] entities) throws TelosysToolsException 
+	{
+		//--- Read-only snapshot of the model ( no synchronization or loading on the model during the building )
+		final RepositoryModel snapshot = new RepositoryModel();
+		for ( Entity entity : entities ) {
+			snapshot.storeEntity(entity);
+		}
 		
+		List<List<Relation>> relations = new ArrayList<List<Relation>>(entities.length);
+		if ( entities.length < PARALLEL_THRESHOLD || _threads < 2 ) {
+			for ( Entity entity : entities ) {
+				relations.add( buildEntityRelations(snapshot, entity) );
+			}
+			return relations ;
+		}
+		
+		log("buildAllRelations() : " + entities.length + " entities, " + _threads + " threads");
+		ExecutorService executor = Executors.newFixedThreadPool(_threads);
+		try {
+			List<Future<List<List<Relation>>>> futures = new LinkedList<Future<List<List<Relation>>>>();
+			for ( int start = 0 ; start < entities.length ; start = start + ENTITIES_PER_TASK ) {
+				final Entity[] part = new Entity[ Math.min(ENTITIES_PER_TASK, entities.length - start) ];
+				System.arraycopy(entities, start, part, 0, part.length);
+				futures.add( executor.submit( new Callable<List<List<Relation>>>() {
+					public List<List<Relation>> call() throws TelosysToolsException {
+						List<List<Relation>> partRelations = new ArrayList<List<Relation>>(part.length);
+						for ( Entity entity : part ) {
+							partRelations.add( buildEntityRelations(snapshot, entity) );
+						}
+						return partRelations ;
+					}
+				}));
+			}
+			//--- Collect the results in the tasks order 
+			for ( Future<List<List<Relation>>> future : futures ) {
+				relations.addAll( future.get() );
+			}
+		} catch (ExecutionException e) {
+			if ( e.getCause() instanceof TelosysToolsException ) {
+				throw (TelosysToolsException) e.getCause() ;
+			}
+			throw new TelosysToolsException("Cannot build links", e.getCause());
+		} catch (InterruptedException e) {
+			throw new TelosysToolsException("Links generation interrupted", e);
+		} finally {
+			executor.shutdownNow();
+		}
+		return relations ;
+	}
+	
+	/**
+	 * Builds the relations ( 2 links for each ) for the given entity <br>
+	 * The model and the entities are not modified 
+	 * @param model
+	 * @param entity
+	 * @return
+	 * @throws TelosysToolsException
+	 */
+	private List<Relation> buildEntityRelations(RepositoryModel model, Entity entity) throws TelosysToolsException 
+	{
+		List<Relation> relations = new LinkedList<Relation>();
+		
+		ForeignKey[] foreignKeys = entity.getForeignKeys() ;
 		if ( entity.isJoinTable() )
 		{
 			//--- This entity can be considered as a "Join Table" ( all columns are Foreign Keys )
-			ForeignKey[] foreignKeys = entity.getForeignKeys() ;
 			if ( foreignKeys.length == 2 ) 
 			{
 				//--- Generate a bidirectional "ManyToMany" relation for this "Join Table"
 				ForeignKey owningSideForeignKey  = foreignKeys[0]; // Arbitrary choice
 				ForeignKey inverseSideForeignKey = foreignKeys[1]; // Arbitrary choice
-				count = count + generateManyToManyLinks( model, entity, owningSideForeignKey, inverseSideForeignKey); 				
+				relations.add( buildManyToManyRelation( model, entity, owningSideForeignKey, inverseSideForeignKey) ); 				
 			}
 			// else ( a join table with more than 2 FK ) : do nothing !
 		}
 		else
 		{
 			//--- Generate one relation ( 2 links ) for each FK 
-			ForeignKey[] foreignKeys = entity.getForeignKeys();
 			for ( ForeignKey fk : foreignKeys ) {
-				count = count + generateBasicLinks(model, entity, fk);
+				relations.add( buildBasicRelation(model, entity, fk) );
 			}
 		}
-		return count ;
+		return relations ;
 	}
 
 	/**
@@ -145,17 +284,15 @@ public class LinksGenerator {
 	// RELATION "* --> 1" ( "ManyToOne" and "OneToMany" links )
 	//----------------------------------------------------------------------------------------------------
 	/**
-	 * Generates the two links for a "ManyToOne" relation based on the the given Foreign Key
+	 * Builds the two links for a "ManyToOne" relation based on the the given Foreign Key
 	 * @param model
 	 * @param owningSideEntity : the owning side entity
 	 * @param owningSideForeignKey : the Foreign Key that defines the relation 
-	 * @return the number of links generated (always 2)
+	 * @return the relation (2 links) 
 	 * @throws TelosysToolsException
 	 */
-	private int generateBasicLinks(RepositoryModel model, Entity owningSideEntity, ForeignKey owningSideForeignKey) throws TelosysToolsException 
+	private Relation buildBasicRelation(RepositoryModel model, Entity owningSideEntity, ForeignKey owningSideForeignKey) throws TelosysToolsException 
 	{
-		log("generateBasicLinks()...");
-
 		Entity inverseSideEntity = model.getEntityByName( owningSideForeignKey.getTableRef() );
 		if ( null == inverseSideEntity ) {
 			throw new TelosysToolsException("No referenced table for Foreign Key '" + owningSideForeignKey.getName() + "'");
@@ -167,19 +304,15 @@ public class LinksGenerator {
 
 //		String originAttributeName = getAttributeName( inverseSideEntity.getBeanJavaClass() ) ;
 		
-		//--- Remove the links if they are already in the model
-		model.removeLinkById(inverseSideId);
-		model.removeLinkById(owningSideId);
-
 		//--- Generates the 2 links 
 		Link owningSideLink = generateBasicLinkOwningSide( owningSideId, owningSideEntity, inverseSideEntity, owningSideForeignKey);
-		generateBasicLinkInverseSide( inverseSideId, owningSideEntity, inverseSideEntity, owningSideForeignKey, owningSideLink);
+		Link inverseSideLink = generateBasicLinkInverseSide( inverseSideId, owningSideEntity, inverseSideEntity, owningSideForeignKey, owningSideLink);
 		
-		return 2 ; // 2 links generated
+		return new Relation(owningSideEntity, owningSideLink, inverseSideEntity, inverseSideLink);
 	}
 	
 	/**
-	 * Generates the owning side link of a "ManyToOne" relation 
+	 * Generates the owning side link of a "ManyToOne" relation ( the link is not stored in the entity )
 	 * @param linkId
 	 * @param owningSideEntity
 	 * @param inverseSideEntity
@@ -209,13 +342,12 @@ public class LinksGenerator {
 		link.setJavaFieldType( inverseSideEntity.getBeanJavaClass() ); // ie "Book" 
 		link.setJavaFieldName( getAttributeName( inverseSideEntity.getBeanJavaClass() ) ); // ie "book"
 
-		//--- Store the link in the entity
-		owningSideEntity.storeLink(link);
 		return link;		
 	}
 	
 	/**
-	 * Generates the inverse side link of a "ManyToOne" relation ( generates a "OneToMany" link with a collection )
+	 * Generates the inverse side link of a "ManyToOne" relation ( generates a "OneToMany" link with a collection ) <br>
+	 * The link is not stored in the entity 
 	 * @param linkId
 	 * @param owningSideEntity
 	 * @param inverseSideEntity
@@ -248,8 +380,6 @@ public class LinksGenerator {
 		link.setJavaFieldName( "listOf" + owningSideEntity.getBeanJavaClass() ); // ie "listOfBook"
 		link.setTargetEntityJavaType( owningSideEntity.getBeanJavaClass() ); // ie "Book"
 
-		//--- Store the link in the entity
-		inverseSideEntity.storeLink(link);
 		return link;		
 	}
 
@@ -257,32 +387,29 @@ public class LinksGenerator {
 	// RELATION "* --> *"  ( 2 "ManyToMany" links )
 	//----------------------------------------------------------------------------------------------------
 	/**
-	 * Generates the links for a "Many To Many" relation based on the given "Join Table" entity
+	 * Builds the links for a "Many To Many" relation based on the given "Join Table" entity
 	 * The 2 sides links will be generated 
 	 * @param model
 	 * @param joinTable
 	 * @param owningSideForeignKey
 	 * @param inverseSideForeignKey
-	 * @return the number of links generated (always 2)
+	 * @return the relation (2 links) 
 	 * @throws TelosysToolsException
 	 */
-	private int generateManyToManyLinks(RepositoryModel model, Entity joinTable, 
+	private Relation buildManyToManyRelation(RepositoryModel model, Entity joinTable, 
 			ForeignKey owningSideForeignKey, ForeignKey inverseSideForeignKey) throws TelosysToolsException 
 	{
-		log("generateManyToManyLinks()...");
-
 		//--- Build the 2 id
 		String owningSideId  = Link.buildId(joinTable, true) ;
 		String inverseSideId = Link.buildId(joinTable, false) ;
 		
-		//--- Remove the links if they are already in the model
-		model.removeLinkById(inverseSideId);
-		model.removeLinkById(owningSideId);
-
 		//--- One entity is referenced by one of the two foreign keys
 		Entity owningSideEntity  = model.getEntityByName( owningSideForeignKey.getTableRef() );		
 		//--- The other entity is referenced by the other foreign key
 		Entity inverseSideEntity = model.getEntityByName( inverseSideForeignKey.getTableRef() );
+		if ( null == owningSideEntity || null == inverseSideEntity ) {
+			throw new TelosysToolsException("No referenced table for Join Table '" + joinTable.getName() + "'");
+		}
 		
 		//--- Generates the 2 links 
 		Link owningSideLink = generateManyToManyLinkOwningSide( owningSideId, 
@@ -290,17 +417,17 @@ public class LinksGenerator {
 				joinTable, 
 				owningSideForeignKey, inverseSideForeignKey );
 		
-		generateManyToManyLinkInverseSide( inverseSideId, 
+		Link inverseSideLink = generateManyToManyLinkInverseSide( inverseSideId, 
 				owningSideEntity, inverseSideEntity, 
 				joinTable, 
 				owningSideForeignKey, inverseSideForeignKey, 
 				owningSideLink );
 		
-		return 2 ; // 2 links generated
+		return new Relation(owningSideEntity, owningSideLink, inverseSideEntity, inverseSideLink);
 	}
 	
 	/**
-	 * Generates the owning side of the "ManyToMany" relation 
+	 * Generates the owning side of the "ManyToMany" relation ( the link is not stored in the entity )
 	 * @param linkId
 	 * @param owningSideEntity
 	 * @param inverseSideEntity
@@ -347,13 +474,11 @@ public class LinksGenerator {
 		link.setJavaFieldName( getCollectionAttributeName( inverseSideEntity.getBeanJavaClass() ) ); // ie "listOfBook"
 		link.setTargetEntityJavaType( inverseSideEntity.getBeanJavaClass() ); // ie "Book"
 
-		//--- Store the link in the entity
-		owningSideEntity.storeLink(link);
 		return link;		
 	}
 	
 	/**
-	 * Generates the inverse side of the "ManyToMany" relation 
+	 * Generates the inverse side of the "ManyToMany" relation ( the link is not stored in the entity )
 	 * @param linkId
 	 * @param owningSideEntity
 	 * @param inverseSideEntity
@@ -390,8 +515,6 @@ public class LinksGenerator {
 		link.setJavaFieldName( getCollectionAttributeName( owningSideEntity.getBeanJavaClass() ) ); // ie "listOfBook"
 		link.setTargetEntityJavaType( owningSideEntity.getBeanJavaClass() ); // ie "Book"
 
-		//--- Store the link in the entity
-		inverseSideEntity.storeLink(link);
 		return link;		
 	}
 	
@@ -417,4 +540,73 @@ public class LinksGenerator {
 		return joinColumns ;
 	}
 	
+	//----------------------------------------------------------------------------------------------------
+	/**
+	 * The 2 links of a relation ( built but not yet stored in the entities )
+	 */
+	private static final class Relation {
+		private final Entity owningSideEntity ;
+		private final Link   owningSideLink ;
+		private final Entity inverseSideEntity ;
+		private final Link   inverseSideLink ;
+		
+		private Relation(Entity owningSideEntity, Link owningSideLink, Entity inverseSideEntity, Link inverseSideLink) {
+			this.owningSideEntity  = owningSideEntity ;
+			this.owningSideLink    = owningSideLink ;
+			this.inverseSideEntity = inverseSideEntity ;
+			this.inverseSideLink   = inverseSideLink ;
+		}
+	}
+	
+	/**
+	 * Index of the links of all the entities by link id <br>
+	 * Same behavior as "RepositoryModel.removeLinkById" without scanning all the entities for each link 
+	 */
+	private static final class LinksIndex {
+		private final Map<String, Entity> entitiesByName = new HashMap<String, Entity>();
+		// link id --> entities having a link with this id ( sorted by name as in "RepositoryModel.getEntities" )
+		private final Map<String, TreeMap<String, Entity>> holders = new HashMap<String, TreeMap<String, Entity>>();
+		private final Set<Entity> updatedEntities = new LinkedHashSet<Entity>();
+		
+		private LinksIndex(Entity[] entities) {
+			for ( Entity entity : entities ) {
+				entitiesByName.put(entity.getName(), entity);
+				for ( Link link : entity.getLinks() ) {
+					getHolders(link.getId()).put(entity.getName(), entity);
+				}
+			}
+		}
+		
+		private TreeMap<String, Entity> getHolders(String linkId) {
+			TreeMap<String, Entity> map = holders.get(linkId);
+			if ( map == null ) {
+				map = new TreeMap<String, Entity>();
+				holders.put(linkId, map);
+			}
+			return map ;
+		}
+		
+		private void removeLinkById(String linkId) {
+			TreeMap<String, Entity> map = holders.get(linkId);
+			if ( map != null && ! map.isEmpty() ) {
+				Link link = map.firstEntry().getValue().getLink(linkId);
+				Entity entity = entitiesByName.get( link.getSourceTableName() );
+				if ( entity != null ) {
+					entity.removeLink(link);
+					map.remove(entity.getName());
+					updatedEntities.add(entity);
+				}
+			}
+		}
+		
+		private void storeLink(Entity entity, Link link) {
+			entity.storeLink(link);
+			getHolders(link.getId()).put(entity.getName(), entity);
+			updatedEntities.add(entity);
+		}
+		
+		private Set<Entity> getUpdatedEntities() {
+			return updatedEntities ;
+		}
+	}
 }
@@ -24,7 +24,10 @@ import java.util.Iterator;
 import org.telosys.tools.commons.TelosysToolsException;
 import org.telosys.tools.commons.TelosysToolsLogger;
 import org.telosys.tools.commons.dbcfg.DatabaseConfiguration;
+import org.telosys.tools.commons.dbcfg.DatabaseTypeProvider;
+import org.telosys.tools.commons.exception.CancelException;
 import org.telosys.tools.db.model.DatabaseModelManager;
+import org.telosys.tools.db.model.DatabaseModelMonitor;
 import org.telosys.tools.db.model.DatabaseTable;
 import org.telosys.tools.db.model.DatabaseTables;
 import org.telosys.tools.repository.config.EntityInformationProvider;
@@ -61,9 +64,31 @@ public class RepositoryGenerator extends RepositoryManager
 	 * @throws TelosysToolsException
 	 */
 	public RepositoryModel generate(Connection con, DatabaseConfiguration databaseConfig) throws TelosysToolsException 
+	{
+		try {
+			return generate(con, databaseConfig, null);
+		} catch (CancelException e) {
+			// cannot happen without monitor
+			throw new TelosysToolsException("Unexpected cancellation", e);
+		}
+	}
+	
+	/**
+	 * Generates the repository model from the given database <br>
+	 * Reports the metadata loading progress to the given monitor and stops if it requests the cancellation 
+	 * 
+	 * @param con
+	 * @param databaseConfig
+	 * @param monitor the monitor to notify (can be null)
+	 * @return
+	 * @throws TelosysToolsException
+	 * @throws CancelException if canceled by the monitor 
+	 */
+	public RepositoryModel generate(Connection con, DatabaseConfiguration databaseConfig, DatabaseModelMonitor monitor) 
+			throws TelosysToolsException, CancelException 
 	{
 		//--- STEP 1 : Generates the model entities 
-		RepositoryModel repositoryModel = generateRepository(con, databaseConfig);
+		RepositoryModel repositoryModel = generateRepository(con, databaseConfig, monitor);
 		
 		//--- STEP 2 : Generates the links between entities 
 		LinksGenerator linksGenerator = new LinksGenerator(getLogger());
@@ -73,6 +98,42 @@ public class RepositoryGenerator extends RepositoryManager
 		return repositoryModel ;
 	}
 	
+	/**
+	 * Generates the repository model from the given database tables ( without database connection ) <br>
+	 * The tables are usually imported from a "database model" file ( see DatabaseModelManager.importDatabaseTables ) <br>
+	 * Generates all the entities and all the links between the entities
+	 * 
+	 * @param dbTables
+	 * @param databaseConfig
+	 * @return
+	 * @throws TelosysToolsException
+	 */
+	public RepositoryModel generate(DatabaseTables dbTables, DatabaseConfiguration databaseConfig) throws TelosysToolsException 
+	{
+		logger.log("--> Repository generation from database model ");
+
+		//--- STEP 1 : Generates the model entities 
+		RepositoryModel repositoryModel = createRepositoryModel(databaseConfig, dbTables.getDatabaseProductName());
+		addEntities(repositoryModel, dbTables);
+		
+		//--- STEP 2 : Generates the links between entities 
+		LinksGenerator linksGenerator = new LinksGenerator(getLogger());
+		linksGenerator.generateAllLinks(repositoryModel);
+		
+		return repositoryModel ;
+	}
+	
+	private RepositoryModel createRepositoryModel(DatabaseConfiguration databaseConfig, String databaseProductName) 
+	{
+		RepositoryModel repositoryModel = new RepositoryModel();
+		repositoryModel.setDatabaseName( databaseConfig.getDatabaseName() );
+		repositoryModel.setDatabaseId( databaseConfig.getDatabaseId() );
+		repositoryModel.setDatabaseProductName( databaseProductName );
+		repositoryModel.setGenerationDate( new Date() );
+		repositoryModel.setVersion( ModelVersion.VERSION );
+		return repositoryModel ;
+	}
+	
 	/**
 	 * Generates the repository model from the given database
 	 * @param con
@@ -80,22 +141,19 @@ public class RepositoryGenerator extends RepositoryManager
 	 * @return
 	 * @throws TelosysToolsException
 	 */
-	private RepositoryModel generateRepository(Connection con, DatabaseConfiguration databaseConfig) throws TelosysToolsException 
+	private RepositoryModel generateRepository(Connection con, DatabaseConfiguration databaseConfig, 
+			DatabaseModelMonitor monitor) throws TelosysToolsException, CancelException 
 	{
 		logger.log("--> Repository generation ");
 
 		logger.log(" . get meta-data ");
 		DatabaseMetaData dbmd = getMetaData(con);
 
-		RepositoryModel repositoryModel = new RepositoryModel();
+		RepositoryModel repositoryModel = null ;
 					
 		try {
 			//--- Init new repository	
-			repositoryModel.setDatabaseName( databaseConfig.getDatabaseName() );
-			repositoryModel.setDatabaseId( databaseConfig.getDatabaseId() );
-			repositoryModel.setDatabaseProductName( dbmd.getDatabaseProductName() );
-			repositoryModel.setGenerationDate( new Date() );
-			repositoryModel.setVersion( ModelVersion.VERSION );
+			repositoryModel = createRepositoryModel(databaseConfig, dbmd.getDatabaseProductName() );
 
 			//--- Add all tables/entities to the new repository	
 			generateEntities(repositoryModel, 
@@ -105,7 +163,11 @@ public class RepositoryGenerator extends RepositoryManager
 					databaseConfig.getMetadataTableNamePattern(), 
 					databaseConfig.getMetadataTableTypesArray(),
 					databaseConfig.getMetadataTableNameInclude(),
-					databaseConfig.getMetadataTableNameExclude());
+					databaseConfig.getMetadataTableNameExclude(),
+					databaseConfig.isMetadataRemarks(),
+					databaseConfig.isMetadataDefaultValues(),
+					DatabaseTypeProvider.getMetadataProvider( databaseConfig ),
+					monitor);
 			
 		} catch (SQLException e) {
 			throw new TelosysToolsException("SQLException", e);
@@ -117,7 +179,9 @@ public class RepositoryGenerator extends RepositoryManager
 	private void generateEntities(RepositoryModel repositoryModel, Connection con,
 			String sCatalog, String sSchema,
 			String sTableNamePattern, String[] arrayTableTypes,
-			String sTableNameInclude, String sTableNameExclude) throws SQLException 
+			String sTableNameInclude, String sTableNameExclude, 
+			boolean readRemarks, boolean readDefaultValues, String metadataProvider,
+			DatabaseModelMonitor monitor) throws SQLException, CancelException 
 	{
 		// --- Get METADATA parameters
 		if (sTableNamePattern == null) {
@@ -134,11 +198,21 @@ public class RepositoryGenerator extends RepositoryManager
 			sb.append("[" + arrayTableTypes[i] + "] ");
 		}
 		logger.log("   ... * Table Types Array  = " + sb.toString());
+		logger.log("   ... * Remarks = " + readRemarks + " / Default values = " + readDefaultValues );
 
 		//--- Load the Database Model
 		DatabaseModelManager manager = new DatabaseModelManager( this.getLogger() );
-		DatabaseTables dbTables = manager.getDatabaseTables(con, sCatalog, sSchema, sTableNamePattern, arrayTableTypes, sTableNameInclude, sTableNameExclude);
+		manager.setReadRemarks(readRemarks);
+		manager.setReadDefaultValues(readDefaultValues);
+		manager.setMetadataProvider(metadataProvider);
+		DatabaseTables dbTables = manager.getDatabaseTables(con, sCatalog, sSchema, sTableNamePattern, arrayTableTypes, 
+				sTableNameInclude, sTableNameExclude, monitor);
 
+		addEntities(repositoryModel, dbTables);
+	}
+
+	private void addEntities(RepositoryModel repositoryModel, DatabaseTables dbTables) 
+	{
 		//--- For each table add an Entity in the repository
 		Iterator<DatabaseTable> iter = dbTables.iterator();
 		int iTablesCount = 0;
@@ -148,7 +148,8 @@ public class RepositoryUpdator extends RepositoryManager
 	private int updateComment( Column column, String sComment)  // Database comment - v 2.1.1 #LCH 
 	{
 		int r = 0;
-		if ( ! column.getDatabaseComment().equals(sComment) )
+		String s = column.getDatabaseComment(); // null if the remarks were not loaded 
+		if ( s == null ? sComment != null : ! s.equals(sComment) )
 		{
 			_updateLogger.println(" . Column '" + column.getDatabaseName() + "' : Comment changed to " + sComment);
 			column.setDatabaseComment(sComment);
@@ -220,6 +221,28 @@ public class RepositoryUpdator extends RepositoryManager
 		return changesCount ;
 	}
 
+	/**
+	 * Updates the given repository with the given database tables ( without database connection ) <br>
+	 * The tables are usually imported from a "database model" file ( see DatabaseModelManager.importDatabaseTables )
+	 * 
+	 * @param dbTables
+	 * @param repositoryModel
+	 * @return the number of changes
+	 * @throws TelosysToolsException
+	 */
+	public int updateRepository(DatabaseTables dbTables, RepositoryModel repositoryModel) throws TelosysToolsException 
+	{
+		try {
+			logger.log(" . update repository from database model");
+			_updateLogger.println("Update date : " + new Date() );
+			return updateRepository(repositoryModel, dbTables);
+		} catch (SQLException e) {
+			throw new TelosysToolsException("SQLException", e);
+		} finally {
+			_updateLogger.close();
+		}
+	}
+
 	private int updateRepository(RepositoryModel repositoryModel, DatabaseTables dbTables ) throws SQLException 
 	{
 //		if (sTableNamePattern == null) {
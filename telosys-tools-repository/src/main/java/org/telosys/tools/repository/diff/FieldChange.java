@@ -0,0 +1,65 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.repository.diff;
+
+/**
+ * Field level delta : a single field with its old and new values
+ * 
+ * @author Laurent Guerin
+ *
+ */
+public class FieldChange {
+
+	private final String name ;
+	private final String oldValue ;
+	private final String newValue ;
+	
+	public FieldChange(String name, String oldValue, String newValue) {
+		super();
+		this.name = name;
+		this.oldValue = oldValue;
+		this.newValue = newValue;
+	}
+
+	/**
+	 * Returns the name of the field ( e.g. "databaseSize", "javaType", "cardinality" )
+	 * @return
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the value of the field in the original model ( can be null )
+	 * @return
+	 */
+	public String getOldValue() {
+		return oldValue;
+	}
+
+	/**
+	 * Returns the value of the field in the new model ( can be null )
+	 * @return
+	 */
+	public String getNewValue() {
+		return newValue;
+	}
+
+	@Override
+	public String toString() {
+		return name + " : '" + oldValue + "' --> '" + newValue + "'" ;
+	}
+}
@@ -0,0 +1,167 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.repository.diff;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A single change between 2 repository models : <br>
+ * an entity, a column, a foreign key or a link added, removed or modified <br>
+ * ( with the field level deltas for a modification )
+ * 
+ * @author Laurent Guerin
+ *
+ */
+public class ModelChange {
+
+	//--- Change types
+	public final static int ADDED    = 1 ;
+	public final static int REMOVED  = 2 ;
+	public final static int MODIFIED = 3 ;
+	
+	//--- Element kinds
+	public final static int ENTITY      = 1 ;
+	public final static int COLUMN      = 2 ;
+	public final static int FOREIGN_KEY = 3 ;
+	public final static int LINK        = 4 ;
+	
+	private final int    changeType ;
+	private final int    elementKind ;
+	private final String entityName ;
+	private final String elementName ;
+	
+	private final List<FieldChange> fieldChanges ;
+	
+	/**
+	 * Constructor
+	 * @param changeType ADDED, REMOVED or MODIFIED
+	 * @param elementKind ENTITY, COLUMN, FOREIGN_KEY or LINK
+	 * @param entityName the name of the entity (table)
+	 * @param elementName the column name, the foreign key name or the link id ( null for an entity )
+	 * @param fieldChanges the field deltas ( null if none )
+	 */
+	public ModelChange(int changeType, int elementKind, String entityName, String elementName, 
+			List<FieldChange> fieldChanges) {
+		super();
+		this.changeType = changeType ;
+		this.elementKind = elementKind ;
+		this.entityName = entityName ;
+		this.elementName = elementName ;
+		if ( fieldChanges != null ) {
+			this.fieldChanges = Collections.unmodifiableList(fieldChanges) ;
+		}
+		else {
+			this.fieldChanges = Collections.unmodifiableList(new LinkedList<FieldChange>()) ;
+		}
+	}
+
+	public int getChangeType() {
+		return changeType;
+	}
+
+	public boolean isAdded() {
+		return changeType == ADDED ;
+	}
+	
+	public boolean isRemoved() {
+		return changeType == REMOVED ;
+	}
+	
+	public boolean isModified() {
+		return changeType == MODIFIED ;
+	}
+	
+	public int getElementKind() {
+		return elementKind;
+	}
+
+	/**
+	 * Returns the name of the entity (table) holding the changed element
+	 * @return
+	 */
+	public String getEntityName() {
+		return entityName;
+	}
+
+	/**
+	 * Returns the name of the changed element : column name, foreign key name or link id <br>
+	 * ( or the entity name for an entity change )
+	 * @return
+	 */
+	public String getElementName() {
+		return elementName != null ? elementName : entityName ;
+	}
+
+	/**
+	 * Returns the field level deltas ( void for an addition or a removal )
+	 * @return
+	 */
+	public List<FieldChange> getFieldChanges() {
+		return fieldChanges;
+	}
+
+	/**
+	 * Returns the field delta for the given field name 
+	 * @param fieldName
+	 * @return the delta or null if the field has not changed
+	 */
+	public FieldChange getFieldChange(String fieldName) {
+		for ( FieldChange fieldChange : fieldChanges ) {
+			if ( fieldChange.getName().equals(fieldName) ) {
+				return fieldChange ;
+			}
+		}
+		return null ;
+	}
+	
+	private String getElementKindText() {
+		switch ( elementKind ) {
+		case ENTITY      : return "Table" ;
+		case COLUMN      : return "Column" ;
+		case FOREIGN_KEY : return "Foreign key" ;
+		case LINK        : return "Link" ;
+		default          : return "?" ;
+		}
+	}
+	
+	private String getChangeTypeText() {
+		switch ( changeType ) {
+		case ADDED    : return "added" ;
+		case REMOVED  : return "removed" ;
+		case MODIFIED : return "modified" ;
+		default       : return "?" ;
+		}
+	}
+	
+	/**
+	 * Returns the change description in the "update log" format <br>
+	 * e.g. "Column 'CODE' modified : databaseSize : '10' --> '20'"
+	 */
+	@Override
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		sb.append( getElementKindText() + " '" + getElementName() + "' " + getChangeTypeText() );
+		int n = 0 ;
+		for ( FieldChange fieldChange : fieldChanges ) {
+			sb.append( n == 0 ? " : " : ", " );
+			sb.append( fieldChange.toString() );
+			n++ ;
+		}
+		return sb.toString();
+	}
+}
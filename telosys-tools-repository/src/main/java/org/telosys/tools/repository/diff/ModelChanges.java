@@ -0,0 +1,168 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.repository.diff;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.telosys.tools.repository.UpdateLogWriter;
+
+/**
+ * The typed change set resulting from the comparison of 2 repository models <br>
+ * ( see RepositoryModelDiff ) <br>
+ * The changes are indexed by entity name and kept in the comparison order.
+ * 
+ * @author Laurent Guerin
+ *
+ */
+public class ModelChanges {
+
+	private final List<ModelChange> changes = new LinkedList<ModelChange>() ;
+	
+	private final Map<String, List<ModelChange>> changesByEntity = new LinkedHashMap<String, List<ModelChange>>() ;
+	
+	/**
+	 * Constructor (the change set is built by RepositoryModelDiff)
+	 */
+	protected ModelChanges() {
+		super();
+	}
+	
+	protected void add(ModelChange change) {
+		changes.add(change);
+		List<ModelChange> list = changesByEntity.get(change.getEntityName());
+		if ( list == null ) {
+			list = new LinkedList<ModelChange>();
+			changesByEntity.put(change.getEntityName(), list);
+		}
+		list.add(change);
+	}
+	
+	/**
+	 * Returns true if the 2 models are identical
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return changes.isEmpty() ;
+	}
+	
+	/**
+	 * Returns the number of changes
+	 * @return
+	 */
+	public int size() {
+		return changes.size() ;
+	}
+	
+	/**
+	 * Returns all the changes 
+	 * @return
+	 */
+	public List<ModelChange> getChanges() {
+		return Collections.unmodifiableList(changes) ;
+	}
+	
+	/**
+	 * Returns the changes for the given kind of element
+	 * @param elementKind ModelChange.ENTITY, COLUMN, FOREIGN_KEY or LINK
+	 * @return
+	 */
+	public List<ModelChange> getChanges(int elementKind) {
+		List<ModelChange> list = new LinkedList<ModelChange>();
+		for ( ModelChange change : changes ) {
+			if ( change.getElementKind() == elementKind ) {
+				list.add(change);
+			}
+		}
+		return list ;
+	}
+	
+	/**
+	 * Returns the changes for the given entity ( void list if the entity is unchanged )
+	 * @param entityName
+	 * @return
+	 */
+	public List<ModelChange> getEntityChanges(String entityName) {
+		List<ModelChange> list = changesByEntity.get(entityName);
+		if ( list != null ) {
+			return Collections.unmodifiableList(list) ;
+		}
+		return Collections.emptyList() ;
+	}
+
+	/**
+	 * Returns the names of all the entities having at least one change ( added, removed or modified )
+	 * @return
+	 */
+	public Set<String> getChangedEntities() {
+		return Collections.unmodifiableSet(changesByEntity.keySet()) ;
+	}
+	
+	/**
+	 * Returns the change of the entity itself (added, removed or modified) if any
+	 * @param entityName
+	 * @return the change or null if none
+	 */
+	public ModelChange getEntityChange(String entityName) {
+		for ( ModelChange change : getEntityChanges(entityName) ) {
+			if ( change.getElementKind() == ModelChange.ENTITY ) {
+				return change ;
+			}
+		}
+		return null ;
+	}
+
+	/**
+	 * Returns true if the links must be regenerated, i.e. if an entity or a foreign key 
+	 * has been added, removed or modified 
+	 * @return
+	 */
+	public boolean isLinksRegenerationRequired() {
+		for ( ModelChange change : changes ) {
+			int kind = change.getElementKind() ;
+			if ( kind == ModelChange.FOREIGN_KEY ) {
+				return true ;
+			}
+			if ( kind == ModelChange.ENTITY && ! change.isModified() ) {
+				return true ;
+			}
+		}
+		return false ;
+	}
+	
+	/**
+	 * Prints all the changes in the given update log
+	 * @param updateLogger
+	 */
+	public void print(UpdateLogWriter updateLogger) {
+		for ( Map.Entry<String, List<ModelChange>> entry : changesByEntity.entrySet() ) {
+			updateLogger.println(" ");
+			updateLogger.println(" Table '" + entry.getKey() + "' : " + entry.getValue().size() + " change(s)");
+			for ( ModelChange change : entry.getValue() ) {
+				updateLogger.println(" . " + change.toString() );
+			}
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return changes.size() + " change(s) in " + changesByEntity.size() + " entity(ies)" ;
+	}
+}
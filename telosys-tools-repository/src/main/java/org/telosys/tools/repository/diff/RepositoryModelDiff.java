@@ -0,0 +1,275 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.repository.diff;
+
+import java.util.LinkedList;
+import java.util.List;
+
+import org.telosys.tools.repository.model.Column;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.model.ForeignKey;
+import org.telosys.tools.repository.model.ForeignKeyColumn;
+import org.telosys.tools.repository.model.Link;
+import org.telosys.tools.repository.model.RepositoryModel;
+
+/**
+ * Structural comparison of 2 repository models <br>
+ * ( for example the saved ".dbrep" model and a model freshly extracted from the database ) <br>
+ * <br>
+ * The comparison doesn't change the models, it returns a typed change set (see ModelChanges) <br>
+ * that can be used to drive the incremental generation, the links regeneration and the update log. <br>
+ * <br>
+ * Each element is searched in the other model with the name-indexed maps of the model 
+ * (entity name, column name, foreign key name, link id), so the cost is linear.
+ * 
+ * @author Laurent Guerin
+ *
+ */
+public class RepositoryModelDiff {
+
+	/**
+	 * Constructor
+	 */
+	public RepositoryModelDiff() {
+		super();
+	}
+
+	/**
+	 * Compares the 2 given models 
+	 * @param original the reference model ( e.g. the saved model )
+	 * @param current the new model ( e.g. the model extracted from the database )
+	 * @return the change set ( void if the models are identical )
+	 */
+	public ModelChanges compare(RepositoryModel original, RepositoryModel current) {
+		if ( original == null ) throw new IllegalArgumentException("Original model is null");
+		if ( current == null ) throw new IllegalArgumentException("Current model is null");
+		
+		ModelChanges changes = new ModelChanges();
+		
+		//--- Entities added or modified
+		for ( Entity entity : current.getEntities() ) {
+			Entity originalEntity = original.getEntityByName( entity.getName() );
+			if ( originalEntity == null ) {
+				changes.add( new ModelChange(ModelChange.ADDED, ModelChange.ENTITY, entity.getName(), null, null) );
+			}
+			else {
+				compareEntities(originalEntity, entity, changes);
+			}
+		}
+		//--- Entities removed
+		for ( Entity originalEntity : original.getEntities() ) {
+			if ( current.getEntityByName( originalEntity.getName() ) == null ) {
+				changes.add( new ModelChange(ModelChange.REMOVED, ModelChange.ENTITY, originalEntity.getName(), null, null) );
+			}
+		}
+		return changes ;
+	}
+
+	//-------------------------------------------------------------------------------------------------
+	// ENTITY
+	//-------------------------------------------------------------------------------------------------
+	private void compareEntities(Entity original, Entity current, ModelChanges changes) {
+		String entityName = current.getName() ;
+		
+		//--- Entity fields
+		List<FieldChange> fields = new LinkedList<FieldChange>();
+		compare(fields, "catalog",       original.getCatalog(),       current.getCatalog() );
+		compare(fields, "schema",        original.getSchema(),        current.getSchema() );
+		compare(fields, "databaseType",  original.getDatabaseType(),  current.getDatabaseType() );
+		compare(fields, "beanJavaClass", original.getBeanJavaClass(), current.getBeanJavaClass() );
+		if ( ! fields.isEmpty() ) {
+			changes.add( new ModelChange(ModelChange.MODIFIED, ModelChange.ENTITY, entityName, null, fields) );
+		}
+
+		//--- Columns
+		for ( Column column : current.getColumns() ) {
+			Column originalColumn = original.getColumn( column.getDatabaseName() );
+			if ( originalColumn == null ) {
+				changes.add( new ModelChange(ModelChange.ADDED, ModelChange.COLUMN, entityName, column.getDatabaseName(), null) );
+			}
+			else {
+				List<FieldChange> columnFields = compareColumns(originalColumn, column);
+				if ( ! columnFields.isEmpty() ) {
+					changes.add( new ModelChange(ModelChange.MODIFIED, ModelChange.COLUMN, entityName, column.getDatabaseName(), columnFields) );
+				}
+			}
+		}
+		for ( Column originalColumn : original.getColumns() ) {
+			if ( current.getColumn( originalColumn.getDatabaseName() ) == null ) {
+				changes.add( new ModelChange(ModelChange.REMOVED, ModelChange.COLUMN, entityName, originalColumn.getDatabaseName(), null) );
+			}
+		}
+
+		//--- Foreign keys
+		for ( ForeignKey fk : current.getForeignKeys() ) {
+			ForeignKey originalFk = original.getForeignKey( fk.getName() );
+			if ( originalFk == null ) {
+				changes.add( new ModelChange(ModelChange.ADDED, ModelChange.FOREIGN_KEY, entityName, fk.getName(), null) );
+			}
+			else {
+				List<FieldChange> fkFields = compareForeignKeys(originalFk, fk);
+				if ( ! fkFields.isEmpty() ) {
+					changes.add( new ModelChange(ModelChange.MODIFIED, ModelChange.FOREIGN_KEY, entityName, fk.getName(), fkFields) );
+				}
+			}
+		}
+		for ( ForeignKey originalFk : original.getForeignKeys() ) {
+			if ( current.getForeignKey( originalFk.getName() ) == null ) {
+				changes.add( new ModelChange(ModelChange.REMOVED, ModelChange.FOREIGN_KEY, entityName, originalFk.getName(), null) );
+			}
+		}
+		
+		//--- Links
+		for ( Link link : current.getLinks() ) {
+			Link originalLink = original.getLink( link.getId() );
+			if ( originalLink == null ) {
+				changes.add( new ModelChange(ModelChange.ADDED, ModelChange.LINK, entityName, link.getId(), null) );
+			}
+			else {
+				List<FieldChange> linkFields = compareLinks(originalLink, link);
+				if ( ! linkFields.isEmpty() ) {
+					changes.add( new ModelChange(ModelChange.MODIFIED, ModelChange.LINK, entityName, link.getId(), linkFields) );
+				}
+			}
+		}
+		for ( Link originalLink : original.getLinks() ) {
+			if ( current.getLink( originalLink.getId() ) == null ) {
+				changes.add( new ModelChange(ModelChange.REMOVED, ModelChange.LINK, entityName, originalLink.getId(), null) );
+			}
+		}
+	}
+	
+	//-------------------------------------------------------------------------------------------------
+	// COLUMN
+	//-------------------------------------------------------------------------------------------------
+	private List<FieldChange> compareColumns(Column c1, Column c2) {
+		List<FieldChange> fields = new LinkedList<FieldChange>();
+		//--- Database
+		compare(fields, "databaseTypeName",     c1.getDatabaseTypeName(),     c2.getDatabaseTypeName() );
+		compare(fields, "databaseSize",         c1.getDatabaseSize(),         c2.getDatabaseSize() );
+		compare(fields, "databaseNotNull",      c1.isDatabaseNotNull(),       c2.isDatabaseNotNull() );
+		compare(fields, "primaryKey",           c1.isPrimaryKey(),            c2.isPrimaryKey() );
+		compare(fields, "foreignKey",           c1.isForeignKey(),            c2.isForeignKey() );
+		compare(fields, "autoIncremented",      c1.isAutoIncremented(),       c2.isAutoIncremented() );
+		compare(fields, "databasePosition",     c1.getDatabasePosition(),     c2.getDatabasePosition() );
+		compare(fields, "databaseDefaultValue", c1.getDatabaseDefaultValue(), c2.getDatabaseDefaultValue() );
+		compare(fields, "databaseComment",      c1.getDatabaseComment(),      c2.getDatabaseComment() );
+		compare(fields, "jdbcTypeCode",         c1.getJdbcTypeCode(),         c2.getJdbcTypeCode() );
+		//--- Java
+		compare(fields, "javaName",             c1.getJavaName(),             c2.getJavaName() );
+		compare(fields, "javaType",             c1.getJavaType(),             c2.getJavaType() );
+		compare(fields, "javaNotNull",          c1.getJavaNotNull(),          c2.getJavaNotNull() );
+		compare(fields, "javaDefaultValue",     c1.getJavaDefaultValue(),     c2.getJavaDefaultValue() );
+		compare(fields, "selected",             c1.getSelected(),             c2.getSelected() );
+		//--- Special data
+		compare(fields, "label",                c1.getLabel(),                c2.getLabel() );
+		compare(fields, "inputType",            c1.getInputType(),            c2.getInputType() );
+		compare(fields, "longText",             c1.getLongText(),             c2.getLongText() );
+		compare(fields, "notEmpty",             c1.getNotEmpty(),             c2.getNotEmpty() );
+		compare(fields, "notBlank",             c1.getNotBlank(),             c2.getNotBlank() );
+		compare(fields, "minLength",            c1.getMinLength(),            c2.getMinLength() );
+		compare(fields, "maxLength",            c1.getMaxLength(),            c2.getMaxLength() );
+		compare(fields, "pattern",              c1.getPattern(),              c2.getPattern() );
+		compare(fields, "dateType",             c1.getDateType(),             c2.getDateType() );
+		compare(fields, "datePast",             c1.isDatePast(),              c2.isDatePast() );
+		compare(fields, "dateFuture",           c1.isDateFuture(),            c2.isDateFuture() );
+		compare(fields, "dateBefore",           c1.isDateBefore(),            c2.isDateBefore() );
+		compare(fields, "dateBeforeValue",      c1.getDateBeforeValue(),      c2.getDateBeforeValue() );
+		compare(fields, "dateAfter",            c1.isDateAfter(),             c2.isDateAfter() );
+		compare(fields, "dateAfterValue",       c1.getDateAfterValue(),       c2.getDateAfterValue() );
+		compare(fields, "minValue",             c1.getMinValue(),             c2.getMinValue() );
+		compare(fields, "maxValue",             c1.getMaxValue(),             c2.getMaxValue() );
+		compare(fields, "booleanTrueValue",     c1.getBooleanTrueValue(),     c2.getBooleanTrueValue() );
+		compare(fields, "booleanFalseValue",    c1.getBooleanFalseValue(),    c2.getBooleanFalseValue() );
+		compare(fields, "format",               c1.getFormat(),               c2.getFormat() );
+		return fields ;
+	}
+	
+	//-------------------------------------------------------------------------------------------------
+	// FOREIGN KEY
+	//-------------------------------------------------------------------------------------------------
+	private List<FieldChange> compareForeignKeys(ForeignKey fk1, ForeignKey fk2) {
+		List<FieldChange> fields = new LinkedList<FieldChange>();
+		for ( ForeignKeyColumn fkc2 : fk2.getForeignKeyColumns() ) {
+			String name = fkc2.getColumnName() ;
+			ForeignKeyColumn fkc1 = fk1.getForeignKeyColumn(name);
+			if ( fkc1 == null ) {
+				fields.add( new FieldChange(name, null, reference(fkc2)) );
+			}
+			else {
+				compare(fields, name + ".reference",      reference(fkc1),           reference(fkc2) );
+				compare(fields, name + ".sequence",       fkc1.getSequence(),        fkc2.getSequence() );
+				compare(fields, name + ".updateRule",     fkc1.getUpdateRuleCode(),  fkc2.getUpdateRuleCode() );
+				compare(fields, name + ".deleteRule",     fkc1.getDeleteRuleCode(),  fkc2.getDeleteRuleCode() );
+				compare(fields, name + ".deferrable",     fkc1.getDeferrableCode(),  fkc2.getDeferrableCode() );
+			}
+		}
+		for ( ForeignKeyColumn fkc1 : fk1.getForeignKeyColumns() ) {
+			if ( fk2.getForeignKeyColumn( fkc1.getColumnName() ) == null ) {
+				fields.add( new FieldChange(fkc1.getColumnName(), reference(fkc1), null) );
+			}
+		}
+		return fields ;
+	}
+	
+	private String reference(ForeignKeyColumn fkc) {
+		return fkc.getTableRef() + "." + fkc.getColumnRef() ;
+	}
+	
+	//-------------------------------------------------------------------------------------------------
+	// LINK
+	//-------------------------------------------------------------------------------------------------
+	private List<FieldChange> compareLinks(Link l1, Link l2) {
+		List<FieldChange> fields = new LinkedList<FieldChange>();
+		compare(fields, "used",                 l1.isUsed(),                  l2.isUsed() );
+		compare(fields, "cardinality",          l1.getCardinality(),          l2.getCardinality() );
+		compare(fields, "sourceTableName",      l1.getSourceTableName(),      l2.getSourceTableName() );
+		compare(fields, "targetTableName",      l1.getTargetTableName(),      l2.getTargetTableName() );
+		compare(fields, "javaFieldName",        l1.getJavaFieldName(),        l2.getJavaFieldName() );
+		compare(fields, "javaFieldType",        l1.getJavaFieldType(),        l2.getJavaFieldType() );
+		compare(fields, "targetEntityJavaType", l1.getTargetEntityJavaType(), l2.getTargetEntityJavaType() );
+		compare(fields, "owningSide",           l1.isOwningSide(),            l2.isOwningSide() );
+		compare(fields, "inverseSideOf",        l1.getInverseSideOf(),        l2.getInverseSideOf() );
+		compare(fields, "mappedBy",             l1.getMappedBy(),             l2.getMappedBy() );
+		compare(fields, "cascade",              l1.getCascade(),              l2.getCascade() );
+		compare(fields, "fetch",                l1.getFetch(),                l2.getFetch() );
+		compare(fields, "optional",             l1.getOptional(),             l2.getOptional() );
+		compare(fields, "foreignKeyName",       l1.getForeignKeyName(),       l2.getForeignKeyName() );
+		compare(fields, "joinTableName",        l1.getJoinTableName(),        l2.getJoinTableName() );
+		return fields ;
+	}
+
+	//-------------------------------------------------------------------------------------------------
+	// FIELDS
+	//-------------------------------------------------------------------------------------------------
+	private void compare(List<FieldChange> fields, String name, String v1, String v2) {
+		if ( v1 == null ? v2 != null : ! v1.equals(v2) ) {
+			fields.add( new FieldChange(name, v1, v2) );
+		}
+	}
+	
+	private void compare(List<FieldChange> fields, String name, int v1, int v2) {
+		if ( v1 != v2 ) {
+			fields.add( new FieldChange(name, Integer.toString(v1), Integer.toString(v2)) );
+		}
+	}
+	
+	private void compare(List<FieldChange> fields, String name, boolean v1, boolean v2) {
+		if ( v1 != v2 ) {
+			fields.add( new FieldChange(name, Boolean.toString(v1), Boolean.toString(v2)) );
+		}
+	}
+}
@@ -20,13 +20,15 @@ import org.telosys.tools.commons.JavaTypeUtil;
 import org.telosys.tools.commons.StrUtil;
 import org.telosys.tools.commons.javatypes.JavaTypes;
 import org.telosys.tools.commons.javatypes.JavaTypesManager;
-import org.telosys.tools.commons.jdbctypes.JdbcTypes;
 import org.telosys.tools.commons.jdbctypes.JdbcTypesManager;
 
 /**
  * Column of a table/entity in the Repository Model <br>
  * 
  * A column contains the database informations and the mapped Java attribute informations
+ * <br>
+ * Memory footprint : the boolean informations are held in a bit field, the low-cardinality 
+ * strings are shared (see StringPool) and the rarely used validation values are allocated on demand.
  * 
  * @author Laurent Guerin
  *
@@ -39,7 +41,24 @@ public class Column implements Comparable<Column>
 		 
 	public final static String SPECIAL_LONG_TEXT_TRUE = "true";
 	
-	private JdbcTypes _jdbcTypes = JdbcTypesManager.getJdbcTypes() ;
+	//----- FLAGS (all the boolean informations are held in a single bit field) -----
+	private final static int DATABASE_NOT_NULL = 0x0001 ; // dbNotNull="true|false" ( false by default )
+	private final static int PRIMARY_KEY       = 0x0002 ; // primaryKey="true|false" ( false by default )
+	private final static int FOREIGN_KEY       = 0x0004 ; // foreignKey="true|false" ( false by default )
+	private final static int AUTO_INCREMENTED  = 0x0008 ; // autoIncremented="true|false" ( false by default )
+	private final static int JAVA_NOT_NULL     = 0x0010 ; // javaNotNull="true|false" 
+	private final static int SELECTED          = 0x0020 ; // selected by default
+	private final static int LONG_TEXT         = 0x0040 ;
+	private final static int NOT_EMPTY         = 0x0080 ; // notEmpty="true|false" 
+	private final static int NOT_BLANK         = 0x0100 ; // notBlank="true|false" 
+	private final static int DATE_PAST         = 0x0200 ;
+	private final static int DATE_FUTURE       = 0x0400 ;
+	private final static int DATE_BEFORE       = 0x0800 ;
+	private final static int DATE_AFTER        = 0x1000 ;
+	// "void value" markers for the rarely used strings ( one bit per slot, see below )
+	private final static int VOID_VALUE_SHIFT  = 16 ;
+
+	private int     _flags = SELECTED ;
 	
 	//----- DATABASE -----
 	
@@ -49,14 +68,6 @@ public class Column implements Comparable<Column>
 	
 	private int     _iDatabaseSize     = 0 ;     // dbSize=""
 	
-	private boolean _bDatabaseNotNull  = false ; // dbNotNull="true|false" ( false by default )
-	
-	private boolean _bPrimaryKey       = false ; // primaryKey="true|false" ( false by default )
-	
-	private boolean _bForeignKey       = false ; // foreignKey="true|false" ( false by default )
-
-	private boolean _bAutoIncremented  = false ; // autoIncremented="true|false" ( false by default )
-	
 	private int     _iDatabasePosition = 0 ;     // position="" ( database ordinal position ) #LGU 10/08/2011
 	
 	private String  _sDatabaseDefaultValue = null ;  // dbDefaultValue="" ( database default value ) #LGU 10/08/2011
@@ -73,36 +84,14 @@ public class Column implements Comparable<Column>
 	
 	private String  _sJavaType    = null ;  // javaType="int|...." 
 	
-	private boolean _bJavaNotNull = false ;  // javaNotNull="true|false" 
-	
 	private String  _sJavaDefaultValue = null ;  // javaDefaultValue="..." 
 	
-	private boolean _bSelected    = true ;  // selected by default
-	
 	//----- SPECIAL DATA for ALL -----
 	private String  _sLabel     = null ;
 	private String  _sInputType = null ;
 	
-	//----- SPECIAL DATA for STRING -----	
-	private boolean _bLongText = false ;  //  
-	private boolean _bNotEmpty = false ;  // notEmpty="true|false" 
-	private boolean _bNotBlank = false ;  // notBlank="true|false" 
-	private String  _sMinLength = null ;
-	private String  _sMaxLength = null ;
-	private String  _sPattern   = null ;
-	
 	//----- SPECIAL DATA for DATE & TIME -----
 	private String  _sDateType = null ; // "D", "T" or "DT" ( see constants )
-	private boolean _bDatePast   = false ;
-	private boolean _bDateFuture = false ;
-	private boolean _bDateBefore = false ;
-	private boolean _bDateAfter  = false ;
-	private String  _sDateBeforeValue = null ;
-	private String  _sDateAfterValue  = null ;
-	
-	//----- SPECIAL DATA for NUMERIC -----
-	private String  _sMinValue = null ;
-	private String  _sMaxValue = null ;
 	
 	//----- SPECIAL DATA for BOOLEAN -----
 	private String  _sBooleanTrueValue  = null ; // the special value for TRUE 
@@ -111,6 +100,18 @@ public class Column implements Comparable<Column>
 	//----- OTHER SPECIAL DATA -----
 	private String  _sFormat = null ;  // Used with NUMERIC, DATE/TIME
 
+	//----- RARELY USED VALIDATION DATA ( allocated only if a value is set ) -----
+	private final static int MIN_LENGTH        = 0 ; // String
+	private final static int MAX_LENGTH        = 1 ; // String
+	private final static int PATTERN           = 2 ; // String
+	private final static int DATE_BEFORE_VALUE = 3 ; // Date & Time
+	private final static int DATE_AFTER_VALUE  = 4 ; // Date & Time
+	private final static int MIN_VALUE         = 5 ; // Numeric
+	private final static int MAX_VALUE         = 6 ; // Numeric
+	private final static int VALIDATION_SLOTS  = 7 ;
+	
+	private String[] _validation = null ;
+
 	//----- SPECIAL DATA for key generation -----
 	
 	private GeneratedValue generatedValue = null ;
@@ -156,50 +157,50 @@ public class Column implements Comparable<Column>
 	//-----------------------------------------------------------------------------
 
 	public void setPrimaryKey(boolean b) {
-		_bPrimaryKey = b ;
+		setFlag(PRIMARY_KEY, b) ;
 	}
 
 	public boolean isPrimaryKey() {
-		return _bPrimaryKey ;
+		return getFlag(PRIMARY_KEY) ;
 	}
 
 	//-----------------------------------------------------------------------------
 
 	public void setForeignKey(boolean b) {
-		_bForeignKey = b ;
+		setFlag(FOREIGN_KEY, b) ;
 	}
 
 	public boolean isForeignKey() {
-		return _bForeignKey ;
+		return getFlag(FOREIGN_KEY) ;
 	}
 
 	//-----------------------------------------------------------------------------
 
 	public void setAutoIncremented(boolean b) {
-		_bAutoIncremented = b ;
+		setFlag(AUTO_INCREMENTED, b) ;
 	}
 
 	public boolean isAutoIncremented() {
-		return _bAutoIncremented ;
+		return getFlag(AUTO_INCREMENTED) ;
 	}
 
 	
 	//-----------------------------------------------------------------------------
 
 	public void setDatabaseNotNull(boolean flag) {
-		_bDatabaseNotNull = flag ;
+		setFlag(DATABASE_NOT_NULL, flag) ;
 	}
 
 	public void setDatabaseNotNull(String flag) {
-		_bDatabaseNotNull = "true".equalsIgnoreCase(flag) ;
+		setFlag(DATABASE_NOT_NULL, "true".equalsIgnoreCase(flag)) ;
 	}
 
 	public boolean isDatabaseNotNull() {
-		return _bDatabaseNotNull ;
+		return getFlag(DATABASE_NOT_NULL) ;
 	}
 
 	public String getDatabaseNotNullAsString() {
-		return ( _bDatabaseNotNull ? "true" : "false" ) ;
+		return ( getFlag(DATABASE_NOT_NULL) ? "true" : "false" ) ;
 	}
 
 	//-----------------------------------------------------------------------------
@@ -236,12 +237,22 @@ public class Column implements Comparable<Column>
 		return _sDatabaseDefaultValue;
 	}
 
+	/**
+	 * Returns the value to be kept for a high-cardinality string ( not put in the StringPool ) <br>
+	 * Only the void value is shared 
+	 * @param s
+	 * @return
+	 */
+	private static String notShared(String s) {
+		return ( s != null && s.length() == 0 ) ? "" : s ;
+	}
+	
 	/**
 	 * Set the database default value 
 	 * @param v
 	 */
 	public void setDatabaseDefaultValue(String v) { // #LGU 10/08/2011
-		_sDatabaseDefaultValue = v;
+		_sDatabaseDefaultValue = notShared(v);
 	}
 
 	//-----------------------------------------------------------------------------
@@ -273,14 +284,14 @@ public class Column implements Comparable<Column>
 	}
 
 	public String getJdbcTypeName() {
-		String text = _jdbcTypes.getTextForCode( getJdbcTypeCode() );
+		String text = JdbcTypesManager.getJdbcTypes().getTextForCode( getJdbcTypeCode() );
 		return text != null ? text : "???" ;
 	}
 
 
 	public String getJdbcTypeCodeWithText() {
 		int code = getJdbcTypeCode();
-		String text = _jdbcTypes.getTextForCode(code);
+		String text = JdbcTypesManager.getJdbcTypes().getTextForCode(code);
 		if ( text == null ) text = "???" ;
 		return code + " : " + text.toLowerCase() ;
 	}
@@ -306,7 +317,7 @@ public class Column implements Comparable<Column>
 	}
 
 	public void setDatabaseTypeName(String databaseTypeName) {
-		_sDatabaseTypeName = databaseTypeName;
+		_sDatabaseTypeName = StringPool.intern(databaseTypeName);
 	}
 
 	//-----------------------------------------------------------------------------
@@ -346,7 +357,7 @@ public class Column implements Comparable<Column>
 	}
 
 	public void setJavaType(String s) {
-		_sJavaType = s ;
+		_sJavaType = StringPool.intern(s) ;
 	}
 
 	//-----------------------------------------------------------------------------
@@ -362,7 +373,7 @@ public class Column implements Comparable<Column>
 	 * @param s the default value ( "0", "false" )
 	 */
 	public void setJavaDefaultValue(String s) {
-		_sJavaDefaultValue = s ;
+		_sJavaDefaultValue = notShared(s) ;
 	}
 
 	//-----------------------------------------------------------------------------
@@ -416,54 +427,54 @@ public class Column implements Comparable<Column>
 
 	//-----------------------------------------------------------------------------
 	public boolean getJavaNotNull() {
-		return _bJavaNotNull;
+		return getFlag(JAVA_NOT_NULL);
 	}
 	public void setJavaNotNull(boolean v) {
-		_bJavaNotNull = v ;
+		setFlag(JAVA_NOT_NULL, v) ;
 	}
 
 	//-----------------------------------------------------------------------------
 	public boolean getNotEmpty() {
-		return _bNotEmpty;
+		return getFlag(NOT_EMPTY);
 	}
 	public void setNotEmpty(boolean v) {
-		_bNotEmpty = v ;
+		setFlag(NOT_EMPTY, v) ;
 	}
 
 	//-----------------------------------------------------------------------------
 	public boolean getNotBlank() {
-		return _bNotBlank;
+		return getFlag(NOT_BLANK);
 	}
 	public void setNotBlank(boolean v) {
-		_bNotBlank = v ;
+		setFlag(NOT_BLANK, v) ;
 	}
 	//-----------------------------------------------------------------------------
 	public String getMinLength() {
-		return _sMinLength;
+		return getValidation(MIN_LENGTH);
 	}
 	public void setMinLength(String v) {
-		_sMinLength = v ;
+		setValidation(MIN_LENGTH, v) ;
 	}
 	//-----------------------------------------------------------------------------
 	public String getMaxLength() {
-		return _sMaxLength;
+		return getValidation(MAX_LENGTH);
 	}
 	public void setMaxLength(String v) {
-		_sMaxLength = v ;
+		setValidation(MAX_LENGTH, v) ;
 	}
 	//-----------------------------------------------------------------------------
 	public String getPattern() {
-		return _sPattern;
+		return getValidation(PATTERN);
 	}
 	public void setPattern(String v) {
-		_sPattern = v ;
+		setValidation(PATTERN, v) ;
 	}
 	//-----------------------------------------------------------------------------
 	public boolean getSelected() {
-		return _bSelected ;
+		return getFlag(SELECTED) ;
 	}
 	public void setSelected(boolean b) {
-		_bSelected = b ;
+		setFlag(SELECTED, b) ;
 	}
 
 	//-----------------------------------------------------------------------------
@@ -481,18 +492,18 @@ public class Column implements Comparable<Column>
 		return _sInputType ;
 	}
 	public void setInputType(String s) { // V 2.0.3
-		_sInputType = s ;
+		_sInputType = StringPool.intern(s) ;
 	}
 	
 	//-----------------------------------------------------------------------------
 	public boolean getLongText() {
-		return _bLongText ;
+		return getFlag(LONG_TEXT) ;
 	}
 	public void setLongText(String flag) {
 		setLongText( "true".equalsIgnoreCase(flag) ) ;
 	}
 	public void setLongText(boolean b) {
-		_bLongText = b ;
+		setFlag(LONG_TEXT, b) ;
 	}
 
 	//-----------------------------------------------------------------------------
@@ -509,51 +520,59 @@ public class Column implements Comparable<Column>
 	 * @param v : "D", "T", "DT" or null if none
 	 */
 	public void setDateType(String v) {
-		if ( SPECIAL_DATE_ONLY.equals(v) || SPECIAL_TIME_ONLY.equals(v) 
-				|| SPECIAL_DATE_AND_TIME.equals(v) || null == v )
-		{
-			_sDateType = v ;
+		// keep the constant instance ( never a copy )
+		if ( SPECIAL_DATE_ONLY.equals(v) ) {
+			_sDateType = SPECIAL_DATE_ONLY ;
+		}
+		else if ( SPECIAL_TIME_ONLY.equals(v) ) {
+			_sDateType = SPECIAL_TIME_ONLY ;
+		}
+		else if ( SPECIAL_DATE_AND_TIME.equals(v) ) {
+			_sDateType = SPECIAL_DATE_AND_TIME ;
+		}
+		else if ( null == v ) {
+			_sDateType = null ;
 		}
 	}
 
 	public boolean isDatePast() {
-		return _bDatePast;
+		return getFlag(DATE_PAST);
 	}
 	public void setDatePast(boolean v) {
-		_bDatePast = v;
+		setFlag(DATE_PAST, v);
 	}
 
 	public boolean isDateFuture() {
-		return _bDateFuture;
+		return getFlag(DATE_FUTURE);
 	}
 	public void setDateFuture(boolean v) {
-		_bDateFuture = v;
+		setFlag(DATE_FUTURE, v);
 	}
 
 	public boolean isDateBefore() {
-		return _bDateBefore;
+		return getFlag(DATE_BEFORE);
 	}
 	public void setDateBefore(boolean v) {
-		_bDateBefore = v;
+		setFlag(DATE_BEFORE, v);
 	}
 	public String getDateBeforeValue() {
-		return _sDateBeforeValue;
+		return getValidation(DATE_BEFORE_VALUE);
 	}
 	public void setDateBeforeValue(String v) {
-		_sDateBeforeValue = v;
+		setValidation(DATE_BEFORE_VALUE, v);
 	}
 
 	public boolean isDateAfter() {
-		return _bDateAfter;
+		return getFlag(DATE_AFTER);
 	}
 	public void setDateAfter(boolean v) {
-		_bDateAfter = v;
+		setFlag(DATE_AFTER, v);
 	}
 	public String getDateAfterValue() {
-		return _sDateAfterValue;
+		return getValidation(DATE_AFTER_VALUE);
 	}
 	public void setDateAfterValue(String v) {
-		_sDateAfterValue = v;
+		setValidation(DATE_AFTER_VALUE, v);
 	}
 	//-----------------------------------------------------------------------------
 
@@ -573,10 +592,10 @@ public class Column implements Comparable<Column>
 	}
 
 	public void setBooleanTrueValue(String v) {
-		_sBooleanTrueValue = v ;
+		_sBooleanTrueValue = StringPool.intern(v) ;
 	}
 	public void setBooleanFalseValue(String v) {
-		_sBooleanFalseValue = v ;
+		_sBooleanFalseValue = StringPool.intern(v) ;
 	}
 
 	//-----------------------------------------------------------------------------
@@ -585,23 +604,23 @@ public class Column implements Comparable<Column>
 		return _sFormat ; 
 	}
 	public void setFormat(String v) {
-		_sFormat = v ;
+		_sFormat = notShared(v) ;
 	}
 	
 	//-----------------------------------------------------------------------------
 
 	public String getMinValue() {
-		return _sMinValue ; 
+		return getValidation(MIN_VALUE) ; 
 	}
 	public void setMinValue(String v) {
-		_sMinValue = v ;
+		setValidation(MIN_VALUE, v) ;
 	}
 	
 	public String getMaxValue() {
-		return _sMaxValue ; 
+		return getValidation(MAX_VALUE) ; 
 	}
 	public void setMaxValue(String v) {
-		_sMaxValue = v ;
+		setValidation(MAX_VALUE, v) ;
 	}
 	
 	//-----------------------------------------------------------------------------
@@ -704,6 +723,47 @@ public class Column implements Comparable<Column>
 		setMinLength(null);
 		setMaxLength(null);
 		setPattern(null);
+		_validation = null ;
+	}
+	
+	//-----------------------------------------------------------------------------
+	// Flags and validation data storage
+	//-----------------------------------------------------------------------------
+	private boolean getFlag(int flag) {
+		return ( _flags & flag ) != 0 ;
+	}
+	private void setFlag(int flag, boolean b) {
+		if ( b ) {
+			_flags |= flag ;
+		}
+		else {
+			_flags &= ~flag ;
+		}
+	}
+	
+	private String getValidation(int slot) {
+		if ( _validation != null ) {
+			return _validation[slot] ;
+		}
+		// not allocated : null or void value
+		return getFlag( 1 << ( VOID_VALUE_SHIFT + slot ) ) ? "" : null ;
+	}
+	private void setValidation(int slot, String v) {
+		if ( _validation == null ) {
+			if ( v == null || v.length() == 0 ) {
+				// no allocation for a null or void value ( "" is very frequent when loading the XML file )
+				setFlag( 1 << ( VOID_VALUE_SHIFT + slot ), v != null ) ;
+				return ;
+			}
+			_validation = new String[VALIDATION_SLOTS] ;
+			for ( int i = 0 ; i < VALIDATION_SLOTS ; i++ ) {
+				if ( getFlag( 1 << ( VOID_VALUE_SHIFT + i ) ) ) {
+					_validation[i] = "" ;
+				}
+			}
+			_flags &= ( 1 << VOID_VALUE_SHIFT ) - 1 ;
+		}
+		_validation[slot] = v ;
 	}
 	
 	//public int compareTo(Object o) {
@@ -73,16 +73,9 @@ public class Entity implements Comparable<Entity>
 			return false;
 		} 
 				
-		//--- Check if all the columns are in the Primary Key
-		for ( Column column : getColumns() ) {
-			if ( ! column.isPrimaryKey() ) {
-				return false ;
-			}
-		}
-		
-		//--- Check if all the columns are in a Foreign Key
-		for ( Column column : getColumns() ) {
-			if ( ! column.isForeignKey() ) {
+		//--- Check if all the columns are in the Primary Key and in a Foreign Key ( no need to sort them )
+		for ( Column column : columns.values() ) {
+			if ( ! column.isPrimaryKey() || ! column.isForeignKey() ) {
 				return false ;
 			}
 		}
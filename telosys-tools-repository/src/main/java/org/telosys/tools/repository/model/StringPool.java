@@ -0,0 +1,77 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.repository.model;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Shared pool of canonical strings for the low-cardinality values of the model <br>
+ * ( database type names, java types, input types, boolean values ) <br>
+ * 
+ * Each distinct value is kept only once, whatever the number of columns. <br>
+ * The strings are weakly referenced : a value no longer used by any loaded model is released. <br>
+ * This pool is used instead of String.intern() to avoid filling the "perm gen" space.
+ * 
+ * @author Laurent Guerin
+ *
+ */
+public final class StringPool {
+
+	/**
+	 * Values longer than this limit are not supposed to be shared (they are kept as is)
+	 */
+	private final static int MAX_LENGTH = 64 ;
+	
+	/**
+	 * Canonical strings ( the value is a weak reference to the key itself )
+	 */
+	private final static Map<String, WeakReference<String>> pool = new WeakHashMap<String, WeakReference<String>>(256);
+	
+	private StringPool() {
+	}
+	
+	/**
+	 * Returns the canonical instance of the given string 
+	 * @param s the string to be shared (can be null)
+	 * @return the shared instance (or null if the given string is null)
+	 */
+	public static String intern(String s) {
+		if ( s == null ) return null ;
+		if ( s.length() == 0 ) return "" ;
+		if ( s.length() > MAX_LENGTH ) return s ;
+		synchronized (pool) {
+			WeakReference<String> ref = pool.get(s);
+			String shared = ( ref != null ? ref.get() : null ) ;
+			if ( shared == null ) {
+				pool.put(s, new WeakReference<String>(s));
+				shared = s ;
+			}
+			return shared ;
+		}
+	}
+	
+	/**
+	 * Returns the number of distinct strings currently held by the pool
+	 * @return
+	 */
+	public static int size() {
+		synchronized (pool) {
+			return pool.size();
+		}
+	}
+}
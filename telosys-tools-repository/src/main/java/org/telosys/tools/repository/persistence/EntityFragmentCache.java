@@ -0,0 +1,184 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.repository.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.xml.transform.Transformer;
+
+import org.telosys.tools.commons.TelosysToolsException;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.persistence.util.Xml;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+/**
+ * Cache of the serialized XML fragments ( "table" elements ) of the entities of a repository model <br>
+ * <br>
+ * Each fragment is kept with the digest of the element it comes from : an entity is serialized again 
+ * only if its element has changed since the previous save ( the elements are compared by digest, 
+ * the cost of the comparison is much lower than the XML serialization ). <br>
+ * The entities are weakly referenced ( a removed entity is released with its fragment ). 
+ * 
+ * @author Laurent Guerin
+ *
+ */
+public class EntityFragmentCache {
+
+	private final Map<Entity, Fragment> fragments = new WeakHashMap<Entity, Fragment>();
+	
+	private Transformer transformer = null ;
+	
+	private int reusedCount = 0 ;
+	
+	private int serializedCount = 0 ;
+	
+	/**
+	 * Returns the serialized form of the given entity element, without trailing line break <br>
+	 * ( the cached fragment if the element has not changed, else a new serialization )
+	 * @param entity the entity 
+	 * @param entityElement the XML element built for the entity 
+	 * @return
+	 * @throws TelosysToolsException
+	 */
+	public synchronized byte[] getFragment(Entity entity, Element entityElement) throws TelosysToolsException 
+	{
+		byte[] digest = digest(entityElement);
+		Fragment fragment = fragments.get(entity);
+		if ( fragment != null && Arrays.equals(fragment.digest, digest) ) {
+			reusedCount++ ;
+			return fragment.bytes ;
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(2048);
+		if ( transformer == null ) {
+			transformer = Xml.createFragmentTransformer();
+		}
+		Xml.saveFragment(transformer, entityElement, baos);
+		fragment = new Fragment(digest, trimLineBreaks(baos.toByteArray()));
+		fragments.put(entity, fragment);
+		serializedCount++ ;
+		return fragment.bytes ;
+	}
+	
+	/**
+	 * Returns the fragment of the given entity as serialized by the previous save, without checking it 
+	 * ( for an entity known as unchanged ) 
+	 * @param entity
+	 * @return the fragment or null if none
+	 */
+	public synchronized byte[] getFragment(Entity entity) 
+	{
+		Fragment fragment = fragments.get(entity);
+		if ( fragment != null ) {
+			reusedCount++ ;
+			return fragment.bytes ;
+		}
+		return null ;
+	}
+	
+	/**
+	 * Returns the number of fragments reused since the cache creation
+	 * @return
+	 */
+	public synchronized int getReusedCount() {
+		return reusedCount ;
+	}
+	
+	/**
+	 * Returns the number of entities serialized since the cache creation
+	 * @return
+	 */
+	public synchronized int getSerializedCount() {
+		return serializedCount ;
+	}
+	
+	/**
+	 * Removes all the fragments 
+	 */
+	public synchronized void clear() {
+		fragments.clear();
+	}
+	
+	//-------------------------------------------------------------------------------------
+	private byte[] trimLineBreaks(byte[] bytes) {
+		int length = bytes.length ;
+		while ( length > 0 && ( bytes[length-1] == '\n' || bytes[length-1] == '\r' ) ) {
+			length-- ;
+		}
+		return length == bytes.length ? bytes : Arrays.copyOf(bytes, length) ;
+	}
+	
+	private byte[] digest(Element element) throws TelosysToolsException 
+	{
+		try {
+			MessageDigest md = MessageDigest.getInstance("MD5");
+			update(md, element);
+			return md.digest();
+		} catch (NoSuchAlgorithmException e) {
+			throw new TelosysToolsException("Cannot compute element digest", e);
+		} catch (UnsupportedEncodingException e) {
+			throw new TelosysToolsException("Cannot compute element digest", e);
+		}
+	}
+	
+	private void update(MessageDigest md, Node node) throws UnsupportedEncodingException 
+	{
+		update(md, node.getNodeName());
+		NamedNodeMap attributes = node.getAttributes();
+		if ( attributes != null ) {
+			for ( int i = 0 ; i < attributes.getLength() ; i++ ) {
+				Node attribute = attributes.item(i);
+				update(md, attribute.getNodeName());
+				update(md, attribute.getNodeValue());
+			}
+		}
+		md.update((byte)'{');
+		for ( Node child = node.getFirstChild() ; child != null ; child = child.getNextSibling() ) {
+			if ( child.getNodeType() == Node.ELEMENT_NODE ) {
+				update(md, child);
+			}
+			else {
+				update(md, child.getNodeValue());
+			}
+		}
+		md.update((byte)'}');
+	}
+	
+	private void update(MessageDigest md, String s) throws UnsupportedEncodingException 
+	{
+		//--- Length prefix to avoid any ambiguity between 2 consecutive strings
+		byte[] bytes = ( s != null ? s.getBytes("UTF-8") : new byte[0] ) ;
+		md.update( String.valueOf(s != null ? bytes.length : -1).getBytes("UTF-8") );
+		md.update((byte)':');
+		md.update(bytes);
+	}
+	
+	private static class Fragment {
+		private final byte[] digest ;
+		private final byte[] bytes ;
+		private Fragment(byte[] digest, byte[] bytes) {
+			this.digest = digest ;
+			this.bytes  = bytes ;
+		}
+	}
+}
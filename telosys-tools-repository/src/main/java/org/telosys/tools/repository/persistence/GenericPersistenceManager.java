@@ -15,10 +15,15 @@
  */
 package org.telosys.tools.repository.persistence;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
 
 import org.telosys.tools.commons.TelosysToolsException;
 import org.telosys.tools.commons.TelosysToolsLogger;
@@ -74,9 +79,6 @@ public abstract class GenericPersistenceManager implements PersistenceManager {
 	public RepositoryModel load(InputStream is) throws TelosysToolsException, CommandException {
 		final Document xmlDocument = Xml.load(is);
 
-		// Instanciation parser
-		ICommandManager manager = CommandManager.getCommandManager();
-		
 		// Tables
 		NodeList nlListe = xmlDocument.getElementsByTagName(RepositoryConst.TABLELIST);
 		final Element tableListe = (Element) nlListe.item(0);
@@ -84,17 +86,33 @@ public abstract class GenericPersistenceManager implements PersistenceManager {
 
 		// Traitement des tables
 		NodeList nl = xmlDocument.getElementsByTagName(RepositoryConst.TABLE);
+		for ( Entity entity : buildEntities(nl) ) {
+			model.storeEntity(entity);
+		}
+
+		return model;
+	}
+
+	/**
+	 * Builds the entities for the given list of "table" elements
+	 * 
+	 * @param tables
+	 * @return
+	 * @throws CommandException
+	 */
+	protected static List<Entity> buildEntities(NodeList tables) throws CommandException {
+		// Instanciation parser
+		ICommandManager manager = CommandManager.getCommandManager();
 		
 		// Lancement parsing
-		ProcessContext context = new ProcessContext(nl);
+		ProcessContext context = new ProcessContext(tables);
 		ICommandContext commandContext = manager.searchCommand(context);
 		ProcessContext resultat = commandContext.runProcess(context, manager);
+		List<Entity> entities = new LinkedList<Entity>();
 		for (Iterator<?> iterator = resultat.getList().iterator(); iterator.hasNext();) {
-			Entity entity = (Entity) iterator.next();
-			model.storeEntity(entity);
+			entities.add( (Entity) iterator.next() );
 		}
-
-		return model;
+		return entities ;
 	}
 
 	/**
@@ -134,6 +152,99 @@ public abstract class GenericPersistenceManager implements PersistenceManager {
 		}
 	}
 
+	/**
+	 * Saves the repository model in the given XML file, reusing the XML fragments of the entities 
+	 * that have not changed since the previous save with the same cache <br>
+	 * The result is exactly the same as "save(OutputStream, RepositoryModel)"
+	 * 
+	 * @param os
+	 * @param model
+	 * @param cache the entities fragments cache 
+	 * @param changedEntities the entities changed since the previous save ( the other entities are not checked ), 
+	 *        or null to check all the entities 
+	 * @throws TelosysToolsException
+	 */
+	public void save(OutputStream os, RepositoryModel model, EntityFragmentCache cache, 
+			Collection<Entity> changedEntities) throws TelosysToolsException 
+	{
+		log("save(OutputStream, RepositoryModel, EntityFragmentCache, Collection<Entity>)... ");
+		Entity[] entities = ( model != null ? model.getEntities() : null ) ;
+		if ( entities == null || entities.length == 0 ) {
+			//--- Nothing to reuse
+			save(os, model);
+			return ;
+		}
+		
+		//--- The document without entities : a marker element in place of the entities
+		Document doc = Xml.createDomDocument();
+		Comment comment = doc.createComment(" Telosys Database Repository ");
+		doc.appendChild(comment);
+		Element root = doc.createElement(RepositoryConst.ROOT_ELEMENT);
+		Element entitiesElement = RepositoryConst.BASE_WRAPPER.getXmlDesc(model, doc);
+		root.appendChild(entitiesElement);
+		doc.appendChild(root);
+		entitiesElement.appendChild( doc.createElement(ENTITIES_MARKER) );
+		
+		ByteArrayOutputStream frame = new ByteArrayOutputStream(1024);
+		Xml.save(doc, frame);
+		String frameString = toString(frame.toByteArray());
+		String marker = "<" + ENTITIES_MARKER + "/>" ;
+		int markerStart = frameString.indexOf(marker);
+		//--- The entities are separated by the same characters as the ones preceding the marker ( new line )
+		int lineStart = frameString.lastIndexOf('>', markerStart) + 1 ;
+		String separator = frameString.substring(lineStart, markerStart);
+		if ( ! isLineBreak(separator) ) {
+			//--- Indented output : the fragments ( serialized without parent ) would not have the same indentation
+			save(os, model);
+			return ;
+		}
+		
+		log(" . write entities fragments ");
+		try {
+			os.write( toBytes( frameString.substring(0, markerStart) ) );
+			byte[] separatorBytes = toBytes(separator);
+			for ( int i = 0 ; i < entities.length ; i++ ) {
+				if ( i > 0 ) {
+					os.write(separatorBytes);
+				}
+				byte[] fragment = null ;
+				if ( changedEntities != null && ! changedEntities.contains(entities[i]) ) {
+					//--- Unchanged entity : reused as is ( if already serialized )
+					fragment = cache.getFragment(entities[i]) ;
+				}
+				if ( fragment == null ) {
+					fragment = cache.getFragment(entities[i], buildEntityElement(doc, entities[i]) );
+				}
+				os.write( fragment );
+			}
+			os.write( toBytes( frameString.substring(markerStart + marker.length()) ) );
+		} catch (IOException e) {
+			throw new TelosysToolsException("Cannot write repository", e);
+		}
+	}
+	
+	private final static String ENTITIES_MARKER = "telosys-entities" ;
+	
+	private static boolean isLineBreak(String s) {
+		return s.length() > 0 && s.replace("\r", "").replace("\n", "").length() == 0 ;
+	}
+	
+	private static String toString(byte[] bytes) throws TelosysToolsException {
+		try {
+			return new String(bytes, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new TelosysToolsException("UTF-8 not supported", e);
+		}
+	}
+	
+	private static byte[] toBytes(String s) throws TelosysToolsException {
+		try {
+			return s.getBytes("UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new TelosysToolsException("UTF-8 not supported", e);
+		}
+	}
+
 	// ---------------------------------------------------------------------------------------
 
 	private void addAllEntities(Document doc, RepositoryModel model, Element entitiesElement) 
@@ -182,18 +293,30 @@ public abstract class GenericPersistenceManager implements PersistenceManager {
 	private void addEntity(Document doc, Entity entity, Element parentElement) 
 	{
 		log("addEntity()");
+		//doc.getElementsByTagName(RepositoryConst.TABLELIST).item(0).appendChild(entityElement);
+
+		parentElement.appendChild( buildEntityElement(doc, entity) );
+	}
+
+	/**
+	 * Builds the XML element "table" for the given entity ( not attached to the document )
+	 * 
+	 * @param doc
+	 * @param entity
+	 * @return
+	 */
+	private Element buildEntityElement(Document doc, Entity entity) 
+	{
 		// --- Create XML element "table"
 		Element entityElement = RepositoryConst.ENTITY_WRAPPER.getXmlDesc(entity, doc);
 
-		//doc.getElementsByTagName(RepositoryConst.TABLELIST).item(0).appendChild(entityElement);
-
 		addColumns(doc, entity, entityElement);
 
 		addForeignKeys(doc, entity, entityElement);
 
 		addLinks(doc, entity, entityElement);
 
-		parentElement.appendChild(entityElement);
+		return entityElement ;
 	}
 
 	private void addLinks(Document doc, Entity entity, Element entityElement) 
@@ -0,0 +1,211 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.repository.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.lang.ref.SoftReference;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.telosys.tools.commons.TelosysToolsException;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.model.Link;
+import org.telosys.tools.repository.model.RepositoryModel;
+import org.telosys.tools.repository.persistence.util.CommandException;
+import org.telosys.tools.repository.persistence.util.RepositoryConst;
+import org.telosys.tools.repository.persistence.util.Xml;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Repository model loaded on demand : each entity is parsed from the repository file 
+ * on its first access ( using the file index, see RepositoryIndex ) <br>
+ * <br>
+ * The entities read from the file are kept in a soft reference cache (they can be reloaded if needed). <br>
+ * The entities added with storeEntity() are kept in memory until the model is saved, 
+ * so an entity modified in place must be stored again to keep its changes.
+ * 
+ * @author Laurent Guerin
+ *
+ */
+public class LazyRepositoryModel extends RepositoryModel {
+
+	private RepositoryIndex index ;
+	
+	private final Map<String, SoftReference<Entity>> cache = new HashMap<String, SoftReference<Entity>>();
+	
+	private final Map<String, Entity> stored = new HashMap<String, Entity>(); // added or changed entities
+	
+	private final Set<String> removed = new HashSet<String>(); // removed entities
+	
+	private int loadCount = 0 ;
+	
+	/**
+	 * Constructor
+	 * @param index the index of the repository file 
+	 * @throws TelosysToolsException
+	 */
+	protected LazyRepositoryModel(RepositoryIndex index) throws TelosysToolsException {
+		super();
+		this.index = index ;
+		Document doc = Xml.load( new ByteArrayInputStream( index.getHeaderDocument() ) );
+		RepositoryModel base = RepositoryConst.BASE_WRAPPER.getBase( (Element) doc.getElementsByTagName(RepositoryConst.TABLELIST).item(0) );
+		setDatabaseName( base.getDatabaseName() );
+		setDatabaseProductName( base.getDatabaseProductName() );
+		setGenerationDate( base.getGenerationDate() );
+		setDatabaseId( base.getDatabaseId() );
+	}
+
+	/**
+	 * Returns the number of entities parsed from the repository file since the model creation
+	 * @return
+	 */
+	public synchronized int getLoadCount() {
+		return loadCount ;
+	}
+	
+	/**
+	 * Returns the number of entities currently in memory
+	 * @return
+	 */
+	public synchronized int getEntitiesInMemoryCount() {
+		int n = stored.size() ;
+		for ( SoftReference<Entity> ref : cache.values() ) {
+			if ( ref.get() != null ) n++ ;
+		}
+		return n ;
+	}
+	
+	private Entity loadEntity(String name) {
+		try {
+			if ( ! index.isValid() ) {
+				//--- The file has been changed (saved) since the index creation
+				index = RepositoryIndex.getIndex( index.getRepositoryFile() );
+			}
+			byte[] document = index.getTableDocument(name);
+			if ( document == null ) {
+				return null ;
+			}
+			Document doc = Xml.load( new ByteArrayInputStream(document) );
+			List<Entity> entities = GenericPersistenceManager.buildEntities( doc.getElementsByTagName(RepositoryConst.TABLE) );
+			loadCount++ ;
+			return entities.isEmpty() ? null : entities.get(0) ;
+		} catch (TelosysToolsException e) {
+			throw new IllegalStateException("Cannot load entity '" + name + "' from " + index.getRepositoryFile(), e);
+		} catch (CommandException e) {
+			throw new IllegalStateException("Cannot load entity '" + name + "' from " + index.getRepositoryFile(), e);
+		}
+	}
+
+	@Override
+	public synchronized Entity getEntityByName(String name) {
+		Entity entity = stored.get(name);
+		if ( entity != null || removed.contains(name) ) {
+			return entity ;
+		}
+		SoftReference<Entity> ref = cache.get(name);
+		entity = ( ref != null ? ref.get() : null );
+		if ( entity == null && index.containsTable(name) ) {
+			entity = loadEntity(name);
+			if ( entity != null ) {
+				cache.put(name, new SoftReference<Entity>(entity));
+			}
+		}
+		return entity ;
+	}
+	
+	@Override
+	public synchronized String[] getEntitiesNames() {
+		Set<String> names = new TreeSet<String>();
+		for ( String name : index.getTablesNames() ) {
+			if ( ! removed.contains(name) ) {
+				names.add(name);
+			}
+		}
+		names.addAll(stored.keySet());
+		return names.toArray(new String[names.size()]);
+	}
+	
+	@Override
+	public synchronized int getNumberOfEntities() {
+		return getEntitiesNames().length ;
+	}
+	
+	/**
+	 * Returns all the entities of the model (sorted by name) <br>
+	 * NB : all the entities are loaded 
+	 */
+	@Override
+	public synchronized Entity[] getEntities() {
+		String[] names = getEntitiesNames();
+		Entity[] entities = new Entity[names.length];
+		for ( int i = 0 ; i < names.length ; i++ ) {
+			entities[i] = getEntityByName(names[i]);
+		}
+		return entities ;
+	}
+
+	/**
+	 * Loads all the entities and keeps them in memory <br>
+	 * ( required before writing the model in its own repository file )
+	 */
+	public synchronized void loadAll() {
+		for ( Entity entity : getEntities() ) {
+			stored.put(entity.getName(), entity);
+		}
+		cache.clear();
+	}
+	
+	@Override
+	public synchronized void storeEntity(Entity entity) {
+		stored.put(entity.getName(), entity);
+		cache.remove(entity.getName());
+		removed.remove(entity.getName());
+	}
+	
+	@Override
+	public synchronized void removeEntity(String name) {
+		stored.remove(name);
+		cache.remove(name);
+		if ( index.containsTable(name) ) {
+			removed.add(name);
+		}
+	}
+	
+	@Override
+	public synchronized void removeAllLinks() {
+		for ( Entity entity : getEntities() ) {
+			entity.removeAllLinks();
+			storeEntity(entity);
+		}
+	}
+	
+	@Override
+	public synchronized void removeLinkById(String id) {
+		Link link = getLinkById(id);
+		if ( link != null ) {
+			Entity entity = getEntityByName( link.getSourceTableName() );
+			if ( entity != null ) {
+				entity.removeLink(link);
+				storeEntity(entity);
+			}
+		}
+	}
+}
@@ -0,0 +1,567 @@
+/**
+ *  Copyright (C) 2008-2013  Telosys project org. ( http://www.telosys.org/ )
+ *
+ *  Licensed under the GNU LESSER GENERAL PUBLIC LICENSE, Version 3.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *          http://www.gnu.org/licenses/lgpl.html
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.telosys.tools.repository.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.telosys.tools.commons.TelosysToolsException;
+import org.telosys.tools.repository.persistence.util.RepositoryConst;
+
+/**
+ * Index of a repository file : the byte offset and length of each "table" element <br>
+ * ( and of the "tableList" start tag holding the model attributes ) <br>
+ * <br>
+ * The index is built by a single scan of the file (without XML parsing) and is kept 
+ * in a sidecar file ( "xxx.dbrep.idx" ) reused as long as the repository file is unchanged 
+ * ( same length and date, and each indexed position still starts with the expected element ).
+ * 
+ * @author Laurent Guerin
+ *
+ */
+public class RepositoryIndex {
+
+	public final static String INDEX_FILE_SUFFIX = ".idx" ;
+	
+	private final static String INDEX_HEADER = "TELOSYS-REPOSITORY-INDEX 2" ;
+	
+	private final static Pattern NAME_ATTRIBUTE = Pattern.compile("\\s" + RepositoryConst.TABLE_NAME + "\\s*=\\s*(\"|')(.*?)\\1", Pattern.DOTALL);
+	
+	private final static Pattern ENCODING_ATTRIBUTE = Pattern.compile("encoding\\s*=\\s*(\"|')(.*?)\\1");
+	
+	private final File   repositoryFile ;
+	private final long   fileLength ;
+	private final long   fileLastModified ;
+	private final String encoding ;
+	private final long[] header ; // offset and length of the "tableList" start tag 
+	private final Map<String, long[]> tables ; // offset and length of each "table" element
+	
+	private RepositoryIndex(File repositoryFile, long fileLength, long fileLastModified, String encoding, 
+			long[] header, Map<String, long[]> tables) {
+		super();
+		this.repositoryFile = repositoryFile;
+		this.fileLength = fileLength;
+		this.fileLastModified = fileLastModified;
+		this.encoding = encoding;
+		this.header = header;
+		this.tables = tables;
+	}
+
+	/**
+	 * Returns the index of the given repository file <br>
+	 * ( from the sidecar file if it is still valid, else the repository file is scanned and the sidecar is updated )
+	 * @param repositoryFile
+	 * @return
+	 * @throws TelosysToolsException
+	 */
+	public static RepositoryIndex getIndex(File repositoryFile) throws TelosysToolsException {
+		File indexFile = getIndexFile(repositoryFile);
+		if ( indexFile.exists() ) {
+			RepositoryIndex index = read(repositoryFile, indexFile);
+			if ( index != null && index.isValid() && index.matchesContent() ) {
+				return index ;
+			}
+		}
+		RepositoryIndex index = scan(repositoryFile);
+		index.write(indexFile);
+		return index ;
+	}
+	
+	/**
+	 * Returns the sidecar index file for the given repository file
+	 * @param repositoryFile
+	 * @return
+	 */
+	public static File getIndexFile(File repositoryFile) {
+		return new File(repositoryFile.getAbsolutePath() + INDEX_FILE_SUFFIX);
+	}
+	
+	/**
+	 * Returns true if the repository file has not changed since the index creation
+	 * @return
+	 */
+	public boolean isValid() {
+		return repositoryFile.length() == fileLength && repositoryFile.lastModified() == fileLastModified ;
+	}
+	
+	/**
+	 * Returns true if each indexed position still starts with the expected element <br>
+	 * ( "tableList" start tag and "table" start tag with the indexed name ) <br>
+	 * Used to check an index read from the sidecar file, as length and date are not enough to detect a change 
+	 * @return
+	 */
+	public boolean matchesContent() {
+		try {
+			RandomAccessFile raf = new RandomAccessFile(repositoryFile, "r");
+			try {
+				if ( ! isElement(readStartTag(raf, header), RepositoryConst.TABLELIST) ) {
+					return false ;
+				}
+				for ( Map.Entry<String, long[]> entry : tables.entrySet() ) {
+					long[] position = entry.getValue();
+					String startTag = readStartTag(raf, position);
+					if ( ! isElement(startTag, RepositoryConst.TABLE) 
+							|| ! entry.getKey().equals(getTableName(startTag, encoding, repositoryFile)) ) {
+						return false ;
+					}
+					if ( position[1] > startTag.length() ) {
+						//--- the element must end with "</table>"
+						raf.seek(position[0] + position[1] - 1);
+						if ( raf.read() != '>' ) {
+							return false ;
+						}
+					}
+				}
+				return true ;
+			} finally {
+				raf.close();
+			}
+		} catch (Exception e) {
+			// offsets out of the file, table without name, etc 
+			return false ;
+		}
+	}
+	
+	/**
+	 * Reads the start tag at the given position ( up to '>' out of any attribute value, in the limit of the position length )
+	 * @param raf
+	 * @param position
+	 * @return the bytes read (ISO-8859-1 string)
+	 * @throws IOException
+	 */
+	private static String readStartTag(RandomAccessFile raf, long[] position) throws IOException {
+		raf.seek(position[0]);
+		ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+		byte[] buffer = new byte[256];
+		long remaining = position[1] ;
+		int quote = 0 ;
+		while ( remaining > 0 ) {
+			int n = raf.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+			if ( n < 0 ) break ;
+			for ( int i = 0 ; i < n ; i++ ) {
+				int c = buffer[i] & 0xFF ;
+				out.write(c);
+				if ( quote != 0 ) {
+					if ( c == quote ) quote = 0 ;
+				}
+				else if ( c == '"' || c == '\'' ) {
+					quote = c ;
+				}
+				else if ( c == '>' ) {
+					return new String(out.toByteArray(), "ISO-8859-1");
+				}
+			}
+			remaining = remaining - n ;
+		}
+		return new String(out.toByteArray(), "ISO-8859-1");
+	}
+	
+	private static boolean isElement(String startTag, String elementName) {
+		String start = "<" + elementName ;
+		if ( ! startTag.startsWith(start) || startTag.length() == start.length() ) {
+			return false ;
+		}
+		char c = startTag.charAt(start.length());
+		return c == '>' || c == '/' || Character.isWhitespace(c) ;
+	}
+	
+	public File getRepositoryFile() {
+		return repositoryFile ;
+	}
+	
+	/**
+	 * Returns the names of all the tables (sorted in alphabetic order)
+	 * @return
+	 */
+	public String[] getTablesNames() {
+		String[] names = tables.keySet().toArray(new String[tables.size()]);
+		Arrays.sort(names);
+		return names ;
+	}
+	
+	public int getTablesCount() {
+		return tables.size() ;
+	}
+	
+	public boolean containsTable(String name) {
+		return tables.containsKey(name) ;
+	}
+	
+	/**
+	 * Returns the "tableList" start tag as a standalone XML document 
+	 * @return
+	 * @throws TelosysToolsException
+	 */
+	public byte[] getHeaderDocument() throws TelosysToolsException {
+		byte[] startTag = read(header);
+		//--- "<tableList ... >" --> "<tableList ... />"
+		int end = startTag.length - 1 ;
+		while ( end > 0 && startTag[end] != '>' ) end-- ;
+		ByteArrayOutputStream out = new ByteArrayOutputStream(startTag.length + 64);
+		writeDeclaration(out);
+		out.write(startTag, 0, end);
+		if ( startTag[end - 1] != '/' ) {
+			out.write('/');
+		}
+		out.write('>');
+		return out.toByteArray();
+	}
+	
+	/**
+	 * Returns the "table" element for the given table name as a standalone XML document 
+	 * @param name
+	 * @return the document or null if the table is not in the index
+	 * @throws TelosysToolsException
+	 */
+	public byte[] getTableDocument(String name) throws TelosysToolsException {
+		long[] position = tables.get(name);
+		if ( position == null ) {
+			return null ;
+		}
+		byte[] element = read(position);
+		ByteArrayOutputStream out = new ByteArrayOutputStream(element.length + 64);
+		writeDeclaration(out);
+		out.write(element, 0, element.length);
+		return out.toByteArray();
+	}
+	
+	private void writeDeclaration(ByteArrayOutputStream out) {
+		byte[] declaration = ( "<?xml version=\"1.0\" encoding=\"" + encoding + "\"?>\n" ).getBytes();
+		out.write(declaration, 0, declaration.length);
+	}
+	
+	private byte[] read(long[] position) throws TelosysToolsException {
+		byte[] bytes = new byte[(int) position[1]];
+		try {
+			RandomAccessFile raf = new RandomAccessFile(repositoryFile, "r");
+			try {
+				raf.seek(position[0]);
+				raf.readFully(bytes);
+			} finally {
+				raf.close();
+			}
+		} catch (IOException e) {
+			throw new TelosysToolsException("Cannot read repository file " + repositoryFile.getAbsolutePath(), e);
+		}
+		return bytes ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	// SCAN
+	//--------------------------------------------------------------------------------------------------
+	/**
+	 * Scans the given repository file and returns its index
+	 * @param repositoryFile
+	 * @return
+	 * @throws TelosysToolsException
+	 */
+	public static RepositoryIndex scan(File repositoryFile) throws TelosysToolsException {
+		long length = repositoryFile.length();
+		long lastModified = repositoryFile.lastModified();
+		try {
+			InputStream is = new BufferedInputStream(new FileInputStream(repositoryFile), 65536);
+			try {
+				return new Scanner(is).scan(repositoryFile, length, lastModified);
+			} finally {
+				is.close();
+			}
+		} catch (IOException e) {
+			throw new TelosysToolsException("Cannot scan repository file " + repositoryFile.getAbsolutePath(), e);
+		}
+	}
+	
+	/**
+	 * Byte level scanner ( only for ASCII compatible encodings )
+	 */
+	private static class Scanner {
+		private final InputStream is ;
+		private long position = 0 ;
+		private int  pending  = -1 ;
+		
+		private Scanner(InputStream is) {
+			this.is = is ;
+		}
+		
+		private int read() throws IOException {
+			int c ;
+			if ( pending >= 0 ) {
+				c = pending ;
+				pending = -1 ;
+			}
+			else {
+				c = is.read();
+			}
+			if ( c >= 0 ) position++ ;
+			return c ;
+		}
+		
+		private void unread(int c) {
+			pending = c ;
+			position-- ;
+		}
+		
+		private RepositoryIndex scan(File file, long length, long lastModified) throws IOException, TelosysToolsException {
+			String encoding = "UTF-8" ;
+			long[] header = null ;
+			Map<String, long[]> tables = new LinkedHashMap<String, long[]>();
+			long tableStart = -1 ;
+			String tableName = null ;
+			int c ;
+			while ( ( c = read() ) >= 0 ) {
+				if ( c != '<' ) continue ;
+				long start = position - 1 ;
+				String tagName = readTagName();
+				if ( tagName.startsWith("?") ) {
+					String declaration = readUntil("?>");
+					if ( tagName.equals("?xml") ) {
+						Matcher m = ENCODING_ATTRIBUTE.matcher(declaration);
+						if ( m.find() ) encoding = m.group(2);
+					}
+				}
+				else if ( tagName.startsWith("!--") ) {
+					readUntil("-->");
+				}
+				else if ( tagName.startsWith("!") ) {
+					readStartTag();
+				}
+				else if ( tagName.equals(RepositoryConst.TABLELIST) ) {
+					readStartTag();
+					header = new long[] { start, position - start } ;
+				}
+				else if ( tagName.equals(RepositoryConst.TABLE) ) {
+					String startTag = readStartTag();
+					tableName = getTableName(startTag, encoding, file);
+					if ( startTag.endsWith("/>") ) {
+						tables.put(tableName, new long[] { start, position - start } );
+					}
+					else {
+						tableStart = start ;
+					}
+				}
+				else if ( tagName.equals("/" + RepositoryConst.TABLE) ) {
+					readStartTag();
+					if ( tableStart < 0 ) {
+						throw new TelosysToolsException("Unexpected end of table at offset " + start + " in " + file.getAbsolutePath() );
+					}
+					tables.put(tableName, new long[] { tableStart, position - tableStart } );
+					tableStart = -1 ;
+				}
+				else {
+					readStartTag();
+				}
+			}
+			if ( header == null ) {
+				throw new TelosysToolsException("No '" + RepositoryConst.TABLELIST + "' element in " + file.getAbsolutePath() );
+			}
+			if ( ! isAsciiCompatible(encoding) ) {
+				throw new TelosysToolsException("Encoding '" + encoding + "' not supported for indexing " + file.getAbsolutePath() );
+			}
+			return new RepositoryIndex(file, length, lastModified, encoding, header, tables);
+		}
+		
+		private String readTagName() throws IOException {
+			StringBuffer sb = new StringBuffer();
+			int c ;
+			while ( ( c = read() ) >= 0 ) {
+				if ( c == '>' || c == '/' && sb.length() > 0 || Character.isWhitespace(c) ) {
+					unread(c);
+					break ;
+				}
+				sb.append((char)c);
+				if ( sb.length() == 3 && sb.toString().equals("!--") ) break ;
+			}
+			return sb.toString();
+		}
+		
+		/**
+		 * Reads the end of the current tag ( up to '>' out of any attribute value )
+		 * @return the bytes read (ISO-8859-1 string)
+		 * @throws IOException
+		 */
+		private String readStartTag() throws IOException {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+			int quote = 0 ;
+			int c ;
+			while ( ( c = read() ) >= 0 ) {
+				out.write(c);
+				if ( quote != 0 ) {
+					if ( c == quote ) quote = 0 ;
+				}
+				else if ( c == '"' || c == '\'' ) {
+					quote = c ;
+				}
+				else if ( c == '>' ) {
+					break ;
+				}
+			}
+			return new String(out.toByteArray(), "ISO-8859-1");
+		}
+
+		private String readUntil(String end) throws IOException {
+			StringBuffer sb = new StringBuffer();
+			int c ;
+			while ( ( c = read() ) >= 0 ) {
+				sb.append((char)c);
+				if ( sb.length() >= end.length() && sb.lastIndexOf(end) == sb.length() - end.length() ) break ;
+			}
+			return sb.toString();
+		}
+	}
+	
+	private static String getTableName(String startTag, String encoding, File file) throws UnsupportedEncodingException, TelosysToolsException {
+		Matcher m = NAME_ATTRIBUTE.matcher(new String(startTag.getBytes("ISO-8859-1"), encoding));
+		if ( ! m.find() ) {
+			throw new TelosysToolsException("Table without name in " + file.getAbsolutePath() );
+		}
+		try {
+			return decodeAttribute(m.group(2));
+		} catch (IllegalArgumentException e) {
+			throw new TelosysToolsException("Invalid table name '" + m.group(2) + "' in " + file.getAbsolutePath(), e );
+		}
+	}
+	
+	/**
+	 * Returns the value of an attribute as a DOM parser does : <br>
+	 * literal line breaks and tabs are normalized to spaces, then character and entity references are decoded 
+	 * @param value the raw attribute value
+	 * @return
+	 */
+	static String decodeAttribute(String value) {
+		String s = value.replace("\r\n", "\n");
+		StringBuffer sb = new StringBuffer(s.length());
+		int i = 0 ;
+		while ( i < s.length() ) {
+			char c = s.charAt(i);
+			int end = ( c == '&' ) ? s.indexOf(';', i) : -1 ;
+			if ( end > i ) {
+				String reference = s.substring(i + 1, end);
+				if ( reference.startsWith("#x") ) {
+					sb.appendCodePoint(Integer.parseInt(reference.substring(2), 16));
+				}
+				else if ( reference.startsWith("#") ) {
+					sb.appendCodePoint(Integer.parseInt(reference.substring(1)));
+				}
+				else if ( reference.equals("lt") ) sb.append('<');
+				else if ( reference.equals("gt") ) sb.append('>');
+				else if ( reference.equals("quot") ) sb.append('"');
+				else if ( reference.equals("apos") ) sb.append('\'');
+				else if ( reference.equals("amp") ) sb.append('&');
+				else {
+					throw new IllegalArgumentException("Unknown entity reference '&" + reference + ";'");
+				}
+				i = end + 1 ;
+			}
+			else {
+				sb.append( c == '\r' || c == '\n' || c == '\t' ? ' ' : c );
+				i++ ;
+			}
+		}
+		return sb.toString();
+	}
+	
+	private static boolean isAsciiCompatible(String encoding) {
+		String e = encoding.toUpperCase();
+		return ! ( e.startsWith("UTF-16") || e.startsWith("UTF-32") || e.startsWith("UCS") ) ;
+	}
+	
+	//--------------------------------------------------------------------------------------------------
+	// SIDECAR FILE
+	//--------------------------------------------------------------------------------------------------
+	private void write(File indexFile) {
+		try {
+			BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(indexFile), "UTF-8"));
+			try {
+				writer.write(INDEX_HEADER + "\n");
+				writer.write(fileLength + " " + fileLastModified + " " + encoding + "\n");
+				writer.write(header[0] + " " + header[1] + "\n");
+				for ( Map.Entry<String, long[]> entry : tables.entrySet() ) {
+					long[] position = entry.getValue();
+					writer.write(position[0] + " " + position[1] + " " + escape(entry.getKey()) + "\n");
+				}
+			} finally {
+				writer.close();
+			}
+		} catch (IOException e) {
+			// the index is just an optimization : the repository file will be scanned again next time 
+			indexFile.delete();
+		}
+	}
+	
+	private static RepositoryIndex read(File repositoryFile, File indexFile) {
+		try {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(indexFile), "UTF-8"));
+			try {
+				if ( ! INDEX_HEADER.equals(reader.readLine()) ) {
+					return null ;
+				}
+				String[] file = reader.readLine().split(" ");
+				String[] header = reader.readLine().split(" ");
+				Map<String, long[]> tables = new LinkedHashMap<String, long[]>();
+				String line ;
+				while ( ( line = reader.readLine() ) != null ) {
+					String[] parts = line.split(" ", 3);
+					tables.put(unescape(parts[2]), new long[] { Long.parseLong(parts[0]), Long.parseLong(parts[1]) } );
+				}
+				return new RepositoryIndex(repositoryFile, Long.parseLong(file[0]), Long.parseLong(file[1]), file[2], 
+						new long[] { Long.parseLong(header[0]), Long.parseLong(header[1]) }, tables);
+			} finally {
+				reader.close();
+			}
+		} catch (Exception e) {
+			// invalid or corrupted index file 
+			return null ;
+		}
+	}
+	
+	/**
+	 * Escapes the backslashes and line breaks of a table name ( one table per line in the sidecar file )
+	 * @param name
+	 * @return
+	 */
+	private static String escape(String name) {
+		return name.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+	}
+	
+	private static String unescape(String name) {
+		StringBuffer sb = new StringBuffer(name.length());
+		for ( int i = 0 ; i < name.length() ; i++ ) {
+			char c = name.charAt(i);
+			if ( c == '\\' && i + 1 < name.length() ) {
+				c = name.charAt(++i);
+				if ( c == 'n' ) c = '\n' ;
+				else if ( c == 'r' ) c = '\r' ;
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+}
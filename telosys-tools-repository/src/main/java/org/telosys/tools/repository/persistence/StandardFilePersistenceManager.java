@@ -15,6 +15,8 @@
  */
 package org.telosys.tools.repository.persistence;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -22,15 +24,38 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import org.telosys.tools.commons.TelosysToolsException;
 import org.telosys.tools.commons.TelosysToolsLogger;
+import org.telosys.tools.repository.model.Entity;
 import org.telosys.tools.repository.model.RepositoryModel;
 import org.telosys.tools.repository.persistence.util.CommandException;
 
+/**
+ * Repository persistence in a file <br>
+ * A file name ending with ".gz" ( eg "mydb.dbrep.gz" ) is saved with GZIP compression, 
+ * a compressed file is loaded transparently whatever its name. <br>
+ * The file is written in a temporary file renamed at the end ( the original file is never left half written ) 
+ * and the XML fragments of the unchanged entities are reused from the previous save of the same model.
+ */
 public class StandardFilePersistenceManager extends GenericPersistenceManager
 {
-
+	public final static String COMPRESSED_FILE_SUFFIX = ".gz" ;
+	
+	private final static String TEMPORARY_FILE_SUFFIX = ".tmp" ;
+	
+	private final static String BACKUP_FILE_SUFFIX    = ".bak" ;
+	
+	/**
+	 * The fragments cache of each model ( the model is kept by the caller between 2 saves )
+	 */
+	private final static Map<RepositoryModel, EntityFragmentCache> FRAGMENT_CACHES = new WeakHashMap<RepositoryModel, EntityFragmentCache>();
+	
 	private String _fileName = null ;
 	
 	public StandardFilePersistenceManager(String fileName, TelosysToolsLogger logger) {
@@ -45,7 +70,7 @@ public class StandardFilePersistenceManager extends GenericPersistenceManager
 
 	public RepositoryModel load() throws TelosysToolsException {
 		try {
-			InputStream is = new FileInputStream(this._fileName);
+			InputStream is = openInputStream(new File(this._fileName));
 			RepositoryModel repositoryModel =  super.load(is);
 			try {
 				is.close();
@@ -55,25 +80,139 @@ public class StandardFilePersistenceManager extends GenericPersistenceManager
 			return repositoryModel ;
 		} catch (FileNotFoundException e) {
 			throw new TelosysToolsException("file not found : " + this._fileName, e);
+		} catch (IOException e) {
+			throw new TelosysToolsException("cannot read file " + this._fileName, e);
 		} catch (CommandException e) {
 			throw new TelosysToolsException("parsing exception : " + this._fileName, e);
 		}
 		
 	}
 
+	/**
+	 * Loads the repository model "on demand" : only the model attributes and the file index are read, 
+	 * each entity is loaded on its first use ( see LazyRepositoryModel ) <br>
+	 * A compressed file cannot be indexed : it is fully loaded 
+	 * @return
+	 * @throws TelosysToolsException
+	 */
+	public RepositoryModel loadLazily() throws TelosysToolsException {
+		File file = new File(this._fileName);
+		if ( ! file.exists() ) {
+			throw new TelosysToolsException("file not found : " + this._fileName);
+		}
+		if ( isCompressed(file) ) {
+			return load();
+		}
+		return new LazyRepositoryModel( RepositoryIndex.getIndex(file) );
+	}
+
 	public void save(RepositoryModel model) throws TelosysToolsException {
+		save(model, null);
+	}
+
+	/**
+	 * Saves the model, serializing only the given changed entities ( and the entities never saved before ) <br>
+	 * The other entities are written as they were serialized by the previous save of the same model. <br>
+	 * NB : an entity changed but not given here will be saved with its previous state 
+	 * @param model
+	 * @param changedEntities the entities changed since the previous save, or null to check all the entities 
+	 * @throws TelosysToolsException
+	 */
+	public void save(RepositoryModel model, Collection<Entity> changedEntities) throws TelosysToolsException {
+		if ( model instanceof LazyRepositoryModel ) {
+			//--- All the entities must be in memory before overwriting the file
+			((LazyRepositoryModel)model).loadAll();
+		}
+		File file = new File(this._fileName);
+		File temporaryFile = new File(this._fileName + TEMPORARY_FILE_SUFFIX);
 		try {
-			OutputStream os = new FileOutputStream(this._fileName, false);
-			super.save(os, model);
+			OutputStream os = new BufferedOutputStream( new FileOutputStream(temporaryFile, false), 65536 );
 			try {
+				if ( this._fileName.endsWith(COMPRESSED_FILE_SUFFIX) ) {
+					os = new GZIPOutputStream(os, 65536);
+				}
+				super.save(os, model, getFragmentCache(model), changedEntities);
+			} finally {
 				os.close();
-			} catch (IOException e) {
-				throw new TelosysToolsException("cannot close file " + this._fileName, e);
 			}
-		} catch (FileNotFoundException e) {
-			throw new TelosysToolsException("file not found : " + this._fileName, e);
+		} catch (IOException e) {
+			temporaryFile.delete();
+			throw new TelosysToolsException("cannot write file " + temporaryFile, e);
+		} catch (TelosysToolsException e) {
+			temporaryFile.delete();
+			throw e ;
 		}
-	
+		replaceFile(temporaryFile, file);
 	}
 
+	/**
+	 * Returns the fragments cache for the given model (created if none)
+	 * @param model
+	 * @return
+	 */
+	protected static EntityFragmentCache getFragmentCache(RepositoryModel model) {
+		synchronized (FRAGMENT_CACHES) {
+			EntityFragmentCache cache = FRAGMENT_CACHES.get(model);
+			if ( cache == null ) {
+				cache = new EntityFragmentCache();
+				FRAGMENT_CACHES.put(model, cache);
+			}
+			return cache ;
+		}
+	}
+	
+	/**
+	 * Replaces the file by the new one ( a simple rename if the platform supports renaming 
+	 * over an existing file, else the original file is kept as a backup until the end of the rename )
+	 * @param newFile
+	 * @param file
+	 * @throws TelosysToolsException
+	 */
+	private void replaceFile(File newFile, File file) throws TelosysToolsException {
+		if ( newFile.renameTo(file) ) {
+			return ;
+		}
+		File backupFile = new File(file.getAbsolutePath() + BACKUP_FILE_SUFFIX);
+		backupFile.delete();
+		if ( file.exists() && ! file.renameTo(backupFile) ) {
+			newFile.delete();
+			throw new TelosysToolsException("cannot replace file " + file);
+		}
+		if ( ! newFile.renameTo(file) ) {
+			backupFile.renameTo(file);
+			newFile.delete();
+			throw new TelosysToolsException("cannot rename " + newFile + " to " + file);
+		}
+		backupFile.delete();
+	}
+	
+	/**
+	 * Returns true if the given file is compressed with GZIP ( whatever its name )
+	 * @param file
+	 * @return
+	 * @throws TelosysToolsException
+	 */
+	public static boolean isCompressed(File file) throws TelosysToolsException {
+		try {
+			InputStream is = new FileInputStream(file);
+			try {
+				return is.read() == GZIP_MAGIC_1 && is.read() == GZIP_MAGIC_2 ;
+			} finally {
+				is.close();
+			}
+		} catch (IOException e) {
+			throw new TelosysToolsException("cannot read file " + file, e);
+		}
+	}
+	
+	private final static int GZIP_MAGIC_1 = 0x1f ;
+	private final static int GZIP_MAGIC_2 = 0x8b ;
+	
+	private InputStream openInputStream(File file) throws IOException {
+		InputStream is = new BufferedInputStream( new FileInputStream(file), 65536 );
+		is.mark(2);
+		boolean compressed = ( is.read() == GZIP_MAGIC_1 && is.read() == GZIP_MAGIC_2 ) ;
+		is.reset();
+		return compressed ? new GZIPInputStream(is, 65536) : is ;
+	}
 }
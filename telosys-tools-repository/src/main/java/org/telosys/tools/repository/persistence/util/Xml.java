@@ -133,15 +133,70 @@ public class Xml
 		save ( doc, new StreamResult(ifile));
     }
     
+    /**
+     * Saves the given node ( typically an element and its children ) in the given stream, without XML declaration <br>
+     * The node is written as it would be written in its whole document ( same indentation, UTF-8 encoding )
+     * @param node
+     * @param os
+     * @throws TelosysToolsException
+     */
+    public static void saveFragment(Node node, OutputStream os) throws TelosysToolsException
+    {
+    	save ( node, new StreamResult(os), true );
+    }
+    
+    /**
+     * Creates a transformer to save XML fragments ( same result as "saveFragment" ) <br>
+     * To be used for a large number of fragments ( a transformer must not be used by 2 threads concurrently )
+     * @return
+     * @throws TelosysToolsException
+     */
+    public static Transformer createFragmentTransformer() throws TelosysToolsException
+    {
+        try {
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            setOutputProperties(transformer, true);
+            return transformer ;
+        }
+        catch (TransformerException e) {
+    		throw new TelosysToolsException("XML error : Cannot create transformer : TransformerException", e);
+        }
+        catch (TransformerFactoryConfigurationError e) {
+    		throw new TelosysToolsException("XML error : Cannot create transformer : TransformerFactoryConfigurationError", e);
+        }
+    }
+    
+    /**
+     * Saves the given node in the given stream with the given fragment transformer 
+     * @param transformer a transformer created by "createFragmentTransformer"
+     * @param node
+     * @param os
+     * @throws TelosysToolsException
+     */
+    public static void saveFragment(Transformer transformer, Node node, OutputStream os) throws TelosysToolsException
+    {
+        try {
+            transformer.transform(new DOMSource(node), new StreamResult(os));
+        }
+        catch (TransformerException e) {
+    		throw new TelosysToolsException("XML error : Cannot save : TransformerException", e);
+        }
+    }
+    
     private static void save(Document doc, Result result) throws TelosysToolsException
+    {
+    	save ( doc, result, false );
+    }
+    
+    private static void save(Node node, Result result, boolean omitXmlDeclaration) throws TelosysToolsException
     {
         //--- Write the XML document in XML file
         try {
-            Source source = new DOMSource(doc);
+            Source source = new DOMSource(node);
             TransformerFactory factory = TransformerFactory.newInstance();
             Transformer transformer = factory.newTransformer();
             
-            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            setOutputProperties(transformer, omitXmlDeclaration);
             
             //--- Transform the DOM document into XML file 
             transformer.transform(source, result);
@@ -154,6 +209,15 @@ public class Xml
         }
     }
     
+    private static void setOutputProperties(Transformer transformer, boolean omitXmlDeclaration)
+    {
+        transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+        if ( omitXmlDeclaration ) {
+            transformer.setOutputProperty(OutputKeys.OMIT_XML_DECLARATION, "yes");
+            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+        }
+    }
+    
     //---------------------------------------------------------------------------------------------------
     public static String getNodeAttribute( Node node, String sAttributeName )
     {
@@ -30,6 +30,7 @@ public class ColumnWrapper {
 	public Column getColumn(final Element elem) 
 	{
 		final Column column = new Column();
+		String value ; // optional attribute value ( read only once )
 
 		column.setSelected(StrUtil.getBoolean(elem.getAttribute(RepositoryConst.COLUMN_SELECTED)));
 
@@ -54,35 +55,35 @@ public class ColumnWrapper {
 		column.setNotEmpty( StrUtil.getBoolean(elem.getAttribute(RepositoryConst.COLUMN_NOT_EMPTY)) );// #LGU 30/08/2011
 		column.setNotBlank( StrUtil.getBoolean(elem.getAttribute(RepositoryConst.COLUMN_NOT_BLANK)) );// #LGU 30/08/2011
 		
-		if (StrUtil.nullOrVoid(elem.getAttribute(RepositoryConst.COLUMN_JAVA_DEFAULT_VALUE)) == false) {
-			column.setJavaDefaultValue( elem.getAttribute(RepositoryConst.COLUMN_JAVA_DEFAULT_VALUE) );// #LGU 17/10/2011
+		if ( ! StrUtil.nullOrVoid( value = elem.getAttribute(RepositoryConst.COLUMN_JAVA_DEFAULT_VALUE) ) ) {
+			column.setJavaDefaultValue( value );// #LGU 17/10/2011
 		}
 		
 		//--- Retrieve BOOLEAN informations if any
-		if (StrUtil.nullOrVoid(elem.getAttribute(RepositoryConst.COLUMN_BOOL_TRUE)) == false) {
-			column.setBooleanTrueValue(elem.getAttribute(RepositoryConst.COLUMN_BOOL_TRUE));
+		if ( ! StrUtil.nullOrVoid( value = elem.getAttribute(RepositoryConst.COLUMN_BOOL_TRUE) ) ) {
+			column.setBooleanTrueValue(value);
 		}
-		if (StrUtil.nullOrVoid(elem.getAttribute(RepositoryConst.COLUMN_BOOL_FALSE)) == false) {
-			column.setBooleanFalseValue(elem.getAttribute(RepositoryConst.COLUMN_BOOL_FALSE));
+		if ( ! StrUtil.nullOrVoid( value = elem.getAttribute(RepositoryConst.COLUMN_BOOL_FALSE) ) ) {
+			column.setBooleanFalseValue(value);
 		}
 
 		//--- Retrieve STRING informations if any
-		if (StrUtil.nullOrVoid(elem.getAttribute(RepositoryConst.COLUMN_LONG_TEXT)) == false) {
-			column.setLongText(StrUtil.getBoolean(elem.getAttribute(RepositoryConst.COLUMN_LONG_TEXT)));
+		if ( ! StrUtil.nullOrVoid( value = elem.getAttribute(RepositoryConst.COLUMN_LONG_TEXT) ) ) {
+			column.setLongText(StrUtil.getBoolean(value));
 		}
-		if (StrUtil.nullOrVoid(elem.getAttribute(RepositoryConst.COLUMN_MIN_LENGTH)) == false) {
-			column.setMinLength( elem.getAttribute(RepositoryConst.COLUMN_MIN_LENGTH) );
+		if ( ! StrUtil.nullOrVoid( value = elem.getAttribute(RepositoryConst.COLUMN_MIN_LENGTH) ) ) {
+			column.setMinLength( value );
 		}
-		if (StrUtil.nullOrVoid(elem.getAttribute(RepositoryConst.COLUMN_MAX_LENGTH)) == false) {
-			column.setMaxLength( elem.getAttribute(RepositoryConst.COLUMN_MAX_LENGTH) );
+		if ( ! StrUtil.nullOrVoid( value = elem.getAttribute(RepositoryConst.COLUMN_MAX_LENGTH) ) ) {
+			column.setMaxLength( value );
 		}
-		if (StrUtil.nullOrVoid(elem.getAttribute(RepositoryConst.COLUMN_PATTERN)) == false) {
-			column.setPattern( elem.getAttribute(RepositoryConst.COLUMN_PATTERN) );
+		if ( ! StrUtil.nullOrVoid( value = elem.getAttribute(RepositoryConst.COLUMN_PATTERN) ) ) {
+			column.setPattern( value );
 		}
 		
 		//--- Retrieve DATE/TIME informations if any
-		if (StrUtil.nullOrVoid(elem.getAttribute(RepositoryConst.COLUMN_DATE_TYPE)) == false) {
-			column.setDateType(elem.getAttribute(RepositoryConst.COLUMN_DATE_TYPE));
+		if ( ! StrUtil.nullOrVoid( value = elem.getAttribute(RepositoryConst.COLUMN_DATE_TYPE) ) ) {
+			column.setDateType(value);
 		}
 		column.setDatePast  ( StrUtil.getBoolean(elem.getAttribute(RepositoryConst.COLUMN_DATE_PAST)) ); // #LGU 30/08/2011
 		column.setDateFuture( StrUtil.getBoolean(elem.getAttribute(RepositoryConst.COLUMN_DATE_FUTURE)) );// #LGU 30/08/2011
@@ -92,11 +93,11 @@ public class ColumnWrapper {
 		column.setDateAfterValue ( elem.getAttribute(RepositoryConst.COLUMN_DATE_AFTER_VALUE) );// #LGU 30/08/2011
 		
 		//--- Retrieve NUMBER informations if any
-		if (StrUtil.nullOrVoid(elem.getAttribute(RepositoryConst.COLUMN_MIN_VALUE)) == false) {
-			column.setMinValue(elem.getAttribute(RepositoryConst.COLUMN_MIN_VALUE));
+		if ( ! StrUtil.nullOrVoid( value = elem.getAttribute(RepositoryConst.COLUMN_MIN_VALUE) ) ) {
+			column.setMinValue(value);
 		}
-		if (StrUtil.nullOrVoid(elem.getAttribute(RepositoryConst.COLUMN_MAX_VALUE)) == false) {
-			column.setMaxValue(elem.getAttribute(RepositoryConst.COLUMN_MAX_VALUE));
+		if ( ! StrUtil.nullOrVoid( value = elem.getAttribute(RepositoryConst.COLUMN_MAX_VALUE) ) ) {
+			column.setMaxValue(value);
 		}
 		
 		column.setLabel    ( elem.getAttribute(RepositoryConst.COLUMN_LABEL)     ) ; // #LGU 20/02/2013
@@ -0,0 +1,162 @@
+package org.telosys.tools.repository;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.repository.model.Column;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.model.ForeignKey;
+import org.telosys.tools.repository.model.ForeignKeyColumn;
+import org.telosys.tools.repository.model.RepositoryModel;
+import org.telosys.tools.repository.persistence.StandardFilePersistenceManager;
+
+public class LinksGeneratorTest extends TestCase {
+
+	private final static int TABLES = 400 ;
+	
+	private Column buildColumn(String name, int position, boolean pk, boolean fk) {
+		Column column = new Column();
+		column.setDatabaseName(name);
+		column.setDatabaseTypeName("INTEGER");
+		column.setDatabaseSize(10);
+		column.setDatabasePosition(position);
+		column.setDatabaseDefaultValue("");
+		column.setDatabaseComment("");
+		column.setJdbcTypeCode(4);
+		column.setJavaName(name.toLowerCase());
+		column.setJavaType("java.lang.Integer");
+		column.setPrimaryKey(pk);
+		column.setForeignKey(fk);
+		column.setLabel("");
+		column.setInputType("");
+		return column ;
+	}
+	
+	private void addForeignKey(Entity entity, String fkName, String columnName, String tableRef) {
+		ForeignKey fk = new ForeignKey();
+		fk.setName(fkName);
+		ForeignKeyColumn fkColumn = new ForeignKeyColumn();
+		fkColumn.setTableName(entity.getName());
+		fkColumn.setColumnName(columnName);
+		fkColumn.setSequence(1);
+		fkColumn.setTableRef(tableRef);
+		fkColumn.setColumnRef("ID");
+		fk.storeForeignKeyColumn(fkColumn);
+		entity.storeForeignKey(fk);
+	}
+	
+	private Entity buildEntity(String name) {
+		Entity entity = new Entity();
+		entity.setName(name);
+		entity.setBeanJavaClass("Bean" + name);
+		entity.setCatalog("");
+		entity.setSchema("");
+		entity.setDatabaseType("TABLE");
+		return entity ;
+	}
+	
+	/**
+	 * Builds a model with basic FK, join tables and some FK names used in several tables
+	 * @param seed
+	 * @return
+	 */
+	private RepositoryModel buildModel(long seed) {
+		Random random = new Random(seed);
+		RepositoryModel model = new RepositoryModel();
+		model.setDatabaseName("Links");
+		model.setDatabaseProductName("Test");
+		model.setGenerationDate(new Date(0));
+		for ( int t = 0 ; t < TABLES ; t++ ) {
+			String name = "TABLE_" + t ;
+			Entity entity = buildEntity(name);
+			if ( t > 10 && t % 7 == 0 ) {
+				//--- Join table
+				entity.storeColumn(buildColumn("LEFT_ID", 1, true, true));
+				entity.storeColumn(buildColumn("RIGHT_ID", 2, true, true));
+				addForeignKey(entity, "FK_" + name + "_L", "LEFT_ID", "TABLE_" + random.nextInt(t));
+				addForeignKey(entity, "FK_" + name + "_R", "RIGHT_ID", "TABLE_" + random.nextInt(t));
+			}
+			else {
+				entity.storeColumn(buildColumn("ID", 1, true, false));
+				int fkCount = ( t == 0 ? 0 : random.nextInt(4) );
+				for ( int f = 0 ; f < fkCount ; f++ ) {
+					String columnName = "REF_" + f ;
+					entity.storeColumn(buildColumn(columnName, 2 + f, false, true));
+					// some FK names are not unique in the database 
+					String fkName = ( f == 2 ? "FK_SHARED_" + ( t % 5 ) : "FK_" + name + "_" + f ) ;
+					addForeignKey(entity, fkName, columnName, "TABLE_" + random.nextInt(TABLES));
+				}
+			}
+			model.storeEntity(entity);
+		}
+		return model ;
+	}
+	
+	private int generateSequentially(RepositoryModel model) throws Exception {
+		LinksGenerator generator = new LinksGenerator(null, 1);
+		int count = 0 ;
+		for ( Entity entity : model.getEntities() ) {
+			count = count + generator.generateEntityLinks(model, entity);
+		}
+		return count ;
+	}
+	
+	private byte[] save(RepositoryModel model, String fileName) throws Exception {
+		File file = new File("target/tests-tmp/" + fileName);
+		file.getParentFile().mkdirs();
+		new StandardFilePersistenceManager(file, null).save(model);
+		byte[] content = new byte[(int) file.length()];
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			in.readFully(content);
+		} finally {
+			in.close();
+		}
+		return content ;
+	}
+	
+	private void checkSameResult(long seed) throws Exception {
+		RepositoryModel sequentialModel = buildModel(seed);
+		RepositoryModel parallelModel   = buildModel(seed);
+		LinksGenerator parallelGenerator = new LinksGenerator(null, 4);
+
+		//--- First generation ( no link )
+		int sequentialCount = generateSequentially(sequentialModel);
+		int parallelCount   = parallelGenerator.generateAllLinks(parallelModel);
+		assertTrue(sequentialCount > 0);
+		assertEquals(sequentialCount, parallelCount);
+		assertTrue(Arrays.equals(save(sequentialModel, "links_seq.dbrep"), save(parallelModel, "links_par.dbrep")));
+
+		//--- Second generation ( existing links replaced )
+		assertEquals(generateSequentially(sequentialModel), parallelGenerator.generateAllLinks(parallelModel));
+		assertTrue(Arrays.equals(save(sequentialModel, "links_seq2.dbrep"), save(parallelModel, "links_par2.dbrep")));
+	}
+	
+	public void testParallelSameAsSequential() throws Exception {
+		checkSameResult(1L);
+		checkSameResult(12345L);
+	}
+
+	public void testSmallModel() throws Exception {
+		RepositoryModel model = new RepositoryModel();
+		Entity author = buildEntity("AUTHOR");
+		author.storeColumn(buildColumn("ID", 1, true, false));
+		model.storeEntity(author);
+		Entity book = buildEntity("BOOK");
+		book.storeColumn(buildColumn("ID", 1, true, false));
+		book.storeColumn(buildColumn("AUTHOR_ID", 2, false, true));
+		addForeignKey(book, "FK_BOOK_AUTHOR", "AUTHOR_ID", "AUTHOR");
+		model.storeEntity(book);
+		
+		assertEquals(2, new LinksGenerator(null).generateAllLinks(model));
+		assertNotNull(book.getLink("LINK_FK_FK_BOOK_AUTHOR_O"));
+		assertNotNull(author.getLink("LINK_FK_FK_BOOK_AUTHOR_I"));
+		assertEquals("listOfBeanBOOK", author.getLink("LINK_FK_FK_BOOK_AUTHOR_I").getJavaFieldName());
+	}
+}
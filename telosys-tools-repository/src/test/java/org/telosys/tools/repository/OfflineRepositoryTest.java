@@ -0,0 +1,111 @@
+package org.telosys.tools.repository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.sql.Types;
+import java.util.LinkedList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.ConsoleLogger;
+import org.telosys.tools.commons.dbcfg.DatabaseConfiguration;
+import org.telosys.tools.db.metadata.ColumnMetaData;
+import org.telosys.tools.db.metadata.ForeignKeyColumnMetaData;
+import org.telosys.tools.db.metadata.PrimaryKeyColumnMetaData;
+import org.telosys.tools.db.metadata.TableMetaData;
+import org.telosys.tools.db.model.DatabaseTable;
+import org.telosys.tools.db.model.DatabaseTables;
+import org.telosys.tools.db.model.DatabaseTablesReader;
+import org.telosys.tools.db.model.DatabaseTablesWriter;
+import org.telosys.tools.repository.config.EntityInformationProviderJava;
+import org.telosys.tools.repository.config.UserInterfaceInformationProviderHTML5;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.model.RepositoryModel;
+
+/**
+ * Repository generation and update from a "database model" file ( without database connection )
+ */
+public class OfflineRepositoryTest extends TestCase {
+
+	private ColumnMetaData column(String table, String name, int position, int jdbcType, String typeName, int size) {
+		return new ColumnMetaData(null, "PUBLIC", table, name, jdbcType, typeName, true, size, 0, 10, size, position, null, null);
+	}
+	
+	private DatabaseTable countryTable() {
+		List<ColumnMetaData> columns = new LinkedList<ColumnMetaData>();
+		columns.add(column("COUNTRY", "CODE", 1, Types.CHAR, "CHAR", 2));
+		columns.add(column("COUNTRY", "NAME", 2, Types.VARCHAR, "VARCHAR", 45));
+		List<PrimaryKeyColumnMetaData> pk = new LinkedList<PrimaryKeyColumnMetaData>();
+		pk.add(new PrimaryKeyColumnMetaData(null, "PUBLIC", "COUNTRY", "CODE", (short) 1, "PK_COUNTRY"));
+		return new DatabaseTable(new TableMetaData("COUNTRY", "TABLE", null, "PUBLIC", "Countries"), 
+				columns, pk, new LinkedList<ForeignKeyColumnMetaData>());
+	}
+	
+	private DatabaseTable cityTable(boolean withPopulation) {
+		List<ColumnMetaData> columns = new LinkedList<ColumnMetaData>();
+		columns.add(column("CITY", "ID", 1, Types.INTEGER, "INTEGER", 10));
+		columns.add(column("CITY", "COUNTRY_CODE", 2, Types.CHAR, "CHAR", 2));
+		columns.add(column("CITY", "NAME", 3, Types.VARCHAR, "VARCHAR", 80));
+		if ( withPopulation ) {
+			columns.add(column("CITY", "POPULATION", 4, Types.BIGINT, "BIGINT", 19));
+		}
+		List<PrimaryKeyColumnMetaData> pk = new LinkedList<PrimaryKeyColumnMetaData>();
+		pk.add(new PrimaryKeyColumnMetaData(null, "PUBLIC", "CITY", "ID", (short) 1, "PK_CITY"));
+		List<ForeignKeyColumnMetaData> fk = new LinkedList<ForeignKeyColumnMetaData>();
+		fk.add(new ForeignKeyColumnMetaData(null, "PUBLIC", "COUNTRY", "CODE", null, "PUBLIC", "CITY", "COUNTRY_CODE", 
+				(short) 1, (short) 3, (short) 3, "FK_CITY_COUNTRY", "PK_COUNTRY", (short) 7));
+		return new DatabaseTable(new TableMetaData("CITY", "TABLE", null, "PUBLIC", null), columns, pk, fk);
+	}
+	
+	/**
+	 * Writes the given tables in a database model and reads it 
+	 */
+	private DatabaseTables exportImport(DatabaseTable... tables) throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		DatabaseTablesWriter writer = new DatabaseTablesWriter(out, "OfflineDB");
+		for ( DatabaseTable table : tables ) {
+			writer.writeTable(table);
+		}
+		writer.close();
+		DatabaseTablesReader reader = new DatabaseTablesReader(new ByteArrayInputStream(out.toByteArray()));
+		try {
+			return reader.readTables();
+		} finally {
+			reader.close();
+		}
+	}
+	
+	private DatabaseConfiguration databaseConfiguration() {
+		DatabaseConfiguration databaseConfiguration = new DatabaseConfiguration();
+		databaseConfiguration.setDatabaseId(1);
+		databaseConfiguration.setDatabaseName("offline");
+		return databaseConfiguration ;
+	}
+	
+	public void testGenerateAndUpdate() throws Exception {
+		//--- Generation 
+		DatabaseTables tables = exportImport(countryTable(), cityTable(false));
+		RepositoryGenerator generator = new RepositoryGenerator(new EntityInformationProviderJava(), 
+				new UserInterfaceInformationProviderHTML5(), new ConsoleLogger());
+		RepositoryModel model = generator.generate(tables, databaseConfiguration());
+		
+		assertEquals("OfflineDB", model.getDatabaseProductName());
+		assertEquals("offline", model.getDatabaseName());
+		assertEquals(2, model.getNumberOfEntities());
+		Entity city = model.getEntityByName("CITY");
+		assertEquals(3, city.getColumns().length);
+		assertEquals(1, city.getLinks().length);
+		assertEquals(1, model.getEntityByName("COUNTRY").getLinks().length);
+		
+		//--- Update with a new column 
+		File logFile = File.createTempFile("telosys-update", ".log");
+		logFile.deleteOnExit();
+		RepositoryUpdator updator = new RepositoryUpdator(new EntityInformationProviderJava(), 
+				new UserInterfaceInformationProviderHTML5(), new ConsoleLogger(), new UpdateLogWriter(logFile));
+		int changes = updator.updateRepository(exportImport(countryTable(), cityTable(true)), model);
+		assertEquals(1, changes);
+		assertEquals(4, model.getEntityByName("CITY").getColumns().length);
+	}
+}
@@ -0,0 +1,115 @@
+package org.telosys.tools.repository.diff;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.ConsoleLogger;
+import org.telosys.tools.commons.TelosysToolsException;
+import org.telosys.tools.repository.model.Column;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.model.ForeignKey;
+import org.telosys.tools.repository.model.Link;
+import org.telosys.tools.repository.model.RepositoryModel;
+import org.telosys.tools.repository.persistence.StandardFilePersistenceManager;
+
+public class RepositoryModelDiffTest extends TestCase {
+
+	private final static String REPOSITORY_FILE  = "src/test/resources/repos/repo_for_tests.dbrep" ;
+	
+	private RepositoryModel loadModel() throws TelosysToolsException {
+		StandardFilePersistenceManager pm = new StandardFilePersistenceManager(REPOSITORY_FILE, new ConsoleLogger());
+		return pm.load();
+	}
+	
+	public void testIdenticalModels() throws Exception {
+		ModelChanges changes = new RepositoryModelDiff().compare(loadModel(), loadModel());
+		assertTrue(changes.isEmpty());
+		assertEquals(0, changes.size());
+		assertFalse(changes.isLinksRegenerationRequired());
+	}
+
+	public void testColumnChanges() throws Exception {
+		RepositoryModel original = loadModel();
+		RepositoryModel current = loadModel();
+		Entity book = current.getEntityByName("BOOK");
+		Column[] columns = book.getColumns();
+		
+		Column modified = columns[0];
+		int size = modified.getDatabaseSize();
+		modified.setDatabaseSize(size + 10);
+		modified.setLabel("New label");
+		Column removed = columns[columns.length - 1];
+		book.removeColumn(removed);
+		Column added = new Column();
+		added.setDatabaseName("NEW_COLUMN");
+		added.setDatabasePosition(1000);
+		book.storeColumn(added);
+		
+		ModelChanges changes = new RepositoryModelDiff().compare(original, current);
+		assertEquals(3, changes.size());
+		assertEquals(1, changes.getChangedEntities().size());
+		assertTrue(changes.getChangedEntities().contains("BOOK"));
+		assertNull(changes.getEntityChange("BOOK"));
+		assertFalse(changes.isLinksRegenerationRequired());
+		
+		ModelChange change = changes.getEntityChanges("BOOK").get(0);
+		assertTrue(change.isModified());
+		assertEquals(ModelChange.COLUMN, change.getElementKind());
+		assertEquals(modified.getDatabaseName(), change.getElementName());
+		assertEquals(2, change.getFieldChanges().size());
+		assertEquals(Integer.toString(size), change.getFieldChange("databaseSize").getOldValue());
+		assertEquals(Integer.toString(size + 10), change.getFieldChange("databaseSize").getNewValue());
+		assertEquals("New label", change.getFieldChange("label").getNewValue());
+		assertNull(change.getFieldChange("javaType"));
+		
+		change = changes.getEntityChanges("BOOK").get(1);
+		assertTrue(change.isAdded());
+		assertEquals("NEW_COLUMN", change.getElementName());
+		
+		change = changes.getEntityChanges("BOOK").get(2);
+		assertTrue(change.isRemoved());
+		assertEquals(removed.getDatabaseName(), change.getElementName());
+		assertEquals("Column '" + removed.getDatabaseName() + "' removed", change.toString());
+	}
+	
+	public void testEntityAndForeignKeyChanges() throws Exception {
+		RepositoryModel original = loadModel();
+		RepositoryModel current = loadModel();
+		
+		current.removeEntity("COUNTRY");
+		Entity entity = new Entity();
+		entity.setName("NEW_TABLE");
+		current.storeEntity(entity);
+		current.getEntityByName("BOOK").setDatabaseType("VIEW");
+		
+		ForeignKey fk = current.getEntityByName("BOOK").getForeignKeys()[0];
+		current.getEntityByName("BOOK").removeForeignKey(fk);
+		
+		ModelChanges changes = new RepositoryModelDiff().compare(original, current);
+		assertTrue(changes.isLinksRegenerationRequired());
+		assertTrue(changes.getEntityChange("COUNTRY").isRemoved());
+		assertTrue(changes.getEntityChange("NEW_TABLE").isAdded());
+		assertTrue(changes.getEntityChange("BOOK").isModified());
+		assertEquals("VIEW", changes.getEntityChange("BOOK").getFieldChange("databaseType").getNewValue());
+		assertEquals(3, changes.getChanges(ModelChange.ENTITY).size());
+		assertEquals(1, changes.getChanges(ModelChange.FOREIGN_KEY).size());
+		assertEquals(fk.getName(), changes.getChanges(ModelChange.FOREIGN_KEY).get(0).getElementName());
+		assertTrue(changes.getChanges(ModelChange.FOREIGN_KEY).get(0).isRemoved());
+	}
+
+	public void testLinkChanges() throws Exception {
+		RepositoryModel original = loadModel();
+		RepositoryModel current = loadModel();
+		
+		Link link = current.getEntityByName("BOOK").getLinks()[0];
+		String fetch = link.getFetch();
+		link.setFetch("LAZY".equals(fetch) ? "EAGER" : "LAZY");
+		
+		ModelChanges changes = new RepositoryModelDiff().compare(original, current);
+		assertEquals(1, changes.size());
+		ModelChange change = changes.getChanges(ModelChange.LINK).get(0);
+		assertTrue(change.isModified());
+		assertEquals(link.getId(), change.getElementName());
+		assertEquals(fetch, change.getFieldChange("fetch").getOldValue());
+		assertEquals(link.getFetch(), change.getFieldChange("fetch").getNewValue());
+	}
+}
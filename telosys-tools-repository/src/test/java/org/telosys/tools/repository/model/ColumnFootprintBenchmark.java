@@ -0,0 +1,63 @@
+package org.telosys.tools.repository.model;
+
+/**
+ * Heap footprint of the columns built as the XML loader does <br>
+ * Benchmark to be launched explicitly ( "main" ), not a unit test 
+ */
+public class ColumnFootprintBenchmark {
+
+	private final static int COLUMNS = 300000 ;
+	
+	final static String[] DB_TYPES   = { "VARCHAR", "INTEGER", "DATE", "NUMERIC", "CHAR", "TIMESTAMP" } ;
+	private final static String[] JAVA_TYPES = { "java.lang.String", "java.lang.Integer", "java.util.Date", 
+												 "java.math.BigDecimal", "java.lang.String", "java.util.Date" } ;
+	
+	/**
+	 * Builds a column as the XML loader does ( a new String instance for each attribute value )
+	 * @param i
+	 * @return
+	 */
+	static Column buildColumn(int i) {
+		int t = i % DB_TYPES.length ;
+		Column column = new Column();
+		column.setDatabaseName(new String("COLUMN_" + i));
+		column.setDatabaseTypeName(new String(DB_TYPES[t]));
+		column.setDatabaseSize(20);
+		column.setDatabasePosition(i);
+		column.setDatabaseDefaultValue(new String(""));
+		column.setDatabaseComment(new String(""));
+		column.setJavaName(new String("column" + i));
+		column.setJavaType(new String(JAVA_TYPES[t]));
+		column.setPrimaryKey( i % 10 == 0 );
+		column.setDatabaseNotNull( i % 3 == 0 );
+		column.setDateBeforeValue(new String(""));
+		column.setDateAfterValue(new String(""));
+		column.setLabel(new String(""));
+		column.setInputType(new String(""));
+		if ( i % 100 == 0 ) {
+			column.setMaxLength(new String("20"));
+		}
+		return column ;
+	}
+	
+	private static long usedMemory() {
+		Runtime runtime = Runtime.getRuntime();
+		for ( int i = 0 ; i < 3 ; i++ ) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory() ;
+	}
+	
+	public static void main(String[] args) {
+		long before = usedMemory();
+		Column[] columns = new Column[COLUMNS] ;
+		for ( int i = 0 ; i < COLUMNS ; i++ ) {
+			columns[i] = buildColumn(i);
+		}
+		long after = usedMemory();
+		long bytesPerColumn = ( after - before ) / columns.length ;
+		System.out.println("Heap footprint : " + columns.length + " columns -> " 
+				+ ( ( after - before ) / 1024 ) + " KB ( " + bytesPerColumn + " bytes per column, " 
+				+ StringPool.size() + " shared strings )");
+	}
+}
@@ -0,0 +1,70 @@
+package org.telosys.tools.repository.model;
+
+import junit.framework.TestCase;
+
+/**
+ * Memory-compact Column ( see ColumnFootprintBenchmark for the heap footprint measure )
+ */
+public class ColumnFootprintTest extends TestCase {
+
+	public void testSharedStrings() {
+		Column c1 = ColumnFootprintBenchmark.buildColumn(1);
+		Column c2 = ColumnFootprintBenchmark.buildColumn(1 + ColumnFootprintBenchmark.DB_TYPES.length);
+		assertSame(c1.getDatabaseTypeName(), c2.getDatabaseTypeName());
+		assertSame(c1.getJavaType(), c2.getJavaType());
+		assertNotSame(c1.getDatabaseName(), c2.getDatabaseName());
+		
+		c1.setDateType(new String(Column.SPECIAL_DATE_ONLY));
+		assertSame(Column.SPECIAL_DATE_ONLY, c1.getDateType());
+		
+		c1.setBooleanTrueValue(new String("Y"));
+		c2.setBooleanTrueValue(new String("Y"));
+		assertSame(c1.getBooleanTrueValue(), c2.getBooleanTrueValue());
+		assertNull(StringPool.intern(null));
+		
+		//--- High-cardinality values are not shared
+		c1.setDatabaseDefaultValue(new String("0"));
+		c2.setDatabaseDefaultValue(new String("0"));
+		assertNotSame(c1.getDatabaseDefaultValue(), c2.getDatabaseDefaultValue());
+		c1.setJavaDefaultValue(new String("0"));
+		c2.setJavaDefaultValue(new String("0"));
+		assertNotSame(c1.getJavaDefaultValue(), c2.getJavaDefaultValue());
+		c1.setFormat(new String("%d"));
+		c2.setFormat(new String("%d"));
+		assertNotSame(c1.getFormat(), c2.getFormat());
+	}
+
+	public void testFlagsAndValidation() {
+		Column column = new Column();
+		assertTrue(column.getSelected());
+		assertFalse(column.isPrimaryKey());
+		assertNull(column.getMinLength());
+		assertNull(column.getDateBeforeValue());
+		
+		column.setPrimaryKey(true);
+		column.setDateAfter(true);
+		column.setDateBeforeValue("");
+		assertTrue(column.isPrimaryKey());
+		assertTrue(column.isDateAfter());
+		assertFalse(column.isDateBefore());
+		assertTrue(column.getSelected());
+		assertEquals("", column.getDateBeforeValue());
+		assertNull(column.getDateAfterValue());
+
+		column.setMinValue("10");
+		assertEquals("10", column.getMinValue());
+		assertEquals("", column.getDateBeforeValue());
+		assertNull(column.getMaxValue());
+		
+		column.setPrimaryKey(false);
+		column.setSelected(false);
+		assertFalse(column.isPrimaryKey());
+		assertFalse(column.getSelected());
+		assertTrue(column.isDateAfter());
+		
+		column.clearSpecialTypeInfo();
+		assertFalse(column.isDateAfter());
+		assertNull(column.getMinValue());
+		assertNull(column.getDateBeforeValue());
+	}
+}
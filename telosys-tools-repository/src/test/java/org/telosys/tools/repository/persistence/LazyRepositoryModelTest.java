@@ -0,0 +1,159 @@
+package org.telosys.tools.repository.persistence;
+
+import java.io.File;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.ConsoleLogger;
+import org.telosys.tools.commons.FileUtil;
+import org.telosys.tools.repository.diff.RepositoryModelDiff;
+import org.telosys.tools.repository.model.Column;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.model.RepositoryModel;
+
+public class LazyRepositoryModelTest extends TestCase {
+
+	private final static String REPOSITORY_FILE = "src/test/resources/repos/repo_for_tests.dbrep" ;
+	
+	private final static int TABLES  = 5000 ;
+	private final static int COLUMNS = 10 ;
+	
+	private File copyRepository(String name) throws Exception {
+		File file = new File("target/tests-tmp/" + name);
+		file.getParentFile().mkdirs();
+		FileUtil.copy(REPOSITORY_FILE, file.getAbsolutePath(), true);
+		RepositoryIndex.getIndexFile(file).delete();
+		return file ;
+	}
+	
+	private File createHugeRepository() throws Exception {
+		File file = new File("target/tests-tmp/huge.dbrep");
+		file.getParentFile().mkdirs();
+		RepositoryIndex.getIndexFile(file).delete();
+		RepositoryModel model = new RepositoryModel();
+		model.setDatabaseName("Huge");
+		model.setDatabaseProductName("Test");
+		model.setGenerationDate(new java.util.Date());
+		for ( int t = 0 ; t < TABLES ; t++ ) {
+			Entity entity = new Entity();
+			entity.setName("TABLE_" + t);
+			entity.setBeanJavaClass("Table" + t);
+			entity.setCatalog("");
+			entity.setSchema("");
+			for ( int c = 0 ; c < COLUMNS ; c++ ) {
+				Column column = new Column();
+				column.setDatabaseName("COL_" + c);
+				column.setDatabaseTypeName("VARCHAR");
+				column.setDatabaseSize(20);
+				column.setDatabasePosition(c + 1);
+				column.setDatabaseDefaultValue("");
+				column.setDatabaseComment("");
+				column.setJdbcTypeCode(12);
+				column.setJavaName("col" + c);
+				column.setJavaType("java.lang.String");
+				column.setPrimaryKey(c == 0);
+				column.setLabel("");
+				column.setInputType("");
+				entity.storeColumn(column);
+			}
+			model.storeEntity(entity);
+		}
+		new StandardFilePersistenceManager(file, null).save(model);
+		return file ;
+	}
+	
+	public void testSameModel() throws Exception {
+		File file = copyRepository("repo_lazy.dbrep");
+		RepositoryModel eager = new StandardFilePersistenceManager(file, new ConsoleLogger()).load();
+		LazyRepositoryModel lazy = (LazyRepositoryModel) new StandardFilePersistenceManager(file, new ConsoleLogger()).loadLazily();
+		assertTrue(RepositoryIndex.getIndexFile(file).exists());
+		
+		assertEquals(0, lazy.getLoadCount());
+		assertEquals(eager.getDatabaseName(), lazy.getDatabaseName());
+		assertEquals(eager.getDatabaseProductName(), lazy.getDatabaseProductName());
+		assertEquals(eager.getDatabaseId(), lazy.getDatabaseId());
+		assertEquals(eager.getGenerationDate(), lazy.getGenerationDate());
+		assertEquals(eager.getNumberOfEntities(), lazy.getNumberOfEntities());
+		assertEquals(java.util.Arrays.asList(eager.getEntitiesNames()), java.util.Arrays.asList(lazy.getEntitiesNames()));
+		assertEquals(0, lazy.getLoadCount());
+		
+		Entity book = lazy.getEntityByName("BOOK");
+		assertNotNull(book);
+		assertEquals(1, lazy.getLoadCount());
+		assertSame(book, lazy.getEntityByName("BOOK"));
+		assertEquals(1, lazy.getLoadCount());
+		assertNull(lazy.getEntityByName("UNKNOWN"));
+		
+		assertTrue(new RepositoryModelDiff().compare(eager, lazy).isEmpty());
+		assertEquals(eager.getNumberOfEntities(), lazy.getLoadCount());
+	}
+
+	public void testChangesAndSave() throws Exception {
+		File file = copyRepository("repo_lazy_save.dbrep");
+		StandardFilePersistenceManager pm = new StandardFilePersistenceManager(file, new ConsoleLogger());
+		LazyRepositoryModel lazy = (LazyRepositoryModel) pm.loadLazily();
+		int count = lazy.getNumberOfEntities();
+		
+		lazy.removeEntity("COUNTRY");
+		assertNull(lazy.getEntityByName("COUNTRY"));
+		Entity entity = new Entity();
+		entity.setName("NEW_TABLE");
+		entity.setCatalog("");
+		entity.setSchema("");
+		entity.setBeanJavaClass("NewTable");
+		lazy.storeEntity(entity);
+		assertSame(entity, lazy.getEntityByName("NEW_TABLE"));
+		assertEquals(count, lazy.getNumberOfEntities());
+		
+		Entity book = lazy.getEntityByName("BOOK");
+		book.setBeanJavaClass("Livre");
+		lazy.storeEntity(book);
+		
+		//--- Save in the same file and reload
+		pm.save(lazy);
+		RepositoryModel reloaded = pm.loadLazily();
+		assertEquals(count, reloaded.getNumberOfEntities());
+		assertNull(reloaded.getEntityByName("COUNTRY"));
+		assertNotNull(reloaded.getEntityByName("NEW_TABLE"));
+		assertEquals("Livre", reloaded.getEntityByName("BOOK").getBeanJavaClass());
+		assertTrue(new RepositoryModelDiff().compare(pm.load(), reloaded).isEmpty());
+	}
+
+	public void testIndexInvalidation() throws Exception {
+		File file = copyRepository("repo_lazy_index.dbrep");
+		RepositoryIndex index = RepositoryIndex.getIndex(file);
+		assertTrue(index.isValid());
+		assertTrue(index.containsTable("BOOK"));
+		
+		//--- Index reused from the sidecar file
+		RepositoryIndex index2 = RepositoryIndex.getIndex(file);
+		assertEquals(index.getTablesCount(), index2.getTablesCount());
+		
+		//--- Repository file changed => index rebuilt 
+		file.setLastModified(file.lastModified() - 10000);
+		assertFalse(index2.isValid());
+		assertTrue(RepositoryIndex.getIndex(file).isValid());
+	}
+	
+	public void testHugeRepository() throws Exception {
+		File file = createHugeRepository();
+		StandardFilePersistenceManager pm = new StandardFilePersistenceManager(file, null);
+
+		long t0 = System.currentTimeMillis();
+		RepositoryModel eager = pm.load();
+		long t1 = System.currentTimeMillis();
+		LazyRepositoryModel lazy = (LazyRepositoryModel) pm.loadLazily(); // index creation
+		long t2 = System.currentTimeMillis();
+		lazy = (LazyRepositoryModel) pm.loadLazily(); // index reused
+		long t3 = System.currentTimeMillis();
+		System.out.println("Repository with " + TABLES + " tables : full load " + (t1 - t0) + " ms, "
+				+ "lazy open " + (t2 - t1) + " ms ( with index creation ), " + (t3 - t2) + " ms ( with index )");
+		
+		assertEquals(TABLES, lazy.getNumberOfEntities());
+		assertEquals(0, lazy.getLoadCount());
+		Entity entity = lazy.getEntityByName("TABLE_4242");
+		assertEquals(COLUMNS, entity.getColumns().length);
+		assertEquals(1, lazy.getLoadCount());
+		assertEquals(eager.getEntityByName("TABLE_4242").getBeanJavaClass(), entity.getBeanJavaClass());
+	}
+}
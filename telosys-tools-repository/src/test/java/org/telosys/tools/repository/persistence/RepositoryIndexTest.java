@@ -0,0 +1,125 @@
+package org.telosys.tools.repository.persistence;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.FileUtil;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.model.RepositoryModel;
+
+public class RepositoryIndexTest extends TestCase {
+
+	private final static String REPOSITORY_FILE = "src/test/resources/repos/repo_for_tests.dbrep" ;
+
+	private File copyRepository(String name) throws Exception {
+		File file = new File("target/tests-tmp/" + name);
+		file.getParentFile().mkdirs();
+		FileUtil.copy(REPOSITORY_FILE, file.getAbsolutePath(), true);
+		RepositoryIndex.getIndexFile(file).delete();
+		return file ;
+	}
+
+	/**
+	 * Changes the repository file content without changing its length and date
+	 * @param file
+	 * @param replacements pairs of strings ( "old", "new" )
+	 * @throws Exception
+	 */
+	private void changeContent(File file, String... replacements) throws Exception {
+		long lastModified = file.lastModified();
+		byte[] bytes = new byte[(int) file.length()];
+		FileInputStream is = new FileInputStream(file);
+		try {
+			assertEquals(bytes.length, is.read(bytes));
+		} finally {
+			is.close();
+		}
+		String content = new String(bytes, "ISO-8859-1");
+		for ( int i = 0 ; i < replacements.length ; i = i + 2 ) {
+			assertTrue(content.indexOf(replacements[i]) >= 0);
+			content = content.replace(replacements[i], replacements[i + 1]);
+		}
+		FileOutputStream os = new FileOutputStream(file);
+		try {
+			os.write(content.getBytes("ISO-8859-1"));
+		} finally {
+			os.close();
+		}
+		file.setLastModified(lastModified);
+		assertEquals(bytes.length, file.length());
+		assertEquals(lastModified, file.lastModified());
+	}
+
+	public void testTableRenamedWithSameLengthAndDate() throws Exception {
+		File file = copyRepository("repo_index_renamed.dbrep");
+		RepositoryIndex index = RepositoryIndex.getIndex(file);
+		assertTrue(index.containsTable("BOOK"));
+
+		changeContent(file, "name=\"BOOK\"", "name=\"BOOX\"");
+		assertTrue(index.isValid());
+		assertFalse(index.matchesContent());
+
+		//--- Sidecar file not reused => index rebuilt
+		RepositoryIndex index2 = RepositoryIndex.getIndex(file);
+		assertTrue(index2.containsTable("BOOX"));
+		assertFalse(index2.containsTable("BOOK"));
+		assertTrue(index2.matchesContent());
+	}
+
+	public void testTablesMovedWithSameLengthAndDate() throws Exception {
+		File file = copyRepository("repo_index_moved.dbrep");
+		RepositoryIndex index = RepositoryIndex.getIndex(file);
+		int count = index.getTablesCount();
+
+		changeContent(file, "Repository -->", "Repository-->", "</root>", " </root>");
+		assertTrue(index.isValid());
+		assertFalse(index.matchesContent());
+
+		RepositoryIndex index2 = RepositoryIndex.getIndex(file);
+		assertEquals(count, index2.getTablesCount());
+		assertTrue(index2.matchesContent());
+		assertNotNull(new StandardFilePersistenceManager(file, null).loadLazily().getEntityByName("BOOK"));
+	}
+
+	public void testEscapedNames() throws Exception {
+		File file = new File("target/tests-tmp/repo_index_names.dbrep");
+		file.getParentFile().mkdirs();
+		RepositoryIndex.getIndexFile(file).delete();
+		RepositoryModel model = new RepositoryModel();
+		model.setDatabaseName("Names");
+		model.setDatabaseProductName("Test");
+		model.setGenerationDate(new java.util.Date());
+		String[] names = { "A\nB", "C D", "E\\nF", "G&<H>\"'", "I\r\nJ\tK" } ;
+		for ( int i = 0 ; i < names.length ; i++ ) {
+			Entity entity = new Entity();
+			entity.setName(names[i]);
+			entity.setBeanJavaClass("Table" + i);
+			entity.setCatalog("");
+			entity.setSchema("");
+			model.storeEntity(entity);
+		}
+		StandardFilePersistenceManager pm = new StandardFilePersistenceManager(file, null);
+		pm.save(model);
+
+		//--- Same names as the DOM loader, after the scan and from the sidecar file
+		String[] expected = pm.load().getEntitiesNames();
+		Arrays.sort(expected);
+		RepositoryIndex index = RepositoryIndex.getIndex(file);
+		assertEquals(Arrays.asList(expected), Arrays.asList(index.getTablesNames()));
+		RepositoryIndex index2 = RepositoryIndex.getIndex(file);
+		assertEquals(Arrays.asList(expected), Arrays.asList(index2.getTablesNames()));
+		assertTrue(index2.matchesContent());
+		assertNotNull(index2.getTableDocument("E\\nF"));
+	}
+
+	public void testDecodeAttribute() {
+		assertEquals("A\nB", RepositoryIndex.decodeAttribute("A&#10;B"));
+		assertEquals("A&<>\"'", RepositoryIndex.decodeAttribute("&#x41;&amp;&lt;&gt;&quot;&apos;"));
+		assertEquals("A B C D", RepositoryIndex.decodeAttribute("A\r\nB\tC\nD"));
+		assertEquals("&amp;", RepositoryIndex.decodeAttribute("&#38;amp;"));
+	}
+}
@@ -0,0 +1,175 @@
+package org.telosys.tools.repository.persistence;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import junit.framework.TestCase;
+
+import org.telosys.tools.commons.FileUtil;
+import org.telosys.tools.repository.diff.RepositoryModelDiff;
+import org.telosys.tools.repository.model.Column;
+import org.telosys.tools.repository.model.Entity;
+import org.telosys.tools.repository.model.RepositoryModel;
+
+public class RepositorySaveTest extends TestCase {
+
+	private final static String REPOSITORY_FILE = "src/test/resources/repos/repo_for_tests.dbrep" ;
+	
+	private final static int TABLES = 3000 ;
+	
+	/**
+	 * Fragments cache exposed for the tests
+	 */
+	private static class TestPersistenceManager extends StandardFilePersistenceManager {
+		public TestPersistenceManager(File file) {
+			super(file, null);
+		}
+		public static EntityFragmentCache getCache(RepositoryModel model) {
+			return getFragmentCache(model);
+		}
+	}
+	
+	private File getFile(String name) {
+		File file = new File("target/tests-tmp/" + name);
+		file.getParentFile().mkdirs();
+		file.delete();
+		return file ;
+	}
+	
+	private byte[] read(File file) throws Exception {
+		byte[] content = new byte[(int) file.length()];
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			in.readFully(content);
+		} finally {
+			in.close();
+		}
+		return content ;
+	}
+	
+	/**
+	 * Returns the model serialized with a whole DOM document ( reference result )
+	 */
+	private byte[] fullSave(RepositoryModel model) throws Exception {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		new StandardFilePersistenceManager(getFile("unused.dbrep"), null).save(baos, model);
+		return baos.toByteArray();
+	}
+	
+	private RepositoryModel loadTestRepository() throws Exception {
+		File file = getFile("repo_save_source.dbrep");
+		FileUtil.copy(REPOSITORY_FILE, file.getAbsolutePath(), true);
+		return new StandardFilePersistenceManager(file, null).load();
+	}
+	
+	public void testIncrementalSave() throws Exception {
+		RepositoryModel model = loadTestRepository();
+		File file = getFile("repo_save.dbrep");
+		StandardFilePersistenceManager pm = new StandardFilePersistenceManager(file, null);
+		EntityFragmentCache cache = TestPersistenceManager.getCache(model);
+		int entities = model.getNumberOfEntities();
+		
+		//--- First save : all the entities are serialized
+		pm.save(model);
+		assertTrue(Arrays.equals(fullSave(model), read(file)));
+		assertEquals(entities, cache.getSerializedCount());
+		assertEquals(0, cache.getReusedCount());
+		assertFalse(new File(file.getAbsolutePath() + ".tmp").exists());
+		
+		//--- One column changed : only its entity is serialized again 
+		Column column = model.getEntityByName("BOOK").getColumns()[1];
+		column.setLabel("Changed & <label>");
+		pm.save(model);
+		assertTrue(Arrays.equals(fullSave(model), read(file)));
+		assertEquals(entities + 1, cache.getSerializedCount());
+		assertEquals(entities - 1, cache.getReusedCount());
+		
+		//--- Changed entity given by the caller : the other entities are not checked 
+		Entity book = model.getEntityByName("BOOK");
+		book.getColumns()[2].setLabel("Title");
+		pm.save(model, Collections.singletonList(book));
+		assertTrue(Arrays.equals(fullSave(model), read(file)));
+		assertEquals(entities + 2, cache.getSerializedCount());
+		assertEquals(2 * (entities - 1), cache.getReusedCount());
+		
+		//--- Reloaded 
+		RepositoryModel reloaded = pm.load();
+		assertEquals("Changed & <label>", reloaded.getEntityByName("BOOK").getColumns()[1].getLabel());
+		assertTrue(new RepositoryModelDiff().compare(model, reloaded).isEmpty());
+	}
+	
+	public void testCompressedFile() throws Exception {
+		RepositoryModel model = loadTestRepository();
+		File file = getFile("repo_save.dbrep.gz");
+		StandardFilePersistenceManager pm = new StandardFilePersistenceManager(file, null);
+		pm.save(model);
+		assertTrue(StandardFilePersistenceManager.isCompressed(file));
+		assertTrue(file.length() < fullSave(model).length);
+		
+		//--- Transparent loading 
+		assertTrue(new RepositoryModelDiff().compare(model, pm.load()).isEmpty());
+		assertTrue(new RepositoryModelDiff().compare(model, pm.loadLazily()).isEmpty());
+		
+		//--- Not compressed 
+		File file2 = getFile("repo_save_not_compressed.dbrep");
+		new StandardFilePersistenceManager(file2, null).save(model);
+		assertFalse(StandardFilePersistenceManager.isCompressed(file2));
+	}
+	
+	public void testLargeRepository() throws Exception {
+		RepositoryModel model = new RepositoryModel();
+		model.setDatabaseName("Large");
+		model.setDatabaseProductName("Test");
+		model.setGenerationDate(new java.util.Date());
+		for ( int t = 0 ; t < TABLES ; t++ ) {
+			Entity entity = new Entity();
+			entity.setName("TABLE_" + t);
+			entity.setBeanJavaClass("Table" + t);
+			entity.setCatalog("");
+			entity.setSchema("");
+			for ( int c = 0 ; c < 10 ; c++ ) {
+				Column column = new Column();
+				column.setDatabaseName("COL_" + c);
+				column.setDatabaseTypeName("VARCHAR");
+				column.setDatabaseSize(20);
+				column.setDatabasePosition(c + 1);
+				column.setDatabaseDefaultValue("");
+				column.setDatabaseComment("");
+				column.setJdbcTypeCode(12);
+				column.setJavaName("col" + c);
+				column.setJavaType("java.lang.String");
+				column.setLabel("Label " + c);
+				column.setInputType("");
+				entity.storeColumn(column);
+			}
+			model.storeEntity(entity);
+		}
+		File file = getFile("repo_save_large.dbrep");
+		StandardFilePersistenceManager pm = new StandardFilePersistenceManager(file, null);
+		
+		fullSave(model); // warm up
+		long t0 = System.currentTimeMillis();
+		byte[] full = fullSave(model);
+		long t1 = System.currentTimeMillis();
+		pm.save(model);
+		long t2 = System.currentTimeMillis();
+		model.getEntityByName("TABLE_1234").getColumn("COL_5").setLabel("New label");
+		pm.save(model);
+		long t3 = System.currentTimeMillis();
+		Entity entity = model.getEntityByName("TABLE_2345");
+		entity.getColumn("COL_6").setLabel("New label");
+		pm.save(model, Collections.singletonList(entity));
+		long t4 = System.currentTimeMillis();
+		System.out.println("Repository with " + TABLES + " tables : whole DOM save " + (t1 - t0) + " ms, "
+				+ "first save " + (t2 - t1) + " ms, save after 1 change " + (t3 - t2) + " ms, "
+				+ "save of 1 given changed entity " + (t4 - t3) + " ms");
+		
+		assertFalse(Arrays.equals(full, read(file)));
+		assertTrue(Arrays.equals(fullSave(model), read(file)));
+		assertEquals(TABLES + 2, TestPersistenceManager.getCache(model).getSerializedCount());
+	}
+}